@@ -0,0 +1,244 @@
+package nowhere2gopp.gamelogic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.MoveType;
+
+/**
+ * Benchmarks of the hot paths of the {@link nowhere2gopp.gamelogic.GameBoard GameBoard}.
+ * Every benchmark runs on the recorded positions of the {@link nowhere2gopp.gamelogic.PositionCorpus PositionCorpus}
+ * for the board sizes and phases given by the parameters, so the numbers of different versions are comparable.
+ * Throughput and the latency percentiles are reported per operation, the allocation rate with the gc profiler
+ * that is enabled by the "benchmark" target of the build file.
+ * The move maps of size 5 in phase two need more than the default heap, so the fork gets 4GB.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GameBoardBenchmark {
+    /**
+     * Seed used to choose the moves of the benchmarks
+     */
+    private static final long SEED = 42L;
+
+    /**
+     * Positions of one board size and phase, replayed once per trial
+     */
+    @State(Scope.Thread)
+    public static class Positions {
+        /**
+         * Size of the board
+         */
+        @Param({"1", "2", "3", "4", "5"})
+        public int size;
+
+        /**
+         * Phase of the positions
+         */
+        @Param({"ONE", "TWO", "THREE"})
+        public String phase;
+
+        /**
+         * Replayed boards, one per position of the corpus
+         */
+        GameBoard[] boards;
+
+        /**
+         * A legal move for every board in {@link #boards boards}
+         */
+        Move[] moves;
+
+        /**
+         * Index of the position that is used next
+         */
+        int next;
+
+        @Setup(Level.Trial)
+        public void load() throws Exception {
+            List<PositionCorpus.Position> positions = PositionCorpus.load(size, GamePhase.valueOf(phase));
+            Random rand = new Random(SEED);
+            boards = new GameBoard[positions.size()];
+            moves  = new Move[positions.size()];
+            for (int i = 0; i < boards.length; i++) {
+                boards[i] = positions.get(i).replay();
+                moves[i]  = pickMove(boards[i], rand);
+            }
+        }
+
+        /**
+         * Returns the index of the next position, the positions are used round robin
+         * @return index into {@link #boards boards} and {@link #moves moves}
+         */
+        int nextIndex() {
+            int i = next;
+            next = (next + 1) % boards.length;
+            return i;
+        }
+    }
+
+    /**
+     * State of {@link #make(MakeState) make}: a fresh copy of a position before every call,
+     * because the move changes the board
+     */
+    @State(Scope.Thread)
+    public static class MakeState {
+        /**
+         * Board the move is made on
+         */
+        GameBoard board;
+
+        /**
+         * Move that is made
+         */
+        Move move;
+
+        @Setup(Level.Invocation)
+        public void copy(final Positions positions) {
+            int i = positions.nextIndex();
+            board = (GameBoard) new Serialize().deepCopyObject(positions.boards[i]);
+            move  = positions.moves[i];
+        }
+    }
+
+    /**
+     * State of {@link #pathFinder(Positions, PathState) pathFinder}: start and destination for every position
+     */
+    @State(Scope.Thread)
+    public static class PathState {
+        /**
+         * Start nodes, the agent of the player in phase three, else the first white site
+         */
+        Node[] start;
+
+        /**
+         * Destination nodes, the last white site of the board
+         */
+        Node[] dest;
+
+        @Setup(Level.Trial)
+        public void pick(final Positions positions) {
+            start = new Node[positions.boards.length];
+            dest  = new Node[positions.boards.length];
+            for (int i = 0; i < start.length; i++) {
+                GameBoard board = positions.boards[i];
+                List<Node> white = new ArrayList<>(board.getWhiteSites());
+                white.sort((a, b) -> a.getSite().toString().compareTo(b.getSite().toString()));
+                start[i] = board.getGamePhase() == GamePhase.THREE ? board.getNode(board.getAgent(board.getTurn())) : white.get(0);
+                dest[i]  = white.get(white.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * State of {@link #playout(Positions, PlayoutState) playout}: one playout and random generator per thread
+     */
+    @State(Scope.Thread)
+    public static class PlayoutState {
+        /**
+         * Playout of the board size
+         */
+        Playout playout;
+
+        /**
+         * Seeded random generator of the moves
+         */
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void create(final Positions positions) {
+            playout = new Playout(positions.boards[0].getTopology());
+            random  = new SplittableRandom(SEED);
+        }
+    }
+
+    /**
+     * Chooses a seeded random legal move that is not a surrender
+     * @param  board board to choose the move on
+     * @param  rand  random generator
+     * @return       legal move
+     */
+    static Move pickMove(final GameBoard board, final Random rand) {
+        List<Move> possible = new ArrayList<>(board.getPossibleMoves(board.getTurn()).values());
+        possible.removeIf(m -> m.getType() == MoveType.Surrender);
+        possible.sort((a, b) -> a.toString().compareTo(b.toString()));
+        return possible.get(rand.nextInt(possible.size()));
+    }
+
+    /**
+     * Makes a legal move; the moves of the next player are generated when they are asked for
+     */
+    @Benchmark
+    public GameBoard make(final MakeState state) {
+        state.board.make(state.move);
+        return state.board;
+    }
+
+    /**
+     * Plays a random game from a position to the end without allocating
+     */
+    @Benchmark
+    public int playout(final Positions positions, final PlayoutState state) {
+        state.playout.reset(positions.boards[positions.nextIndex()]);
+        state.playout.play(state.random);
+        return state.playout.getPlies();
+    }
+
+    /**
+     * Generates the moves of the current player again: the LinkLink moves in phase one,
+     * the AgentLink moves in the phases two and three
+     */
+    @Benchmark
+    public void generateMoves(final Positions positions) {
+        GameBoard board = positions.boards[positions.nextIndex()];
+        if (board.getGamePhase() == GamePhase.ONE)
+          board.calculatePhaseOneMoves();
+        else
+          board.prepAgentLinkMoves();
+    }
+
+    /**
+     * Searches a path between two sites
+     */
+    @Benchmark
+    public boolean pathFinder(final Positions positions, final PathState path) {
+        int i = positions.nextIndex();
+        return positions.boards[i].pathFinder(path.start[i], path.dest[i]);
+    }
+
+    /**
+     * Copies a board by serialization, as the AI does for every tested move
+     */
+    @Benchmark
+    public Object deepCopy(final Positions positions) {
+        return new Serialize().deepCopyObject(positions.boards[positions.nextIndex()]);
+    }
+
+    /**
+     * Parses the String form of a move, as the network and the console input do
+     */
+    @Benchmark
+    public void parse(final Positions positions, final Blackhole hole) {
+        hole.consume(Move.parse(positions.moves[positions.nextIndex()].toString()));
+    }
+}
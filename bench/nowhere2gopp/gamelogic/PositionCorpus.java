@@ -0,0 +1,210 @@
+package nowhere2gopp.gamelogic;
+
+import java.io.BufferedReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.MoveType;
+import nowhere2gopp.preset.Status;
+
+/**
+ * This class holds the recorded mid-game positions the benchmarks are run on.
+ * Every position is stored as the board size, the {@link nowhere2gopp.gamelogic.GamePhase GamePhase} it is in
+ * and the moves that lead to it, one position per line:
+ * <pre>size phase move move move ...</pre>
+ * The corpus is loaded from the classpath resource {@link #RESOURCE RESOURCE}. It can be recorded again with
+ * {@link #main(String[]) main}, which plays seeded random games so the same corpus is created every time.
+ */
+public final class PositionCorpus {
+    /**
+     * Name of the classpath resource the corpus is loaded from
+     */
+    public static final String RESOURCE = "/positions.txt";
+
+    /**
+     * Seed of the random games that are recorded
+     */
+    private static final long SEED = 2018L;
+
+    /**
+     * Games that are recorded per board size
+     */
+    private static final int GAMES_PER_SIZE = 3;
+
+    /**
+     * Utility class, no instances
+     */
+    private PositionCorpus() {}
+
+    /**
+     * A recorded position
+     */
+    public static final class Position {
+        /**
+         * Size of the board
+         */
+        public final int size;
+
+        /**
+         * Phase of the game in this position
+         */
+        public final GamePhase phase;
+
+        /**
+         * Moves that lead to this position, starting at the empty board
+         */
+        public final List<Move> moves;
+
+        /**
+         * Constructor of a position
+         * @param size  size of the board
+         * @param phase phase of the game
+         * @param moves moves that lead to the position
+         */
+        Position(final int size, final GamePhase phase, final List<Move> moves) {
+            this.size  = size;
+            this.phase = phase;
+            this.moves = Collections.unmodifiableList(moves);
+        }
+
+        /**
+         * Creates a new board and makes all {@link #moves moves} on it
+         * @return board in this position
+         */
+        public GameBoard replay() {
+            GameBoard board = new GameBoard(size);
+            for (Move move : moves) {
+                board.make(move);
+            }
+            if (board.getGamePhase() != phase) {
+                throw new IllegalStateException("Corpus position ended in phase " + board.getGamePhase() + " instead of " + phase);
+            }
+            return board;
+        }
+
+        /**
+         * Returns the position as a line of the corpus file
+         * @return line in the format described in {@link PositionCorpus}
+         */
+        public String toString() {
+            StringBuilder line = new StringBuilder();
+            line.append(size).append(' ').append(phase);
+            for (Move move : moves) {
+                line.append(' ').append(move);
+            }
+            return line.toString();
+        }
+    }
+
+    /**
+     * Loads all positions of the given size and phase from the corpus
+     * @param  size  size of the board
+     * @param  phase phase of the game
+     * @return       positions in the order of the corpus file, never empty
+     * @throws IOException if the corpus can not be read
+     */
+    public static List<Position> load(final int size, final GamePhase phase) throws IOException {
+        List<Position> positions = new ArrayList<>();
+        for (Position position : loadAll()) {
+            if ((position.size == size) && (position.phase == phase)) positions.add(position);
+        }
+        if (positions.isEmpty()) {
+            throw new IllegalArgumentException("Corpus has no position of size " + size + " in phase " + phase);
+        }
+        return positions;
+    }
+
+    /**
+     * Loads every position of the corpus
+     * @return all positions
+     * @throws IOException if the corpus can not be read
+     */
+    public static List<Position> loadAll() throws IOException {
+        InputStream in = PositionCorpus.class.getResourceAsStream(RESOURCE);
+        if (in == null) throw new IOException("Corpus " + RESOURCE + " is not on the classpath");
+
+        List<Position> positions = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] token = line.split(" ");
+                List<Move> moves = new ArrayList<>();
+                for (int i = 2; i < token.length; i++) {
+                    moves.add(Move.parse(token[i]));
+                }
+                positions.add(new Position(Integer.parseInt(token[0]), GamePhase.valueOf(token[1]), moves));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Plays a seeded random game and records positions in the middle of phase one, at both placements of phase two
+     * and at the start and in the middle of phase three.
+     * @param size      size of the board
+     * @param rand      random generator of the game
+     * @param positions list the recorded positions are added to
+     */
+    private static void record(final int size, final Random rand, final List<Position> positions) {
+        GameBoard board  = new GameBoard(size);
+        List<Move> moves = new ArrayList<>();
+        int midPhaseOne  = board.getPhaseOneRounds();   // plies, phase one has two plies per round
+        int phaseThree   = -1;
+
+        while (board.getStatus() == Status.Ok) {
+            int ply = moves.size();
+            GamePhase phase = board.getGamePhase();
+            if (((phase == GamePhase.ONE) && (ply == midPhaseOne)) || (phase == GamePhase.TWO)) {
+                positions.add(new Position(size, phase, new ArrayList<>(moves)));
+            } else if (phase == GamePhase.THREE) {
+                if (phaseThree < 0) phaseThree = ply;
+                if ((ply == phaseThree) || (ply == phaseThree + 4)) positions.add(new Position(size, phase, new ArrayList<>(moves)));
+            }
+
+            List<Move> possible = new ArrayList<>(board.getPossibleMoves(board.getTurn()).values());
+            possible.removeIf(m -> m.getType() == MoveType.Surrender);
+            if (possible.isEmpty()) break;
+            // sorted, so the choice does not depend on the iteration order of the HashMap
+            possible.sort((a, b) -> a.toString().compareTo(b.toString()));
+            Move move = possible.get(rand.nextInt(possible.size()));
+            board.make(move);
+            moves.add(move);
+        }
+    }
+
+    /**
+     * Records the corpus for the board sizes 1 to 5 and writes it to the given file
+     * @param args path of the corpus file, "bench/resources/positions.txt" if not given
+     * @throws IOException if the file can not be written
+     */
+    public static void main(final String[] args) throws IOException {
+        String file = args.length > 0 ? args[0] : "bench/resources/positions.txt";
+        Random rand = new Random(SEED);
+        List<Position> positions = new ArrayList<>();
+        for (int size = 1; size <= 5; size++) {
+            for (int game = 0; game < GAMES_PER_SIZE; game++) {
+                record(size, rand, positions);
+            }
+        }
+
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.println("# Recorded with nowhere2gopp.gamelogic.PositionCorpus, seed " + SEED);
+            out.println("# size phase moves...");
+            for (Position position : positions) {
+                out.println(position);
+            }
+        }
+        System.out.println(positions.size() + " positions written to " + file);
+    }
+}
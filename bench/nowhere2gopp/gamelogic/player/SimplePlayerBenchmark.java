@@ -0,0 +1,89 @@
+package nowhere2gopp.gamelogic.player;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nowhere2gopp.gamelogic.GamePhase;
+import nowhere2gopp.gamelogic.PositionCorpus;
+import nowhere2gopp.preset.Move;
+
+/**
+ * Benchmark of the move search of the {@link nowhere2gopp.gamelogic.player.SimplePlayer SimplePlayer}
+ * on the recorded positions of the {@link nowhere2gopp.gamelogic.PositionCorpus PositionCorpus}.
+ * A single search takes seconds from board size 3 on, so only the sizes 1 and 2 run by default,
+ * bigger boards can be chosen with "-p size=3" in the bench.args of the build file.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SimplePlayerBenchmark {
+    /**
+     * Players that are set up in the recorded positions, one per position
+     */
+    @State(Scope.Thread)
+    public static class Players {
+        /**
+         * Size of the board
+         */
+        @Param({"1", "2"})
+        public int size;
+
+        /**
+         * Phase of the positions
+         */
+        @Param({"ONE", "TWO", "THREE"})
+        public String phase;
+
+        /**
+         * Players whose turn it is in the positions
+         */
+        SimplePlayer[] players;
+
+        /**
+         * Index of the player that is used next
+         */
+        int next;
+
+        @Setup(Level.Trial)
+        public void load() throws Exception {
+            List<PositionCorpus.Position> positions = PositionCorpus.load(size, GamePhase.valueOf(phase));
+            players = new SimplePlayer[positions.size()];
+            for (int i = 0; i < players.length; i++) {
+                PositionCorpus.Position position = positions.get(i);
+                SimplePlayer player = new SimplePlayer();
+                // the moves are made on the board of the player directly, so it is in the position without the request/update cycle
+                player.init(size, position.replay().getTurn());
+                for (Move move : position.moves) {
+                    player.getGameBoard().make(move);
+                }
+                players[i] = player;
+            }
+        }
+    }
+
+    /**
+     * Searches the next move of the player whose turn it is. The search works on copies, the board of the player
+     * is not changed.
+     */
+    @Benchmark
+    public Move requestMove(final Players state) throws Exception {
+        SimplePlayer player = state.players[state.next];
+        state.next = (state.next + 1) % state.players.length;
+        return player.requestMove();
+    }
+}
@@ -2,13 +2,22 @@ package nowhere2gopp.gamelogic;
 
 import java.io.Serializable;
 import java.util.ArrayDeque;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import nowhere2gopp.gamelogic.gameIO.BoardListener;
 import nowhere2gopp.gamelogic.gameIO.BoardViewer;
+import nowhere2gopp.gamelogic.jfr.MoveEvent;
+import nowhere2gopp.gamelogic.jfr.MoveGenerationEvent;
+import nowhere2gopp.gamelogic.metrics.Counter;
+import nowhere2gopp.gamelogic.metrics.Histogram;
+import nowhere2gopp.gamelogic.metrics.Metrics;
+import nowhere2gopp.gamelogic.spectator.SpectatorFeed;
 import nowhere2gopp.preset.Move;
 import nowhere2gopp.preset.MoveType;
 import nowhere2gopp.preset.Playable;
@@ -81,6 +90,11 @@ public class GameBoard implements Playable, Serializable {
      */
     private volatile GamePhase currentPhase;
 
+    /**
+     * Sites, links and neighbours of the size, shared with all boards of that size. It is not serialized, a copy looks it up again.
+     */
+    private transient Topology topology;
+
     /**
      * Map of the Nodes that store the Site.
      */
@@ -92,7 +106,8 @@ public class GameBoard implements Playable, Serializable {
     private HashMap<SiteSet, SiteSet> links = new HashMap<>();
 
     /**
-     * Map of the possible Moves of Phase One.
+     * Map of the possible Moves of both players. A missing entry is generated by {@link #getPossibleMoves(PlayerColor) getPossibleMoves}
+     * when it is asked for, so boards that only make moves do not build maps that grow with the square of the links.
      */
     private EnumMap<PlayerColor, HashMap<Move, Move> > possibleMoves = new EnumMap<>(PlayerColor.class );
 
@@ -111,106 +126,111 @@ public class GameBoard implements Playable, Serializable {
      */
     private final Move surrender = new Move(MoveType.Surrender);
 
+    /**
+     * Undo information of the moves made with {@link #make(Move) make}, newest last.
+     * Null until {@link #enableUndo() enableUndo} is called, so boards that are never rolled back do not keep
+     * the old move maps alive. It is not serialized, a deep copy starts without history.
+     */
+    private transient ArrayDeque<UndoRecord> history;
+
+    /**
+     * Broadcasts the moves of this board to spectators. Null until {@link #spectate() spectate} is called, so the boards the
+     * AI simulates on pay nothing for it. It is not serialized.
+     */
+    private transient volatile SpectatorFeed feed;
+
+    /**
+     * Listeners that get the changes of this board, null until the first one is added, so boards without listeners only check for null
+     */
+    private transient volatile CopyOnWriteArrayList<BoardListener> listeners;
+
+    /**
+     * Number of moves and undos made on this board. Not volatile, so the search does not pay for it; other threads get it
+     * with the events
+     */
+    private long version;
+
+    /**
+     * Reachability of the last position it was asked for, see {@link #reachability() reachability}. It is not serialized.
+     */
+    private transient volatile Reachability reachability;
+
     /**
      * Serialize ID of the GameBoard.
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Duration of {@link #make(Move) make}, including the move generation it needs to check the move
+     */
+    private static final Histogram MAKE_TIME = Metrics.histogram("gameboard_make_seconds", "Duration of GameBoard.make including move generation");
+
+    /**
+     * Duration of {@link #calculatePhaseOneMoves() calculatePhaseOneMoves}
+     */
+    private static final Histogram LINKLINK_TIME = Metrics.histogram("gameboard_movegen_seconds", "Duration of the move generation", "moves", "LinkLink");
+
+    /**
+     * Duration of {@link #prepAgentLinkMoves() prepAgentLinkMoves}
+     */
+    private static final Histogram AGENTLINK_TIME = Metrics.histogram("gameboard_movegen_seconds", "Duration of the move generation", "moves", "AgentLink");
+
+    /**
+     * Moves made on all boards, including the boards the AI simulates on
+     */
+    private static final Counter MOVES = Metrics.counter("gameboard_moves_total", "Moves made on all game boards, including simulated ones");
+
+    /**
+     * Rejected moves
+     */
+    private static final Counter ILLEGAL_MOVES = Metrics.counter("gameboard_illegal_moves_total", "Moves rejected by GameBoard.make");
+
     // ---------------Konstruktor--------------------------------
 
     /**
      * Constructor of the GameBoard that is passed a integer k that determines the
      * size of the Gameboard and the amount of rounds in the first Gamephase.
      * The current status, Gamephase, turn and the Viewer are initialized and
-     * the links and Sites are created with {@link #createPossibleSites() createPossibleSites} and
-     * {@link #createPossibleLinks(int,int) createPossibleLinks(column,row)} respectivly.
-     * The possible moves of {@link nowhere2gopp.gamelogic.GamePhase#ONE Gamephase One} are
-     * calculated with {@link #calculatePhaseOneMoves()}.
+     * the links and Sites are created from the shared {@link nowhere2gopp.gamelogic.Topology Topology} of the size with
+     * {@link #createFromTopology() createFromTopology}.
+     * The possible moves are not calculated here, {@link #getPossibleMoves(PlayerColor) getPossibleMoves} builds them when they are needed.
+     * Boards larger than k = 5 need a {@link nowhere2gopp.preset.Site#BASE Site.BASE} of at least 2k+1, see the README for the memory
+     * and time they take.
      * @param size Integer that is stored in k and which is used to calculate the size and the amount of rounds of the first GamePhase of this board
      */
     public GameBoard(final int size) {
-        if ((1 <= size) && (size <= 5)) {
+        if ((1 <= size) && (2 * size + 1 <= Site.BASE)) {
             rounds = 1;
             k = size;
             gameboardSize = 2 * k + 1;
-            PhaseOneRounds = (1 << (k - 1)); // equivalent to 2^(k-1)
             status = Status.Ok;
             currentTurn = PlayerColor.Red;
             currentPhase = GamePhase.ONE;
-            createPossibleSites();
-            createPossibleLinks(0, 0);
-            calculatePhaseOneMoves();
+            topology = Topology.of(k);
+            createFromTopology();
+            PhaseOneRounds = topology.getPhaseOneRounds();
         } else {
-            throw new IllegalArgumentException("Given Integer must be 1 <= n <= 5 but it was " + size);
-        }
-    }
-
-    /**
-     * This method creates all possible Sites<br/>
-     * <pre>
-     *   3-4-5<br/>
-     *  2-3-4-4<br/>
-     * 1-2-3-3-3<br/>
-     *  1-2-2-2<br/>
-     *   1-1-1<br/>
-     *   <pre/>
-     * e.q. Ascii board with n=5=2*k+1 k=2
-     * per iteration step the sites(see the ascii exp.) are created{@link #createSite(int, int) createSite(int column, int row)} in nummerologic
-     * order.
-     * First the 1s than the 2s etc.
-     */
-    private void createPossibleSites() {
-        for (int i = 0; i < gameboardSize; i++) {
-                createSite(i, i);
-            for (int j = 1; j <= k; j++) {
-                createSite(i + j, i);
-                createSite(i, i + j);
-            }
+            throw new IllegalArgumentException("Given Integer must be 1 <= n <= " + (Site.BASE - 1) / 2 + " but it was " + size
+                                               + ", larger boards need the system property nowhere2gopp.base of at least 2n+1");
         }
     }
 
     /**
-     * This Method is called by createPossibleSites to construct the site with the
-     * given ints column and row. Than it is added to the Map{@link #sites sites} as part of a Node Object.
-     * @param column Integer of the Column of the Site.
-     * @param row Integer of the Row of the Site.
+     * This method creates the Sites and Links of the board from its {@link #topology topology}. Every Site gets a
+     * {@link nowhere2gopp.gamelogic.Node Node} that is put into {@link #sites sites}, then every link is put into {@link #links links}
+     * and its Nodes become neighbours, in the order of the topology. The Site and Link objects are shared with all boards of the
+     * same size, only the Nodes and the maps belong to this board.
      */
-    private void createSite(final int column, final int row) {
-        Site site = null;
-        if ((column < gameboardSize) && (row < gameboardSize)) {
-            site = new Site(column, row);
-            sites.put(site, new Node(site));
+    private void createFromTopology() {
+        Node[] nodes = new Node[topology.getSiteCount()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(topology.getSite(i));
+            sites.put(nodes[i].getSite(), nodes[i]);
         }
-    }
-
-    /**
-     * This method creates all possible Links recursivly.
-     * It gets two Integers(column,row), which are used to first create a Site and then
-     * are incremented to look for neighbours  in {@link #sites sites} with {@link #containsNode(Site) #containsNode(Site site)}.
-     * If said neighbour exists, the site and the neighbour are used to create a new Link. This Link ,if it does not already exists{@link
-     * #containsLink(SiteSet) containsLink(SiteSet link)};
-     * will be put into {@link #links links} and this method calls it self with the incremented column and row.
-     * @param column column for Site creation
-     * @param row row for Site creation
-     */
-    private void createPossibleLinks(final int column, final int row) { // TODO 11 zu n
-        if ((column < gameboardSize) && (row < gameboardSize)) {
-            Site site = new Site(column, row);
-            if ((row + 1 < 11) && containsNode(new Site(column, row + 1))
-                && !containsLink(new SiteSet(site, new Site(column, row + 1)))) {
-                createLink(new SiteSet(site, new Site(column, row + 1)));
-                createPossibleLinks(column, row + 1);
-            }
-            if (((column + 1 < 11) && (row + 1 < 11)) && containsNode(new Site(column + 1, row + 1))
-                && !containsLink(new SiteSet(site, new Site(column + 1, row + 1)))) {
-                createLink(new SiteSet(site, new Site(column + 1, row + 1)));
-                createPossibleLinks(column + 1, row + 1);
-            }
-            if ((column + 1 < 11) && containsNode(new Site(column + 1, row))
-                && !containsLink(new SiteSet(site, new Site(column + 1, row)))) {
-                createLink(new SiteSet(site, new Site(column + 1, row)));
-                createPossibleLinks(column + 1, row);
-            }
+        for (int i = 0; i < topology.getLinkCount(); i++) {
+            SiteSet link = topology.getLink(i);
+            establishNeighbourReferences(nodes[topology.getLinkFirst(i)], nodes[topology.getLinkSecond(i)]);
+            links.put(link, link);
         }
     }
 
@@ -254,24 +274,310 @@ public class GameBoard implements Playable, Serializable {
 
     /**
      * This Methode is given a {@link nowhere2gopp.preset.Move Move} that is to be made on the {@link GameBoard GameBoard}.
-     * If the {@link nowhere2gopp.preset.Move Move} is valid then it is processed with {@link #processMove(Move) processMove(Move move)}.
+     * If the {@link nowhere2gopp.preset.Move Move} is valid, which is checked with {@link #isLegal(Move) isLegal} instead of
+     * the possible moves, then it is processed with {@link #processMove(Move) processMove(Move move)}.
      * After that the {@link #gamePhaseChanger() gamePhaseChanger} looks if the {@link #rounds rounds} need to be incremented and the
      * {@link #currentPhase Phase} changed. If the the current phase is not {@link nowhere2gopp.gamelogic.GamePhase#ONE One}, then
-     * the possible moves need to be updated to contain the moves with Movetype {@link nowhere2gopp.preset.MoveType#AgentLink AgentLink}
-     * from {@link #prepAgentLinkMoves() prepAgentLinkMoves}.
+     * the possible moves of the next player are dropped, {@link #getPossibleMoves(PlayerColor) getPossibleMoves} builds the moves with
+     * Movetype {@link nowhere2gopp.preset.MoveType#AgentLink AgentLink} for the new position when they are asked for.
      * @param  move                  move to be made on the {@link GameBoard GameBoard}
-     * @throws IllegalStateException If the move is not in the possible Moves range this Exception is thrown
+     * @throws IllegalStateException If the move is not legal this Exception is thrown
      */
     public void make(final Move move) throws IllegalStateException {
-        if (getPossibleMoves(currentTurn).containsKey(move)) {
+        long start = Metrics.start();
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        GamePhase phase = currentPhase;
+        PlayerColor player = currentTurn;
+        SpectatorFeed spectators = feed;
+        CopyOnWriteArrayList<BoardListener> observers = listeners;
+        Site from = getAgent(player);
+        UndoRecord record = null;
+        if (isLegal(move)) {
+            if (history != null) record = new UndoRecord(move);
             processMove(move);
         } else {
             status = Status.Illegal;
-            throw new InvalidMoveException("This Move " + move + " is not in the Possiblemoves range from " + currentTurn);
+            ILLEGAL_MOVES.inc();
+            throw new InvalidMoveException("This Move " + move + " is not a legal move of " + currentTurn);
         }
         gamePhaseChanger();
 
-        if (currentPhase != GamePhase.ONE) prepAgentLinkMoves();
+        if (currentPhase != GamePhase.ONE) possibleMoves.remove(currentTurn);
+        if (record != null) history.addLast(record);
+        version++;
+        if (spectators != null) spectators.moveMade(this, move, player, from);
+        if (observers != null) fireMove(observers, move, player, from);
+        MOVES.inc();
+        MAKE_TIME.recordSince(start);
+        if (event.shouldCommit()) {
+            event.move           = move.getType() == MoveType.Surrender ? "Surrender" : move.toString();
+            event.player         = player.toString();
+            event.phase          = phase.toString();
+            event.linksRemaining = links.size();
+            HashMap<Move, Move> next = possibleMoves.get(currentTurn);
+            event.possibleMoves  = next == null ? 0 : next.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * This Methode checks a {@link nowhere2gopp.preset.Move Move} of the player whose turn it is directly against the rules, without
+     * the {@link #possibleMoves possibleMoves}, and gives the same answer as looking the move up in them:<br/>
+     * {@link nowhere2gopp.preset.MoveType#Surrender Surrender} is always legal.<br/>
+     * {@link nowhere2gopp.preset.MoveType#LinkLink LinkLink}: only in {@link nowhere2gopp.gamelogic.GamePhase#ONE Gamephase One},
+     * with two different links that both still exist.<br/>
+     * {@link nowhere2gopp.preset.MoveType#AgentLink AgentLink}: only in Gamephase Two and Three, the link still exists, in Gamephase Three
+     * the agent starts on its current site and the destination is a free site it can reach, which is looked up in the
+     * {@link #reachability() reachability} of the position.
+     * @param  move move to check
+     * @return      true if {@link #make(Move) make} accepts the move
+     */
+    public boolean isLegal(final Move move) {
+        switch (move.getType()) {
+        case Surrender:
+            return true;
+        case LinkLink:
+            return currentPhase == GamePhase.ONE && !move.getOneLink().equals(move.getOtherLink())
+                   && containsLink(move.getOneLink()) && containsLink(move.getOtherLink());
+        case AgentLink:
+            if (currentPhase == GamePhase.ONE || !containsLink(move.getLink())) return false;
+            Site from = move.getAgent().getFirst();
+            if (currentPhase == GamePhase.THREE && !from.equals(getAgent(currentTurn))) return false;
+            return reachability().canReach(from, move.getAgent().getSecond());
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * This Methode returns the {@link nowhere2gopp.gamelogic.spectator.SpectatorFeed SpectatorFeed} of this board and creates it
+     * at the current position on the first call. From then on every {@link #make(Move) make} publishes a
+     * {@link nowhere2gopp.gamelogic.spectator.BoardDelta BoardDelta}; {@link #undo() undo} is not published.
+     * The first call has to come from the thread that makes the moves.
+     * @return feed of this board
+     */
+    public SpectatorFeed spectate() {
+        if (feed == null) feed = new SpectatorFeed(this, SpectatorFeed.DEFAULT_CAPACITY);
+        return feed;
+    }
+
+    /**
+     * This Methode turns on the undo history of this board. Every following {@link #make(Move) make} can be
+     * reverted with {@link #undo() undo}. Calling it again has no effect.
+     */
+    public void enableUndo() {
+        if (history == null) history = new ArrayDeque<>();
+    }
+
+    /**
+     * This Methode returns true if there is a move that can be reverted with {@link #undo() undo}
+     * @return true if the undo history is enabled and not empty
+     */
+    public boolean canUndo() {
+        return (history != null) && !history.isEmpty();
+    }
+
+    /**
+     * This Methode reverts the last move made with {@link #make(Move) make}, of any {@link nowhere2gopp.preset.MoveType MoveType}
+     * and in any {@link nowhere2gopp.gamelogic.GamePhase GamePhase}. The removed {@link nowhere2gopp.preset.SiteSet links} are created again,
+     * the agents are put back and the {@link #possibleMoves possibleMoves}, {@link #status status}, {@link #currentTurn turn},
+     * {@link #currentPhase phase} and {@link #rounds rounds} are restored as they were before the move.
+     * @throws IllegalStateException if the undo history is not enabled or empty
+     */
+    public void undo() throws IllegalStateException {
+        if (!canUndo()) throw new IllegalStateException("There is no move to undo");
+        UndoRecord record = history.pollLast();
+
+        if (record.move.getType() == MoveType.AgentLink) {
+            getNode(record.move.getAgent().getSecond()).turnWhite();
+        }
+        for (SiteSet link : record.removedLinks) {
+            createLink(link);
+        }
+        redAgent  = record.redAgent;
+        blueAgent = record.blueAgent;
+        if (redAgent != null) getNode(redAgent).paintRed();
+        if (blueAgent != null) getNode(blueAgent).paintBlue();
+
+        status       = record.status;
+        currentTurn  = record.turn;
+        currentPhase = record.phase;
+        rounds       = record.rounds;
+        restoreMoves(PlayerColor.Red, record.redMoves);
+        restoreMoves(PlayerColor.Blue, record.blueMoves);
+        version++;
+
+        CopyOnWriteArrayList<BoardListener> observers = listeners;
+        if (observers != null) {
+            Site before = record.turn == PlayerColor.Red ? redAgent : blueAgent;
+            for (BoardListener listener : observers) {
+                for (SiteSet link : record.removedLinks) {
+                    listener.linkRestored(link, version);
+                }
+                if (record.move.getType() == MoveType.AgentLink) {
+                    listener.agentMoved(record.turn, record.move.getAgent().getSecond(), before, version);
+                }
+                listener.stateChanged(currentTurn, status, currentPhase, version);
+            }
+        }
+    }
+
+    /**
+     * This Methode delivers the changes of a move to the {@link nowhere2gopp.gamelogic.gameIO.BoardListener listeners}
+     * @param observers listeners to notify
+     * @param move      move that was made
+     * @param player    player that made the move
+     * @param from      site of the agent of the player before the move
+     */
+    private void fireMove(final Iterable<BoardListener> observers, final Move move, final PlayerColor player, final Site from) {
+        for (BoardListener listener : observers) {
+            if (move.getType() == MoveType.LinkLink) {
+                listener.linkRemoved(move.getOneLink(), version);
+                listener.linkRemoved(move.getOtherLink(), version);
+            } else if (move.getType() == MoveType.AgentLink) {
+                listener.agentMoved(player, from, move.getAgent().getSecond(), version);
+                listener.linkRemoved(move.getLink(), version);
+            }
+            listener.stateChanged(currentTurn, status, currentPhase, version);
+        }
+    }
+
+    /**
+     * This Methode registers a {@link nowhere2gopp.gamelogic.gameIO.BoardListener BoardListener} that gets every following
+     * {@link #make(Move) move} and {@link #undo() undo} of this board, on the thread that makes it.
+     * @param listener listener to add
+     */
+    public synchronized void addBoardListener(final BoardListener listener) {
+        if (listeners == null) listeners = new CopyOnWriteArrayList<>();
+        listeners.add(listener);
+    }
+
+    /**
+     * This Methode removes a {@link nowhere2gopp.gamelogic.gameIO.BoardListener BoardListener}
+     * @param listener listener to remove
+     */
+    public synchronized void removeBoardListener(final BoardListener listener) {
+        if (listeners != null) listeners.remove(listener);
+    }
+
+    /**
+     * This Methode returns the version of the board, it is incremented by every {@link #make(Move) make}, {@link #undo() undo} and
+     * {@link #rollBackMove(Move, HashMap) rollBackMove}
+     * @return number of changes so far
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * This Methode returns the {@link nowhere2gopp.gamelogic.Reachability Reachability} of the current position. It is built on the
+     * first call after a change of the {@link #getVersion() version} and then served from the cache, so the thread that made the
+     * move can build it while the next player still looks at the animation. The board must not change while it is built.
+     * @return which sites can be reached from which site
+     */
+    public Reachability reachability() {
+        Reachability cached = reachability;
+        if ((cached == null) || (cached.getVersion() != version)) {
+            cached = new Reachability(this);
+            reachability = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * This Methode puts a saved move map back into {@link #possibleMoves possibleMoves}
+     * @param color Player the map belongs to
+     * @param map   saved map, null if the player had none
+     */
+    private void restoreMoves(final PlayerColor color, final HashMap<Move, Move> map) {
+        if (map == null)
+          possibleMoves.remove(color);
+        else
+          possibleMoves.put(color, map);
+    }
+
+    /**
+     * Everything {@link GameBoard#undo() undo} needs to revert a move. The move maps are only referenced, not copied,
+     * because {@link GameBoard#make(Move) make} replaces them instead of changing them.
+     */
+    private final class UndoRecord {
+        /**
+         * The move that was made
+         */
+        final Move move;
+
+        /**
+         * Links removed by the move
+         */
+        final SiteSet[] removedLinks;
+
+        /**
+         * Status before the move
+         */
+        final Status status;
+
+        /**
+         * Turn before the move
+         */
+        final PlayerColor turn;
+
+        /**
+         * Phase before the move
+         */
+        final GamePhase phase;
+
+        /**
+         * Rounds before the move
+         */
+        final int rounds;
+
+        /**
+         * Position of the red agent before the move
+         */
+        final Site redAgent;
+
+        /**
+         * Position of the blue agent before the move
+         */
+        final Site blueAgent;
+
+        /**
+         * Possible moves of red before the move
+         */
+        final HashMap<Move, Move> redMoves;
+
+        /**
+         * Possible moves of blue before the move
+         */
+        final HashMap<Move, Move> blueMoves;
+
+        /**
+         * Saves the state of the board before the given move is made
+         * @param move move that is about to be made
+         */
+        UndoRecord(final Move move) {
+            this.move = move;
+            switch (move.getType()) {
+            case LinkLink:
+                removedLinks = new SiteSet[] { move.getOneLink(), move.getOtherLink() };
+                break;
+            case AgentLink:
+                removedLinks = new SiteSet[] { move.getLink() };
+                break;
+            default:
+                removedLinks = new SiteSet[0];
+                break;
+            }
+            status    = GameBoard.this.status;
+            turn      = currentTurn;
+            phase     = currentPhase;
+            rounds    = GameBoard.this.rounds;
+            redAgent  = GameBoard.this.redAgent;
+            blueAgent = GameBoard.this.blueAgent;
+            redMoves  = possibleMoves.get(PlayerColor.Red);
+            blueMoves = possibleMoves.get(PlayerColor.Blue);
+        }
     }
 
 
@@ -354,26 +660,14 @@ public class GameBoard implements Playable, Serializable {
      * on the {@link GameBoard Gameboard}. The neighbour relationships between the {@link nowhere2gopp.gamelogic.Node Nodes}, whose connecting
      * {@link nowhere2gopp.preset.SiteSet links} are being removed, are terminated with {@link #remove2Links(SiteSet, SiteSet) remove2Links(link1,
      * link2)}.
-     * The move, and all moves containing one of the {@link nowhere2gopp.preset.SiteSet links} in the move, are then deleted out of the {@link
-     * #possibleMoves possibleMoves}.
+     * The {@link #possibleMoves possibleMoves} of both players are dropped, because every move containing one of the
+     * {@link nowhere2gopp.preset.SiteSet links} in the move is no longer possible; {@link #getPossibleMoves(PlayerColor) getPossibleMoves}
+     * builds them again from the remaining links. The old map is not changed, so {@link #undo() undo} can put it back.
      * @param move {@link nowhere2gopp.preset.Move} to be made.
      */
     private void makeLinkLinkMove(final Move move) {
-        SiteSet linkOne   = move.getOneLink();
-        SiteSet linkOther = move.getOtherLink();
-        remove2Links(linkOne, linkOther);
-        for (Move copyMove : copyMoveMap(possibleMoves.get(PlayerColor.Red)).values()) {
-            if (!(copyMove.getType() == MoveType.Surrender)) {
-                SiteSet link1 = copyMove.getOneLink();
-                SiteSet link2 = copyMove.getOtherLink();
-                if (linkOne.equals(link1) || linkOne.equals(link2)) {
-                    possibleMoves.get(PlayerColor.Red).remove(copyMove);
-                }
-                if (linkOther.equals(link1) || linkOther.equals(link2)) {
-                    possibleMoves.get(PlayerColor.Red).remove(copyMove);
-                }
-            }
-        }
+        remove2Links(move.getOneLink(), move.getOtherLink());
+        possibleMoves.clear();
     }
 
     /**
@@ -453,17 +747,16 @@ public class GameBoard implements Playable, Serializable {
      * This Methode is given a {@link nowhere2gopp.preset.Site Site} which is used as origin to determine wich {@link nowhere2gopp.preset.Site Sites}
      * can be reached from said origin. Every tuple of possible origins and destinations is stored in an
      * {@link nowhere2gopp.gamelogic.Node Node[]} Array that is stored in a {@link java.util.LinkedList List} that is returned.
+     * The destinations are taken from the cached {@link #reachability() reachability}.
      * @param  site Origin site from which reachable are searched
      * @return      List of {@link nowhere2gopp.gamelogic.Node Node[]} Array that have tuples of origin and reachable Sites
      */
     public LinkedList<Node[]>reachableSites(final Site site) {
         LinkedList<Node[]> list = new LinkedList<>();
         final Node outSet = sites.get(site);
-        for (Node dest : sites.values()) {
-            if (!outSet.equals(dest) && pathFinder(outSet, dest)) {
-                Node[] nodes = { outSet, dest };
-                list.add(nodes);
-            }
+        for (Site dest : reachability().getReachable(site)) {
+            Node[] nodes = { outSet, sites.get(dest) };
+            list.add(nodes);
         }
         return list;
     }
@@ -474,8 +767,12 @@ public class GameBoard implements Playable, Serializable {
      * This Methode calculates all possible Moves of Gamephase {@link nowhere2gopp.gamelogic.GamePhase#ONE One}.
      * For that it goes through all {@link #links links} and constructs {@link nowhere2gopp.preset.MoveType#LinkLink LinkLinkMoves}.
      * These moves, and the {@link nowhere2gopp.preset.MoveType#Surrender Surrender Move}, will be put in {@link #possibleMoves possibleMoves}.
+     * Package visible for the benchmarks.
      */
-    private void calculatePhaseOneMoves() {
+    void calculatePhaseOneMoves() {
+        long start = Metrics.start();
+        MoveGenerationEvent event = new MoveGenerationEvent();
+        event.begin();
         HashMap<Move, Move> map = new HashMap<>();
         for (SiteSet link1 : links.values()) {
             for (SiteSet link2 : links.values()) {
@@ -488,6 +785,8 @@ public class GameBoard implements Playable, Serializable {
         map.put(surrender, surrender);
         possibleMoves.put(PlayerColor.Red, map);
         possibleMoves.put(PlayerColor.Blue, map);
+        LINKLINK_TIME.recordSince(start);
+        commit(event, MoveType.LinkLink, map.size());
     }
 
     // ---------------calculate AgentLink Moves-----------------------
@@ -503,24 +802,56 @@ public class GameBoard implements Playable, Serializable {
      * To do this {@link #calculateAgentLinkMoves(Node...) calculateAgentLinkMoves(Node...)} is called with variable Arguments(varargs),
      * of either all {@link #sites Sites},if Gamephase is Two, or, if the Gamephase is Three, the already placed Agent.
      * The Map that is generated contains all possible Moves of the Player. These are put in the {@link #possibleMoves possibleMoves}.
+     * Package visible for the benchmarks.
+     */
+    void prepAgentLinkMoves() {
+        prepAgentLinkMoves(currentTurn);
+    }
+
+    /**
+     * This Methode calculates the {@link nowhere2gopp.preset.MoveType#AgentLink AgentLinkMoves} of the given player like
+     * {@link #prepAgentLinkMoves() prepAgentLinkMoves} and puts them in the {@link #possibleMoves possibleMoves}.
+     * @param  color Player whose moves are calculated
+     * @return       map of the calculated moves
      */
-    private void prepAgentLinkMoves() {
+    private HashMap<Move, Move>prepAgentLinkMoves(final PlayerColor color) {
+        long start = Metrics.start();
+        MoveGenerationEvent event = new MoveGenerationEvent();
+        event.begin();
         HashMap<Move, Move> map = new HashMap<>();
-        Node Agent              = currentTurn == PlayerColor.Red ? sites.get(redAgent) : sites.get(blueAgent);
-        possibleMoves.remove(currentTurn);
+        Node Agent              = color == PlayerColor.Red ? sites.get(redAgent) : sites.get(blueAgent);
+        possibleMoves.remove(color);
         if (currentPhase == GamePhase.TWO) {
             map = calculateAgentLinkMoves(sites.values().toArray(new Node[sites.size()]));
         } else if (currentPhase == GamePhase.THREE) {
             map = calculateAgentLinkMoves(Agent);
         }
-        possibleMoves.put(currentTurn, map);
+        possibleMoves.put(color, map);
+        AGENTLINK_TIME.recordSince(start);
+        commit(event, MoveType.AgentLink, map.size());
+        return map;
+    }
+
+    /**
+     * This Methode fills and commits a {@link nowhere2gopp.gamelogic.jfr.MoveGenerationEvent MoveGenerationEvent}, if it is enabled in the recording
+     * @param event    started event
+     * @param moveType type of the generated moves
+     * @param moves    number of generated moves
+     */
+    private void commit(final MoveGenerationEvent event, final MoveType moveType, final int moves) {
+        if (event.shouldCommit()) {
+            event.moveType = moveType.toString();
+            event.phase    = currentPhase.toString();
+            event.moves    = moves;
+            event.commit();
+        }
     }
 
     /**
      * This Methode is given variable Arguments(varargs) of the Type {@link nowhere2gopp.gamelogic.Node Node} these are used as
-     * origin {@link nowhere2gopp.preset.Site Sites}. Then all possible destination Site are found with {@link #pathFinder(Node, Node)
-     * pathFinder(origin, destination)} to which origin has a path and
-     * creates a new {@link nowhere2gopp.preset.SiteTuple SiteTuple}. This tuple is paired with all still exsisting {@link nowhere2gopp.preset.SiteSet
+     * origin {@link nowhere2gopp.preset.Site Sites}. Then all possible destination Site to which origin has a path are taken from the
+     * {@link #reachability() reachability}, which answers like {@link #pathFinder(Node, Node) pathFinder(origin, destination)} without a
+     * search per pair of sites, and for each a new {@link nowhere2gopp.preset.SiteTuple SiteTuple} is created. This tuple is paired with all still exsisting {@link nowhere2gopp.preset.SiteSet
      * links}
      * to create a new {@link nowhere2gopp.preset.Move move} that is valid given the passed origins.
      * @param  nodes varargs of {@link nowhere2gopp.gamelogic.Node Nodes} to be used as origins
@@ -528,14 +859,14 @@ public class GameBoard implements Playable, Serializable {
      */
     private HashMap<Move, Move>calculateAgentLinkMoves(final Node...nodes) { // var agrs oder array benutzen
         HashMap<Move, Move> map = new HashMap<>();
+        Reachability reach      = reachability();
         for (Node node1 : nodes) {
-            for (Node node2 : sites.values()) {
-                if (!(node1.equals(node2)) && pathFinder(node1, node2)) {
-                    SiteTuple tuple = new SiteTuple(node1.getSite(), node2.getSite());
-                    for (Map.Entry<SiteSet, SiteSet>s : links.entrySet()) {
-                        Move move = new Move(tuple, s.getValue());
-                        map.put(move, move);
-                    }
+            BitSet dests = reach.reachableFrom(node1.getSite());
+            for (int i = dests.nextSetBit(0); i >= 0; i = dests.nextSetBit(i + 1)) {
+                SiteTuple tuple = new SiteTuple(node1.getSite(), reach.site(i));
+                for (Map.Entry<SiteSet, SiteSet>s : links.entrySet()) {
+                    Move move = new Move(tuple, s.getValue());
+                    map.put(move, move);
                 }
             }
         }
@@ -605,6 +936,7 @@ public class GameBoard implements Playable, Serializable {
      * {@link nowhere2gopp.gamelogic.GamePhase#TWO GamePhase Two}.
      * The move is than reverted, the {@link #possibleMoves possibleMoves} are restored with {@link java.util.HashMap possibleMoves Map} and the
      * {@link #status status} is set back to {@link nowhere2gopp.preset.Status#Ok Ok}.
+     * If the undo history is enabled, the last entry is dropped as well.
      * @param move move to be reverted
      * @param map  {@link java.util.HashMap possibleMoves Map} how they where befor the move was done
      */
@@ -633,6 +965,72 @@ public class GameBoard implements Playable, Serializable {
         possibleMoves.remove(currentTurn);
         possibleMoves.put(currentTurn, map);
         status = Status.Ok;
+        version++;
+        if (canUndo()) history.pollLast();
+    }
+
+    /**
+     * This method returns a hash of the current position, built from the {@link nowhere2gopp.gamelogic.Zobrist Zobrist} keys of
+     * all {@link #links links}, both agents and the turn. Two boards in the same position have the same hash, no matter in which
+     * order the moves were made.
+     * @return 64 bit hash of the position
+     */
+    public long positionHash() {
+        long hash = Zobrist.state(currentTurn, currentPhase, rounds);
+        for (SiteSet link : links.keySet()) {
+            hash ^= Zobrist.link(link);
+        }
+        if (redAgent != null) hash ^= Zobrist.agent(PlayerColor.Red, redAgent);
+        if (blueAgent != null) hash ^= Zobrist.agent(PlayerColor.Blue, blueAgent);
+        return hash;
+    }
+
+    /**
+     * This method returns the {@link #links links} that still exist as a bit mask over the numbering of the {@link Topology Topology},
+     * bit i of word i / 64 stands for link i. Together with the agents, the turn, the phase, the rounds and the status it is the
+     * whole position, see {@link #fromPosition(int, long[], Site, Site, GamePhase, int, PlayerColor, Status) fromPosition}.
+     * @return new mask with {@link Topology#getLinkCount() getLinkCount} bits
+     */
+    public long[] linkMask() {
+        Topology shape = getTopology();
+        long[]   mask  = new long[(shape.getLinkCount() + 63) >>> 6];
+        for (int i = 0; i < shape.getLinkCount(); i++) {
+            if (links.containsKey(shape.getLink(i))) mask[i >>> 6] |= 1L << i;
+        }
+        return mask;
+    }
+
+    /**
+     * This Methode creates a board in a given position without replaying the moves that led to it. The links that are not in the mask
+     * are removed from a new board in the order of the {@link Topology Topology}, the agents are placed and the state is set, so the
+     * board equals one that got there by {@link #make(Move) make}, with the same {@link #positionHash() positionHash}.
+     * The moves before are unknown, so there is nothing to {@link #undo() undo}.
+     * @param  size      Integer k of the board
+     * @param  linkMask  links that still exist, see {@link #linkMask() linkMask}
+     * @param  redAgent  site of the red agent, null if it is not placed
+     * @param  blueAgent site of the blue agent, null if it is not placed
+     * @param  phase     GamePhase of the position
+     * @param  rounds    round of the position, see {@link #getRounds() getRounds}
+     * @param  turn      player whose turn it is
+     * @param  status    status of the position
+     * @return           board in the position
+     */
+    public static GameBoard fromPosition(final int size, final long[] linkMask, final Site redAgent, final Site blueAgent, final GamePhase phase,
+                                         final int rounds, final PlayerColor turn, final Status status) {
+        GameBoard board = new GameBoard(size);
+        Topology  shape = board.getTopology();
+        for (int i = 0; i < shape.getLinkCount(); i++) {
+            if ((linkMask[i >>> 6] & (1L << i)) == 0) board.removeLink(shape.getLink(i));
+        }
+        board.redAgent  = redAgent;
+        board.blueAgent = blueAgent;
+        if (redAgent != null) board.getNode(redAgent).paintRed();
+        if (blueAgent != null) board.getNode(blueAgent).paintBlue();
+        board.currentPhase = phase;
+        board.rounds       = rounds;
+        board.currentTurn  = turn;
+        board.status       = status;
+        return board;
     }
 
     /**
@@ -663,12 +1061,22 @@ public class GameBoard implements Playable, Serializable {
     }
 
     /**
-     * This method returns the {@link #possibleMoves possible Moves} of the specifed {@link PlayerColor PlayerColor}
+     * This method returns the {@link #possibleMoves possible Moves} of the specifed {@link PlayerColor PlayerColor}.
+     * If they were not asked for since the last move they are calculated now, with {@link #calculatePhaseOneMoves() calculatePhaseOneMoves}
+     * in {@link nowhere2gopp.gamelogic.GamePhase#ONE Gamephase One} and with {@link #prepAgentLinkMoves(PlayerColor) prepAgentLinkMoves}
+     * for the current position otherwise. The map has as many entries as the square of the links in Gamephase One and as the product of
+     * the links and pairs of reachable sites in Gamephase Two, so on large boards it is better not to ask for it.
      * @param  color Player whose possible moves are needed
      * @return possibleMoves for the specified player
      */
     public HashMap<Move, Move>getPossibleMoves(final PlayerColor color) {
-        return possibleMoves.get(color);
+        HashMap<Move, Move> map = possibleMoves.get(color);
+        if (map != null) return map;
+        if (currentPhase == GamePhase.ONE) {
+            calculatePhaseOneMoves();
+            return possibleMoves.get(color);
+        }
+        return prepAgentLinkMoves(color);
     }
 
     /**
@@ -784,4 +1192,13 @@ public class GameBoard implements Playable, Serializable {
     public int getPhaseOneRounds() {
         return PhaseOneRounds;
     }
+
+    /**
+     * This method returns the {@link nowhere2gopp.gamelogic.Topology Topology} of the board, a deserialized board looks it up again
+     * @return shared topology of the size of the board
+     */
+    public Topology getTopology() {
+        if (topology == null) topology = Topology.of(k);
+        return topology;
+    }
 }
@@ -0,0 +1,272 @@
+package nowhere2gopp.gamelogic;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import nowhere2gopp.preset.ArgumentParser;
+import nowhere2gopp.preset.ArgumentParserException;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.MoveType;
+
+/**
+ * This class counts the leaf nodes of the game tree up to a given depth (perft). The counts of a move generator
+ * have to match the counts of the reference, so it is used to check that a faster move generation is still correct.
+ * The tree is walked with {@link nowhere2gopp.gamelogic.GameBoard#make(Move) make} and {@link nowhere2gopp.gamelogic.GameBoard#undo() undo},
+ * the subtrees of the root moves run in parallel on a {@link java.util.concurrent.ForkJoinPool ForkJoinPool}, each on its own copy of the board.
+ * {@link nowhere2gopp.preset.MoveType#Surrender Surrender} moves are not counted.
+ */
+public class Perft {
+    /**
+     * Depth from which on subtree counts are cached
+     */
+    private static final int CACHE_DEPTH = 2;
+
+    /**
+     * Number of entries of the cache, 2^20, two longs each, so the cache takes 16MB
+     */
+    private static final int CACHE_SIZE = 1 << 20;
+
+    /**
+     * Pool the subtrees run on
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Keys of the cache, the key of a {@link nowhere2gopp.gamelogic.GameBoard#positionHash() position hash} and depth xor its count,
+     * so an entry torn by two threads writing the same slot does not match. Null if caching is off.
+     */
+    private final long[] cacheKeys;
+
+    /**
+     * Subtree counts of the cache, in the slot of their key. A new count replaces the one in its slot.
+     */
+    private final long[] cacheCounts;
+
+    /**
+     * Constructor of a perft counter
+     * @param threads number of threads of the pool
+     * @param cache   true if subtree counts should be cached by position hash, in a table of {@link #CACHE_SIZE CACHE_SIZE} entries
+     */
+    public Perft(final int threads, final boolean cache) {
+        pool        = new ForkJoinPool(threads);
+        cacheKeys   = cache ? new long[CACHE_SIZE] : null;
+        cacheCounts = cache ? new long[CACHE_SIZE] : null;
+    }
+
+    /**
+     * Returns the moves that are counted in the given position: all possible moves of the player whose turn it is,
+     * without the surrender, sorted by their String form so the output can be diffed.
+     * @param  board position
+     * @return       legal moves, empty if the game is over
+     */
+    public static List<Move> legalMoves(final GameBoard board) {
+        List<Move> moves = new ArrayList<>();
+        if (board.getStatus() != nowhere2gopp.preset.Status.Ok) return moves;
+        for (Move move : board.getPossibleMoves(board.getTurn()).values()) {
+            if (move.getType() != MoveType.Surrender) moves.add(move);
+        }
+        moves.sort((a, b) -> a.toString().compareTo(b.toString()));
+        return moves;
+    }
+
+    /**
+     * Counts the leaf nodes below every root move, the subtrees run in parallel
+     * @param  board position, it is not changed
+     * @param  depth depth of the tree, at least 1
+     * @return       leaf nodes per root move, in the order of {@link #legalMoves(GameBoard) legalMoves}
+     */
+    public Map<Move, Long> divide(final GameBoard board, final int depth) {
+        if (depth < 1) throw new IllegalArgumentException("Depth must be >= 1 but it was " + depth);
+        List<SubtreeTask> tasks = new ArrayList<>();
+        for (Move move : legalMoves(board)) {
+            tasks.add(new SubtreeTask(board, move, depth - 1));
+        }
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+
+        Map<Move, Long> result = new LinkedHashMap<>();
+        for (SubtreeTask task : tasks) {
+            result.put(task.move, task.join());
+        }
+        return result;
+    }
+
+    /**
+     * Counts all leaf nodes up to the given depth
+     * @param  board position, it is not changed
+     * @param  depth depth of the tree
+     * @return       number of leaf nodes
+     */
+    public long count(final GameBoard board, final int depth) {
+        if (depth == 0) return 1;
+        long nodes = 0;
+        for (long subtree : divide(board, depth).values()) {
+            nodes += subtree;
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes sequentially with make and undo. On the last level the moves are counted without making them.
+     * @param  board position with enabled undo history
+     * @param  depth remaining depth
+     * @return       number of leaf nodes
+     */
+    private long walk(final GameBoard board, final int depth) {
+        if (depth == 0) return 1;
+        List<Move> moves = legalMoves(board);
+        if (depth == 1) return moves.size();
+
+        long key  = 0;
+        int  slot = 0;
+        if ((cacheKeys != null) && (depth >= CACHE_DEPTH)) {
+            key  = board.positionHash() ^ Zobrist.depth(depth);
+            slot = (int) key & (CACHE_SIZE - 1);
+            long cached = cacheCounts[slot];
+            if ((cacheKeys[slot] ^ cached) == key) return cached;
+        }
+
+        long nodes = 0;
+        for (Move move : moves) {
+            board.make(move);
+            nodes += walk(board, depth - 1);
+            board.undo();
+        }
+
+        if ((cacheKeys != null) && (depth >= CACHE_DEPTH)) {
+            cacheKeys[slot]   = key ^ nodes;
+            cacheCounts[slot] = nodes;
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes below every root move the slow way, by making every move on a fresh deep copy of the board
+     * without undo. This is the reference the counts of {@link #divide(GameBoard, int) divide} are compared with.
+     * @param  board position, it is not changed
+     * @param  depth depth of the tree, at least 1
+     * @return       leaf nodes per root move, in the order of {@link #legalMoves(GameBoard) legalMoves}
+     */
+    public static Map<Move, Long> reference(final GameBoard board, final int depth) {
+        Map<Move, Long> result = new LinkedHashMap<>();
+        for (Move move : legalMoves(board)) {
+            GameBoard copy = (GameBoard) new Serialize().deepCopyObject(board);
+            copy.make(move);
+            result.put(move, referenceCount(copy, depth - 1));
+        }
+        return result;
+    }
+
+    /**
+     * Counts the leaf nodes with deep copies, see {@link #reference(GameBoard, int) reference}
+     * @param  board position
+     * @param  depth remaining depth
+     * @return       number of leaf nodes
+     */
+    private static long referenceCount(final GameBoard board, final int depth) {
+        if (depth == 0) return 1;
+        long nodes = 0;
+        for (long subtree : reference(board, depth).values()) {
+            nodes += subtree;
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts one subtree on its own copy of the board
+     */
+    private final class SubtreeTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Position before the root move
+         */
+        private final GameBoard board;
+
+        /**
+         * Root move of the subtree
+         */
+        private final Move move;
+
+        /**
+         * Depth below the root move
+         */
+        private final int depth;
+
+        SubtreeTask(final GameBoard board, final Move move, final int depth) {
+            this.board = board;
+            this.move  = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            GameBoard copy = (GameBoard) new Serialize().deepCopyObject(board);
+            copy.enableUndo();
+            copy.make(move);
+            return walk(copy, depth);
+        }
+    }
+
+    /**
+     * Starts perft from the commandline.
+     * "-size" sets the board size, "-depth" the depth, "-moves" a space separated list of moves that lead to the start position
+     * and "-threads" the pool size. "--divide" prints the count of every root move, "--cache" caches subtree counts by position hash
+     * and "--verify" compares every root move with the {@link #reference(GameBoard, int) reference} and exits with 1 on a mismatch.
+     * @param args commandline arguments
+     */
+    public static void main(final String[] args) {
+        try {
+            ArgumentParser parser = new ArgumentParser(args);
+            int size    = parser.isSet("size") ? parser.getSize() : 1;
+            int depth   = parser.isSet("depth") ? parser.getDepth() : 2;
+            int threads = parser.isSet("threads") ? parser.getThreads() : Runtime.getRuntime().availableProcessors();
+
+            GameBoard board = new GameBoard(size);
+            if (parser.isSet("moves")) {
+                for (String move : parser.getMoves().trim().split("\\s+")) {
+                    board.make(Move.parse(move));
+                }
+            }
+
+            Perft perft = new Perft(threads, parser.isCache());
+            long start = System.nanoTime();
+            Map<Move, Long> divide = perft.divide(board, depth);
+            long nanos = System.nanoTime() - start;
+
+            long nodes = 0;
+            for (Map.Entry<Move, Long> entry : divide.entrySet()) {
+                if (parser.isDivide()) System.out.println(entry.getKey() + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+            System.out.println("Nodes: " + nodes);
+            System.out.println("Time: " + nanos / 1000000L + "ms");
+            System.out.println("Nodes/sec: " + (nanos == 0 ? nodes : nodes * 1000000000L / nanos));
+
+            if (parser.isVerify()) {
+                int mismatches = 0;
+                for (Map.Entry<Move, Long> entry : reference(board, depth).entrySet()) {
+                    Long counted = divide.get(entry.getKey());
+                    if (!entry.getValue().equals(counted)) {
+                        System.out.println("Mismatch " + entry.getKey() + ": reference " + entry.getValue() + ", perft " + counted);
+                        mismatches++;
+                    }
+                }
+                if (mismatches > 0 || divide.size() != legalMoves(board).size()) System.exit(1);
+                System.out.println("Verified against the reference");
+            }
+        } catch (ArgumentParserException | IllegalArgumentException | IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
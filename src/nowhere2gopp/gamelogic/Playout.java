@@ -0,0 +1,485 @@
+package nowhere2gopp.gamelogic;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.MoveType;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Site;
+import nowhere2gopp.preset.SiteTuple;
+import nowhere2gopp.preset.Status;
+
+/**
+ * Plays random games on a copy of a {@link GameBoard GameBoard} position that only consists of numbers. It knows the same rules as
+ * {@link GameBoard#make(Move) make}, but keeps the links, the agents and the colors of the sites in arrays over the numbering of
+ * the {@link Topology Topology}. A uniformly random legal move is drawn directly from these arrays: in GamePhase ONE two different
+ * links, in GamePhase TWO and THREE an agent move and a link, each with the same chance as every other entry of the move map
+ * (without the surrender, which is only played if there is nothing else). No list of moves is built and, after the constructor,
+ * neither {@link #reset(GameBoard) reset}, {@link #sample(SplittableRandom) sample}, {@link #makeSampled() makeSampled} nor
+ * {@link #play(SplittableRandom) play} allocate, so it can run rollouts, fuzzing and load tests at millions of moves per second.
+ * A Playout belongs to one thread, use one per thread together with {@link #random() random}.
+ */
+public final class Playout {
+    /**
+     * Random generators of the threads, see {@link #random() random}
+     */
+    private static final ThreadLocal<SplittableRandom> RANDOM = ThreadLocal.withInitial(SplittableRandom::new);
+
+    /**
+     * Color of a free site
+     */
+    private static final byte WHITE = 0;
+
+    /**
+     * Color of a site with the red agent, the blue agent is RED + 1
+     */
+    private static final byte RED = 1;
+
+    /**
+     * Most neighbours a site can have
+     */
+    private static final int DEGREE = 6;
+
+    /**
+     * Shared sites and links of the board size
+     */
+    private final Topology topology;
+
+    /**
+     * Position of every link in {@link #alive alive}, -1 if it is removed
+     */
+    private final int[] slot;
+
+    /**
+     * Numbers of the links that still exist, the first {@link #aliveCount aliveCount} entries are used
+     */
+    private final int[] alive;
+
+    /**
+     * Number of links that still exist
+     */
+    private int aliveCount;
+
+    /**
+     * Neighbours every site still has a link to, the ones of site s start at s * {@link #DEGREE DEGREE}
+     */
+    private final int[] openSite;
+
+    /**
+     * Link to every entry of {@link #openSite openSite}
+     */
+    private final int[] openLink;
+
+    /**
+     * Number of entries of every site in {@link #openSite openSite}
+     */
+    private final int[] openCount;
+
+    /**
+     * Position of every link in {@link #openSite openSite}, at 2 * link for its first site and 2 * link + 1 for its second site
+     */
+    private final int[] openPos;
+
+    /**
+     * Color of every site: {@link #WHITE WHITE} or the {@link #RED RED} or blue agent
+     */
+    private final byte[] color;
+
+    /**
+     * Site of the red and of the blue agent, -1 before it is placed
+     */
+    private final int[] agent = new int[2];
+
+    /**
+     * Visit mark of every site, a site is visited by the current search if its mark is {@link #stamp stamp}
+     */
+    private final int[] mark;
+
+    /**
+     * Mark of the current search, increased for every search so the marks never have to be cleared
+     */
+    private int stamp;
+
+    /**
+     * Sites found by the current search, in the order they were found
+     */
+    private final int[] queue;
+
+    /**
+     * Start of every white part in the {@link #queue queue} of GamePhase TWO, one more entry marks the end
+     */
+    private final int[] partStart;
+
+    /**
+     * Player whose turn it is, 0 for red and 1 for blue
+     */
+    private int turn;
+
+    /**
+     * Current GamePhase
+     */
+    private GamePhase phase;
+
+    /**
+     * Rounds played, like {@link GameBoard#getRounds() getRounds}
+     */
+    private int rounds;
+
+    /**
+     * Status of the game
+     */
+    private Status status;
+
+    /**
+     * Moves made since the last {@link #reset(GameBoard) reset}
+     */
+    private int plies;
+
+    /**
+     * Sampled move: the first link in GamePhase ONE, else the origin of the agent
+     */
+    private int first;
+
+    /**
+     * Sampled move: the second link in GamePhase ONE, else the destination of the agent
+     */
+    private int second;
+
+    /**
+     * Sampled move: the removed link in GamePhase TWO and THREE, -1 in GamePhase ONE
+     */
+    private int link;
+
+    /**
+     * Creates a playout for the boards of a size
+     * @param topology sites and links of the size, see {@link GameBoard#getTopology() getTopology}
+     */
+    public Playout(final Topology topology) {
+        this.topology = topology;
+        slot      = new int[topology.getLinkCount()];
+        alive     = new int[topology.getLinkCount()];
+        openSite  = new int[topology.getSiteCount() * DEGREE];
+        openLink  = new int[topology.getSiteCount() * DEGREE];
+        openCount = new int[topology.getSiteCount()];
+        openPos   = new int[2 * topology.getLinkCount()];
+        color     = new byte[topology.getSiteCount()];
+        mark      = new int[topology.getSiteCount()];
+        queue     = new int[topology.getSiteCount()];
+        partStart = new int[topology.getSiteCount() + 1];
+    }
+
+    /**
+     * Returns the random generator of the current thread, it is created on the first call of the thread
+     * @return random generator that must not be passed to another thread
+     */
+    public static SplittableRandom random() {
+        return RANDOM.get();
+    }
+
+    /**
+     * Copies the position of a board, the board itself is only read
+     * @param  board board of the size of this playout
+     * @throws IllegalArgumentException if the board has another size
+     */
+    public void reset(final GameBoard board) {
+        if (board.getTopology() != topology) throw new IllegalArgumentException("The board has size " + board.getSize() + " but the playout " + topology.getSize());
+        aliveCount = 0;
+        Arrays.fill(openCount, 0);
+        for (int i = 0; i < slot.length; i++) {
+            if (board.containsLink(topology.getLink(i))) {
+                slot[i] = aliveCount;
+                alive[aliveCount++] = i;
+                addOpen(topology.getLinkFirst(i), topology.getLinkSecond(i), i, 0);
+                addOpen(topology.getLinkSecond(i), topology.getLinkFirst(i), i, 1);
+            } else {
+                slot[i] = -1;
+            }
+        }
+        Arrays.fill(color, WHITE);
+        placeAgent(0, board.getAgent(PlayerColor.Red));
+        placeAgent(1, board.getAgent(PlayerColor.Blue));
+        turn   = board.getTurn() == PlayerColor.Red ? 0 : 1;
+        phase  = board.getGamePhase();
+        rounds = board.getRounds();
+        status = board.getStatus();
+        plies  = 0;
+    }
+
+    /**
+     * Adds a link to the {@link #openSite open neighbours} of a site
+     * @param site      site the link touches
+     * @param neighbour site at the other end of the link
+     * @param added     number of the link
+     * @param end       0 if the site is the first site of the link, 1 if it is the second
+     */
+    private void addOpen(final int site, final int neighbour, final int added, final int end) {
+        int pos = site * DEGREE + openCount[site]++;
+        openSite[pos] = neighbour;
+        openLink[pos] = added;
+        openPos[2 * added + end] = pos;
+    }
+
+    /**
+     * Puts the agent of a player on its site of the board
+     * @param player 0 for red, 1 for blue
+     * @param site   site of the agent, null if it is not placed yet
+     */
+    private void placeAgent(final int player, final Site site) {
+        agent[player] = site == null ? -1 : topology.index(site);
+        if (agent[player] != -1) color[agent[player]] = (byte) (RED + player);
+    }
+
+    /**
+     * Draws a uniformly random legal move of the player whose turn it is, it can be read with {@link #sampledMove() sampledMove}
+     * and made with {@link #makeSampled() makeSampled}
+     * @param  random random generator of this thread
+     * @return        false if the player has no move but the surrender
+     */
+    public boolean sample(final SplittableRandom random) {
+        if (phase == GamePhase.ONE) {
+            if (aliveCount < 2) return false;
+            int i = random.nextInt(aliveCount);
+            int j = random.nextInt(aliveCount - 1);
+            if (j >= i) j++; // every ordered pair of two different links is equally likely
+            first  = alive[i];
+            second = alive[j];
+            link   = -1;
+            return true;
+        }
+        if (aliveCount == 0) return false;
+        if (phase == GamePhase.TWO ? !sampleStart(random) : !sampleJump(random)) return false;
+        link = alive[random.nextInt(aliveCount)];
+        return true;
+    }
+
+    /**
+     * Draws the agent move of GamePhase TWO: a white site and another white site of its part. The parts are labelled first, then
+     * a part is drawn with a weight of its number of pairs, so every pair of the board is equally likely
+     * @param  random random generator
+     * @return        false if no white site has a white neighbour
+     */
+    private boolean sampleStart(final SplittableRandom random) {
+        stamp++;
+        int  parts = 0;
+        int  tail  = 0;
+        long pairs = 0;
+        for (int site = 0; site < color.length; site++) {
+            if (color[site] != WHITE || mark[site] == stamp) continue;
+            partStart[parts++] = tail;
+            mark[site]    = stamp;
+            queue[tail++] = site;
+            tail = spread(partStart[parts - 1], tail);
+            long size = tail - partStart[parts - 1];
+            pairs += size * (size - 1);
+        }
+        partStart[parts] = tail;
+        if (pairs == 0) return false;
+
+        long pick = random.nextLong(pairs);
+        for (int part = 0; part < parts; part++) {
+            long size = partStart[part + 1] - partStart[part];
+            if (pick >= size * (size - 1)) {
+                pick -= size * (size - 1);
+                continue;
+            }
+            int from = (int) (pick / (size - 1));
+            int to   = (int) (pick % (size - 1));
+            if (to >= from) to++;
+            first  = queue[partStart[part] + from];
+            second = queue[partStart[part] + to];
+            return true;
+        }
+        throw new IllegalStateException("pair " + pick + " not found");
+    }
+
+    /**
+     * Draws the agent move of GamePhase THREE: a white site in the parts next to the agent of the player
+     * @param  random random generator
+     * @return        false if the agent has no white neighbour
+     */
+    private boolean sampleJump(final SplittableRandom random) {
+        int from = agent[turn];
+        stamp++;
+        mark[from] = stamp;
+        int tail = 0;
+        for (int pos = from * DEGREE, end = pos + openCount[from]; pos < end; pos++) {
+            int next = openSite[pos];
+            if (color[next] == WHITE && mark[next] != stamp) {
+                mark[next]    = stamp;
+                queue[tail++] = next;
+            }
+        }
+        tail = spread(0, tail);
+        if (tail == 0) return false;
+        first  = from;
+        second = queue[random.nextInt(tail)];
+        return true;
+    }
+
+    /**
+     * Breadth first search over the white sites that are linked with each other, starting with the sites already in the queue
+     * @param  head first site of the {@link #queue queue} that is not expanded yet
+     * @param  tail end of the queue
+     * @return      end of the queue after the search
+     */
+    private int spread(int head, int tail) {
+        while (head < tail) {
+            int site = queue[head++];
+            for (int pos = site * DEGREE, end = pos + openCount[site]; pos < end; pos++) {
+                int next = openSite[pos];
+                if (color[next] == WHITE && mark[next] != stamp) {
+                    mark[next]    = stamp;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Returns the move drawn by the last {@link #sample(SplittableRandom) sample} as a {@link nowhere2gopp.preset.Move Move} of the
+     * board, this is the only method that allocates
+     * @return sampled move
+     */
+    public Move sampledMove() {
+        if (link == -1) return new Move(topology.getLink(first), topology.getLink(second));
+        return new Move(new SiteTuple(topology.getSite(first), topology.getSite(second)), topology.getLink(link));
+    }
+
+    /**
+     * Makes the move drawn by the last {@link #sample(SplittableRandom) sample}, like {@link GameBoard#make(Move) make}
+     */
+    public void makeSampled() {
+        if (link == -1) {
+            removeLink(first);
+            removeLink(second);
+        } else {
+            removeLink(link);
+            if (phase == GamePhase.THREE) color[agent[turn]] = WHITE;
+            agent[turn]   = second;
+            color[second] = (byte) (RED + turn);
+        }
+        endTurn();
+    }
+
+    /**
+     * Gives up the game for the player whose turn it is, like a {@link nowhere2gopp.preset.MoveType#Surrender Surrender} move
+     */
+    public void surrender() {
+        status = turn == 0 ? Status.BlueWin : Status.RedWin;
+        endTurn();
+    }
+
+    /**
+     * Plays random moves until the game is over, a player without another move surrenders
+     * @param  random random generator of this thread
+     * @return        status at the end of the game
+     */
+    public Status play(final SplittableRandom random) {
+        while (status == Status.Ok) {
+            if (sample(random)) makeSampled();
+            else surrender();
+        }
+        return status;
+    }
+
+    /**
+     * Returns a uniformly random legal move of the player whose turn it is on a board, the surrender only if there is no other move
+     * @param  board  board to read, it is not changed
+     * @param  random random generator of this thread
+     * @return        random move
+     */
+    public Move randomMove(final GameBoard board, final SplittableRandom random) {
+        reset(board);
+        return sample(random) ? sampledMove() : new Move(MoveType.Surrender);
+    }
+
+    /**
+     * Removes a link that still exists
+     * @param removed number of the link
+     */
+    private void removeLink(final int removed) {
+        int last = alive[--aliveCount];
+        alive[slot[removed]] = last;
+        slot[last]    = slot[removed];
+        slot[removed] = -1;
+        removeOpen(topology.getLinkFirst(removed), openPos[2 * removed]);
+        removeOpen(topology.getLinkSecond(removed), openPos[2 * removed + 1]);
+    }
+
+    /**
+     * Removes an entry of the {@link #openSite open neighbours} of a site, the last entry of the site takes its place
+     * @param site site of the entry
+     * @param pos  position of the entry
+     */
+    private void removeOpen(final int site, final int pos) {
+        int last = site * DEGREE + --openCount[site];
+        if (pos == last) return;
+        int moved = openLink[last];
+        openSite[pos] = openSite[last];
+        openLink[pos] = moved;
+        openPos[2 * moved + (topology.getLinkFirst(moved) == site ? 0 : 1)] = pos;
+    }
+
+    /**
+     * Counts the round, changes the GamePhase, checks whether an agent is stuck and passes the turn, in the same order as
+     * the GameBoard does after a move
+     */
+    private void endTurn() {
+        plies++;
+        if (turn == 1) rounds++;
+        if (rounds > topology.getPhaseOneRounds() && phase == GamePhase.ONE) phase = GamePhase.TWO;
+        if (rounds > topology.getPhaseOneRounds() + 1 && phase == GamePhase.TWO) phase = GamePhase.THREE;
+        if (phase != GamePhase.ONE) {
+            stuck(0);
+            stuck(1);
+        }
+        turn = 1 - turn;
+    }
+
+    /**
+     * Ends the game if the agent of a player has no link to a white site, the player loses
+     * @param player 0 for red, 1 for blue
+     */
+    private void stuck(final int player) {
+        int site = agent[player];
+        if (site == -1) return;
+        for (int pos = site * DEGREE, end = pos + openCount[site]; pos < end; pos++) {
+            if (color[openSite[pos]] == WHITE) return;
+        }
+        status = player == 0 ? Status.BlueWin : Status.RedWin;
+    }
+
+    /**
+     * Returns the status of the game
+     * @return {@link nowhere2gopp.preset.Status#Ok Ok} while it runs
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the player whose turn it is
+     * @return color of the player
+     */
+    public PlayerColor getTurn() {
+        return turn == 0 ? PlayerColor.Red : PlayerColor.Blue;
+    }
+
+    /**
+     * Returns the current GamePhase
+     * @return GamePhase of the position
+     */
+    public GamePhase getGamePhase() {
+        return phase;
+    }
+
+    /**
+     * Returns the number of moves made since the last {@link #reset(GameBoard) reset}
+     * @return moves made
+     */
+    public int getPlies() {
+        return plies;
+    }
+}
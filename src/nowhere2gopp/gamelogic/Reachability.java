@@ -0,0 +1,242 @@
+package nowhere2gopp.gamelogic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.Map;
+
+import nowhere2gopp.preset.Site;
+
+/**
+ * The sites an agent can reach in one position of a {@link GameBoard GameBoard}. The white sites are split into the
+ * parts of the board that are still connected by links without passing an agent, and a site reaches every white site of
+ * the parts next to it. This gives the same answers as {@link GameBoard#pathFinder(Node, Node) pathFinder}, but for all
+ * sites with one pass over the board instead of one search per pair of sites.
+ * A Reachability never changes after it is built, so it can be read from any thread; {@link GameBoard#reachability()
+ * reachability} builds a new one for every {@link GameBoard#getVersion() version} of the board.
+ */
+public final class Reachability {
+    /**
+     * Version of the board this reachability was built for
+     */
+    private final long version;
+
+    /**
+     * Size of the board, sites are numbered column * size + row
+     */
+    private final int size;
+
+    /**
+     * GamePhase of the position, in GamePhase TWO an agent can only start on a white site
+     */
+    private final GamePhase phase;
+
+    /**
+     * Part of every site, -1 if the site is not white or does not exist
+     */
+    private final int[] component;
+
+    /**
+     * White sites of every part
+     */
+    private final BitSet[] components;
+
+    /**
+     * Parts next to every site, including its own part if it is white
+     */
+    private final int[][] adjacent;
+
+    /**
+     * White sites with at least one white neighbour, the possible origins of GamePhase TWO
+     */
+    private final BitSet starts = new BitSet();
+
+    /**
+     * Builds the reachability of the current position of the board, package visible for {@link GameBoard#reachability() reachability}
+     * @param board board to read, it must not change while it is read
+     */
+    Reachability(final GameBoard board) {
+        version   = board.getVersion();
+        size      = board.getSize();
+        phase     = board.getGamePhase();
+        component = new int[size * size];
+        adjacent  = new int[size * size][];
+        Arrays.fill(component, -1);
+
+        // label the white parts with a breadth first search over white neighbours
+        ArrayList<BitSet> parts = new ArrayList<>();
+        Node[] queue = new Node[board.getSites().size()];
+        for (Node node : board.getSites().values()) {
+            if (node.getColor() != SiteColor.WHITE || component[index(node.getSite())] != -1) continue;
+            int    label = parts.size();
+            BitSet part  = new BitSet(size * size);
+            int    head  = 0;
+            int    tail  = 0;
+            queue[tail++] = node;
+            component[index(node.getSite())] = label;
+            while (head < tail) {
+                Node current = queue[head++];
+                part.set(index(current.getSite()));
+                for (Node neighbour : current.getNeighbors(SiteColor.NONE)) {
+                    int i = index(neighbour.getSite());
+                    if (neighbour.getColor() == SiteColor.WHITE && component[i] == -1) {
+                        component[i] = label;
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+            parts.add(part);
+            if (part.cardinality() > 1) starts.or(part);
+        }
+        components = parts.toArray(new BitSet[parts.size()]);
+
+        for (Map.Entry<Site, Node> entry : board.getSites().entrySet()) {
+            int i = index(entry.getKey());
+            if (component[i] != -1) {
+                adjacent[i] = new int[] { component[i] };
+                continue;
+            }
+            // an agent reaches the parts of its white neighbours
+            int[] labels = new int[6];
+            int   count  = 0;
+            for (Node neighbour : entry.getValue().getNeighbors(SiteColor.NONE)) {
+                int label = component[index(neighbour.getSite())];
+                if (label != -1 && !contains(labels, count, label)) {
+                    if (count == labels.length) labels = Arrays.copyOf(labels, 2 * count);
+                    labels[count++] = label;
+                }
+            }
+            adjacent[i] = Arrays.copyOf(labels, count);
+        }
+    }
+
+    /**
+     * Returns true if one of the first count labels is the given label
+     * @param  labels array to search
+     * @param  count  number of used entries
+     * @param  label  label to find
+     * @return        true if the label is found
+     */
+    private static boolean contains(final int[] labels, final int count, final int label) {
+        for (int i = 0; i < count; i++) {
+            if (labels[i] == label) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the version of the board this reachability was built for
+     * @return version of the board
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of a site in the BitSets of this class
+     * @param  site site of the board
+     * @return      column * size + row
+     */
+    public int index(final Site site) {
+        return site.getColumn() * size + site.getRow();
+    }
+
+    /**
+     * Returns the site with the given number
+     * @param  index number of the site, see {@link #index(Site) index}
+     * @return       site with this number
+     */
+    public Site site(final int index) {
+        return new Site(index / size, index % size);
+    }
+
+    /**
+     * Returns true if an agent on the site can move to the destination
+     * @param  from site the agent starts on
+     * @param  to   destination
+     * @return      true if there is a path over white sites, like {@link GameBoard#pathFinder(Node, Node) pathFinder}
+     */
+    public boolean canReach(final Site from, final Site to) {
+        if (!onBoard(from) || !onBoard(to) || from.equals(to)) return false;
+        int target = component[index(to)];
+        if (target == -1 || !canStart(from)) return false;
+        for (int label : adjacent[index(from)]) {
+            if (label == target) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the sites an agent on the site can move to
+     * @param  from site the agent starts on
+     * @return      new BitSet of the reachable sites, see {@link #index(Site) index}
+     */
+    public BitSet reachableFrom(final Site from) {
+        BitSet reachable = new BitSet(size * size);
+        if (!onBoard(from) || !canStart(from)) return reachable;
+        for (int label : adjacent[index(from)]) {
+            reachable.or(components[label]);
+        }
+        reachable.clear(index(from));
+        return reachable;
+    }
+
+    /**
+     * Returns the sites an agent on the site can move to
+     * @param  from site the agent starts on
+     * @return      reachable sites
+     */
+    public Collection<Site> getReachable(final Site from) {
+        return sites(reachableFrom(from));
+    }
+
+    /**
+     * Returns true if an agent can be placed on the site in GamePhase TWO, that is the site is white and has a white neighbour
+     * @param  site site to check
+     * @return      true if the site is a possible origin
+     */
+    public boolean isStart(final Site site) {
+        return onBoard(site) && starts.get(index(site));
+    }
+
+    /**
+     * Returns the sites an agent can be placed on in GamePhase TWO
+     * @return white sites with a white neighbour
+     */
+    public Collection<Site> getStarts() {
+        return sites(starts);
+    }
+
+    /**
+     * Returns true if the site is on the board
+     * @param  site site to check
+     * @return      true if the site has an entry
+     */
+    private boolean onBoard(final Site site) {
+        return site.getColumn() < size && site.getRow() < size && adjacent[index(site)] != null;
+    }
+
+    /**
+     * Returns true if an agent can start a move on the site
+     * @param  from site to check
+     * @return      false in GamePhase TWO if the site is not white
+     */
+    private boolean canStart(final Site from) {
+        return phase != GamePhase.TWO || component[index(from)] != -1;
+    }
+
+    /**
+     * Returns the sites of a BitSet
+     * @param  bits site numbers
+     * @return      list of the sites
+     */
+    private Collection<Site> sites(final BitSet bits) {
+        LinkedList<Site> list = new LinkedList<>();
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            list.add(site(i));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,354 @@
+package nowhere2gopp.gamelogic;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import nowhere2gopp.preset.Site;
+import nowhere2gopp.preset.SiteSet;
+
+/**
+ * The parts of a {@link GameBoard GameBoard} that are the same for every game of one size: the sites, the links, which sites
+ * are neighbours and which links touch a site. It is built once per size and JVM by {@link #of(int) of} and never changes,
+ * so every board of that size shares it and keeps only the state of its game. Sites are numbered in the order the board
+ * creates them and links in the order they are linked, so boards built from it iterate in the same order as before.
+ */
+public final class Topology {
+    /**
+     * Topologies built so far, by size
+     */
+    private static final ConcurrentHashMap<Integer, Topology> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Steps from a site to the neighbours it is linked with while the links are created: above, diagonal and right
+     */
+    private static final int[][] LINK_DIRECTIONS = { { 0, 1 }, { 1, 1 }, { 1, 0 } };
+
+    /**
+     * Integer k of the board
+     */
+    private final int k;
+
+    /**
+     * Number of columns and rows, 2k+1
+     */
+    private final int size;
+
+    /**
+     * Sites by number
+     */
+    private final Site[] sites;
+
+    /**
+     * Number of every site by column * size + row, -1 if there is no site
+     */
+    private final int[] siteIndex;
+
+    /**
+     * Links by number
+     */
+    private final SiteSet[] links;
+
+    /**
+     * Number of the first site of every link
+     */
+    private final int[] linkFirst;
+
+    /**
+     * Number of the second site of every link
+     */
+    private final int[] linkSecond;
+
+    /**
+     * Numbers of the neighbours of every site, in the order the links are created
+     */
+    private final int[][] neighbours;
+
+    /**
+     * Numbers of the links that touch every site, in the same order as the neighbours
+     */
+    private final int[][] incident;
+
+    /**
+     * Rounds of {@link GamePhase#ONE GamePhase One}
+     */
+    private final int phaseOneRounds;
+
+    /**
+     * Builds the topology of a size, only used by {@link #of(int) of}
+     * @param k Integer k of the board
+     */
+    private Topology(final int k) {
+        this.k    = k;
+        size      = 2 * k + 1;
+        siteIndex = new int[size * size];
+        Arrays.fill(siteIndex, -1);
+
+        // the sites in the order GameBoard created them
+        sites = new Site[3 * k * k + 3 * k + 1];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            count = addSite(count, i, i);
+            for (int j = 1; j <= k; j++) {
+                count = addSite(count, i + j, i);
+                count = addSite(count, i, i + j);
+            }
+        }
+
+        // the links in the order of a depth first walk from (0,0), with a stack instead of recursion
+        int maxLinks = 3 * k * (3 * k + 1);
+        SiteSet[] linked = new SiteSet[maxLinks];
+        int[] first      = new int[maxLinks];
+        int[] second     = new int[maxLinks];
+        int[] degree   = new int[sites.length];
+        int[][] stack  = new int[maxLinks + 1][];
+        int depth      = 0;
+        int linkCount  = 0;
+        int[][] around = new int[sites.length][6];
+        int[][] touch  = new int[sites.length][6];
+        stack[depth++] = new int[] { 0, 0, 0 };
+        while (depth > 0) {
+            int[] top = stack[depth - 1];
+            if (top[2] == LINK_DIRECTIONS.length) {
+                depth--;
+                continue;
+            }
+            int[] direction = LINK_DIRECTIONS[top[2]++];
+            int from = index(top[0], top[1]);
+            int to   = index(top[0] + direction[0], top[1] + direction[1]);
+            if (to == -1 || contains(around[from], degree[from], to)) continue;
+            linked[linkCount] = new SiteSet(sites[from], sites[to]);
+            first[linkCount]  = from;
+            second[linkCount] = to;
+            around[from][degree[from]] = to;
+            touch[from][degree[from]++] = linkCount;
+            around[to][degree[to]] = from;
+            touch[to][degree[to]++] = linkCount;
+            linkCount++;
+            stack[depth++] = new int[] { top[0] + direction[0], top[1] + direction[1], 0 };
+        }
+
+        links      = Arrays.copyOf(linked, linkCount);
+        linkFirst  = Arrays.copyOf(first, linkCount);
+        linkSecond = Arrays.copyOf(second, linkCount);
+        neighbours = new int[sites.length][];
+        incident   = new int[sites.length][];
+        for (int i = 0; i < sites.length; i++) {
+            neighbours[i] = Arrays.copyOf(around[i], degree[i]);
+            incident[i]   = Arrays.copyOf(touch[i], degree[i]);
+        }
+        phaseOneRounds = phaseOneRounds(k, linkCount);
+    }
+
+    /**
+     * Returns the topology of the given size, it is built on the first call for that size
+     * @param  k Integer k of the board
+     * @return   shared topology
+     * @throws IllegalArgumentException if the board does not fit the {@link nowhere2gopp.preset.Site#BASE Site.BASE}
+     */
+    public static Topology of(final int k) {
+        if ((k < 1) || (2 * k + 1 > Site.BASE)) throw new IllegalArgumentException("k must be between 1 and " + (Site.BASE - 1) / 2 + " but was " + k);
+        return CACHE.computeIfAbsent(k, Topology::new);
+    }
+
+    /**
+     * Returns the number of rounds of {@link GamePhase#ONE GamePhase One}. The rules give 2^(k-1) rounds for k up to 5, in
+     * which about a quarter of the links is removed. Larger boards keep that share with a round for every 15 links,
+     * because 2^(k-1) rounds would remove more links than there are from k = 9 on.
+     * @param  k     size of the board
+     * @param  links number of links at the start
+     * @return       rounds of the first GamePhase
+     */
+    static int phaseOneRounds(final int k, final int links) {
+        if (k <= 5) return 1 << (k - 1); // equivalent to 2^(k-1)
+        return links / 15;
+    }
+
+    /**
+     * Adds the site if it is on the board and not added yet
+     * @param  count  number of sites so far
+     * @param  column column of the site
+     * @param  row    row of the site
+     * @return        new number of sites
+     */
+    private int addSite(final int count, final int column, final int row) {
+        if (column >= size || row >= size || siteIndex[column * size + row] != -1) return count;
+        sites[count] = new Site(column, row);
+        siteIndex[column * size + row] = count;
+        return count + 1;
+    }
+
+    /**
+     * Returns true if one of the first count entries is the value
+     * @param  values array to search
+     * @param  count  number of used entries
+     * @param  value  value to find
+     * @return        true if the value is found
+     */
+    private static boolean contains(final int[] values, final int count, final int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the integer k of the board
+     * @return k
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Returns the number of columns and rows
+     * @return 2k+1
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of sites
+     * @return number of sites
+     */
+    public int getSiteCount() {
+        return sites.length;
+    }
+
+    /**
+     * Returns the number of links at the start of a game
+     * @return number of links
+     */
+    public int getLinkCount() {
+        return links.length;
+    }
+
+    /**
+     * Returns the site with the given number
+     * @param  site number of the site
+     * @return      shared site object
+     */
+    public Site getSite(final int site) {
+        return sites[site];
+    }
+
+    /**
+     * Returns the number of the site at the given column and row
+     * @param  column column of the site
+     * @param  row    row of the site
+     * @return        number of the site, -1 if it is not on the board
+     */
+    public int index(final int column, final int row) {
+        if (column < 0 || row < 0 || column >= size || row >= size) return -1;
+        return siteIndex[column * size + row];
+    }
+
+    /**
+     * Returns the number of a site
+     * @param  site site to look up
+     * @return      number of the site, -1 if it is not on the board
+     */
+    public int index(final Site site) {
+        return index(site.getColumn(), site.getRow());
+    }
+
+    /**
+     * Returns the link with the given number
+     * @param  link number of the link
+     * @return      shared link object
+     */
+    public SiteSet getLink(final int link) {
+        return links[link];
+    }
+
+    /**
+     * Returns the number of a link
+     * @param  link link to look up
+     * @return      number of the link, -1 if the sites are no neighbours
+     */
+    public int linkIndex(final SiteSet link) {
+        int first  = index(link.getFirst());
+        int second = index(link.getSecond());
+        if (first == -1 || second == -1) return -1;
+        for (int i = 0; i < neighbours[first].length; i++) {
+            if (neighbours[first][i] == second) return incident[first][i];
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of the first site of a link
+     * @param  link number of the link
+     * @return      number of the site
+     */
+    public int getLinkFirst(final int link) {
+        return linkFirst[link];
+    }
+
+    /**
+     * Returns the number of the second site of a link
+     * @param  link number of the link
+     * @return      number of the site
+     */
+    public int getLinkSecond(final int link) {
+        return linkSecond[link];
+    }
+
+    /**
+     * Returns the number of neighbours of a site at the start of a game, which is also the number of links that touch it
+     * @param  site number of the site
+     * @return      number of neighbours
+     */
+    public int getDegree(final int site) {
+        return neighbours[site].length;
+    }
+
+    /**
+     * Returns a neighbour of a site
+     * @param  site number of the site
+     * @param  i    position in the neighbours, below {@link #getDegree(int) getDegree}
+     * @return      number of the neighbour
+     */
+    public int getNeighbour(final int site, final int i) {
+        return neighbours[site][i];
+    }
+
+    /**
+     * Returns the link between a site and one of its neighbours
+     * @param  site number of the site
+     * @param  i    position in the neighbours, below {@link #getDegree(int) getDegree}
+     * @return      number of the link to {@link #getNeighbour(int, int) getNeighbour(site, i)}
+     */
+    public int getIncidentLink(final int site, final int i) {
+        return incident[site][i];
+    }
+
+    /**
+     * Returns the links that touch a site as a bit mask, bit i of word i / 64 stands for link i
+     * @param  site number of the site
+     * @return      new mask with {@link #getLinkCount() getLinkCount} bits
+     */
+    public long[] getIncidentMask(final int site) {
+        long[] mask = new long[(links.length + 63) >>> 6];
+        for (int link : incident[site]) {
+            mask[link >>> 6] |= 1L << link;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the number of rounds of {@link GamePhase#ONE GamePhase One}
+     * @return rounds of the first GamePhase
+     */
+    public int getPhaseOneRounds() {
+        return phaseOneRounds;
+    }
+
+    /**
+     * Returns the number of possible moves at the start of a game: every pair of links and the surrender
+     * @return size of the first move map
+     */
+    public int getInitialMoveCount() {
+        return links.length * (links.length - 1) / 2 + 1;
+    }
+}
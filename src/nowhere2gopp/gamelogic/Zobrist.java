@@ -0,0 +1,115 @@
+package nowhere2gopp.gamelogic;
+
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Site;
+import nowhere2gopp.preset.SiteSet;
+
+/**
+ * This class provides the Zobrist keys used by {@link nowhere2gopp.gamelogic.GameBoard#positionHash() positionHash}.
+ * Every link, every agent position and every turn gets a pseudo random 64 bit key and the hash of a position is the XOR
+ * of the keys of everything that is on the board. Instead of random tables the keys are derived from column and row of the
+ * {@link nowhere2gopp.preset.Site Sites} with a mixing function. The sites are numbered with the fixed base
+ * {@link nowhere2gopp.preset.Site#MAX_BASE MAX_BASE}, not with {@link nowhere2gopp.preset.Site#BASE Site.BASE} that depends on
+ * the system property nowhere2gopp.base, so the keys are the same for every board size, in every JVM and in every stored
+ * index or snapshot.
+ */
+public final class Zobrist {
+    /**
+     * Number of this way to compute the keys, stored with persisted hashes to detect hashes of an older scheme
+     */
+    public static final int SCHEME = 2;
+
+    /**
+     * Salt of the link keys
+     */
+    private static final long LINK = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Salt of the keys of the red agent
+     */
+    private static final long RED_AGENT = 0xC2B2AE3D27D4EB4FL;
+
+    /**
+     * Salt of the keys of the blue agent
+     */
+    private static final long BLUE_AGENT = 0x165667B19E3779F9L;
+
+    /**
+     * Salt of the keys of turn, phase and rounds
+     */
+    private static final long STATE = 0x27D4EB2F165667C5L;
+
+    /**
+     * Salt of the keys of the search depth
+     */
+    private static final long DEPTH = 0x85EBCA77C2B2AE63L;
+
+    /**
+     * Utility class, no instances
+     */
+    private Zobrist() {}
+
+    /**
+     * Returns the key of a link
+     * @param  link link on the board
+     * @return      key of the link
+     */
+    public static long link(final SiteSet link) {
+        long first  = code(link.getFirst());
+        long second = code(link.getSecond());
+        return mix(LINK + Math.min(first, second) * Site.MAX_BASE * Site.MAX_BASE + Math.max(first, second));
+    }
+
+    /**
+     * Returns the key of an agent on the given site
+     * @param  color color of the agent
+     * @param  site  position of the agent
+     * @return       key of the agent position
+     */
+    public static long agent(final PlayerColor color, final Site site) {
+        return mix((color == PlayerColor.Red ? RED_AGENT : BLUE_AGENT) + code(site));
+    }
+
+    /**
+     * Returns the number of a site in the fixed layout
+     * @param  site site on the board
+     * @return      column * {@link nowhere2gopp.preset.Site#MAX_BASE MAX_BASE} + row
+     */
+    private static long code(final Site site) {
+        return (long) site.getColumn() * Site.MAX_BASE + site.getRow();
+    }
+
+    /**
+     * Returns the key of the turn and the phase. The rounds are only part of the key before
+     * {@link nowhere2gopp.gamelogic.GamePhase#THREE phase three}, because they decide when the next phase starts.
+     * @param  turn   player whose turn it is
+     * @param  phase  phase of the game
+     * @param  rounds elapsed rounds
+     * @return        key of the state
+     */
+    public static long state(final PlayerColor turn, final GamePhase phase, final int rounds) {
+        long state = turn.ordinal() | (phase.ordinal() << 1);
+        if (phase != GamePhase.THREE) state |= (long) rounds << 3;
+        return mix(STATE + state);
+    }
+
+    /**
+     * Returns the key of a search depth, used to store results of different depths under the same position
+     * @param  depth search depth
+     * @return       key of the depth
+     */
+    public static long depth(final int depth) {
+        return mix(DEPTH + depth);
+    }
+
+    /**
+     * Finalizer of SplitMix64, spreads the bits of the input over the whole output
+     * @param  z input
+     * @return   mixed value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
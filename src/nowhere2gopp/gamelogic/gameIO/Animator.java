@@ -0,0 +1,152 @@
+package nowhere2gopp.gamelogic.gameIO;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Plays the animations of {@link nowhere2gopp.gamelogic.gameIO.GameIO GameIO} on the event dispatch thread. A move is queued as
+ * a list of frames; a Swing {@link javax.swing.Timer Timer} shows one frame per step. The thread that queues a move never waits.
+ * If moves arrive faster than they can be shown, the animator fast-forwards: every move but the newest one is shown at once.
+ */
+final class Animator implements ActionListener {
+    /**
+     * Default time between two frames in milliseconds
+     */
+    static final int DEFAULT_STEP_MILLIS = 150;
+
+    /**
+     * Moves waiting to be shown, each as its frames
+     */
+    private final ConcurrentLinkedQueue<Runnable[]> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Timer that shows the next frame, only runs while there are frames to show
+     */
+    private final Timer timer;
+
+    /**
+     * Frames of the move that is shown right now, null if there is none. Only used on the event dispatch thread.
+     */
+    private Runnable[] current;
+
+    /**
+     * Index of the next frame of {@link #current current}
+     */
+    private int frame;
+
+    /**
+     * Time between two frames in milliseconds, 0 shows every move at once
+     */
+    private volatile int stepMillis;
+
+    /**
+     * Constructor of an animator
+     * @param stepMillis time between two frames in milliseconds, 0 for instant
+     */
+    Animator(final int stepMillis) {
+        this.stepMillis = stepMillis;
+        timer = new Timer(Math.max(1, stepMillis), this);
+        timer.setInitialDelay(0);
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * Queues the frames of a move. Returns at once, can be called from any thread.
+     * @param frames steps of the animation, shown one per {@link #getStepMillis() step}
+     */
+    void play(final Runnable... frames) {
+        queue.add(frames);
+        SwingUtilities.invokeLater(this::wake);
+    }
+
+    /**
+     * Sets the speed of the animation
+     * @param millis time between two frames in milliseconds, 0 shows every move at once
+     */
+    void setStepMillis(final int millis) {
+        stepMillis = millis;
+        SwingUtilities.invokeLater(() -> timer.setDelay(Math.max(1, millis)));
+    }
+
+    /**
+     * Returns the speed of the animation
+     * @return time between two frames in milliseconds, 0 for instant
+     */
+    int getStepMillis() {
+        return stepMillis;
+    }
+
+    /**
+     * Drops every queued frame, used when the window is reset
+     */
+    void clear() {
+        queue.clear();
+        SwingUtilities.invokeLater(() -> {
+            current = null;
+            timer.stop();
+        });
+    }
+
+    /**
+     * Starts the timer for newly queued moves or shows them at once. Runs on the event dispatch thread.
+     */
+    private void wake() {
+        if (stepMillis == 0) {
+            finishCurrent();
+            for (Runnable[] frames; (frames = queue.poll()) != null;) {
+                runAll(frames, 0);
+            }
+        } else if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Shows the next frame. Called by the timer on the event dispatch thread.
+     * @param e event of the timer
+     */
+    @Override
+    public void actionPerformed(final ActionEvent e) {
+        // fast-forward: a move that has another one waiting behind it is shown at once
+        while (!queue.isEmpty() && (current != null || queue.size() > 1)) {
+            if (current == null) {
+                current = queue.poll();
+                frame   = 0;
+            }
+            finishCurrent();
+        }
+        if (current == null) {
+            current = queue.poll();
+            frame   = 0;
+        }
+        if (current == null) {
+            timer.stop();
+            return;
+        }
+        current[frame++].run();
+        if (frame == current.length) current = null;
+    }
+
+    /**
+     * Shows the remaining frames of the current move at once
+     */
+    private void finishCurrent() {
+        if (current != null) runAll(current, frame);
+        current = null;
+    }
+
+    /**
+     * Runs frames without waiting
+     * @param frames frames of a move
+     * @param from   index of the first frame to run
+     */
+    private static void runAll(final Runnable[] frames, final int from) {
+        for (int i = from; i < frames.length; i++) {
+            frames[i].run();
+        }
+    }
+}
@@ -0,0 +1,674 @@
+package nowhere2gopp.gamelogic.gameIO;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import javax.swing.JComponent;
+
+import nowhere2gopp.preset.Site;
+import nowhere2gopp.preset.SiteSet;
+
+/**
+ * Draws the whole board on one component, as an alternative to the buttons of {@link nowhere2gopp.gamelogic.gameIO.GameIO GameIO}.
+ * The board is kept in three cached images: the static grid, the links and the sites with the agents and previews.
+ * A change redraws only the elements in the dirty rectangle of one layer and repaints that rectangle; a resize only
+ * invalidates the layers, they are drawn again once on the next paint. Clicks are hit-tested in a grid of cells, each
+ * cell knows the elements that overlap it. All methods have to be called on the event dispatch thread.
+ */
+final class BoardCanvas extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Gets the clicks on the elements of the board
+     */
+    interface ClickListener {
+        /**
+         * Called when a site is clicked
+         * @param site clicked site
+         */
+        void siteClicked(Site site);
+
+        /**
+         * Called when a visible link is clicked
+         * @param link clicked link
+         */
+        void linkClicked(SiteSet link);
+    }
+
+    /**
+     * Background of the board
+     */
+    private static final Color C_BACKGROUND = new Color(238, 238, 238);
+
+    /**
+     * Color of the grooves of the grid, where the links are
+     */
+    private static final Color C_GROOVE = new Color(222, 222, 222);
+
+    /**
+     * Half the width of a link relative to the diameter of a site, like in {@link nowhere2gopp.gamelogic.gameIO.GameIO GameIO}
+     */
+    private static final double LINE_WIDTH = 0.13;
+
+    /**
+     * Layers are allocated in steps of this many pixels
+     */
+    private static final int LAYER_STEP = 128;
+
+    /**
+     * Board size
+     */
+    private final int n;
+
+    /**
+     * (n-1)/2
+     */
+    private final int k;
+
+    /**
+     * Sites of the board
+     */
+    private final Site[] sites;
+
+    /**
+     * Links of the board
+     */
+    private final SiteSet[] links;
+
+    /**
+     * Index of the first site of every link
+     */
+    private final int[] linkFrom;
+
+    /**
+     * Index of the second site of every link
+     */
+    private final int[] linkTo;
+
+    /**
+     * Index of every site
+     */
+    private final HashMap<Site, Integer> siteIndex = new HashMap<>();
+
+    /**
+     * Index of every link
+     */
+    private final HashMap<SiteSet, Integer> linkIndex = new HashMap<>();
+
+    /**
+     * Current color of every site
+     */
+    private final Color[] siteColor;
+
+    /**
+     * Current color of every link
+     */
+    private final Color[] linkColor;
+
+    /**
+     * Visibility of every link, removed links are hidden
+     */
+    private final boolean[] linkVisible;
+
+    /**
+     * Center of every site, x and y alternating, for the current size
+     */
+    private double[] centers;
+
+    /**
+     * Diameter of a site for the current size
+     */
+    private double diameter;
+
+    /**
+     * Static layer: background and the grooves of all links
+     */
+    private BufferedImage gridLayer;
+
+    /**
+     * Layer of the visible links
+     */
+    private BufferedImage linkLayer;
+
+    /**
+     * Layer of the sites with their colors
+     */
+    private BufferedImage siteLayer;
+
+    /**
+     * Width the positions and the layers were computed for, the layers may be larger so a resize can reuse them
+     */
+    private int layoutWidth = -1;
+
+    /**
+     * Height the positions and the layers were computed for
+     */
+    private int layoutHeight = -1;
+
+    /**
+     * False if the link layer has to be drawn again on the next paint
+     */
+    private boolean linksDrawn;
+
+    /**
+     * False if the site layer has to be drawn again on the next paint
+     */
+    private boolean sitesDrawn;
+
+    /**
+     * Side length of a cell of the hit-test grid
+     */
+    private int cellSize;
+
+    /**
+     * Number of columns of the hit-test grid
+     */
+    private int cellColumns;
+
+    /**
+     * Elements overlapping every cell: a site as its index, a link as the number of sites plus its index
+     */
+    private int[][] cells;
+
+    /**
+     * Gets the clicks, may be null
+     */
+    private ClickListener listener;
+
+    /**
+     * Constructor of a canvas for a board of the given size
+     * @param size board size
+     */
+    BoardCanvas(final int size) {
+        n = size;
+        k = (n - 1) / 2;
+
+        int count = 0;
+        for (int row = 0; row < n; row++) {
+            for (int column = 0; column < n; column++) {
+                if (exists(column, row)) count++;
+            }
+        }
+        sites = new Site[count];
+        count = 0;
+        for (int row = 0; row < n; row++) {
+            for (int column = 0; column < n; column++) {
+                if (!exists(column, row)) continue;
+                sites[count] = new Site(column, row);
+                siteIndex.put(sites[count], count);
+                count++;
+            }
+        }
+
+        // every site links to its right, upper left and upper right neighbor, like the buttons of GameIO
+        int[][] steps = { { 1, 0 }, { 0, 1 }, { 1, 1 } };
+        SiteSet[] found = new SiteSet[3 * sites.length];
+        int[] from = new int[found.length];
+        int[] to = new int[found.length];
+        count = 0;
+        for (int i = 0; i < sites.length; i++) {
+            for (int[] step : steps) {
+                int column = sites[i].getColumn() + step[0];
+                int row = sites[i].getRow() + step[1];
+                if (!exists(column, row)) continue;
+                Site other = new Site(column, row);
+                found[count] = new SiteSet(sites[i], other);
+                linkIndex.put(found[count], count);
+                from[count] = i;
+                to[count] = siteIndex.get(other);
+                count++;
+            }
+        }
+        links = Arrays.copyOf(found, count);
+        linkFrom = Arrays.copyOf(from, count);
+        linkTo = Arrays.copyOf(to, count);
+
+        siteColor = new Color[sites.length];
+        linkColor = new Color[links.length];
+        linkVisible = new boolean[links.length];
+        resetElements();
+
+        // the same start size as the window of GameIO
+        setPreferredSize(new Dimension(n * 93, (n + 1) * 77));
+        setOpaque(true);
+
+        MouseAdapter mouse = new MouseAdapter() {
+            private int pressed = -1;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                pressed = hit(e.getX(), e.getY());
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                int released = hit(e.getX(), e.getY());
+                if (released >= 0 && released == pressed && listener != null) {
+                    if (released < sites.length)
+                        listener.siteClicked(sites[released]);
+                    else
+                        listener.linkClicked(links[released - sites.length]);
+                }
+                pressed = -1;
+            }
+        };
+        addMouseListener(mouse);
+    }
+
+    /**
+     * Returns true if the board has a site at the given coordinates
+     * @param  column column of the site
+     * @param  row    row of the site
+     * @return        true if the site exists
+     */
+    private boolean exists(final int column, final int row) {
+        return column >= 0 && row >= 0 && column < n && row < n && Math.abs(column - row) <= k;
+    }
+
+    /**
+     * Sets the listener for clicks
+     * @param listener listener, null for none
+     */
+    void setClickListener(final ClickListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns all sites of the board
+     * @return sites, not copied
+     */
+    Site[] getSites() {
+        return sites;
+    }
+
+    /**
+     * Returns all links of the board
+     * @return links, not copied
+     */
+    SiteSet[] getLinks() {
+        return links;
+    }
+
+    /**
+     * Shows all links in the default color and all sites in the default color
+     */
+    void reset() {
+        resetElements();
+        sitesDrawn = false;
+        linksDrawn = false;
+        repaint();
+    }
+
+    /**
+     * Sets every element to its default state
+     */
+    private void resetElements() {
+        Arrays.fill(siteColor, GameIO.C_DEFAULT_SITE);
+        Arrays.fill(linkColor, GameIO.C_DEFAULT_LINK);
+        Arrays.fill(linkVisible, true);
+    }
+
+    /**
+     * Colors a site
+     * @param site  site to color
+     * @param color new color
+     */
+    void setSiteColor(final Site site, final Color color) {
+        Integer i = siteIndex.get(site);
+        if (i == null || color.equals(siteColor[i])) return;
+        siteColor[i] = color;
+        Rectangle dirty = siteBounds(i);
+        drawSites(dirty);
+        repaint(dirty);
+    }
+
+    /**
+     * Returns the color of a site
+     * @param  site site to look up
+     * @return      its color
+     */
+    Color getSiteColor(final Site site) {
+        return siteColor[siteIndex.get(site)];
+    }
+
+    /**
+     * Shows or hides a link
+     * @param link    link to change
+     * @param visible false if the link was removed
+     */
+    void setLinkVisible(final SiteSet link, final boolean visible) {
+        Integer i = linkIndex.get(link);
+        if (i == null || linkVisible[i] == visible) return;
+        linkVisible[i] = visible;
+        Rectangle dirty = linkBounds(i);
+        drawLinks(dirty);
+        repaint(dirty);
+    }
+
+    /**
+     * Returns true if the link is shown
+     * @param  link link to look up
+     * @return      true if it was not removed
+     */
+    boolean isLinkVisible(final SiteSet link) {
+        return linkVisible[linkIndex.get(link)];
+    }
+
+    /**
+     * Colors a link
+     * @param link  link to color
+     * @param color new color
+     */
+    void setLinkColor(final SiteSet link, final Color color) {
+        Integer i = linkIndex.get(link);
+        if (i == null || color.equals(linkColor[i])) return;
+        linkColor[i] = color;
+        if (!linkVisible[i]) return;
+        Rectangle dirty = linkBounds(i);
+        drawLinks(dirty);
+        repaint(dirty);
+    }
+
+    /**
+     * Colors every visible link at once with one redraw of the link layer
+     * @param color new color
+     */
+    void setVisibleLinksColor(final Color color) {
+        for (int i = 0; i < links.length; i++) {
+            if (linkVisible[i]) linkColor[i] = color;
+        }
+        linksDrawn = false;
+        repaint();
+    }
+
+    /**
+     * The layers are drawn again after a resize, otherwise only copied
+     * @param g graphics of the component
+     */
+    @Override
+    protected void paintComponent(final Graphics g) {
+        if (getWidth() != layoutWidth || getHeight() != layoutHeight) layout(getWidth(), getHeight());
+        if (gridLayer == null) return;
+        if (!linksDrawn) drawLinks(null);
+        if (!sitesDrawn) drawSites(null);
+        // the clip of g is the dirty region, only that part of the layers is copied
+        g.drawImage(gridLayer, 0, 0, null);
+        g.drawImage(linkLayer, 0, 0, null);
+        g.drawImage(siteLayer, 0, 0, null);
+    }
+
+    /**
+     * Computes the positions for the given size, draws the static layer and builds the hit-test grid.
+     * The other layers are drawn on the next paint.
+     * @param width  width of the component
+     * @param height height of the component
+     */
+    private void layout(final int width, final int height) {
+        layoutWidth = width;
+        layoutHeight = height;
+        linksDrawn = false;
+        sitesDrawn = false;
+        if (width <= 0 || height <= 0) return;
+        gridLayer = ensureLayer(gridLayer, Transparency.OPAQUE);
+        linkLayer = ensureLayer(linkLayer, Transparency.TRANSLUCENT);
+        siteLayer = ensureLayer(siteLayer, Transparency.TRANSLUCENT);
+
+        // a row is 1.5 diameters wide per site and 1.25 diameters high, see GameIO.BoardDisplay
+        diameter = Math.min(width / (1.5 * n + 0.5), height / (1.25 * n + 0.5));
+        double sideStep = 0.75 * diameter;
+        double rowHeight = 1.25 * diameter;
+        centers = new double[2 * sites.length];
+        for (int i = 0; i < sites.length; i++) {
+            int column = sites[i].getColumn();
+            int row = sites[i].getRow();
+            centers[2 * i] = width / 2.0 + sideStep * (2 * column - row - k);
+            centers[2 * i + 1] = height / 2.0 + rowHeight * (k - row);
+        }
+
+        Graphics2D g = gridLayer.createGraphics();
+        g.setColor(C_BACKGROUND);
+        g.fillRect(0, 0, width, height);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setStroke(new BasicStroke((float) (diameter * LINE_WIDTH * 2), BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER));
+        g.setColor(C_GROOVE);
+        for (int i = 0; i < links.length; i++) {
+            g.draw(line(i));
+        }
+        g.dispose();
+
+        buildCells(width, height);
+    }
+
+    /**
+     * Sorts the elements into the cells of the hit-test grid
+     * @param width  width of the component
+     * @param height height of the component
+     */
+    private void buildCells(final int width, final int height) {
+        cellSize = Math.max(8, (int) diameter);
+        cellColumns = (width + cellSize - 1) / cellSize;
+        int cellRows = (height + cellSize - 1) / cellSize;
+        int elements = sites.length + links.length;
+        Rectangle[] bounds = new Rectangle[elements];
+        for (int i = 0; i < sites.length; i++) {
+            bounds[i] = siteBounds(i);
+        }
+        for (int i = 0; i < links.length; i++) {
+            bounds[sites.length + i] = linkBounds(i);
+        }
+
+        // count first, then fill, so every cell is an array of the right length
+        int[] counts = new int[cellColumns * cellRows];
+        for (int pass = 0; pass < 2; pass++) {
+            if (pass == 1) {
+                cells = new int[counts.length][];
+                for (int c = 0; c < counts.length; c++) {
+                    cells[c] = new int[counts[c]];
+                }
+                Arrays.fill(counts, 0);
+            }
+            for (int e = 0; e < elements; e++) {
+                int x0 = Math.max(0, bounds[e].x / cellSize);
+                int y0 = Math.max(0, bounds[e].y / cellSize);
+                int x1 = Math.min(cellColumns - 1, (bounds[e].x + bounds[e].width) / cellSize);
+                int y1 = Math.min(cellRows - 1, (bounds[e].y + bounds[e].height) / cellSize);
+                for (int y = y0; y <= y1; y++) {
+                    for (int x = x0; x <= x1; x++) {
+                        int c = y * cellColumns + x;
+                        if (pass == 1) cells[c][counts[c]] = e;
+                        counts[c]++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the element at a point. Sites are on top of the links, hidden links cannot be clicked.
+     * @param  x x coordinate on the component
+     * @param  y y coordinate on the component
+     * @return   index of a site, the number of sites plus the index of a link, or -1 for nothing
+     */
+    int hit(final int x, final int y) {
+        if (cells == null || x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) return -1;
+        int c = (y / cellSize) * cellColumns + x / cellSize;
+        if (c >= cells.length) return -1;
+        double radius = diameter / 2;
+        int best = -1;
+        for (int e : cells[c]) {
+            if (e < sites.length) {
+                double dx = x - centers[2 * e];
+                double dy = y - centers[2 * e + 1];
+                if (dx * dx + dy * dy <= radius * radius) return e;
+            } else if (best < 0 && linkVisible[e - sites.length]) {
+                double reach = Math.max(4, diameter * LINE_WIDTH);
+                if (line(e - sites.length).ptSegDist(x, y) <= reach) best = e;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Draws the visible links inside a rectangle again, the caller repaints it
+     * @param dirty rectangle to draw, null for the whole layer
+     */
+    private void drawLinks(final Rectangle dirty) {
+        if (!linksDrawn) {
+            if (dirty != null) return; // drawn as a whole on the next paint
+            linksDrawn = true;
+        }
+        Graphics2D g = prepare(linkLayer, dirty);
+        BasicStroke outline = new BasicStroke((float) (diameter * LINE_WIDTH * 2 + 2), BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER);
+        BasicStroke fill = new BasicStroke((float) (diameter * LINE_WIDTH * 2 - 2), BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER);
+        for (int i : candidates(dirty, links.length, sites.length)) {
+            if (!linkVisible[i]) continue;
+            Line2D line = line(i);
+            g.setStroke(outline);
+            g.setColor(Color.BLACK);
+            g.draw(line);
+            g.setStroke(fill);
+            g.setColor(linkColor[i]);
+            g.draw(line);
+        }
+        g.dispose();
+    }
+
+    /**
+     * Draws the sites inside a rectangle again, the caller repaints it
+     * @param dirty rectangle to draw, null for the whole layer
+     */
+    private void drawSites(final Rectangle dirty) {
+        if (!sitesDrawn) {
+            if (dirty != null) return; // drawn as a whole on the next paint
+            sitesDrawn = true;
+        }
+        Graphics2D g = prepare(siteLayer, dirty);
+        g.setFont(getFont() == null ? new Font(Font.SANS_SERIF, Font.PLAIN, 10) : getFont().deriveFont((float) Math.max(8, diameter / 5)));
+        for (int i : candidates(dirty, sites.length, 0)) {
+            double x = centers[2 * i] - diameter / 2;
+            double y = centers[2 * i + 1] - diameter / 2;
+            g.setColor(siteColor[i]);
+            g.fill(new Ellipse2D.Double(x, y, diameter, diameter));
+            g.setColor(Color.YELLOW);
+            g.drawString(sites[i].getColumn() + "|" + sites[i].getRow(), (float) (x + diameter / 8), (float) (y + diameter / 2));
+        }
+        g.dispose();
+    }
+
+    /**
+     * Returns the graphics of a layer with the dirty rectangle cleared and set as clip
+     * @param  layer layer to draw into
+     * @param  dirty rectangle to clear, null for the whole layer
+     * @return       graphics with antialiasing
+     */
+    private static Graphics2D prepare(final BufferedImage layer, final Rectangle dirty) {
+        Graphics2D g = layer.createGraphics();
+        if (dirty != null) g.setClip(dirty);
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, layer.getWidth(), layer.getHeight());
+        g.setComposite(AlphaComposite.SrcOver);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        return g;
+    }
+
+    /**
+     * Returns the indices of the elements of one kind that may overlap a rectangle, taken from the hit-test grid
+     * @param  dirty  rectangle, null for all elements
+     * @param  count  number of elements of the kind
+     * @param  offset offset of the kind in the grid, 0 for sites and the number of sites for links
+     * @return        indices of the elements, without the offset
+     */
+    private int[] candidates(final Rectangle dirty, final int count, final int offset) {
+        if (dirty == null || cells == null) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        boolean[] seen = new boolean[count];
+        int[] found = new int[count];
+        int size = 0;
+        int x0 = Math.max(0, dirty.x / cellSize);
+        int y0 = Math.max(0, dirty.y / cellSize);
+        int x1 = Math.min(cellColumns - 1, (dirty.x + dirty.width) / cellSize);
+        int y1 = Math.min(cells.length / cellColumns - 1, (dirty.y + dirty.height) / cellSize);
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                for (int e : cells[y * cellColumns + x]) {
+                    int i = e - offset;
+                    if (i >= 0 && i < count && !seen[i]) {
+                        seen[i] = true;
+                        found[size++] = i;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(found, size);
+    }
+
+    /**
+     * Returns the line from the center of the first to the center of the second site of a link
+     * @param  i index of the link
+     * @return   the line
+     */
+    private Line2D line(final int i) {
+        return new Line2D.Double(centers[2 * linkFrom[i]], centers[2 * linkFrom[i] + 1], centers[2 * linkTo[i]], centers[2 * linkTo[i] + 1]);
+    }
+
+    /**
+     * Returns the rectangle a site covers
+     * @param  i index of the site
+     * @return   bounds with a margin for antialiasing
+     */
+    private Rectangle siteBounds(final int i) {
+        int radius = (int) Math.ceil(diameter / 2) + 2;
+        return new Rectangle((int) centers[2 * i] - radius, (int) centers[2 * i + 1] - radius, 2 * radius, 2 * radius);
+    }
+
+    /**
+     * Returns the rectangle a link covers
+     * @param  i index of the link
+     * @return   bounds with room for the width and the outline
+     */
+    private Rectangle linkBounds(final int i) {
+        Rectangle bounds = line(i).getBounds();
+        int margin = (int) Math.ceil(diameter * LINE_WIDTH) + 3;
+        bounds.grow(margin, margin);
+        return bounds;
+    }
+
+    /**
+     * Returns a layer that covers the component, compatible with the screen if there is one. A layer that is large
+     * enough is kept, a new one is rounded up to {@link #LAYER_STEP LAYER_STEP} pixels, so resizing the window does
+     * not allocate new layers for every step.
+     * @param  layer        current layer, may be null
+     * @param  transparency {@link java.awt.Transparency Transparency} of the layer
+     * @return              the current layer or a new one
+     */
+    private BufferedImage ensureLayer(final BufferedImage layer, final int transparency) {
+        if (layer != null && layer.getWidth() >= getWidth() && layer.getHeight() >= getHeight()) return layer;
+        int width = (getWidth() / LAYER_STEP + 1) * LAYER_STEP;
+        int height = (getHeight() / LAYER_STEP + 1) * LAYER_STEP;
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (config != null) return config.createCompatibleImage(width, height, transparency);
+        int type = transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE;
+        return new BufferedImage(width, height, type);
+    }
+}
@@ -0,0 +1,47 @@
+package nowhere2gopp.gamelogic.gameIO;
+
+import nowhere2gopp.gamelogic.GamePhase;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Site;
+import nowhere2gopp.preset.SiteSet;
+import nowhere2gopp.preset.Status;
+
+/**
+ * Gets the changes of a {@link nowhere2gopp.gamelogic.GameBoard GameBoard} one by one, see
+ * {@link nowhere2gopp.gamelogic.gameIO.ObservableViewer ObservableViewer}. The events of a move are delivered on the thread that
+ * makes the move, right after it was made, so a listener has to return quickly and must not change the board.
+ * Every event carries the {@link ObservableViewer#getVersion() version} of the board after the change.
+ */
+public interface BoardListener {
+    /**
+     * Called for every link a move removes
+     * @param link    removed link
+     * @param version version of the board after the move
+     */
+    default void linkRemoved(final SiteSet link, final long version) {}
+
+    /**
+     * Called for every link that is created again because a move was undone
+     * @param link    restored link
+     * @param version version of the board after the undo
+     */
+    default void linkRestored(final SiteSet link, final long version) {}
+
+    /**
+     * Called when an agent is placed, jumps or is put back by an undo
+     * @param color   color of the agent
+     * @param from    old site, null if the agent was not placed
+     * @param to      new site, null if the agent is taken off the board by an undo
+     * @param version version of the board after the change
+     */
+    default void agentMoved(final PlayerColor color, final Site from, final Site to, final long version) {}
+
+    /**
+     * Called once per move or undo, after all other events of it
+     * @param turn    player whose turn it is now
+     * @param status  status of the board
+     * @param phase   phase of the game
+     * @param version version of the board after the change
+     */
+    default void stateChanged(final PlayerColor turn, final Status status, final GamePhase phase, final long version) {}
+}
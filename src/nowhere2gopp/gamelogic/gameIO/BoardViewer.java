@@ -2,13 +2,13 @@ package nowhere2gopp.gamelogic.gameIO;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 
 import nowhere2gopp.gamelogic.GameBoard;
 import nowhere2gopp.gamelogic.GamePhase;
-import nowhere2gopp.gamelogic.Node;
-import nowhere2gopp.gamelogic.SiteColor;
+import nowhere2gopp.gamelogic.Reachability;
 
 /**
  * This part implements assignment 3 a)
@@ -22,14 +22,13 @@ import nowhere2gopp.preset.PlayerColor;
 import nowhere2gopp.preset.Site;
 import nowhere2gopp.preset.SiteSet;
 import nowhere2gopp.preset.Status;
-import nowhere2gopp.preset.Viewer;
 
 /**
  * This class implements the {@link nowhere2gopp.preset.Viewer Viewer}
- * Interface
+ * Interface and pushes the changes of the board, see {@link nowhere2gopp.gamelogic.gameIO.ObservableViewer ObservableViewer}
  * @author Marvin Sommer
  */
-public class BoardViewer implements Viewer, Serializable {
+public class BoardViewer implements ObservableViewer, Serializable {
     private static final long serialVersionUID = 1L;
 
     /**
@@ -78,11 +77,12 @@ public class BoardViewer implements Viewer, Serializable {
     /**
      * Gets the current site of the specified PLayerColor
      * @param  color Playercolor
-     * @return       current site of corresponding player
+     * @return       current site of corresponding player, null if it is not placed yet
      */
     @Override
     public Site getAgent(final PlayerColor color) {
         Site readme = board.getAgent(color);
+        if (readme == null) return null;
 
         // New instance so we dont pass the reference
         return new Site(readme.getColumn(), readme.getRow());
@@ -105,13 +105,81 @@ public class BoardViewer implements Viewer, Serializable {
     }
 
     /**
-     * Gets the a copy of PossibleMoves
+     * Gets the a copy of PossibleMoves. {@link #isPossibleMove(Move) isPossibleMove} and
+     * {@link #getPossibleMovesView() getPossibleMovesView} do not copy.
      * @return returns the PossibleMoves of the current player
      */
     public HashMap<Move, Move>getPossibleMoves() {
         return board.copyMoveMap(board.getPossibleMoves(getTurn()));
     }
 
+    /**
+     * Checks a move of the current player with {@link nowhere2gopp.gamelogic.GameBoard#isLegal(Move) isLegal}, so the
+     * PossibleMoves are not built for it
+     * @param  move move to check
+     * @return      true if the move can be made
+     */
+    @Override
+    public boolean isPossibleMove(final Move move) {
+        return board.isLegal(move);
+    }
+
+    /**
+     * Gets the PossibleMoves of the current player without copying them
+     * @return unmodifiable view, only valid until the next move
+     */
+    @Override
+    public Collection<Move>getPossibleMovesView() {
+        HashMap<Move, Move> moves = board.getPossibleMoves(getTurn());
+        return moves == null ? Collections.<Move>emptyList() : Collections.unmodifiableCollection(moves.values());
+    }
+
+    /**
+     * Checks if a link is not deleted yet
+     * @param  link link to look up
+     * @return      true if the link is intact
+     */
+    @Override
+    public boolean containsLink(final SiteSet link) {
+        return board.containsLink(link);
+    }
+
+    /**
+     * Gets the number of Links that are not deleted yet
+     * @return number of intact links
+     */
+    @Override
+    public int getLinkCount() {
+        return board.getLinks().size();
+    }
+
+    /**
+     * Gets the version of the GameBoard
+     * @return number of moves and undos made so far
+     */
+    @Override
+    public long getVersion() {
+        return board.getVersion();
+    }
+
+    /**
+     * Registers a listener at the GameBoard
+     * @param listener listener to add
+     */
+    @Override
+    public void addBoardListener(final BoardListener listener) {
+        board.addBoardListener(listener);
+    }
+
+    /**
+     * Removes a listener from the GameBoard
+     * @param listener listener to remove
+     */
+    @Override
+    public void removeBoardListener(final BoardListener listener) {
+        board.removeBoardListener(listener);
+    }
+
     /**
      * Gets the GamePhase
      * @return current GamePhase as ENUM
@@ -128,21 +196,22 @@ public class BoardViewer implements Viewer, Serializable {
         return board.getRounds();
     }
 
+    /**
+     * Gets the reachability of the current position, see {@link nowhere2gopp.gamelogic.GameBoard#reachability() reachability}
+     * @return which sites can be reached from which site
+     */
+    @Override
+    public Reachability getReachability() {
+        return board.reachability();
+    }
+
     /**
      * Gets the Sites to preview for possible Moves in Phase 2
      * They consist of all Sites with at least one reachable neighboring Site
      * @return  Collection containing valid initial sites to move to in phase 2
      */
     public Collection<Site>getPhaseTwoPreview() {
-        Collection<Node> whiteNodes = board.getWhiteSites();
-        LinkedList<Site> whiteSites = new LinkedList<Site>();
-
-        for (Node n : whiteNodes) {
-            if (n.getNeighbors(SiteColor.WHITE).size() != 0) {
-                whiteSites.add(n.getSite());
-            }
-        }
-        return whiteSites;
+        return board.reachability().getStarts();
     }
 
     /**
@@ -152,12 +221,6 @@ public class BoardViewer implements Viewer, Serializable {
      * @return  Sites to preview
      */
     public Collection<Site>getMoveSecondSitePreview(Site s) {
-        LinkedList<Node[]> reachableNodes = board.reachableSites(s);
-        LinkedList<Site>   toPreview      = new LinkedList<Site>();
-
-        for (Node[] pair : reachableNodes) {
-            toPreview.add(pair[1].getSite());
-        }
-        return toPreview;
+        return board.reachability().getReachable(s);
     }
 }
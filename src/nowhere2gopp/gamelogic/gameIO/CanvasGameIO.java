@@ -0,0 +1,618 @@
+package nowhere2gopp.gamelogic.gameIO;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.Box;
+import javax.swing.BoxLayout;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.WindowConstants;
+
+import nowhere2gopp.gamelogic.GamePhase;
+import nowhere2gopp.gamelogic.Reachability;
+import nowhere2gopp.gamelogic.player.AnalysisEngine;
+import nowhere2gopp.gamelogic.player.SearchInfo;
+import nowhere2gopp.gamelogic.player.SearchListener;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.MoveFormatException;
+import nowhere2gopp.preset.MoveType;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Site;
+import nowhere2gopp.preset.SiteSet;
+import nowhere2gopp.preset.Status;
+
+/**
+ * The In-/Output Window of {@link nowhere2gopp.gamelogic.gameIO.GameIO GameIO} drawn on a single
+ * {@link nowhere2gopp.gamelogic.gameIO.BoardCanvas BoardCanvas} instead of one button per site and link.
+ * Moves are entered with the same clicks and animated by the same {@link nowhere2gopp.gamelogic.gameIO.Animator Animator};
+ * every change of the window is made on the event dispatch thread. Like GameIO it follows the board of its viewer through
+ * {@link nowhere2gopp.gamelogic.gameIO.BoardListener BoardListener} events.
+ */
+public class CanvasGameIO implements GameOutput, SearchListener, BoardListener {
+    /**
+     * HTML tag start for Status String
+     */
+    private static final String TAG_START = "<html><p style=\"color:WHITE;background-color:BLACK;\">";
+
+    /**
+     * HTML tag end for Status String
+     */
+    private static final String TAG_END = "</p></html>";
+
+    /**
+     * Contains the BoardViewer which gives us data about the
+     * {@link nowhere2gopp.gamelogic.GameBoard GameBoard}.
+     */
+    private BoardViewer gamestate;
+
+    /**
+     * The game window
+     */
+    private JFrame frame;
+
+    /**
+     * The board
+     */
+    private BoardCanvas canvas;
+
+    /**
+     * Panel with the status, the search telemetry and the surrender label, colored for the player whose turn it is
+     */
+    private JPanel topPanel;
+
+    /**
+     * Contains our status string
+     */
+    private JLabel status;
+
+    /**
+     * Contains the search telemetry of the AI players
+     */
+    private JLabel searchInfo;
+
+    /**
+     * Contains the rating of the analysis
+     */
+    private EvalBar evalBar;
+
+    /**
+     * Contains the best moves of the analysis
+     */
+    private JLabel analysisInfo;
+
+    /**
+     * Contains our clickable surrender-move label
+     */
+    private JLabel surrender;
+
+    /**
+     * Analyses the position while the human thinks, null if the overlay is off
+     */
+    private AnalysisEngine analysis;
+
+    /**
+     * True while an analysis runs, infos that arrive later are dropped
+     */
+    private volatile boolean analysing;
+
+    /**
+     * Plays the animations of the moves on the event dispatch thread
+     */
+    private final Animator animator = new Animator(Animator.DEFAULT_STEP_MILLIS);
+
+    /**
+     * Frames of the move whose events are arriving, queued at the {@link #animator animator} by
+     * {@link #stateChanged(PlayerColor, Status, GamePhase, long) stateChanged}. Only used on the thread that moves the board.
+     */
+    private final ArrayList<Runnable> frames = new ArrayList<>();
+
+    /**
+     * Completed with the move string when the clicks of a move are complete, null while no move is requested
+     */
+    private CompletableFuture<String> input;
+
+    /**
+     * The move string that is built by the clicks
+     */
+    private String parseMe = "";
+
+    /**
+     * Number of valid clicks of the current move
+     */
+    private int clickedThisTurn;
+
+    /**
+     * Sites clicked for the current move
+     */
+    private final HashSet<Site> clickedSites = new HashSet<>();
+
+    /**
+     * Site the agent moves from, null until it is known
+     */
+    private Site origin;
+
+    /**
+     * Links clicked for the current move
+     */
+    private final HashSet<SiteSet> clickedLinks = new HashSet<>();
+
+    /**
+     * The sites colored for the last preview
+     */
+    private Collection<Site> lastColored = Collections.emptyList();
+
+    /**
+     * Constructor which sets the {@link #gamestate Viewer} for this instance and opens the window
+     *
+     * @param viewer viewer that links the UI with the needed data
+     */
+    public CanvasGameIO(final BoardViewer viewer) {
+        setViewer(viewer);
+    }
+
+    /**
+     * Sets the viewer which delivers the gamedata and constructs a corresponding window, the window listens to the
+     * changes of the board of the viewer from now on. A window of the same size is kept and {@link #reload() reloaded}
+     * with the new board.
+     *
+     * @param viewer viewer which delivers gamedata
+     */
+    @Override
+    public void setViewer(final BoardViewer viewer) {
+        boolean keep = frame != null && gamestate.getSize() == viewer.getSize();
+        if (gamestate != null) gamestate.removeBoardListener(this);
+        gamestate = viewer;
+        if (!keep) onEventThread(this::createWindow);
+        gamestate.addBoardListener(this);
+        if (keep) reload();
+    }
+
+    /**
+     * Creates the window for the size of the board
+     */
+    private void createWindow() {
+        if (frame != null) frame.dispose();
+        frame = new JFrame();
+        frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        frame.setMinimumSize(new Dimension(350, 300));
+        frame.setLayout(new BorderLayout());
+
+        topPanel = new JPanel();
+        topPanel.setLayout(new BoxLayout(topPanel, BoxLayout.LINE_AXIS));
+        status = new JLabel();
+        searchInfo = new JLabel();
+        evalBar = new EvalBar();
+        evalBar.setVisible(false);
+        analysisInfo = new JLabel();
+        surrender = new JLabel("<html><p style=\"color:BLACK;background-color:red\">SURRENDER</p></html>");
+        surrender.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                finish("surrender");
+            }
+        });
+        surrender.setMaximumSize(surrender.getPreferredSize());
+        surrender.setVisible(false);
+        topPanel.add(status);
+        topPanel.add(searchInfo);
+        topPanel.add(evalBar);
+        topPanel.add(analysisInfo);
+        topPanel.add(Box.createHorizontalGlue());
+        topPanel.add(surrender);
+
+        canvas = new BoardCanvas(gamestate.getSize());
+        canvas.setClickListener(new BoardCanvas.ClickListener() {
+            @Override
+            public void siteClicked(Site site) {
+                CanvasGameIO.this.siteClicked(site);
+            }
+
+            @Override
+            public void linkClicked(SiteSet link) {
+                CanvasGameIO.this.linkClicked(link);
+            }
+        });
+
+        frame.add(topPanel, BorderLayout.NORTH);
+        frame.add(canvas, BorderLayout.CENTER);
+        updateStatus(gamestate.getStatus(), gamestate.getPhase());
+        frame.pack();
+        frame.setVisible(true);
+    }
+
+    /**
+     * Request function which waits for the clicks of a valid Move
+     * @return constructed Move instance
+     */
+    @Override
+    public Move request() {
+        showStatus(gamestate.getStatus());
+        Color turn = gamestate.getTurn() == PlayerColor.Red ? GameIO.C_PRED : GameIO.C_PBLUE;
+        SwingUtilities.invokeLater(() -> {
+            surrender.setVisible(true);
+            topPanel.setBackground(turn);
+        });
+        if (analysis != null) {
+            analysing = true;
+            analysis.analyse(gamestate);
+        }
+
+        Move result = null;
+        while (result == null) {
+            CompletableFuture<String> clicks = new CompletableFuture<>();
+            SwingUtilities.invokeLater(() -> enableClicks(clicks));
+            try {
+                Move move = Move.parse(clicks.get());
+                if (gamestate.isPossibleMove(move)) {
+                    result = move;
+                } else {
+                    showStatus(Status.Illegal);
+                    System.out.println("Invalid Move.");
+                }
+            } catch (InterruptedException e) {
+                // the referee cancelled the request, e.g. because the time ran out
+                SwingUtilities.invokeLater(() -> finish(null));
+                Thread.currentThread().interrupt();
+                result = new Move(MoveType.Surrender);
+            } catch (MoveFormatException e) {
+                showStatus(Status.Illegal);
+                System.out.println("Moveformat not valid.");
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        Color other = turn == GameIO.C_PRED ? GameIO.C_PBLUE : GameIO.C_PRED;
+        if (analysis != null) {
+            analysing = false;
+            analysis.cancel();
+        }
+        SwingUtilities.invokeLater(() -> {
+            surrender.setVisible(false);
+            topPanel.setBackground(other);
+            evalBar.setVisible(false);
+            analysisInfo.setText("");
+        });
+        return result;
+    }
+
+    /**
+     * Turns on the analysis overlay, see {@link nowhere2gopp.gamelogic.gameIO.GameIO#setAnalysis(AnalysisEngine) GameIO.setAnalysis}
+     *
+     * @param engine engine to use, null turns the overlay off
+     */
+    public void setAnalysis(final AnalysisEngine engine) {
+        if (engine != null) engine.addSearchListener(this::showAnalysis);
+        analysis = engine;
+    }
+
+    /**
+     * Shows the newest info of the analysis on the event dispatch thread, unless the move was made in the meantime
+     *
+     * @param info snapshot of the analysis
+     */
+    private void showAnalysis(final SearchInfo info) {
+        String text = GameIO.analysisText(info);
+        SwingUtilities.invokeLater(() -> {
+            if (!analysing) return;
+            evalBar.show(info);
+            evalBar.setVisible(true);
+            analysisInfo.setText(TAG_START + text + TAG_END);
+            analysisInfo.setMaximumSize(analysisInfo.getPreferredSize());
+        });
+    }
+
+    /**
+     * Prepares the move string for the current phase and previews the possible clicks
+     * @param clicks completed with the move string
+     */
+    private void enableClicks(final CompletableFuture<String> clicks) {
+        input = clicks;
+        clickedThisTurn = 0;
+        clickedSites.clear();
+        clickedLinks.clear();
+        origin = null;
+        switch (gamestate.getPhase()) {
+        case ONE:
+            // linklink move
+            parseMe = "";
+            canvas.setVisibleLinksColor(GameIO.C_PREVIEW);
+            break;
+        case TWO:
+            // initial agent placement agentlink
+            parseMe = "(";
+            colorSites(gamestate.getPhaseTwoPreview());
+            break;
+        default:
+            // already placed, agent link move
+            origin = gamestate.getAgent(gamestate.getTurn());
+            parseMe = "(" + origin + ",";
+            colorSites(gamestate.getMoveSecondSitePreview(origin));
+            break;
+        }
+    }
+
+    /**
+     * Builds the move string from a click on a site, runs on the event dispatch thread
+     * @param site clicked site
+     */
+    private void siteClicked(final Site site) {
+        if (input == null || clickedSites.contains(site)) return;
+        GamePhase phase = gamestate.getPhase();
+        if (phase == GamePhase.ONE) return;
+
+        Reachability reach = gamestate.getReachability();
+        if (phase == GamePhase.TWO) {
+            if (clickedThisTurn == 2) return; // only 2 sites per turn in phase 2
+            if (clickedThisTurn == 0 ? !reach.isStart(site) : !reach.canReach(origin, site)) return; // not previewed
+            revertColorSites();
+            if (clickedThisTurn == 0) {
+                origin = site;
+                parseMe += site + ",";
+                colorSites(gamestate.getMoveSecondSitePreview(site));
+            } else {
+                parseMe += site + ")+";
+                canvas.setVisibleLinksColor(GameIO.C_PREVIEW);
+            }
+        } else {
+            if (clickedThisTurn != 0) return; // only one click on a site in phase 3
+            if (!reach.canReach(origin, site)) return; // not previewed
+            parseMe += site + ")+";
+            revertColorSites();
+            canvas.setVisibleLinksColor(GameIO.C_PREVIEW);
+        }
+        clickedSites.add(site);
+        clickedThisTurn++;
+    }
+
+    /**
+     * Builds the move string from a click on a link, runs on the event dispatch thread
+     * @param link clicked link
+     */
+    private void linkClicked(final SiteSet link) {
+        if (input == null || clickedLinks.contains(link)) return;
+        GamePhase phase = gamestate.getPhase();
+
+        if (phase == GamePhase.ONE) {
+            if (clickedThisTurn == 0) {
+                // first link of a LinkLink move
+                parseMe += link + "+";
+                clickedLinks.add(link);
+                clickedThisTurn++;
+                canvas.setLinkColor(link, GameIO.C_DEFAULT_LINK);
+                return;
+            }
+        } else if (clickedThisTurn != (phase == GamePhase.TWO ? 2 : 1)) {
+            // the sites have to be clicked first
+            return;
+        }
+        clickedLinks.add(link);
+        finish(parseMe + link);
+    }
+
+    /**
+     * Ends the input of a move, removes the previews and hands the move string to {@link #request() request}.
+     * Runs on the event dispatch thread.
+     * @param move move string, null if the request was cancelled
+     */
+    private void finish(final String move) {
+        CompletableFuture<String> clicks = input;
+        if (clicks == null) return;
+        input = null;
+        revertColorSites();
+        canvas.setVisibleLinksColor(GameIO.C_DEFAULT_LINK);
+        if (move != null) clicks.complete(move);
+    }
+
+    /**
+     * Colors the sites of a preview
+     * @param colorUs sites to color
+     */
+    private void colorSites(final Collection<Site> colorUs) {
+        for (Site s : colorUs) {
+            canvas.setSiteColor(s, GameIO.C_PREVIEW);
+        }
+        lastColored = colorUs;
+    }
+
+    /**
+     * Reverts the most recent previewed site colors
+     */
+    private void revertColorSites() {
+        for (Site s : lastColored) {
+            canvas.setSiteColor(s, GameIO.C_DEFAULT_SITE);
+        }
+        lastColored = Collections.emptyList();
+    }
+
+    /**
+     * Shows the status after a move. The board is changed by the {@link BoardListener BoardListener} events, so the move
+     * is not decoded here.
+     *
+     * @param move   Move that was made
+     * @param player Player that made the move
+     */
+    @Override
+    public void update(final Move move, final PlayerColor player) {
+        showStatus(gamestate.getStatus());
+        // built on the thread of the move while the animation plays, the preview of the next turn only reads it
+        gamestate.getReachability();
+    }
+
+    /**
+     * Hides a removed link in the animation of the move
+     *
+     * @param link    removed link
+     * @param version version of the board after the move
+     */
+    @Override
+    public void linkRemoved(final SiteSet link, final long version) {
+        frames.add(() -> canvas.setLinkVisible(link, false));
+    }
+
+    /**
+     * Shows a link again that an undo restored
+     *
+     * @param link    restored link
+     * @param version version of the board after the undo
+     */
+    @Override
+    public void linkRestored(final SiteSet link, final long version) {
+        frames.add(() -> canvas.setLinkVisible(link, true));
+    }
+
+    /**
+     * Moves the color of an agent from its old site to its new one in the animation of the move
+     *
+     * @param color   color of the agent
+     * @param from    old site, null if the agent was not placed
+     * @param to      new site, null if the agent is taken off the board
+     * @param version version of the board after the change
+     */
+    @Override
+    public void agentMoved(final PlayerColor color, final Site from, final Site to, final long version) {
+        Color playerCol = color == PlayerColor.Red ? GameIO.C_PRED : GameIO.C_PBLUE;
+        if (from != null) frames.add(() -> canvas.setSiteColor(from, GameIO.C_DEFAULT_SITE));
+        if (to != null) frames.add(() -> canvas.setSiteColor(to, playerCol));
+    }
+
+    /**
+     * Queues the collected frames of the move at the {@link #animator animator} and shows the new status
+     *
+     * @param turn    player whose turn it is now
+     * @param status  status of the board
+     * @param phase   phase of the game
+     * @param version version of the board after the change
+     */
+    @Override
+    public void stateChanged(final PlayerColor turn, final Status status, final GamePhase phase, final long version) {
+        if (!frames.isEmpty()) animator.play(frames.toArray(new Runnable[frames.size()]));
+        frames.clear();
+        SwingUtilities.invokeLater(() -> updateStatus(status, phase));
+    }
+
+    /**
+     * Sets the speed of the animation
+     *
+     * @param millis time between two steps of an animation in milliseconds, 0 shows every move at once
+     */
+    public void setAnimationMillis(final int millis) {
+        animator.setStepMillis(millis);
+    }
+
+    /**
+     * Shows status on the status label
+     *
+     * @param status Status to show
+     */
+    @Override
+    public void showStatus(final Status status) {
+        GamePhase phase = gamestate.getPhase();
+        SwingUtilities.invokeLater(() -> updateStatus(status, phase));
+    }
+
+    /**
+     * Shows all links again and sets all sites to the default color
+     */
+    @Override
+    public void reset() {
+        animator.clear();
+        SwingUtilities.invokeLater(() -> canvas.reset());
+    }
+
+    /**
+     * Reloads the board according to GameBoard state. Useful for save/load
+     */
+    @Override
+    public void reload() {
+        reset();
+        SwingUtilities.invokeLater(() -> {
+            for (SiteSet link : canvas.getLinks()) {
+                if (!gamestate.containsLink(link)) canvas.setLinkVisible(link, false);
+            }
+            Site red = gamestate.getAgent(PlayerColor.Red);
+            Site blue = gamestate.getAgent(PlayerColor.Blue);
+            if (red != null) canvas.setSiteColor(red, GameIO.C_PRED);
+            if (blue != null) canvas.setSiteColor(blue, GameIO.C_PBLUE);
+        });
+    }
+
+    /**
+     * closes the window and exits
+     */
+    @Override
+    public void close() {
+        onEventThread(frame::dispose);
+        System.exit(0);
+    }
+
+    /**
+     * Shows the search telemetry of an AI player next to the status label, see
+     * {@link nowhere2gopp.gamelogic.gameIO.GameIO#searchInfo(SearchInfo) GameIO.searchInfo}
+     *
+     * @param info snapshot of the search
+     */
+    @Override
+    public void searchInfo(final SearchInfo info) {
+        String text = GameIO.searchInfoText(info);
+        SwingUtilities.invokeLater(() -> {
+            searchInfo.setText(TAG_START + text + TAG_END);
+            searchInfo.setMaximumSize(searchInfo.getPreferredSize());
+        });
+    }
+
+    /**
+     * Shows the Status information on our status label, runs on the event dispatch thread
+     *
+     * @param state status to display
+     * @param phase gamephase
+     */
+    private void updateStatus(final Status state, final GamePhase phase) {
+        String buffer;
+        if (state == null) {
+            buffer = "Null";
+        } else if (state == Status.RedWin) {
+            buffer = "Red Wins";
+        } else if (state == Status.BlueWin) {
+            buffer = "Blue Wins";
+        } else if (state == Status.Draw) {
+            buffer = "Draw";
+        } else {
+            buffer = (state == Status.Ok ? "OK" : "Illegal") + (gamestate.getTurn() == PlayerColor.Red ? " | Red | " : " | Blue | ")
+                     + (phase == GamePhase.ONE ? "Phase 1" : phase == GamePhase.TWO ? "Phase 2" : "Phase 3");
+        }
+        status.setText(TAG_START + buffer + TAG_END);
+        status.setMaximumSize(status.getPreferredSize());
+    }
+
+    /**
+     * Runs a task on the event dispatch thread and waits for it
+     * @param task task to run
+     */
+    private static void onEventThread(final Runnable task) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            task.run();
+            return;
+        }
+        try {
+            SwingUtilities.invokeAndWait(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package nowhere2gopp.gamelogic.gameIO;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+
+import javax.swing.JComponent;
+
+import nowhere2gopp.gamelogic.player.AnalysisEngine;
+import nowhere2gopp.gamelogic.player.SearchInfo;
+import nowhere2gopp.preset.PlayerColor;
+
+/**
+ * Bar of the analysis overlay, the red part on the left grows with the rating for red and the blue part on the right with the
+ * rating for blue. Only used on the event dispatch thread.
+ */
+final class EvalBar extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Share of the bar that is red, 0.5 for an even position
+     */
+    private double red = 0.5;
+
+    /**
+     * Creates an even bar
+     */
+    EvalBar() {
+        setPreferredSize(new Dimension(120, 14));
+        setMaximumSize(getPreferredSize());
+    }
+
+    /**
+     * Shows the rating of an analysis
+     * @param info newest info of the {@link nowhere2gopp.gamelogic.player.AnalysisEngine AnalysisEngine}
+     */
+    void show(final SearchInfo info) {
+        red = redShare(info);
+        setToolTipText(info.getScore() + " for " + info.getColor());
+        repaint();
+    }
+
+    /**
+     * Returns the share of the bar that is red for an analysis
+     * @param  info info of the analysis
+     * @return      1 if red wins, 0 if blue wins, 0.5 for an even position
+     */
+    static double redShare(final SearchInfo info) {
+        int score = info.getColor() == PlayerColor.Red ? info.getScore() : -info.getScore();
+        if (score >= AnalysisEngine.WIN) return 1;
+        if (score <= -AnalysisEngine.WIN) return 0;
+        // a difference of ten sites fills three quarters of the bar
+        return 0.5 + 0.5 * score / (Math.abs(score) + 10.0);
+    }
+
+    @Override
+    protected void paintComponent(final Graphics g) {
+        int split = (int) Math.round(getWidth() * red);
+        g.setColor(GameIO.C_PRED);
+        g.fillRect(0, 0, split, getHeight());
+        g.setColor(GameIO.C_PBLUE);
+        g.fillRect(split, 0, getWidth() - split, getHeight());
+    }
+}
@@ -12,6 +12,7 @@ import java.awt.event.ComponentEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Ellipse2D;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -22,11 +23,18 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JLayeredPane;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 import javax.swing.WindowConstants;
 
 import nowhere2gopp.gamelogic.GamePhase;
 import nowhere2gopp.gamelogic.InvalidMoveException;
+import nowhere2gopp.gamelogic.Reachability;
 import nowhere2gopp.gamelogic.gameIO.components.ShapedBtn;
+import nowhere2gopp.gamelogic.metrics.Histogram;
+import nowhere2gopp.gamelogic.metrics.Metrics;
+import nowhere2gopp.gamelogic.player.AnalysisEngine;
+import nowhere2gopp.gamelogic.player.SearchInfo;
+import nowhere2gopp.gamelogic.player.SearchListener;
 import nowhere2gopp.preset.Move;
 import nowhere2gopp.preset.MoveFormatException;
 import nowhere2gopp.preset.MoveType;
@@ -38,47 +46,48 @@ import nowhere2gopp.preset.Status;
 
 /**
  * This class implements the In-/Output Window with clickable polygons for the
- * corresponding game elements and a statusbar.
+ * corresponding game elements and a statusbar. The window follows the board of its viewer
+ * through {@link BoardListener BoardListener} events, a move only changes the buttons it touches.
  *
  * @author Marvin Sommer
  * @version 0.3
  */
 
-public class GameIO implements GameOutput, Requestable {
+public class GameIO implements GameOutput, Requestable, SearchListener, BoardListener {
     /**
      * Default Link color
      */
-    final Color C_DEFAULT_LINK = new Color(163, 163, 163);
+    static final Color C_DEFAULT_LINK = new Color(163, 163, 163);
 
     /**
      * Default preview Color
      */
-    final Color C_PREVIEW = new Color(91, 151, 76);
+    static final Color C_PREVIEW = new Color(91, 151, 76);
 
     /**
      * Default Site color
      */
-    final Color C_DEFAULT_SITE = new Color(71, 71, 71);
+    static final Color C_DEFAULT_SITE = new Color(71, 71, 71);
 
     /**
      * Default color of Blue sites
      */
-    final Color C_PBLUE = new Color(45, 42, 124);
+    static final Color C_PBLUE = new Color(45, 42, 124);
 
     /**
      * backgroundcolor for pending blue moves
      */
-    final Color C_PBLUE_PENDING = new Color(71, 67, 204);
+    static final Color C_PBLUE_PENDING = new Color(71, 67, 204);
 
     /**
      * Default color of Red sites
      */
-    final Color C_PRED = new Color(124, 45, 51);
+    static final Color C_PRED = new Color(124, 45, 51);
 
     /**
      * backgroundcolor of pending red moves
      */
-    final Color C_PRED_PENDING = new Color(209, 76, 86);
+    static final Color C_PRED_PENDING = new Color(209, 76, 86);
 
     /**
      * Contains the clicked Links of the current request cycle
@@ -101,20 +110,16 @@ public class GameIO implements GameOutput, Requestable {
      */
     private BoardDisplay gameWindow;
 
-    /**
-     * HashMap to store possibleMoves in
-     */
-    private HashMap<Move, Move> possibleMoves;
-
     /**
      * Object used for snychronization of clicks
      */
     private Object lock = new Object();
 
     /**
-     * last move we updated our GUI with
+     * Frames of the move whose events are arriving, queued at the {@link #animator animator} by
+     * {@link #stateChanged(PlayerColor, Status, GamePhase, long) stateChanged}. Only used on the thread that moves the board.
      */
-    private Move lastUpdate;
+    private final ArrayList<Runnable> frames = new ArrayList<>();
 
     /**
      * The collection of our last recolored sites for preview. Used by {@link nowhere2gopp.gamelogic.gameIO.GameIO.BoardDisplay#revertColorSites() revertColorSites} to
@@ -122,6 +127,31 @@ public class GameIO implements GameOutput, Requestable {
      */
     private Collection<Site> lastColored;
 
+    /**
+     * Default time between two steps of an animation in milliseconds
+     */
+    public static final int DEFAULT_ANIMATION_MILLIS = Animator.DEFAULT_STEP_MILLIS;
+
+    /**
+     * Plays the animations of the moves on the event dispatch thread
+     */
+    private final Animator animator = new Animator(Animator.DEFAULT_STEP_MILLIS);
+
+    /**
+     * Analyses the position while the human thinks, null if the overlay is off
+     */
+    private AnalysisEngine analysis;
+
+    /**
+     * True while an analysis runs, infos that arrive later are dropped
+     */
+    private volatile boolean analysing;
+
+    /**
+     * Duration of {@link #update(Move, PlayerColor) update}, the buttons of the move are changed by the board events
+     */
+    private static final Histogram UPDATE_TIME = Metrics.histogram("gui_update_seconds", "Duration of GameIO.update, the animation is queued");
+
     /**
      * Constructor which sets the {@link #gamestate Viewer} for this instance
      *
@@ -142,9 +172,70 @@ public class GameIO implements GameOutput, Requestable {
         clickedLinks = new LinkedList<ShapedBtn<SiteSet>>();
         clickedSites = new LinkedList<ShapedBtn<Site>>();
         updateBGC();
-        Move result = fetchMove();
-        toggleBGC();
-        return result;
+        startAnalysis();
+        try {
+            Move result = fetchMove();
+            toggleBGC();
+            return result;
+        } finally {
+            stopAnalysis();
+        }
+    }
+
+    /**
+     * Turns on the analysis overlay: while a human thinks, the engine rates the moves in the background and the
+     * best ones are shown next to the status
+     *
+     * @param engine engine to use, null turns the overlay off
+     */
+    public void setAnalysis(final AnalysisEngine engine) {
+        if (engine != null) engine.addSearchListener(this::showAnalysis);
+        analysis = engine;
+    }
+
+    /**
+     * Starts the analysis of the position the human has to move in, the board does not change until the move is made
+     */
+    private void startAnalysis() {
+        if (analysis == null) return;
+        analysing = true;
+        analysis.analyse(gamestate);
+    }
+
+    /**
+     * Stops the analysis when the move is made and hides the overlay, does not wait for the search thread
+     */
+    private void stopAnalysis() {
+        if (analysis == null) return;
+        analysing = false;
+        analysis.cancel();
+        SwingUtilities.invokeLater(() -> gameWindow.clearAnalysis());
+    }
+
+    /**
+     * Shows the newest info of the analysis on the event dispatch thread, unless the move was made in the meantime
+     *
+     * @param info snapshot of the analysis
+     */
+    private void showAnalysis(final SearchInfo info) {
+        final String text = analysisText(info);
+        SwingUtilities.invokeLater(() -> {
+            if (analysing) gameWindow.updateAnalysis(info, text);
+        });
+    }
+
+    /**
+     * Formats the best moves of an analysis for the label next to the bar
+     *
+     * @param  info snapshot of the analysis
+     * @return      text to show
+     */
+    static String analysisText(final SearchInfo info) {
+        StringBuilder buffer = new StringBuilder(" depth ").append(info.getDepth());
+        for (SearchInfo.Line line : info.getLines()) {
+            buffer.append(" | ").append(line.getMove()).append(" (").append(line.getScore()).append(")");
+        }
+        return buffer.toString();
     }
 
     /**
@@ -153,11 +244,10 @@ public class GameIO implements GameOutput, Requestable {
     @Override
     public void reload() {
         reset();
-        LinkedList<SiteSet> linksToKeep = (LinkedList<SiteSet>) gamestate.getLinks();
 
         for (ShapedBtn<SiteSet> link : gameWindow.links) {
-            // remove all links that are not intact
-            if (!linksToKeep.contains(link.getElement()))
+            // remove all links that are not intact, a hash lookup per link
+            if (!gamestate.containsLink(link.getElement()))
                 deleteLink(link);
         }
         try {
@@ -180,7 +270,6 @@ public class GameIO implements GameOutput, Requestable {
      * @return move that was parsed from internal class movestring
      */
     private Move fetchMove() {
-        possibleMoves = gamestate.getPossibleMoves();
         boolean moveIsValid = false;
         Move result = null;
         String buffer = "";
@@ -194,15 +283,20 @@ public class GameIO implements GameOutput, Requestable {
                     buffer = gameWindow.getMoveString();
                     result = Move.parse(buffer);
 
-                    if (!possibleMoves.containsKey(result))
+                    if (!gamestate.isPossibleMove(result))
                         throw new InvalidMoveException("Move not possible.");
-                } catch (MoveFormatException | InterruptedException | InvalidMoveException iex) {
+                } catch (InterruptedException iex) {
+                    // the referee cancelled the request, e.g. because the time ran out,
+                    // so we disable the clicks and give up
+                    gameWindow.getMoveString();
+                    Thread.currentThread().interrupt();
+                    result = new Move(MoveType.Surrender);
+                    break;
+                } catch (MoveFormatException | InvalidMoveException iex) {
                     showStatus(Status.Illegal);
 
                     if (iex instanceof MoveFormatException) {
                         System.out.println("Moveformat not valid.");
-                    } else if (iex instanceof InterruptedException) {
-                        System.out.println("Synchronization error.");
                     } else {
                         System.out.println("Invalid Move.");
                     }
@@ -249,14 +343,25 @@ public class GameIO implements GameOutput, Requestable {
 
     /**
      * Sets the viewer which delivers the gamedata and constructs a corresponding
-     * window.
+     * window, the window listens to the changes of the board of the viewer from now on.
+     * A window of the same size is kept and {@link #reload() reloaded} with the new board.
      *
      * @param viewer viewer which delivers gamedata
      */
     @Override
     public void setViewer(BoardViewer viewer) {
+        boolean keep = gameWindow != null && gamestate.getSize() == viewer.getSize();
+        if (gamestate != null)
+            gamestate.removeBoardListener(this);
         this.gamestate = viewer;
-        gameWindow = new BoardDisplay(gamestate.getSize());
+        if (!keep) {
+            if (gameWindow != null)
+                gameWindow.dispose();
+            gameWindow = new BoardDisplay(gamestate.getSize());
+        }
+        gamestate.addBoardListener(this);
+        if (keep)
+            reload();
     }
 
     /**
@@ -264,6 +369,7 @@ public class GameIO implements GameOutput, Requestable {
      */
     @Override
     public void reset() {
+        animator.clear();
         for (ShapedBtn<SiteSet> link : gameWindow.links)
             link.setVisible(true);
         try {
@@ -284,56 +390,95 @@ public class GameIO implements GameOutput, Requestable {
     }
 
     /**
-     * Updates the visual gameboard with a corresponding Move and the matching
-     * playercolor, is automatically called by {@link #request request} but can be
-     * manually called, when playing over the network or using AI-Players, to update
-     * the UI accordingly.
+     * Shows the status after a move, is automatically called by {@link #request request} but can be
+     * manually called, when playing over the network or using AI-Players. The buttons of the move
+     * are changed by the {@link BoardListener BoardListener} events of the board, so the move is not decoded here.
      *
-     * @param move   Move to execute
-     * @param player Player to execute move for
+     * @param move   Move that was made
+     * @param player Player that made the move
      */
     @Override
-    public synchronized void update(final Move move, final PlayerColor player) {
-        showStatus(gamestate.getStatus());
-
-        if (lastUpdate != null && lastUpdate.equals(move))
-            return;
-
-        lastUpdate = move;
+    public void update(final Move move, final PlayerColor player) {
+        long start = Metrics.start();
         try {
-            // LinkLink Move -> delete 2 Links
-            if (move.getType() == MoveType.LinkLink) {
-                deleteLink(gameWindow.linkMap.get(move.getOneLink()));
-                wait(150);
-                deleteLink(gameWindow.linkMap.get(move.getOtherLink()));
-            } else if (move.getType() == MoveType.AgentLink) {
-                // Agent Link Move get actual Color playercolor from ENUM PlayerColor
-                Color playerCol = player == PlayerColor.Red ? C_PRED : C_PBLUE;
-                Site oldpos = move.getAgent().getFirst();
-                Site moveto = move.getAgent().getSecond();
-
-                if (gamestate.getPhase() == GamePhase.TWO) {
-                    // if we are in Phase 2 place it first and  then wait a bit for visibility
-                    // reasons
-                    gameWindow.siteMap.get(oldpos).setColor(playerCol);
-                    wait(150);
-                }
+            showStatus(gamestate.getStatus());
+            // built on the thread of the move while the animation plays, the preview of the next turn only reads it
+            gamestate.getReachability();
+        } finally {
+            UPDATE_TIME.recordSince(start);
+        }
+    }
 
-                // recolor the old position to default color
-                gameWindow.siteMap.get(oldpos).setColor(C_DEFAULT_SITE);
-                wait(150);
+    /**
+     * Hides the button of a removed link in the animation of the move
+     *
+     * @param link    removed link
+     * @param version version of the board after the move
+     */
+    @Override
+    public void linkRemoved(final SiteSet link, final long version) {
+        ShapedBtn<SiteSet> button = gameWindow.linkMap.get(link);
+        frames.add(() -> deleteLink(button));
+    }
 
-                // color new position to playercolor
-                gameWindow.siteMap.get(moveto).setColor(playerCol);
-                SiteSet link = move.getLink();
-                wait(150);
-                deleteLink(gameWindow.linkMap.get(link));
-            }
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    /**
+     * Shows the button of a link again that an undo restored
+     *
+     * @param link    restored link
+     * @param version version of the board after the undo
+     */
+    @Override
+    public void linkRestored(final SiteSet link, final long version) {
+        ShapedBtn<SiteSet> button = gameWindow.linkMap.get(link);
+        frames.add(() -> button.setVisible(true));
+    }
+
+    /**
+     * Moves the color of an agent from its old site to its new one in the animation of the move
+     *
+     * @param color   color of the agent
+     * @param from    old site, null if the agent was not placed
+     * @param to      new site, null if the agent is taken off the board
+     * @param version version of the board after the change
+     */
+    @Override
+    public void agentMoved(final PlayerColor color, final Site from, final Site to, final long version) {
+        Color playerCol = color == PlayerColor.Red ? C_PRED : C_PBLUE;
+        if (from != null) {
+            ShapedBtn<Site> oldpos = gameWindow.siteMap.get(from);
+            frames.add(() -> oldpos.setColor(C_DEFAULT_SITE));
+        }
+        if (to != null) {
+            ShapedBtn<Site> moveto = gameWindow.siteMap.get(to);
+            frames.add(() -> moveto.setColor(playerCol));
         }
     }
 
+    /**
+     * Queues the collected frames of the move at the {@link #animator animator} and shows the new status
+     *
+     * @param turn    player whose turn it is now
+     * @param status  status of the board
+     * @param phase   phase of the game
+     * @param version version of the board after the change
+     */
+    @Override
+    public void stateChanged(final PlayerColor turn, final Status status, final GamePhase phase, final long version) {
+        if (!frames.isEmpty())
+            animator.play(frames.toArray(new Runnable[frames.size()]));
+        frames.clear();
+        SwingUtilities.invokeLater(() -> gameWindow.updateStatus(status, phase));
+    }
+
+    /**
+     * Sets the speed of the animation
+     *
+     * @param millis time between two steps of an animation in milliseconds, 0 shows every move at once
+     */
+    public void setAnimationMillis(final int millis) {
+        animator.setStepMillis(millis);
+    }
+
     /**
      * Deletes a Linkbutton (hides it from GUI)
      *
@@ -351,7 +496,39 @@ public class GameIO implements GameOutput, Requestable {
      */
     @Override
     public void showStatus(Status status) {
-        gameWindow.updateStatus(status, gamestate.getPhase());
+        GamePhase phase = gamestate.getPhase();
+        SwingUtilities.invokeLater(() -> gameWindow.updateStatus(status, phase));
+    }
+
+    /**
+     * Shows the search telemetry of an AI player next to the status label. Called on the dispatcher thread
+     * of the {@link nowhere2gopp.gamelogic.player.SearchPublisher SearchPublisher}, so the label is changed on the event dispatch thread.
+     *
+     * @param info snapshot of the search
+     */
+    @Override
+    public void searchInfo(SearchInfo info) {
+        final String text = searchInfoText(info);
+        SwingUtilities.invokeLater(() -> gameWindow.updateSearchInfo(text));
+    }
+
+    /**
+     * Formats the search telemetry for the label next to the status
+     *
+     * @param  info snapshot of the search
+     * @return      text to show
+     */
+    static String searchInfoText(SearchInfo info) {
+        StringBuilder buffer = new StringBuilder(" | ");
+        buffer.append(info.getColor()).append(info.isDone() ? " played" : " thinks")
+              .append(" | depth ").append(info.getDepth())
+              .append(" | ").append(info.getNodes()).append(" nodes, ").append(info.getNps()).append("/s");
+        Move best = info.getBestMove();
+        if (best != null) {
+            buffer.append(" | ").append(best.getType() == MoveType.Surrender ? "Surrender" : best.toString())
+                  .append(" (").append(info.getScore()).append(")");
+        }
+        return buffer.toString();
     }
 
     /**
@@ -375,6 +552,21 @@ public class GameIO implements GameOutput, Requestable {
          */
         private JLabel status;
 
+        /**
+         * Contains the search telemetry of the AI players
+         */
+        private JLabel searchInfo;
+
+        /**
+         * Contains the rating of the analysis
+         */
+        private EvalBar evalBar;
+
+        /**
+         * Contains the best moves of the analysis
+         */
+        private JLabel analysisInfo;
+
         /**
          * Contains our clickable surrender-move label
          */
@@ -587,6 +779,10 @@ public class GameIO implements GameOutput, Requestable {
             panel = new JLayeredPane();
             topPanel = new JPanel();
             status = new JLabel();
+            searchInfo = new JLabel();
+            evalBar = new EvalBar();
+            analysisInfo = new JLabel();
+            evalBar.setVisible(false);
         }
 
         /**
@@ -597,6 +793,9 @@ public class GameIO implements GameOutput, Requestable {
             this.setLayout(new BorderLayout());
             topPanel.setLayout(new BoxLayout(topPanel, BoxLayout.LINE_AXIS));
             topPanel.add(status);
+            topPanel.add(searchInfo);
+            topPanel.add(evalBar);
+            topPanel.add(analysisInfo);
             this.add(panel, BorderLayout.CENTER);
             placeElements();
             this.add(topPanel, BorderLayout.NORTH);
@@ -672,11 +871,15 @@ public class GameIO implements GameOutput, Requestable {
                     if (gamePhase == 0) // wrong gamephase
                         return;
 
+                    Reachability reach = gamestate.getReachability();
                     if (gamePhase == 1) {
                         if (clickedThisTurn == 2) // only 2 sites per turn in phase 2
                             return;
 
                         String site = listening.getElementString();
+                        if (clickedThisTurn == 0 ? !reach.isStart(listening.getElement())
+                                                 : !reach.canReach(clickedSites.getFirst().getElement(), listening.getElement()))
+                            return; // not previewed, the move could not be made
 
                         if (clickedThisTurn == 0) { // first clicked site in phase 2
                             parseMe += site + ",";
@@ -691,6 +894,8 @@ public class GameIO implements GameOutput, Requestable {
                     } else { // phase 3
                         if (clickedThisTurn != 0) // only one click on a site in phase 3 allowed
                             return;
+                        if (!reach.canReach(gamestate.getAgent(gamestate.getTurn()), listening.getElement()))
+                            return; // not previewed, the move could not be made
 
                         parseMe += listening.getElementString() + ")+";
                         revertColorSites();
@@ -1229,6 +1434,37 @@ public class GameIO implements GameOutput, Requestable {
             this.status.setMaximumSize(this.status.getPreferredSize());
         }
 
+        /**
+         * Shows the search telemetry on our search label, see {@link nowhere2gopp.gamelogic.gameIO.GameIO#searchInfo(SearchInfo) searchInfo}
+         *
+         * @param text telemetry to display
+         */
+        private void updateSearchInfo(String text) {
+            searchInfo.setText(tagStart + text + tagEnd);
+            searchInfo.setMaximumSize(searchInfo.getPreferredSize());
+        }
+
+        /**
+         * Shows the analysis on the bar and its label, see {@link nowhere2gopp.gamelogic.gameIO.GameIO#setAnalysis(AnalysisEngine) setAnalysis}
+         *
+         * @param info snapshot of the analysis
+         * @param text best moves to display
+         */
+        private void updateAnalysis(SearchInfo info, String text) {
+            evalBar.show(info);
+            evalBar.setVisible(true);
+            analysisInfo.setText(tagStart + text + tagEnd);
+            analysisInfo.setMaximumSize(analysisInfo.getPreferredSize());
+        }
+
+        /**
+         * Hides the analysis until the next one
+         */
+        private void clearAnalysis() {
+            evalBar.setVisible(false);
+            analysisInfo.setText("");
+        }
+
         /**
          * Takes a gamephase and returns a matching String for the Statusbar
          * @param  phase Phase to parse
@@ -0,0 +1,65 @@
+package nowhere2gopp.gamelogic.gameIO;
+
+import java.util.Collection;
+
+import nowhere2gopp.gamelogic.Reachability;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.SiteSet;
+import nowhere2gopp.preset.Viewer;
+
+/**
+ * A {@link nowhere2gopp.preset.Viewer Viewer} that pushes the changes of the board to {@link BoardListener BoardListeners}
+ * and answers single questions without copying the board. A consumer reads the whole board once and then only applies the
+ * events, so its cost per move is proportional to the change, not to the size of the board.
+ */
+public interface ObservableViewer extends Viewer {
+    /**
+     * Returns the version of the board, it is incremented by every move and every undo
+     * @return number of changes so far
+     */
+    long getVersion();
+
+    /**
+     * Registers a listener for the changes of the board
+     * @param listener listener to add
+     */
+    void addBoardListener(final BoardListener listener);
+
+    /**
+     * Removes a listener
+     * @param listener listener to remove
+     */
+    void removeBoardListener(final BoardListener listener);
+
+    /**
+     * Returns true if the link is not removed yet
+     * @param  link link to look up
+     * @return      true if the link is intact
+     */
+    boolean containsLink(final SiteSet link);
+
+    /**
+     * Returns the number of links that are not removed yet
+     * @return number of intact links
+     */
+    int getLinkCount();
+
+    /**
+     * Returns true if the move is one of the possible moves of the player whose turn it is
+     * @param  move move to check
+     * @return      true if the move can be made
+     */
+    boolean isPossibleMove(final Move move);
+
+    /**
+     * Returns the possible moves of the player whose turn it is, without copying them
+     * @return unmodifiable view that is only valid until the next move
+     */
+    Collection<Move> getPossibleMovesView();
+
+    /**
+     * Returns which sites can be reached from which site in the current position, built once per version of the board
+     * @return reachability that does not change, also when the board does
+     */
+    Reachability getReachability();
+}
@@ -0,0 +1,38 @@
+package nowhere2gopp.gamelogic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of {@link nowhere2gopp.gamelogic.GameBoard#make(nowhere2gopp.preset.Move) GameBoard.make}.
+ * Disabled by default, it is turned on by the settings in jfr/nowhere2gopp.jfc.
+ */
+@Name("nowhere2gopp.Move")
+@Label("Move")
+@Category("Nowhere2gopp")
+@Description("A move made on a game board, including the move generation for the next player")
+@Enabled(false)
+@StackTrace(false)
+public class MoveEvent extends Event {
+    @Label("Move")
+    public String move;
+
+    @Label("Player")
+    public String player;
+
+    @Label("Phase")
+    @Description("Phase the move was made in")
+    public String phase;
+
+    @Label("Links Remaining")
+    public int linksRemaining;
+
+    @Label("Possible Moves")
+    @Description("Possible moves of the next player")
+    public int possibleMoves;
+}
@@ -0,0 +1,31 @@
+package nowhere2gopp.gamelogic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of the move generation of the {@link nowhere2gopp.gamelogic.GameBoard GameBoard}.
+ * Disabled by default, it is turned on by the settings in jfr/nowhere2gopp.jfc.
+ */
+@Name("nowhere2gopp.MoveGeneration")
+@Label("Move Generation")
+@Category("Nowhere2gopp")
+@Description("Generation of the possible moves of a player")
+@Enabled(false)
+@StackTrace(false)
+public class MoveGenerationEvent extends Event {
+    @Label("Move Type")
+    @Description("LinkLink or AgentLink")
+    public String moveType;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Generated Moves")
+    public int moves;
+}
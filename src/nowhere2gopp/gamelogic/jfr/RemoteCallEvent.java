@@ -0,0 +1,30 @@
+package nowhere2gopp.gamelogic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a call that a {@link nowhere2gopp.gamelogic.player.NetworkPlayer NetworkPlayer} serves over RMI.
+ * Disabled by default, it is turned on by the settings in jfr/nowhere2gopp.jfc.
+ */
+@Name("nowhere2gopp.RemoteCall")
+@Label("Remote Call")
+@Category("Nowhere2gopp")
+@Description("Player call served over RMI")
+@Enabled(false)
+@StackTrace(false)
+public class RemoteCallEvent extends Event {
+    @Label("Method")
+    public String method;
+
+    @Label("Payload Size")
+    @Description("Serialized size of the argument or the returned move")
+    @DataAmount
+    public long payloadSize;
+}
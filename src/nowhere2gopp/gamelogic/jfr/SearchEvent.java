@@ -0,0 +1,42 @@
+package nowhere2gopp.gamelogic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of the move search of an AI player.
+ * Disabled by default, it is turned on by the settings in jfr/nowhere2gopp.jfc.
+ */
+@Name("nowhere2gopp.Search")
+@Label("Search")
+@Category("Nowhere2gopp")
+@Description("Move search of an AI player")
+@Enabled(false)
+@StackTrace(false)
+public class SearchEvent extends Event {
+    @Label("Player")
+    @Description("Class of the AI player")
+    public String player;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Depth")
+    @Description("Deepest ply that was reached, 0 for a random move")
+    public int depth;
+
+    @Label("Nodes")
+    @Description("Simulated moves")
+    public long nodes;
+
+    @Label("Best Score")
+    public int bestScore;
+
+    @Label("Best Move")
+    public String bestMove;
+}
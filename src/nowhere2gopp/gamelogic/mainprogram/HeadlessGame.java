@@ -0,0 +1,226 @@
+package nowhere2gopp.gamelogic.mainprogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.gamelogic.metrics.Counter;
+import nowhere2gopp.gamelogic.metrics.Metrics;
+import nowhere2gopp.gamelogic.player.AbstractPlayer;
+import nowhere2gopp.gamelogic.player.RandomPlayer;
+import nowhere2gopp.gamelogic.player.Referee;
+import nowhere2gopp.gamelogic.player.SimplePlayer;
+import nowhere2gopp.gamelogic.player.TimeControl;
+import nowhere2gopp.gamelogic.record.GameArchive;
+import nowhere2gopp.gamelogic.record.GameJournal;
+import nowhere2gopp.gamelogic.record.JournalGame;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.Player;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.PlayerType;
+import nowhere2gopp.preset.Status;
+
+/**
+*This class plays a single game between two AI players without any GUI and without delay.
+*It is used by the {@link nowhere2gopp.gamelogic.mainprogram.Tournament Tournament} to run many games at once,
+*every instance has its own game board, players and referee.
+*/
+public class HeadlessGame implements Callable<HeadlessGame.Result> {
+  /**
+  *Number of the game inside of a tournament.
+  */
+  private final int id;
+  /**
+  *The size of game board.
+  */
+  private final int gbdSize;
+  /**
+  *The type of red player.
+  */
+  private final PlayerType redType;
+  /**
+  *The type of blue player.
+  */
+  private final PlayerType blueType;
+  /**
+  *Time control enforced by the referee.
+  */
+  private final TimeControl timeControl;
+  /**
+  *If true both players read the board of the referee instead of keeping their own copy.
+  */
+  private final boolean shared;
+  /**
+  *Journal the moves are written to, null if not wanted.
+  */
+  private final GameJournal journal;
+  /**
+  *Archive the finished game is added to, null if not wanted.
+  */
+  private final GameArchive archive;
+  /**
+  *Finished games, shared with {@link nowhere2gopp.gamelogic.mainprogram.Nowhere2gopp Nowhere2gopp}.
+  */
+  private static final Counter GAMES = Metrics.counter("games_finished_total", "Finished games");
+
+  public HeadlessGame(final int id, final int gbdSize, final PlayerType redType, final PlayerType blueType, final TimeControl timeControl, final boolean shared, final GameJournal journal, final GameArchive archive) {
+    this.id = id;
+    this.gbdSize = gbdSize;
+    this.redType = redType;
+    this.blueType = blueType;
+    this.timeControl = timeControl;
+    this.shared = shared;
+    this.journal = journal;
+    this.archive = archive;
+  }
+
+  /**
+  *This method creates a headless AI player.
+  *@param playerType
+  *       The type of the player to be created, only AI players can play headless.
+  *
+  *@param playerColor
+  *       The color of the player.
+  *
+  *@param mainGbd
+  *       Board of the referee, the player reads it directly if the game is {@link #shared shared}.
+  *
+  *@return created and initialized player.
+  */
+  private Player createPlayer(final PlayerType playerType, final PlayerColor playerColor, final GameBoard mainGbd) throws Exception {
+    Player newPlayer = null;
+    switch (playerType){
+      case RandomAI:
+      newPlayer = new RandomPlayer();
+      break;
+      case SimpleAI:
+      newPlayer = new SimplePlayer();
+      break;
+      default:
+      throw new IllegalArgumentException("Player type " + playerType + " cannot play headless!");
+    }
+    if (shared){
+      ((AbstractPlayer) newPlayer).initShared(mainGbd, playerColor);
+    }
+    else {
+      newPlayer.init(gbdSize, playerColor);
+    }
+    return newPlayer;
+  }
+
+  /**
+  *Plays the game until it is decided. The game loop is the same as in {@link nowhere2gopp.gamelogic.mainprogram.Nowhere2gopp Nowhere2gopp},
+  *but without GUI and without delay. If anything goes wrong the game ends with {@link nowhere2gopp.preset.Status#Illegal Illegal}.
+  *@return result of the game
+  */
+  @Override
+  public Result call() {
+    long start = System.nanoTime();
+    int plies = 0;
+    Status status = Status.Illegal;
+    String error = null;
+    JournalGame record = null;
+    List<Move> moves = (archive == null) ? null : new ArrayList<>();
+
+    try {
+      GameBoard mainGbd = new GameBoard(gbdSize);
+      if (journal != null) record = journal.begin(gbdSize, redType, blueType, 0L);
+      Player redPlayer = createPlayer(redType, PlayerColor.Red, mainGbd);
+      Player bluePlayer = createPlayer(blueType, PlayerColor.Blue, mainGbd);
+      Referee gameReferee = new Referee(mainGbd, redPlayer, bluePlayer, timeControl);
+
+      status = mainGbd.getStatus();
+      while (status == Status.Ok){
+        boolean isRedTurn = (mainGbd.getTurn() == PlayerColor.Red);
+        Move nextMove = gameReferee.request();
+        mainGbd.make(nextMove);
+        if (record != null) record.move(nextMove);
+        if (moves != null) moves.add(nextMove);
+        plies++;
+        status = mainGbd.getStatus();
+
+        // a player that lost on time is still busy, it must not be called again
+        if (gameReferee.getTimedOut() != null) break;
+
+        if (isRedTurn){
+          redPlayer.confirm(status);
+          bluePlayer.update(nextMove, status);
+        }
+        else {
+          bluePlayer.confirm(status);
+          redPlayer.update(nextMove, status);
+        }
+      }
+    } catch (Exception e) {
+      status = Status.Illegal;
+      error = e.toString();
+    }
+    if (record != null) record.end(status);
+    if (moves != null) archive.add(gbdSize, redType, blueType, moves, status);
+    GAMES.inc();
+    return new Result(id, gbdSize, redType, blueType, status, plies, (System.nanoTime() - start) / 1000000L, error);
+  }
+
+  /**
+  *Result of a headless game.
+  */
+  public static class Result {
+    /**
+    *Number of the game.
+    */
+    public final int id;
+    /**
+    *The size of game board.
+    */
+    public final int gbdSize;
+    /**
+    *The type of red player.
+    */
+    public final PlayerType redType;
+    /**
+    *The type of blue player.
+    */
+    public final PlayerType blueType;
+    /**
+    *Final status of the game.
+    */
+    public final Status status;
+    /**
+    *Number of moves made.
+    */
+    public final int plies;
+    /**
+    *Duration of the game in milliseconds.
+    */
+    public final long millis;
+    /**
+    *Description of the error that ended the game, null if there was none.
+    */
+    public final String error;
+
+    public Result(final int id, final int gbdSize, final PlayerType redType, final PlayerType blueType, final Status status, final int plies, final long millis, final String error) {
+      this.id = id;
+      this.gbdSize = gbdSize;
+      this.redType = redType;
+      this.blueType = blueType;
+      this.status = status;
+      this.plies = plies;
+      this.millis = millis;
+      this.error = error;
+    }
+
+    /**
+    *Returns this result as a line of comma separated values.
+    *@return line matching {@link #CSV_HEADER CSV_HEADER}
+    */
+    public String toCsv() {
+      return id + "," + gbdSize + "," + redType + "," + blueType + "," + status + "," + plies + "," + millis;
+    }
+
+    /**
+    *Header of the comma separated values of {@link #toCsv() toCsv}.
+    */
+    public static final String CSV_HEADER = "game,size,red,blue,status,plies,millis";
+  }
+}
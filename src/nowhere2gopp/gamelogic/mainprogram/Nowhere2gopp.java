@@ -1,20 +1,52 @@
 package nowhere2gopp.gamelogic.mainprogram;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 import java.rmi.*;
 
 import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.gamelogic.Perft;
 import nowhere2gopp.gamelogic.gameIO.*;
 import nowhere2gopp.gamelogic.gameIO.BoardViewer;
+import nowhere2gopp.gamelogic.metrics.Counter;
+import nowhere2gopp.gamelogic.metrics.Metrics;
+import nowhere2gopp.gamelogic.metrics.MetricsServer;
+import nowhere2gopp.gamelogic.net.GameClient;
+import nowhere2gopp.gamelogic.net.Loopback;
+import nowhere2gopp.gamelogic.net.PlayerServer;
+import nowhere2gopp.gamelogic.net.SocketPlayer;
+import nowhere2gopp.gamelogic.net.Spectator;
+import nowhere2gopp.gamelogic.player.AbstractPlayer;
+import nowhere2gopp.gamelogic.player.AnalysisEngine;
 import nowhere2gopp.gamelogic.player.HumanPlayer;
+import nowhere2gopp.gamelogic.player.MeteredPlayer;
 import nowhere2gopp.gamelogic.player.NetworkPlayer;
+import nowhere2gopp.gamelogic.player.PrintStreamSearchListener;
 import nowhere2gopp.gamelogic.player.RandomPlayer;
 import nowhere2gopp.gamelogic.player.Referee;
+import nowhere2gopp.gamelogic.player.SearchListener;
 import nowhere2gopp.gamelogic.player.SimplePlayer;
+import nowhere2gopp.gamelogic.player.TimeControl;
+import nowhere2gopp.gamelogic.record.GameArchive;
+import nowhere2gopp.gamelogic.record.GameJournal;
+import nowhere2gopp.gamelogic.record.JournalGame;
+import nowhere2gopp.gamelogic.record.JournalReader;
+import nowhere2gopp.gamelogic.record.ReplayReader;
+import nowhere2gopp.gamelogic.server.Coordinator;
+import nowhere2gopp.gamelogic.server.GameServer;
 import nowhere2gopp.preset.ArgumentParser;
 import nowhere2gopp.preset.ArgumentParserException;
 import nowhere2gopp.preset.Move;
@@ -76,15 +108,27 @@ public class Nowhere2gopp {
   /**
   *Main GUI.
   */
-  private GameIO mainGUI;
+  private GameOutput mainGUI;
   /**
   *Referee of the game.
   */
   private Referee gameReferee;
   /**
-  *GUI delay for AI player.
+  *GUI delay for AI player in milliseconds, the time between two requests.
   */
-  private int delay;
+  private long delayMillis;
+  /**
+  *Time between two steps of a move animation in milliseconds, 0 shows moves at once.
+  */
+  private int animationMillis;
+  /**
+  *Flag to draw the board on a single canvas instead of one button per site and link.
+  */
+  private boolean canvas;
+  /**
+  *Share of one CPU in percent the analysis for human players may use, 0 if the analysis is off.
+  */
+  private int analysisPercent;
   /**
   *Flag to start a online game.
   */
@@ -101,10 +145,36 @@ public class Nowhere2gopp {
   *The input method of created player.
   */
   private boolean myTextInputEnabled;
+  /**
+  *Time control enforced by the referee.
+  */
+  private TimeControl timeControl;
+  /**
+  *Flag to reach remote players over the binary socket protocol instead of RMI.
+  */
+  private boolean socketTransport;
+  /**
+  *Flag to let local players read the main game board instead of keeping their own copy.
+  */
+  private boolean shared;
+  /**
+  *Journal the referee writes the moves to, null if not wanted.
+  */
+  private GameJournal journal;
+  /**
+  *Finished games.
+  */
+  private static final Counter GAMES = Metrics.counter("games_finished_total", "Finished games");
+  /**
+  *Listeners for the search telemetry of local AI players, besides their GUI.
+  */
+  private final List<SearchListener> searchListeners = new ArrayList<>();
 
   public Nowhere2gopp() {
     gbdSize = 2;
-    delay = 1;
+    delayMillis = 1000;
+    animationMillis = GameIO.DEFAULT_ANIMATION_MILLIS;
+    timeControl = TimeControl.none();
     scanner = new Scanner(System.in);
   }
 
@@ -143,6 +213,38 @@ public class Nowhere2gopp {
     }
   }
 
+  /**
+  *Make a local player accessible over the binary socket protocol. See {@link nowhere2gopp.gamelogic.net.PlayerServer PlayerServer}.
+  *Unlike the rmi registry, every player needs a port of its own.
+  *@param p
+  *       Local player.
+  *
+  *@param host
+  *       My hostname
+  *
+  *@param port
+  *       Port the player listens on.
+  *
+  *@param name
+  *       Playername of choice.
+  */
+  private void offerSocket(final Player p, final String host, final int port, final String name) {
+    try {
+      PlayerServer server = new PlayerServer(p, name, new InetSocketAddress(port));
+      server.start();
+      System.out.println("Player prepared!");
+      System.out.println("Hostname:");
+      System.out.println(host);
+      System.out.println("Port:");
+      System.out.println(server.getPort());
+      System.out.println("Player Name:");
+      System.out.println(name);
+    } catch (IOException e){
+      System.err.println("Player cannot be prepared! Port " + port + " is not available: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
   /**
   *Create a reference to remote player.
   *@param host
@@ -154,20 +256,25 @@ public class Nowhere2gopp {
   *@param name
   *       The name of expected player.
   *
-  *@return a reference to remote player
+  *@return a reference to remote player, wrapped in a {@link nowhere2gopp.gamelogic.player.MeteredPlayer MeteredPlayer} if metrics are enabled
   *
   */
   private Player find(final String host, final int port, final String name) {
     Player p = null;
     try{
-      Registry registry = LocateRegistry.getRegistry(host, port);
-      p = (Player) registry.lookup(name);
+      if (socketTransport){
+        p = SocketPlayer.connect(host, port, name);
+      }
+      else{
+        Registry registry = LocateRegistry.getRegistry(host, port);
+        p = (Player) registry.lookup(name);
+      }
       System.out.println("Player " + name + " found!");
     } catch (Exception e) {
       System.err.println("Player " + name + " not found!");
       System.exit(1);
     }
-    return p;
+    return Metrics.isEnabled() ? new MeteredPlayer(p, "remote") : p;
   }
 
   /**
@@ -192,7 +299,7 @@ public class Nowhere2gopp {
   *
   *@return created player.
   */
-  private Player createLocalPlayer(final PlayerType playerType, final PlayerColor playerColor, final int size, final GameIO gui, final boolean textEnabled, final MoveTextInput textInput){
+  private Player createLocalPlayer(final PlayerType playerType, final PlayerColor playerColor, final int size, final GameOutput gui, final boolean textEnabled, final MoveTextInput textInput){
     Player newPlayer = null;
 
     //Create and initialize player.
@@ -216,8 +323,23 @@ public class Nowhere2gopp {
       System.exit(1);
       break;
     }
+    //subscribe the GUI and the console/log file to the search telemetry
+    if (newPlayer instanceof AbstractPlayer){
+      if (gui instanceof SearchListener){
+        ((AbstractPlayer) newPlayer).addSearchListener((SearchListener) gui);
+      }
+      for (SearchListener listener : searchListeners){
+        ((AbstractPlayer) newPlayer).addSearchListener(listener);
+      }
+    }
     try{
-      newPlayer.init(size, playerColor);
+      //in a local game the referee owns the only board, online the players keep their own
+      if (shared && !online && newPlayer instanceof AbstractPlayer){
+        ((AbstractPlayer) newPlayer).initShared(mainGbd, playerColor);
+      }
+      else{
+        newPlayer.init(size, playerColor);
+      }
     } catch (Exception e){
       System.err.println("Player cannot be created!");
       System.err.println(e.getMessage());
@@ -226,6 +348,44 @@ public class Nowhere2gopp {
     return newPlayer;
   }
 
+  /**
+  *Subscribes the console and a log file to the search telemetry of the local AI players.
+  *"--searchinfo" prints the telemetry to the console, "-searchlog" appends it to the given file.
+  *@param parser
+  *       Parsed command line arguments.
+  *
+  *@throws ArgumentParserException if a setting is malformed.
+  */
+  private void configureSearchInfo(final ArgumentParser parser) throws ArgumentParserException {
+    if (parser.isSearchInfo()){
+      searchListeners.add(new PrintStreamSearchListener(System.out));
+    }
+    if (parser.isSet("searchlog")){
+      try{
+        searchListeners.add(new PrintStreamSearchListener(new PrintStream(new FileOutputStream(parser.getSearchLog(), true), true, "UTF-8")));
+      } catch (IOException e){
+        System.err.println("Search log cannot be opened: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+  *Opens the journal the referee writes the game to, given by "-journal". An existing journal is continued.
+  *@param parser
+  *       Parsed command line arguments.
+  *
+  *@throws ArgumentParserException if a setting is malformed.
+  */
+  private void configureJournal(final ArgumentParser parser) throws ArgumentParserException {
+    if (parser.isSet("journal")){
+      try{
+        journal = GameJournal.open(Paths.get(parser.getJournal()));
+      } catch (IOException e){
+        System.err.println("Journal cannot be opened: " + e.getMessage());
+      }
+    }
+  }
+
   /**
   *This method converts a string to player type.
   *@param myType
@@ -293,9 +453,22 @@ public class Nowhere2gopp {
       redType = parser.getRed();
       redTextInputEnabled = parser.isRedTextEnabled();
       gbdSize = parser.getSize();
-      delay = parser.getDelay();
+      delayMillis = parser.isSet("delayms") ? parser.getDelayMillis() : parser.getDelay() * 1000L;
+      canvas = parser.isCanvas();
+      if (parser.isSet("animation")){
+        animationMillis = parser.getAnimation();
+      }
+      if (parser.isSet("analysis")){
+        analysisPercent = parser.getAnalysis();
+      }
       online = parser.isOnline();
       host = parser.isHost();
+      socketTransport = parser.isSocket();
+      shared = parser.isShared();
+      timeControl = parseTimeControl(parser);
+      MetricsServer.configure(parser);
+      configureSearchInfo(parser);
+      configureJournal(parser);
 
       if (!online){
         //all necessary parameters are given with command line arguments
@@ -392,6 +565,29 @@ public class Nowhere2gopp {
     }
   }
 
+  /**
+  *This method reads the time control from the commandline arguments.
+  *"-clock" sets a total clock per player (with "-increment" added after every move), "-movetime" sets a budget per move.
+  *@param parser
+  *       The parser of the commandline arguments.
+  *
+  *@return time control of the game, unlimited if none was given
+  */
+  static TimeControl parseTimeControl(final ArgumentParser parser) throws ArgumentParserException {
+    try {
+      if (parser.isSet("clock")){
+        long increment = parser.isSet("increment") ? parser.getIncrement() : 0;
+        return TimeControl.clock(parser.getClock(), increment);
+      }
+      else if (parser.isSet("movetime")){
+        return TimeControl.perMove(parser.getMoveTime());
+      }
+    } catch (IllegalArgumentException e) {
+      throw new ArgumentParserException("Invalid time control: " + e.getMessage(), e);
+    }
+    return TimeControl.none();
+  }
+
   /**
   *Calling this method will start an offline game.
   *
@@ -419,7 +615,7 @@ public class Nowhere2gopp {
     }
 
     mainViewer = new BoardViewer(mainGbd);
-    mainGUI = new GameIO(mainViewer);
+    mainGUI = createGUI(mainViewer);
     //create red player
     redPlayer = createLocalPlayer(redPlayerType, PlayerColor.Red, gbdSize, mainGUI, redTextEnabled, textInput);
 
@@ -488,7 +684,7 @@ public class Nowhere2gopp {
     //prepare player GUI
     GameBoard myGbd = new GameBoard(gbdSize);
     BoardViewer myViewer = new BoardViewer(myGbd);
-    GameIO myGUI = new GameIO(myViewer);
+    GameOutput myGUI = createGUI(myViewer);
 
     MoveTextInput myTextInput = null;
     if (myTextInputEnabled){
@@ -501,6 +697,16 @@ public class Nowhere2gopp {
     //create and initialize player
     Player myLocalPlayer = null;
     myLocalPlayer = createLocalPlayer(myPlayerType, myPlayerColor, gbdSize, myGUI, myTextInputEnabled, myTextInput);
+    //the referee moves the board the player builds in init, the GUI follows it from there on
+    if (myLocalPlayer instanceof AbstractPlayer){
+      ((AbstractPlayer) myLocalPlayer).showOwnBoard();
+    }
+
+    //over sockets the local player is served directly
+    if (socketTransport){
+      offerSocket(myLocalPlayer, myHostname, myPort, myPlayerName);
+      return;
+    }
 
     //create network player
     Player myPlayer = null;
@@ -516,6 +722,28 @@ public class Nowhere2gopp {
     offer(myPlayer, myHostname, myPort, myPlayerName);
   }
 
+  /**
+  *Create a GUI for the given viewer with the animation speed of the command line, drawn on a single canvas with "--canvas".
+  *With "-analysis <percent>" the GUI analyses the position while a human thinks.
+  *@param viewer
+  *       Viewer of the game board to show.
+  *
+  *@return the GUI
+  */
+  private GameOutput createGUI(final BoardViewer viewer){
+    AnalysisEngine analysis = analysisPercent > 0 ? new AnalysisEngine(analysisPercent) : null;
+    if (canvas){
+      CanvasGameIO gui = new CanvasGameIO(viewer);
+      gui.setAnimationMillis(animationMillis);
+      gui.setAnalysis(analysis);
+      return gui;
+    }
+    GameIO gui = new GameIO(viewer);
+    gui.setAnimationMillis(animationMillis);
+    gui.setAnalysis(analysis);
+    return gui;
+  }
+
   /**
   *Prepare the game referee and ask moves from both players in turn.
   */
@@ -524,60 +752,75 @@ public class Nowhere2gopp {
     if (online){
       mainGbd = new GameBoard(gbdSize);
       mainViewer = new BoardViewer(mainGbd);
-      mainGUI = new GameIO(mainViewer);
+      mainGUI = createGUI(mainViewer);
     }
 
     //initialize referee
-    gameReferee = new Referee(mainGbd, redPlayer, bluePlayer);
+    gameReferee = new Referee(mainGbd, redPlayer, bluePlayer, timeControl);
 
     Status currentStatus = mainGbd.getStatus();
     PlayerColor currentPlayer = mainGbd.getTurn();
     boolean isRedTurn = (currentPlayer == PlayerColor.Red);
     PlayerType currentPlayerType = ((isRedTurn) ? redType : blueType);
 
+    //the next request is not sent before this schedule, the delay runs while the players are notified
+    CompletableFuture<Void> schedule = CompletableFuture.completedFuture(null);
+    boolean paced = redType != PlayerType.Human && blueType != PlayerType.Human && delayMillis > 0;
+    JournalGame record = (journal == null) ? null : journal.begin(gbdSize, redType, blueType, 0L);
+
     Move nextMove = null;
     while (currentStatus == Status.Ok){
-      //ask for moves from the players
+      //ask for moves from the players, the request waits until the player has processed the last move
       try{
-        nextMove = gameReferee.request();
-      } catch (Exception e){
-        e.printStackTrace();
+        nextMove = schedule.thenCompose(v -> gameReferee.requestAsync()).join();
+      } catch (CompletionException e){
+        e.getCause().printStackTrace();
         System.err.println("Could not request move from " + currentPlayer + " player!");
+        break;
+      }
+      if (paced){
+        schedule = CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
       }
 
       //Make the move on main game board.
       mainGbd.make(nextMove);
+      if (record != null){
+        record.move(nextMove);
+      }
+      //the GUI only queues the animation, the referee does not wait for it
       mainGUI.update(nextMove, currentPlayer);
 
-      //Update player's game board and GUI for an online game.
-
       currentStatus = mainGbd.getStatus();
 
-      try{
-        if (isRedTurn){
-          redPlayer.confirm(currentStatus);
-          bluePlayer.update(nextMove, currentStatus);
-        }
-        else {
-          bluePlayer.confirm(currentStatus);
-          redPlayer.update(nextMove, currentStatus);
-        }
-      } catch (Exception e) {
-        System.err.println("Could not update " + ((currentPlayer == PlayerColor.Red) ? "BluePlayer's " : "RedPlayer's ") + "Board!");
+      //a player that lost on time is still busy, it must not be called again
+      if (gameReferee.getTimedOut() != null){
+        break;
       }
 
-      if (redType != PlayerType.Human && blueType != PlayerType.Human){
-        try{
-          TimeUnit.SECONDS.sleep(delay);
-        } catch (InterruptedException e){
-          System.err.println(e.getMessage());
-        }
-      }
+      //Update player's game board and GUI for an online game, confirm and update are sent in parallel.
+      gameReferee.notifyAsync(currentPlayer, nextMove, currentStatus);
 
       currentPlayer = mainGbd.getTurn();
       isRedTurn = (currentPlayer == PlayerColor.Red);
       currentPlayerType = ((isRedTurn) ? redType : blueType);
     }
+
+    //the last confirm and update still have to finish
+    gameReferee.awaitCalls();
+
+    if (record != null){
+      record.end(mainGbd.getStatus());
+      try{
+        journal.close();
+      } catch (IOException e){
+        System.err.println("Journal cannot be written: " + e.getMessage());
+      }
+    }
+
+    GAMES.inc();
+    if (Metrics.isEnabled()){
+      System.out.println(Metrics.toJson());
+    }
   }
 
   public static void main(final String[] s) {
@@ -585,6 +828,26 @@ public class Nowhere2gopp {
     if (s[0].equals("loading")){
       LoadingPage loadingPage = new LoadingPage(newGame);
       loadingPage.init();
+    } else if (s[0].equals("tournament")){
+      Tournament.main(Arrays.copyOfRange(s, 1, s.length));
+    } else if (s[0].equals("perft")){
+      Perft.main(Arrays.copyOfRange(s, 1, s.length));
+    } else if (s[0].equals("loopback")){
+      Loopback.main(Arrays.copyOfRange(s, 1, s.length));
+    } else if (s[0].equals("server")){
+      GameServer.main(Arrays.copyOfRange(s, 1, s.length));
+    } else if (s[0].equals("join")){
+      GameClient.main(Arrays.copyOfRange(s, 1, s.length));
+    } else if (s[0].equals("coordinator")){
+      Coordinator.main(Arrays.copyOfRange(s, 1, s.length));
+    } else if (s[0].equals("watch")){
+      Spectator.main(Arrays.copyOfRange(s, 1, s.length));
+    } else if (s[0].equals("journal")){
+      JournalReader.main(Arrays.copyOfRange(s, 1, s.length));
+    } else if (s[0].equals("replay")){
+      ReplayReader.main(Arrays.copyOfRange(s, 1, s.length));
+    } else if (s[0].equals("archive")){
+      GameArchive.main(Arrays.copyOfRange(s, 1, s.length));
     } else {
       newGame.init(s);
     }
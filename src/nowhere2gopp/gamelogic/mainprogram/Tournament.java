@@ -0,0 +1,370 @@
+package nowhere2gopp.gamelogic.mainprogram;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import nowhere2gopp.gamelogic.metrics.Metrics;
+import nowhere2gopp.gamelogic.metrics.MetricsServer;
+import nowhere2gopp.gamelogic.player.TimeControl;
+import nowhere2gopp.gamelogic.record.GameArchive;
+import nowhere2gopp.gamelogic.record.GameJournal;
+import nowhere2gopp.gamelogic.record.PositionIndex;
+import nowhere2gopp.preset.ArgumentParser;
+import nowhere2gopp.preset.ArgumentParserException;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.PlayerType;
+import nowhere2gopp.preset.Status;
+
+/**
+*This class runs a tournament of headless AI games on a thread pool.
+*Every pairing of player types is played on every board size with swapped colours.
+*The result of every game is streamed to a CSV file as soon as it is finished, the win rates of all player types
+*are printed and written to a JSON file at the end.
+*/
+public class Tournament {
+  /**
+  *How the players are paired.
+  */
+  public enum Pairing {
+    /** every player type plays against every other player type */
+    ROUND_ROBIN,
+    /** the first player type plays against all the others */
+    GAUNTLET
+  }
+
+  /**
+  *Participating player types.
+  */
+  private List<PlayerType> players;
+  /**
+  *Board sizes to play on.
+  */
+  private int[] sizes;
+  /**
+  *Games per pairing, colour and board size.
+  */
+  private int games;
+  /**
+  *Number of games that run at the same time.
+  */
+  private int threads;
+  /**
+  *How the players are paired.
+  */
+  private Pairing pairing;
+  /**
+  *Time control of every game.
+  */
+  private TimeControl timeControl;
+  /**
+  *If true the players of a game read the board of the referee instead of keeping their own copy.
+  */
+  private boolean shared;
+  /**
+  *File the results of the single games are streamed to, null if not wanted.
+  */
+  private String csvFile;
+  /**
+  *File the win rates are written to, null if not wanted.
+  */
+  private String jsonFile;
+  /**
+  *Journal all games are written to, null if not wanted.
+  */
+  private String journalFile;
+  /**
+  *Directory of the archive all finished games are added to, null if not wanted.
+  */
+  private String archiveDir;
+
+  public Tournament(final List<PlayerType> players, final int[] sizes, final int games, final int threads, final Pairing pairing, final String csvFile, final String jsonFile) {
+    if (players.size() < 2) {
+      throw new IllegalArgumentException("A tournament needs at least two player types but got " + players);
+    }
+    this.players = players;
+    this.sizes = sizes;
+    this.games = games;
+    this.threads = threads;
+    this.pairing = pairing;
+    this.csvFile = csvFile;
+    this.jsonFile = jsonFile;
+    timeControl = TimeControl.none();
+  }
+
+  /**
+  *Creates a tournament from the commandline arguments.
+  *"-players random,simple" sets the player types, "-sizes 1,2" the board sizes, "-games" the games per pairing and colour,
+  *"-threads" the pool size, "-pairing roundrobin|gauntlet", "-csv" and "-json" the output files, "--shared" lets the players read the board of the referee,
+  *"-journal" the file all moves are written to, "-archive" the directory of the archive the games are added to,
+  *"-movetime", "-clock" and "-increment" the time control, "--metrics" and "-metricsport" enable the metrics.
+  *@param s
+  *       Commandline arguments without the leading "tournament".
+  *
+  *@return configured tournament
+  */
+  public static Tournament fromArgs(final String[] s) throws ArgumentParserException {
+    ArgumentParser parser = new ArgumentParser(s);
+    List<PlayerType> players = parser.isSet("players") ? parser.getPlayers() : List.of(PlayerType.RandomAI, PlayerType.SimpleAI);
+    int[] sizes = parser.isSet("sizes") ? parser.getSizes() : new int[] { 1 };
+    int games = parser.isSet("games") ? parser.getGames() : 10;
+    int threads = parser.isSet("threads") ? parser.getThreads() : Runtime.getRuntime().availableProcessors();
+    Pairing pairing = Pairing.ROUND_ROBIN;
+    if (parser.isSet("pairing") && parser.getPairing().equalsIgnoreCase("gauntlet")){
+      pairing = Pairing.GAUNTLET;
+    }
+    String csv = parser.isSet("csv") ? parser.getCsv() : null;
+    String json = parser.isSet("json") ? parser.getJson() : null;
+    MetricsServer.configure(parser);
+
+    Tournament tournament = new Tournament(players, sizes, games, threads, pairing, csv, json);
+    tournament.setTimeControl(Nowhere2gopp.parseTimeControl(parser));
+    tournament.setShared(parser.isShared());
+    if (parser.isSet("journal")){
+      tournament.setJournal(parser.getJournal());
+    }
+    if (parser.isSet("archive")){
+      tournament.setArchive(parser.getArchive());
+    }
+    return tournament;
+  }
+
+  /**
+  *Sets the time control of every game.
+  *@param timeControl
+  *       Time control, a fresh copy is used per game.
+  */
+  public void setTimeControl(final TimeControl timeControl) {
+    this.timeControl = timeControl;
+  }
+
+  /**
+  *Lets the players of every game read the board of the referee instead of keeping their own copy.
+  *@param shared
+  *       True to share the board.
+  */
+  public void setShared(final boolean shared) {
+    this.shared = shared;
+  }
+
+  /**
+  *Writes all games to a {@link nowhere2gopp.gamelogic.record.GameJournal GameJournal}, the games running at the same time share its syncs.
+  *@param journalFile
+  *       File of the journal, an existing journal is continued.
+  */
+  public void setJournal(final String journalFile) {
+    this.journalFile = journalFile;
+  }
+
+  /**
+  *Adds all finished games to a {@link nowhere2gopp.gamelogic.record.GameArchive GameArchive} and updates its
+  *{@link nowhere2gopp.gamelogic.record.PositionIndex PositionIndex} when the tournament is over.
+  *@param archiveDir
+  *       Directory of the archive, an existing archive is continued.
+  */
+  public void setArchive(final String archiveDir) {
+    this.archiveDir = archiveDir;
+  }
+
+  /**
+  *Creates all games of the tournament. Every pairing is played with both colour assignments.
+  *@param journal
+  *       Journal the games write their moves to, null if not wanted.
+  *
+  *@param archive
+  *       Archive the finished games are added to, null if not wanted.
+  *
+  *@return list of games to be played
+  */
+  private List<HeadlessGame> schedule(final GameJournal journal, final GameArchive archive) {
+    List<HeadlessGame> schedule = new ArrayList<>();
+    int id = 0;
+    for (int size : sizes){
+      for (int i = 0; i < players.size(); i++){
+        int last = (pairing == Pairing.GAUNTLET && i > 0) ? i : players.size();
+        for (int j = i + 1; j < last; j++){
+          for (int g = 0; g < games; g++){
+            schedule.add(new HeadlessGame(id++, size, players.get(i), players.get(j), copyTimeControl(), shared, journal, archive));
+            schedule.add(new HeadlessGame(id++, size, players.get(j), players.get(i), copyTimeControl(), shared, journal, archive));
+          }
+        }
+        if (pairing == Pairing.GAUNTLET) break;
+      }
+    }
+    return schedule;
+  }
+
+  /**
+  *Returns a fresh time control with the same settings, so the clocks of different games are independent.
+  *@return copy of {@link #timeControl timeControl}
+  */
+  private TimeControl copyTimeControl() {
+    return timeControl.copy();
+  }
+
+  /**
+  *Runs all games and reports the results.
+  *@return standings of all player types
+  */
+  public Map<PlayerType, Standing> run() throws IOException, InterruptedException {
+    GameJournal journal = (journalFile == null) ? null : GameJournal.open(Paths.get(journalFile));
+    GameArchive archive = (archiveDir == null) ? null : new GameArchive(Paths.get(archiveDir));
+    List<HeadlessGame> schedule = schedule(journal, archive);
+    Map<PlayerType, Standing> standings = new EnumMap<>(PlayerType.class);
+    for (PlayerType type : players){
+      standings.put(type, new Standing());
+    }
+
+    long start = System.nanoTime();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    CompletionService<HeadlessGame.Result> results = new ExecutorCompletionService<>(pool);
+    for (HeadlessGame game : schedule){
+      results.submit(game);
+    }
+
+    PrintWriter csv = (csvFile == null) ? null : new PrintWriter(new FileWriter(csvFile));
+    try {
+      if (csv != null) csv.println(HeadlessGame.Result.CSV_HEADER);
+      for (int i = 0; i < schedule.size(); i++){
+        HeadlessGame.Result result;
+        try {
+          result = results.take().get();
+        } catch (ExecutionException e) {
+          // games catch their own errors, this should not happen
+          throw new IllegalStateException(e.getCause());
+        }
+        standings.get(result.redType).add(result, PlayerColor.Red);
+        standings.get(result.blueType).add(result, PlayerColor.Blue);
+        if (result.error != null){
+          System.err.println("Game " + result.id + " failed: " + result.error);
+        }
+        if (csv != null){
+          csv.println(result.toCsv());
+          csv.flush();
+        }
+      }
+      if (archive != null){
+        int indexed = PositionIndex.build(archive);
+        System.out.println("Archived " + indexed + " games in " + archiveDir + ", " + archive.getGames() + " in total");
+      }
+    } finally {
+      pool.shutdownNow();
+      if (csv != null) csv.close();
+      if (journal != null) journal.close();
+      if (archive != null) archive.close();
+    }
+    long millis = (System.nanoTime() - start) / 1000000L;
+
+    printSummary(standings, schedule.size(), millis);
+    if (jsonFile != null) writeJson(standings, schedule.size(), millis);
+    if (Metrics.isEnabled()) System.out.println(Metrics.toJson());
+    return standings;
+  }
+
+  /**
+  *Prints the win rates of all player types.
+  */
+  private void printSummary(final Map<PlayerType, Standing> standings, final int total, final long millis) {
+    System.out.println(total + " games in " + millis + "ms (" + (millis == 0 ? total : total * 60000L / millis) + " games/min)");
+    for (Map.Entry<PlayerType, Standing> entry : standings.entrySet()){
+      System.out.println(entry.getKey() + ": " + entry.getValue());
+    }
+  }
+
+  /**
+  *Writes the win rates of all player types to {@link #jsonFile jsonFile}.
+  */
+  private void writeJson(final Map<PlayerType, Standing> standings, final int total, final long millis) throws IOException {
+    try (PrintWriter json = new PrintWriter(new FileWriter(jsonFile))){
+      json.println("{");
+      json.println("  \"games\": " + total + ",");
+      json.println("  \"millis\": " + millis + ",");
+      json.println("  \"pairing\": \"" + pairing + "\",");
+      json.println("  \"players\": {");
+      int n = 0;
+      for (Map.Entry<PlayerType, Standing> entry : standings.entrySet()){
+        Standing st = entry.getValue();
+        json.print("    \"" + entry.getKey() + "\": {\"games\": " + st.games + ", \"wins\": " + st.wins + ", \"losses\": " + st.losses
+                   + ", \"errors\": " + st.errors + ", \"winRate\": " + String.format(Locale.ROOT, "%.4f", st.getWinRate()) + "}");
+        json.println(++n < standings.size() ? "," : "");
+      }
+      json.println("  }");
+      json.println("}");
+    }
+  }
+
+  /**
+  *Win statistics of one player type.
+  */
+  public static class Standing {
+    /**
+    *Played games.
+    */
+    private int games;
+    /**
+    *Won games.
+    */
+    private int wins;
+    /**
+    *Lost games.
+    */
+    private int losses;
+    /**
+    *Games that ended with an error or an illegal status.
+    */
+    private int errors;
+
+    /**
+    *Adds a game result from the point of view of the given side.
+    *Self play counts once for each side.
+    */
+    private void add(final HeadlessGame.Result result, final PlayerColor side) {
+      games++;
+      if (result.status != Status.RedWin && result.status != Status.BlueWin){
+        errors++;
+      }
+      else if (result.status == (side == PlayerColor.Red ? Status.RedWin : Status.BlueWin)){
+        wins++;
+      }
+      else {
+        losses++;
+      }
+    }
+
+    /**
+    *Returns the ratio of won games.
+    *@return wins divided by games, 0 if no games were played
+    */
+    public double getWinRate() {
+      return games == 0 ? 0 : (double) wins / games;
+    }
+
+    public String toString() {
+      return games + " games, " + wins + " wins, " + losses + " losses, " + errors + " errors, win rate "
+             + String.format(Locale.ROOT, "%.1f%%", 100 * getWinRate());
+    }
+  }
+
+  public static void main(final String[] s) {
+    try {
+      fromArgs(s).run();
+    } catch (ArgumentParserException | IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+    } catch (IOException | InterruptedException e) {
+      System.err.println("Tournament aborted: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package nowhere2gopp.gamelogic.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A counter that only goes up, e.g. the number of made moves. It is backed by a
+ * {@link java.util.concurrent.atomic.LongAdder LongAdder}, so many threads can count at the same time without contention.
+ */
+public class Counter extends Metric {
+    /**
+     * Current count
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Constructor of a counter, use {@link nowhere2gopp.gamelogic.metrics.Metrics#counter(String, String) Metrics.counter}
+     * @param name   name of the metric
+     * @param labels label in Prometheus syntax, empty for none
+     * @param help   description of the metric
+     */
+    Counter(final String name, final String labels, final String help) {
+        super(name, labels, help);
+    }
+
+    /**
+     * Adds one, if metrics are enabled
+     */
+    public void inc() {
+        if (Metrics.isEnabled()) count.increment();
+    }
+
+    /**
+     * Adds the given amount, if metrics are enabled
+     * @param amount amount to add
+     */
+    public void add(final long amount) {
+        if (Metrics.isEnabled()) count.add(amount);
+    }
+
+    /**
+     * Returns the current count
+     * @return count
+     */
+    public long get() {
+        return count.sum();
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+
+    @Override
+    public void reset() {
+        count.reset();
+    }
+
+    @Override
+    public void writePrometheus(final StringBuilder out) {
+        out.append(sample("", "")).append(' ').append(get()).append('\n');
+    }
+
+    @Override
+    public void writeJson(final StringBuilder out) {
+        out.append(get());
+    }
+}
@@ -0,0 +1,52 @@
+package nowhere2gopp.gamelogic.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A value that can go up and down, e.g. the used heap. The value is read from a
+ * {@link java.util.function.LongSupplier LongSupplier} when the metrics are exported, so it costs nothing in between.
+ */
+public class Gauge extends Metric {
+    /**
+     * Supplier of the current value
+     */
+    private final LongSupplier value;
+
+    /**
+     * Constructor of a gauge, use {@link nowhere2gopp.gamelogic.metrics.Metrics#gauge(String, String, LongSupplier) Metrics.gauge}
+     * @param name   name of the metric
+     * @param labels label in Prometheus syntax, empty for none
+     * @param help   description of the metric
+     * @param value  supplier of the current value
+     */
+    Gauge(final String name, final String labels, final String help, final LongSupplier value) {
+        super(name, labels, help);
+        this.value = value;
+    }
+
+    /**
+     * Returns the current value
+     * @return value of the supplier
+     */
+    public long get() {
+        return value.getAsLong();
+    }
+
+    @Override
+    public String getType() {
+        return "gauge";
+    }
+
+    @Override
+    public void reset() {}
+
+    @Override
+    public void writePrometheus(final StringBuilder out) {
+        out.append(sample("", "")).append(' ').append(get()).append('\n');
+    }
+
+    @Override
+    public void writeJson(final StringBuilder out) {
+        out.append(get());
+    }
+}
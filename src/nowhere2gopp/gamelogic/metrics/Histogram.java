@@ -0,0 +1,203 @@
+package nowhere2gopp.gamelogic.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free latency histogram in the style of an HDR histogram. The durations are recorded in nanoseconds into
+ * log-linear buckets: every power of two is split into {@link #SUB_BUCKETS SUB_BUCKETS} equally wide buckets, so the
+ * relative error of a percentile is at most 12.5% over the whole range from one nanosecond to hundreds of years.
+ * Recording is a single atomic increment, there is no lock and no allocation.
+ */
+public class Histogram extends Metric {
+    /**
+     * Bits of the sub bucket index
+     */
+    private static final int SUB_BITS = 3;
+
+    /**
+     * Buckets per power of two
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * Number of buckets needed for all positive long values
+     */
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    /**
+     * Percentiles that are exported
+     */
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    /**
+     * Names of the {@link #QUANTILES QUANTILES} in the JSON export
+     */
+    private static final String[] QUANTILE_NAMES = { "p50", "p90", "p99", "p999" };
+
+    /**
+     * Counts of the buckets
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Number of recorded values
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Sum of the recorded values in nanoseconds
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Largest recorded value in nanoseconds
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Constructor of a histogram, use {@link nowhere2gopp.gamelogic.metrics.Metrics#histogram(String, String) Metrics.histogram}
+     * @param name   name of the metric
+     * @param labels label in Prometheus syntax, empty for none
+     * @param help   description of the metric
+     */
+    Histogram(final String name, final String labels, final String help) {
+        super(name, labels, help);
+    }
+
+    /**
+     * Records the time since the given start. Does nothing if the start is 0, which is what
+     * {@link nowhere2gopp.gamelogic.metrics.Metrics#start() Metrics.start} returns when metrics are disabled.
+     * @param start value of {@link nowhere2gopp.gamelogic.metrics.Metrics#start() Metrics.start}
+     */
+    public void recordSince(final long start) {
+        if (start != 0) record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records a duration
+     * @param nanos duration in nanoseconds, negative values are recorded as 0
+     */
+    public void record(final long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Returns the bucket of a value
+     * @param  value value that is not negative
+     * @return       index of the bucket
+     */
+    static int index(final long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub      = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the smallest value of a bucket
+     * @param  index index of the bucket
+     * @return       lower bound of the bucket
+     */
+    static long lowerBound(final int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        long sub     = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+
+    /**
+     * Returns the number of recorded values
+     * @return count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the sum of the recorded values
+     * @return sum in nanoseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Returns the largest recorded value
+     * @return maximum in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the value below which the given share of the recorded values lies. The result is the upper bound of
+     * the bucket the percentile falls into, but never more than the maximum.
+     * @param  quantile share between 0 and 1, e.g. 0.99
+     * @return          percentile in nanoseconds, 0 if nothing was recorded
+     */
+    public long percentile(final double quantile) {
+        long total = getCount();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                long upper = (i + 1 < BUCKETS) ? lowerBound(i + 1) - 1 : Long.MAX_VALUE;
+                return Math.min(upper, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    @Override
+    public String getType() {
+        return "summary";
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    @Override
+    public void writePrometheus(final StringBuilder out) {
+        for (double quantile : QUANTILES) {
+            out.append(sample("", "quantile=\"" + quantile + "\"")).append(' ').append(seconds(percentile(quantile))).append('\n');
+        }
+        out.append(sample("_sum", "")).append(' ').append(seconds(getSum())).append('\n');
+        out.append(sample("_count", "")).append(' ').append(getCount()).append('\n');
+    }
+
+    @Override
+    public void writeJson(final StringBuilder out) {
+        out.append("{\"count\": ").append(getCount())
+           .append(", \"sum\": ").append(seconds(getSum()))
+           .append(", \"max\": ").append(seconds(getMax()));
+        for (int i = 0; i < QUANTILES.length; i++) {
+            out.append(", \"").append(QUANTILE_NAMES[i]).append("\": ").append(seconds(percentile(QUANTILES[i])));
+        }
+        out.append('}');
+    }
+
+    /**
+     * Formats nanoseconds as seconds, the base unit of Prometheus
+     * @param  nanos duration in nanoseconds
+     * @return       seconds with nanosecond precision
+     */
+    private static String seconds(final long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
@@ -0,0 +1,92 @@
+package nowhere2gopp.gamelogic.metrics;
+
+/**
+ * Base class of all metrics of the {@link nowhere2gopp.gamelogic.metrics.Metrics Metrics} registry.
+ * A metric has a name in the Prometheus naming scheme, an optional label and a help text.
+ */
+public abstract class Metric {
+    /**
+     * Name of the metric, e.g. "gameboard_make_seconds"
+     */
+    private final String name;
+
+    /**
+     * Label of the metric like player="SimplePlayer", empty if there is none
+     */
+    private final String labels;
+
+    /**
+     * Description of the metric
+     */
+    private final String help;
+
+    /**
+     * Constructor of a metric
+     * @param name   name of the metric
+     * @param labels label in Prometheus syntax without braces, empty for none
+     * @param help   description of the metric
+     */
+    protected Metric(final String name, final String labels, final String help) {
+        this.name   = name;
+        this.labels = labels;
+        this.help   = help;
+    }
+
+    /**
+     * Returns the name of the metric
+     * @return name without labels
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the label of the metric
+     * @return label in Prometheus syntax without braces, empty if there is none
+     */
+    public String getLabels() {
+        return labels;
+    }
+
+    /**
+     * Returns the description of the metric
+     * @return help text
+     */
+    public String getHelp() {
+        return help;
+    }
+
+    /**
+     * Returns the Prometheus type of the metric
+     * @return "counter", "gauge" or "summary"
+     */
+    public abstract String getType();
+
+    /**
+     * Resets the metric to its initial state
+     */
+    public abstract void reset();
+
+    /**
+     * Appends the samples of this metric in the Prometheus text format, without HELP and TYPE lines
+     * @param out buffer to write to
+     */
+    public abstract void writePrometheus(StringBuilder out);
+
+    /**
+     * Appends the value of this metric as a JSON value
+     * @param out buffer to write to
+     */
+    public abstract void writeJson(StringBuilder out);
+
+    /**
+     * Returns name and label in the Prometheus syntax, with an extra label if given
+     * @param  suffix suffix of the name like "_count", may be empty
+     * @param  extra  extra label like quantile="0.5", may be empty
+     * @return        name of the sample
+     */
+    protected String sample(final String suffix, final String extra) {
+        String all = labels.isEmpty() ? extra : (extra.isEmpty() ? labels : labels + "," + extra);
+        return name + suffix + (all.isEmpty() ? "" : "{" + all + "}");
+    }
+}
@@ -0,0 +1,162 @@
+package nowhere2gopp.gamelogic.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of all metrics of the engine. The metrics are created once, usually in static fields of the instrumented
+ * classes, and exported as JSON or in the Prometheus text format, see {@link nowhere2gopp.gamelogic.metrics.MetricsServer MetricsServer}.
+ * Metrics are disabled by default. Then {@link #start() start} returns 0 without reading the clock and counters and
+ * histograms return at once, so the instrumented code only pays a field read. They are enabled with the "--metrics" flag,
+ * the system property "nowhere2gopp.metrics" or {@link #setEnabled(boolean) setEnabled}.
+ */
+public final class Metrics {
+    /**
+     * True if metrics are recorded
+     */
+    private static volatile boolean enabled = Boolean.getBoolean("nowhere2gopp.metrics");
+
+    /**
+     * All metrics by name and labels, sorted so metrics of the same name are exported together
+     */
+    private static final Map<String, Metric> REGISTRY = new ConcurrentSkipListMap<>();
+
+    static {
+        gauge("jvm_heap_used_bytes", "Used heap memory", () -> {
+            Runtime runtime = Runtime.getRuntime();
+            return runtime.totalMemory() - runtime.freeMemory();
+        });
+        gauge("jvm_threads", "Live threads", () -> ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+
+    /**
+     * Utility class, no instances
+     */
+    private Metrics() {}
+
+    /**
+     * Returns true if metrics are recorded
+     * @return true if enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns the recording of metrics on or off
+     * @param on true to record metrics
+     */
+    public static void setEnabled(final boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Returns the start time of a measurement for {@link nowhere2gopp.gamelogic.metrics.Histogram#recordSince(long) recordSince}
+     * @return {@link java.lang.System#nanoTime() nanoTime}, 0 if metrics are disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Returns the counter with the given name, it is created on the first call
+     * @param  name name of the counter, should end with "_total"
+     * @param  help description of the counter
+     * @return      registered counter
+     */
+    public static Counter counter(final String name, final String help) {
+        return (Counter) REGISTRY.computeIfAbsent(key(name, ""), k -> new Counter(name, "", help));
+    }
+
+    /**
+     * Returns the latency histogram with the given name, it is created on the first call
+     * @param  name name of the histogram, should end with "_seconds"
+     * @param  help description of the histogram
+     * @return      registered histogram
+     */
+    public static Histogram histogram(final String name, final String help) {
+        return histogram(name, help, null, null);
+    }
+
+    /**
+     * Returns the latency histogram with the given name and label, it is created on the first call
+     * @param  name  name of the histogram, should end with "_seconds"
+     * @param  help  description of the histogram
+     * @param  label name of the label, e.g. "player", null for none
+     * @param  value value of the label, e.g. "SimplePlayer"
+     * @return       registered histogram
+     */
+    public static Histogram histogram(final String name, final String help, final String label, final String value) {
+        String labels = (label == null) ? "" : label + "=\"" + value + "\"";
+        return (Histogram) REGISTRY.computeIfAbsent(key(name, labels), k -> new Histogram(name, labels, help));
+    }
+
+    /**
+     * Registers a gauge whose value is read from the supplier when the metrics are exported
+     * @param  name  name of the gauge
+     * @param  help  description of the gauge
+     * @param  value supplier of the current value
+     * @return       registered gauge, the first one if the name was already taken
+     */
+    public static Gauge gauge(final String name, final String help, final LongSupplier value) {
+        return (Gauge) REGISTRY.computeIfAbsent(key(name, ""), k -> new Gauge(name, "", help, value));
+    }
+
+    /**
+     * Returns the key of a metric in the {@link #REGISTRY REGISTRY}
+     * @param  name   name of the metric
+     * @param  labels labels of the metric
+     * @return        key
+     */
+    private static String key(final String name, final String labels) {
+        return name + "{" + labels + "}";
+    }
+
+    /**
+     * Resets all counters and histograms
+     */
+    public static void reset() {
+        for (Metric metric : REGISTRY.values()) {
+            metric.reset();
+        }
+    }
+
+    /**
+     * Exports all metrics in the Prometheus text format
+     * @return text with HELP, TYPE and sample lines
+     */
+    public static String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        String last = null;
+        for (Metric metric : REGISTRY.values()) {
+            if (!metric.getName().equals(last)) {
+                out.append("# HELP ").append(metric.getName()).append(' ').append(metric.getHelp()).append('\n');
+                out.append("# TYPE ").append(metric.getName()).append(' ').append(metric.getType()).append('\n');
+                last = metric.getName();
+            }
+            metric.writePrometheus(out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Exports all metrics as a JSON object, the keys are the names with labels
+     * @return JSON text
+     */
+    public static String toJson() {
+        StringBuilder out = new StringBuilder("{\n");
+        List<Metric> metrics = new ArrayList<>(REGISTRY.values());
+        for (int i = 0; i < metrics.size(); i++) {
+            Metric metric = metrics.get(i);
+            String labels = metric.getLabels().replace("\"", "\\\"");
+            out.append("  \"").append(metric.getName()).append(labels.isEmpty() ? "" : "{" + labels + "}").append("\": ");
+            metric.writeJson(out);
+            out.append(i + 1 < metrics.size() ? ",\n" : "\n");
+        }
+        return out.append('}').toString();
+    }
+}
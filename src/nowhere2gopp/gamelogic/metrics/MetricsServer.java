@@ -0,0 +1,96 @@
+package nowhere2gopp.gamelogic.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import nowhere2gopp.preset.ArgumentParser;
+import nowhere2gopp.preset.ArgumentParserException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A small HTTP endpoint that serves the {@link nowhere2gopp.gamelogic.metrics.Metrics Metrics} for scraping.
+ * It only listens on the loopback address, "/metrics" returns the Prometheus text format and "/metrics.json" JSON.
+ * The server runs on a single daemon thread, so it never keeps the program alive.
+ */
+public class MetricsServer {
+    /**
+     * Underlying HTTP server
+     */
+    private final HttpServer server;
+
+    /**
+     * Starts the endpoint on the given port of the loopback address
+     * @param  port port to listen on, 0 for any free port
+     * @throws IOException if the port can not be bound
+     */
+    public MetricsServer(final int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> reply(exchange, "text/plain; version=0.0.4", Metrics.toPrometheus()));
+        server.createContext("/metrics.json", exchange -> reply(exchange, "application/json", Metrics.toJson()));
+        server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metrics-server");
+            t.setDaemon(true);
+            return t;
+        }));
+        server.start();
+    }
+
+    /**
+     * Reads the metrics settings from the commandline arguments. "--metrics" enables the metrics,
+     * "-metricsport" enables them as well and starts the endpoint on the given port.
+     * @param  parser parser of the commandline arguments
+     * @return        started endpoint, null if no port was given or it could not be bound
+     * @throws ArgumentParserException if the port is not a number
+     */
+    public static MetricsServer configure(final ArgumentParser parser) throws ArgumentParserException {
+        if (parser.isMetrics() || parser.isSet("metricsport")) Metrics.setEnabled(true);
+        if (!parser.isSet("metricsport")) return null;
+        try {
+            MetricsServer server = new MetricsServer(parser.getMetricsPort());
+            System.out.println("Metrics on http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort() + "/metrics");
+            return server;
+        } catch (NumberFormatException e) {
+            throw new ArgumentParserException("Invalid metrics port: " + e.getMessage(), e);
+        } catch (IOException e) {
+            System.err.println("Metrics endpoint could not be started: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Sends a response
+     * @param exchange    request to answer
+     * @param contentType content type of the body
+     * @param body        body of the response
+     * @throws IOException if the response can not be sent
+     */
+    private static void reply(final HttpExchange exchange, final String contentType, final String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Returns the port the endpoint listens on
+     * @return bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the endpoint
+     */
+    public void stop() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,173 @@
+package nowhere2gopp.gamelogic.net;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A blocking {@link java.nio.channels.SocketChannel SocketChannel} that sends and receives the frames of the
+ * {@link nowhere2gopp.gamelogic.net.Protocol Protocol}. The buffers are allocated once per connection and reused for every frame,
+ * they start with {@link nowhere2gopp.gamelogic.net.Protocol#BUFFER_SIZE BUFFER_SIZE} bytes and only grow for the rare large frames.
+ * A frame is built with {@link #begin(byte) begin}, filled through the returned buffer and written with {@link #send() send}.
+ * Not thread safe, the users synchronize.
+ */
+public final class FrameChannel implements Closeable {
+    /**
+     * Connected channel
+     */
+    private final SocketChannel channel;
+
+    /**
+     * Buffer of the outgoing frame
+     */
+    private ByteBuffer out = ByteBuffer.allocate(Protocol.BUFFER_SIZE);
+
+    /**
+     * Buffer of the incoming frame
+     */
+    private ByteBuffer in = ByteBuffer.allocate(Protocol.BUFFER_SIZE);
+
+    /**
+     * Bytes written, including the length fields
+     */
+    private long bytesSent;
+
+    /**
+     * Bytes read, including the length fields
+     */
+    private long bytesReceived;
+
+    /**
+     * Wraps a connected channel, switches it to blocking mode and turns off Nagle's algorithm,
+     * the frames are small and have to leave at once
+     * @param  channel     connected channel
+     * @throws IOException if the options can not be set
+     */
+    public FrameChannel(final SocketChannel channel) throws IOException {
+        this.channel = channel;
+        channel.configureBlocking(true);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    /**
+     * Starts a new outgoing frame
+     * @param  op op code of the frame
+     * @return    buffer to write the payload into
+     */
+    public ByteBuffer begin(final byte op) {
+        return begin(op, 0);
+    }
+
+    /**
+     * Starts a new outgoing frame with room for a payload of the given size
+     * @param  op       op code of the frame
+     * @param  capacity bytes of the payload, the buffer grows if it is smaller
+     * @return          buffer to write the payload into
+     */
+    public ByteBuffer begin(final byte op, final int capacity) {
+        if (capacity + 5 > Protocol.MAX_FRAME) throw new IllegalArgumentException("Frame of " + capacity + " bytes is too large");
+        if (capacity + 5 > out.capacity()) out = ByteBuffer.allocate(capacity + 5);
+        out.clear();
+        out.putInt(0);
+        out.put(op);
+        return out;
+    }
+
+    /**
+     * Writes the frame started with {@link #begin(byte) begin}
+     * @return             size of the frame in bytes
+     * @throws IOException if the connection is broken
+     */
+    public int send() throws IOException {
+        int size = out.position();
+        out.putInt(0, size - 4);
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        bytesSent += size;
+        return size;
+    }
+
+    /**
+     * Reads the next frame
+     * @return             op code of the frame, the payload is in {@link #payload() payload}
+     * @throws IOException if the connection is closed or the frame is malformed
+     */
+    public byte receive() throws IOException {
+        in.clear();
+        in.limit(4);
+        fill();
+        int length = in.getInt(0);
+        if (length < 1 || length > Protocol.MAX_FRAME - 4) throw new IOException("Malformed frame of length " + length);
+        if (4 + length > in.capacity()) {
+            in = ByteBuffer.allocate(4 + length).putInt(length);
+        }
+        in.limit(4 + length);
+        fill();
+        in.position(4);
+        bytesReceived += 4 + length;
+        return in.get();
+    }
+
+    /**
+     * Returns the payload of the frame read by {@link #receive() receive}
+     * @return buffer positioned at the payload
+     */
+    public ByteBuffer payload() {
+        return in;
+    }
+
+    /**
+     * Reads until the incoming buffer is filled up to its limit
+     * @throws IOException if the connection is closed
+     */
+    private void fill() throws IOException {
+        while (in.hasRemaining()) {
+            if (channel.read(in) < 0) throw new EOFException("Connection closed");
+        }
+    }
+
+    /**
+     * Returns the bytes written
+     * @return bytes including the frame headers
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Returns the bytes read
+     * @return bytes including the frame headers
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Checks without waiting if the other side closed the connection. Only for a connection on which no frame is expected
+     * right now, a byte that arrives is read and the connection counts as broken.
+     * @return true if the connection is closed or broken
+     */
+    public boolean isClosed() {
+        if (!channel.isOpen()) return true;
+        try {
+            channel.configureBlocking(false);
+            try {
+                return channel.read(ByteBuffer.allocate(1)) != 0;
+            } finally {
+                channel.configureBlocking(true);
+            }
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
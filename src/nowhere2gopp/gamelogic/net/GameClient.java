@@ -0,0 +1,77 @@
+package nowhere2gopp.gamelogic.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+
+import nowhere2gopp.gamelogic.player.RandomPlayer;
+import nowhere2gopp.gamelogic.player.SimplePlayer;
+import nowhere2gopp.preset.ArgumentParser;
+import nowhere2gopp.preset.ArgumentParserException;
+import nowhere2gopp.preset.Player;
+import nowhere2gopp.preset.PlayerType;
+
+/**
+ * Connects a local player to a {@link nowhere2gopp.gamelogic.server.GameServer GameServer}. The player asks for a game with a
+ * JOIN frame and then answers the calls of the server, like a player offered by a {@link nowhere2gopp.gamelogic.net.PlayerServer PlayerServer}.
+ * The server initializes the player with the color it was paired with.
+ */
+public final class GameClient {
+    /**
+     * Utility class, no instances
+     */
+    private GameClient() {}
+
+    /**
+     * Joins a game server and plays one game. Returns when the server closes the connection at the end of the game.
+     * A {@link nowhere2gopp.gamelogic.server.Coordinator Coordinator} or a server that hands the game over sends the player
+     * to another server with a REDIRECT frame, the player follows it with the same player object.
+     * @param  host        host of the server or coordinator
+     * @param  port        port of the server or coordinator
+     * @param  name        name of the player
+     * @param  size        board size the player wants to play on
+     * @param  player      player that makes the moves
+     * @throws IOException if the connection fails
+     */
+    public static void play(final String host, final int port, final String name, final int size, final Player player) throws IOException {
+        Redirect target = new Redirect(host, port, 0, null);
+        while (target != null) {
+            try (SocketChannel channel = SocketChannel.open(new InetSocketAddress(target.host, target.port))) {
+                FrameChannel frames = new FrameChannel(channel);
+                if (target.token == 0) {
+                    Protocol.putString(frames.begin(Protocol.JOIN).put((byte) size), name);
+                } else {
+                    Protocol.putString(frames.begin(Protocol.RESUME).putLong(target.token).put((byte) target.color.ordinal()), name);
+                }
+                frames.send();
+                target = PlayerServer.serve(player, name, channel);
+            }
+        }
+    }
+
+    /**
+     * Joins a game server from the commandline. "-server" and "-port" give the address of the server (default 127.0.0.1:7777),
+     * "-name" the name of the player, "-size" the board size, "-player" the AI type (random or simple) and "-games" the number
+     * of games that are played one after another.
+     * @param args commandline arguments
+     */
+    public static void main(final String[] args) {
+        try {
+            ArgumentParser parser = new ArgumentParser(args);
+            String     host  = parser.isSet("server") ? parser.getServer() : "127.0.0.1";
+            int        port  = parser.isSet("port") ? parser.getPort() : 7777;
+            String     name  = parser.isSet("name") ? parser.getName() : "player";
+            int        size  = parser.isSet("size") ? parser.getSize() : 1;
+            int        games = parser.isSet("games") ? parser.getGames() : 1;
+            PlayerType type  = parser.isSet("player") ? parser.getPlayer() : PlayerType.SimpleAI;
+            for (int i = 0; i < games; i++) {
+                Player player = type == PlayerType.RandomAI ? new RandomPlayer() : new SimplePlayer();
+                play(host, port, name, size, player);
+                System.out.println("Game " + (i + 1) + " of " + name + " finished");
+            }
+        } catch (ArgumentParserException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
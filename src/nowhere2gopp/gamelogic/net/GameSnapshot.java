@@ -0,0 +1,148 @@
+package nowhere2gopp.gamelogic.net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.preset.Move;
+
+/**
+ * A running game in the compact form that is shipped when a game moves to another server: the board size, the names of
+ * the players and the moves made so far, each packed by the {@link nowhere2gopp.gamelogic.net.MoveCodec MoveCodec}.
+ * The receiving server rebuilds the {@link nowhere2gopp.gamelogic.GameBoard GameBoard} by replaying the moves and checks the
+ * {@link nowhere2gopp.gamelogic.GameBoard#positionHash() position hash} of the sender, so a game of some hundred moves
+ * travels in a few KB instead of a serialized board.
+ * <pre>
+ * token(8) size(1) red blue hash(8) count(2) moves
+ * </pre>
+ */
+public final class GameSnapshot {
+    /**
+     * Identifies the game until both players reconnected to the new server
+     */
+    private final long token;
+
+    /**
+     * Board size
+     */
+    private final int size;
+
+    /**
+     * Name of the red player
+     */
+    private final String red;
+
+    /**
+     * Name of the blue player
+     */
+    private final String blue;
+
+    /**
+     * Position hash of the board after the moves
+     */
+    private final long hash;
+
+    /**
+     * Moves made so far, in order
+     */
+    private final List<Move> moves;
+
+    /**
+     * Constructor of a snapshot
+     * @param token token of the game
+     * @param size  board size
+     * @param red   name of the red player
+     * @param blue  name of the blue player
+     * @param hash  position hash of the board after the moves
+     * @param moves moves made so far, copied
+     */
+    public GameSnapshot(final long token, final int size, final String red, final String blue, final long hash, final List<Move> moves) {
+        this.token = token;
+        this.size  = size;
+        this.red   = red;
+        this.blue  = blue;
+        this.hash  = hash;
+        this.moves = Collections.unmodifiableList(new ArrayList<>(moves));
+    }
+
+    /**
+     * Rebuilds the board by replaying the moves on an empty board
+     * @return                       board of the game
+     * @throws IllegalStateException if a move is illegal or the position differs from the one of the sender
+     */
+    public GameBoard replay() {
+        GameBoard board = new GameBoard(size);
+        for (Move move : moves) {
+            board.make(move);
+        }
+        if (board.positionHash() != hash) throw new IllegalStateException("Replayed position of game " + token + " differs");
+        return board;
+    }
+
+    /**
+     * Returns the bytes {@link #put(ByteBuffer) put} writes
+     * @return size of the payload
+     */
+    public int byteSize() {
+        int bytes = 8 + 1 + 2 + 2 + 8 + 2 + 3 * (red.length() + blue.length());
+        for (Move move : moves) {
+            bytes += MoveCodec.size(move);
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the snapshot into a frame
+     * @param buffer buffer of the frame, with room for {@link #byteSize() byteSize} bytes
+     */
+    public void put(final ByteBuffer buffer) {
+        buffer.putLong(token).put((byte) size);
+        Protocol.putString(buffer, red);
+        Protocol.putString(buffer, blue);
+        buffer.putLong(hash).putShort((short) moves.size());
+        for (Move move : moves) {
+            MoveCodec.put(buffer, move);
+        }
+    }
+
+    /**
+     * Reads a snapshot written by {@link #put(ByteBuffer) put}
+     * @param  buffer payload of the frame
+     * @return        the snapshot
+     */
+    public static GameSnapshot get(final ByteBuffer buffer) {
+        long   token = buffer.getLong();
+        int    size  = buffer.get();
+        String red   = Protocol.getString(buffer);
+        String blue  = Protocol.getString(buffer);
+        long   hash  = buffer.getLong();
+        int    count = buffer.getShort() & 0xFFFF;
+        List<Move> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(MoveCodec.get(buffer));
+        }
+        return new GameSnapshot(token, size, red, blue, hash, moves);
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getRed() {
+        return red;
+    }
+
+    public String getBlue() {
+        return blue;
+    }
+
+    public List<Move> getMoves() {
+        return moves;
+    }
+}
@@ -0,0 +1,297 @@
+package nowhere2gopp.gamelogic.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+
+import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.gamelogic.player.NetworkPlayer;
+import nowhere2gopp.gamelogic.player.RandomPlayer;
+import nowhere2gopp.gamelogic.player.Referee;
+import nowhere2gopp.gamelogic.player.TimeControl;
+import nowhere2gopp.gamelogic.player.TimedPlayer;
+import nowhere2gopp.preset.ArgumentParser;
+import nowhere2gopp.preset.ArgumentParserException;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.Player;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Status;
+
+/**
+ * Test harness that plays games between two {@link nowhere2gopp.gamelogic.player.RandomPlayer RandomPlayers} over the loopback
+ * interface, once with the socket transport and once with RMI, and compares the time per move and the bytes per move.
+ * The time per move includes the moves on the three boards and the hand over between the threads of the referee.
+ * The cost of the transport alone is measured as the round trip of a call without result, {@link nowhere2gopp.gamelogic.player.TimedPlayer#setMoveBudget(long)
+ * setMoveBudget}. The bytes of RMI are the Java serialization of the arguments and results, without the RMI protocol around it,
+ * so they are a lower bound.
+ * A game that does not end regularly exits with 1.
+ */
+public final class Loopback {
+    /**
+     * Utility class, no instances
+     */
+    private Loopback() {}
+
+    /**
+     * Starts the harness. "-size" sets the board size (default 2) and "-games" the games per transport (default 20).
+     * @param args commandline arguments
+     */
+    public static void main(final String[] args) {
+        try {
+            ArgumentParser parser = new ArgumentParser(args);
+            int size  = parser.isSet("size") ? parser.getSize() : 2;
+            int games = parser.isSet("games") ? parser.getGames() : 20;
+
+            Stats socket = new Stats();
+            Stats rmi    = new Stats();
+            // the players are looked up through a remote reference to the registry, else the registry of the same JVM
+            // returns the exported objects themselves and the calls do not use RMI at all
+            int port = freePort();
+            LocateRegistry.createRegistry(port);
+            Registry registry = LocateRegistry.getRegistry("127.0.0.1", port);
+            // the transports take turns, so both profit from the warm up of the JIT alike
+            for (int i = 0; i < games; i++) {
+                playSocket(size, socket);
+                playRmi(size, registry, rmi);
+            }
+            System.out.println("socket: " + socket + ", " + roundTripSocket(size) + "us/round trip");
+            System.out.println("rmi:    " + rmi + ", " + roundTripRmi(size, registry) + "us/round trip");
+            System.exit(socket.failed + rmi.failed > 0 ? 1 : 0);
+        } catch (ArgumentParserException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Plays one game over sockets
+     * @param  size        board size
+     * @param  stats       statistics to add the game to
+     * @throws IOException if the players can not be offered
+     */
+    private static void playSocket(final int size, final Stats stats) throws IOException {
+        InetSocketAddress loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        try (PlayerServer redServer = new PlayerServer(localPlayer(size, PlayerColor.Red), "red", loopback);
+             PlayerServer blueServer = new PlayerServer(localPlayer(size, PlayerColor.Blue), "blue", loopback)) {
+            redServer.start();
+            blueServer.start();
+            try (SocketPlayer red = SocketPlayer.connect("127.0.0.1", redServer.getPort(), "red");
+                 SocketPlayer blue = SocketPlayer.connect("127.0.0.1", blueServer.getPort(), "blue")) {
+                play(size, red, blue, stats);
+                red.sync();
+                blue.sync();
+                stats.bytes += red.getBytesSent() + red.getBytesReceived() + blue.getBytesSent() + blue.getBytesReceived();
+            }
+        }
+    }
+
+    /**
+     * Plays one game over RMI
+     * @param  size        board size
+     * @param  registry    registry the players are bound in
+     * @param  stats       statistics to add the game to
+     * @throws IOException if the players can not be offered
+     */
+    private static void playRmi(final int size, final Registry registry, final Stats stats) throws IOException {
+        NetworkPlayer redRemote  = new NetworkPlayer(localPlayer(size, PlayerColor.Red));
+        NetworkPlayer blueRemote = new NetworkPlayer(localPlayer(size, PlayerColor.Blue));
+        try {
+            registry.rebind("red", redRemote);
+            registry.rebind("blue", blueRemote);
+            Player red  = (Player) registry.lookup("red");
+            Player blue = (Player) registry.lookup("blue");
+            stats.serialized = true;
+            play(size, red, blue, stats);
+        } catch (java.rmi.NotBoundException e) {
+            throw new IOException(e);
+        } finally {
+            UnicastRemoteObject.unexportObject(redRemote, true);
+            UnicastRemoteObject.unexportObject(blueRemote, true);
+        }
+    }
+
+    /**
+     * Number of calls the round trip is averaged over
+     */
+    private static final int ROUND_TRIPS = 5000;
+
+    /**
+     * Measures the round trip of a call without result over sockets
+     * @param  size        board size
+     * @return             microseconds per round trip
+     * @throws IOException if the player can not be offered
+     */
+    private static double roundTripSocket(final int size) throws IOException {
+        InetSocketAddress loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        try (PlayerServer server = new PlayerServer(localPlayer(size, PlayerColor.Red), "red", loopback)) {
+            server.start();
+            try (SocketPlayer player = SocketPlayer.connect("127.0.0.1", server.getPort(), "red")) {
+                return roundTrip(player);
+            }
+        }
+    }
+
+    /**
+     * Measures the round trip of a call without result over RMI
+     * @param  size        board size
+     * @param  registry    registry the player is bound in
+     * @return             microseconds per round trip
+     * @throws IOException if the player can not be offered
+     */
+    private static double roundTripRmi(final int size, final Registry registry) throws IOException {
+        NetworkPlayer remote = new NetworkPlayer(localPlayer(size, PlayerColor.Red));
+        try {
+            registry.rebind("red", remote);
+            return roundTrip((TimedPlayer) registry.lookup("red"));
+        } catch (java.rmi.NotBoundException e) {
+            throw new IOException(e);
+        } finally {
+            UnicastRemoteObject.unexportObject(remote, true);
+        }
+    }
+
+    /**
+     * Measures the round trip of {@link nowhere2gopp.gamelogic.player.TimedPlayer#setMoveBudget(long) setMoveBudget},
+     * the first half of the calls is the warm up
+     * @param  player      player to call
+     * @return             microseconds per round trip
+     * @throws IOException if a call fails
+     */
+    private static double roundTrip(final TimedPlayer player) throws IOException {
+        long start = 0;
+        try {
+            for (int i = 0; i < 2 * ROUND_TRIPS; i++) {
+                if (i == ROUND_TRIPS) start = System.nanoTime();
+                player.setMoveBudget(TimeControl.UNLIMITED);
+                if (player instanceof SocketPlayer) ((SocketPlayer) player).sync();
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+        return Math.round((System.nanoTime() - start) / (double) ROUND_TRIPS / 100.0) / 10.0;
+    }
+
+    /**
+     * Plays a game like {@link nowhere2gopp.gamelogic.mainprogram.Nowhere2gopp Nowhere2gopp}, with pipelined confirm and update
+     * @param size  board size
+     * @param red   red player
+     * @param blue  blue player
+     * @param stats statistics to add the game to
+     */
+    private static void play(final int size, final Player red, final Player blue, final Stats stats) {
+        GameBoard board   = new GameBoard(size);
+        Referee   referee = new Referee(board, red, blue);
+        long start = System.nanoTime();
+        int moves = 0;
+        try {
+            while (board.getStatus() == Status.Ok) {
+                PlayerColor mover = board.getTurn();
+                Move move = referee.requestAsync().join();
+                board.make(move);
+                moves++;
+                if (stats.serialized) stats.bytes += serializedSize(move) * 2 + serializedSize(board.getStatus()) * 2;
+                referee.notifyAsync(mover, move, board.getStatus());
+            }
+            referee.awaitCalls();
+        } catch (RuntimeException e) {
+            System.err.println("Game failed: " + e);
+            stats.failed++;
+        }
+        if (board.getStatus() == Status.Illegal) stats.failed++;
+        stats.moves += moves;
+        stats.nanos += System.nanoTime() - start;
+        stats.games++;
+    }
+
+    /**
+     * Creates a random player and initializes it, as the player side of an online game does
+     * @param  size  board size
+     * @param  color color of the player
+     * @return       initialized player
+     */
+    private static Player localPlayer(final int size, final PlayerColor color) {
+        RandomPlayer player = new RandomPlayer();
+        try {
+            player.init(size, color);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return player;
+    }
+
+    /**
+     * Returns the size of the Java serialization of an object
+     * @param  object object to serialize
+     * @return        bytes
+     */
+    private static long serializedSize(final Object object) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        } catch (IOException e) {
+            return 0;
+        }
+        return bytes.size();
+    }
+
+    /**
+     * Returns a free port for the registry
+     * @return             port
+     * @throws IOException if no port is free
+     */
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Statistics of one transport
+     */
+    private static final class Stats {
+        /**
+         * Played games
+         */
+        int games;
+
+        /**
+         * Games that did not end regularly
+         */
+        int failed;
+
+        /**
+         * Made moves
+         */
+        long moves;
+
+        /**
+         * Time of all games
+         */
+        long nanos;
+
+        /**
+         * Transferred bytes
+         */
+        long bytes;
+
+        /**
+         * True if {@link #bytes bytes} counts the Java serialization instead of the frames
+         */
+        boolean serialized;
+
+        @Override
+        public String toString() {
+            long perMove = moves == 0 ? 0 : nanos / moves / 1000L;
+            return games + " games, " + moves + " moves, " + perMove + "us/move, "
+                   + (moves == 0 ? 0 : bytes / moves) + (serialized ? " serialized bytes/move" : " bytes/move") + ", " + failed + " failed";
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package nowhere2gopp.gamelogic.net;
+
+import java.nio.ByteBuffer;
+
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.MoveType;
+import nowhere2gopp.preset.Site;
+import nowhere2gopp.preset.SitePair;
+import nowhere2gopp.preset.SiteSet;
+import nowhere2gopp.preset.SiteTuple;
+
+/**
+ * This class packs {@link nowhere2gopp.preset.Move Moves} into a few bytes: one byte for the type followed by the sites of the
+ * move, every site as one byte column and one byte row. A surrender or end takes 1 byte, the other moves 9 bytes, instead of the
+ * hundreds of bytes of the Java serialization of the object graph.
+ */
+public final class MoveCodec {
+    /**
+     * Largest number of bytes of a packed move
+     */
+    public static final int MAX_SIZE = 9;
+
+    /**
+     * Utility class, no instances
+     */
+    private MoveCodec() {}
+
+    /**
+     * Returns the number of bytes of the packed move
+     * @param  move move to pack
+     * @return      1 for a surrender or end, else {@link #MAX_SIZE MAX_SIZE}
+     */
+    public static int size(final Move move) {
+        return move.getType() == MoveType.LinkLink || move.getType() == MoveType.AgentLink ? MAX_SIZE : 1;
+    }
+
+    /**
+     * Packs a move into the buffer
+     * @param buffer buffer to write to
+     * @param move   move to pack
+     */
+    public static void put(final ByteBuffer buffer, final Move move) {
+        buffer.put((byte) move.getType().ordinal());
+        switch (move.getType()) {
+        case LinkLink:
+            putPair(buffer, move.getOneLink());
+            putPair(buffer, move.getOtherLink());
+            break;
+
+        case AgentLink:
+            putPair(buffer, move.getAgent());
+            putPair(buffer, move.getLink());
+            break;
+
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Unpacks a move from the buffer
+     * @param  buffer buffer to read from
+     * @return        unpacked move
+     * @throws IllegalArgumentException if the type byte is unknown
+     */
+    public static Move get(final ByteBuffer buffer) {
+        int type = buffer.get();
+        if (type < 0 || type >= MoveType.values().length) throw new IllegalArgumentException("Unknown move type " + type);
+        switch (MoveType.values()[type]) {
+        case LinkLink:
+            return new Move(new SiteSet(getSite(buffer), getSite(buffer)), new SiteSet(getSite(buffer), getSite(buffer)));
+
+        case AgentLink:
+            return new Move(new SiteTuple(getSite(buffer), getSite(buffer)), new SiteSet(getSite(buffer), getSite(buffer)));
+
+        default:
+            // the types without sites, surrender and end
+            return new Move(MoveType.values()[type]);
+        }
+    }
+
+    /**
+     * Packs both sites of a pair
+     * @param buffer buffer to write to
+     * @param pair   pair to pack
+     */
+    static void putPair(final ByteBuffer buffer, final SitePair pair) {
+        putSite(buffer, pair.getFirst());
+        putSite(buffer, pair.getSecond());
+    }
+
+    /**
+     * Packs a site as column and row byte
+     * @param buffer buffer to write to
+     * @param site   site to pack
+     */
+    static void putSite(final ByteBuffer buffer, final Site site) {
+        buffer.put((byte) site.getColumn());
+        buffer.put((byte) site.getRow());
+    }
+
+    /**
+     * Unpacks a site
+     * @param  buffer buffer to read from
+     * @return        unpacked site
+     */
+    static Site getSite(final ByteBuffer buffer) {
+        int column = buffer.get() & 0xFF;
+        int row    = buffer.get() & 0xFF;
+        return new Site(column, row);
+    }
+}
@@ -0,0 +1,211 @@
+package nowhere2gopp.gamelogic.net;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import nowhere2gopp.gamelogic.jfr.RemoteCallEvent;
+import nowhere2gopp.gamelogic.player.TimedPlayer;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.Player;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Status;
+
+/**
+ * Offers a local player on a port with the binary {@link nowhere2gopp.gamelogic.net.Protocol Protocol}, the socket counterpart of
+ * binding a {@link nowhere2gopp.gamelogic.player.NetworkPlayer NetworkPlayer} in the RMI registry. A host connects with a
+ * {@link nowhere2gopp.gamelogic.net.SocketPlayer SocketPlayer} and the given name. One host is served at a time,
+ * every frame is answered in the order it arrived.
+ */
+public class PlayerServer implements Closeable, Runnable {
+    /**
+     * Served player
+     */
+    private final Player player;
+
+    /**
+     * Name the player is offered with
+     */
+    private final String name;
+
+    /**
+     * Listening channel
+     */
+    private final ServerSocketChannel server;
+
+    /**
+     * Binds the port for the player
+     * @param  player      player to offer
+     * @param  name        name the host has to ask for
+     * @param  address     address to listen on, port 0 picks a free port
+     * @throws IOException if the port can not be bound
+     */
+    public PlayerServer(final Player player, final String name, final InetSocketAddress address) throws IOException {
+        this.player = player;
+        this.name   = name;
+        server      = ServerSocketChannel.open();
+        server.bind(address);
+    }
+
+    /**
+     * Returns the port the player is offered on
+     * @return             bound port
+     * @throws IOException if the channel is closed
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Serves hosts on a thread of its own. The thread is not a daemon, it keeps the program alive like an exported RMI object.
+     * @return started thread
+     */
+    public Thread start() {
+        Thread thread = new Thread(this, "player-server-" + name);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Accepts and serves hosts one after another until the server is closed
+     */
+    @Override
+    public void run() {
+        while (server.isOpen()) {
+            try (SocketChannel channel = server.accept()) {
+                serve(channel);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Connection to host lost: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Answers the frames of one host until it closes the connection
+     * @param  channel     connection to the host
+     * @throws IOException if the connection breaks
+     */
+    public void serve(final SocketChannel channel) throws IOException {
+        serve(player, name, channel);
+    }
+
+    /**
+     * Answers the frames of a host with the given player until the host closes the connection or sends the player elsewhere.
+     * Used for players that are offered on a port as well as for players that joined a game server.
+     * @param  player      served player
+     * @param  name        name the host has to ask for in a HELLO frame
+     * @param  channel     connection to the host
+     * @return             server the host sent the player to, null if the host closed the connection
+     * @throws IOException if the connection breaks or the host rejects the player
+     */
+    public static Redirect serve(final Player player, final String name, final SocketChannel channel) throws IOException {
+        FrameChannel frames = new FrameChannel(channel);
+        while (true) {
+            byte op;
+            try {
+                op = frames.receive();
+            } catch (EOFException e) {
+                return null; // host is done
+            }
+            if (op == Protocol.REDIRECT) return Redirect.get(frames.payload());
+            if (op == Protocol.ERROR) throw new IOException(Protocol.getString(frames.payload()));
+            RemoteCallEvent event = new RemoteCallEvent();
+            event.begin();
+            ByteBuffer in = frames.payload();
+            int size = in.remaining();
+            try {
+                answer(player, name, op, in, frames);
+            } catch (Exception e) {
+                Protocol.putString(frames.begin(Protocol.ERROR), e.toString());
+            }
+            frames.send();
+            if (event.shouldCommit()) {
+                event.method      = methodName(op);
+                event.payloadSize = size;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Makes the call of a frame and prepares the reply
+     * @param  player    served player
+     * @param  name      name of the player
+     * @param  op        op code of the frame
+     * @param  in        payload of the frame
+     * @param  frames    channel the reply is prepared in
+     * @throws Exception of the called player
+     */
+    private static void answer(final Player player, final String name, final byte op, final ByteBuffer in, final FrameChannel frames) throws Exception {
+        switch (op) {
+        case Protocol.HELLO:
+            String asked = Protocol.getString(in);
+            if (!name.equals(asked)) throw new IllegalArgumentException("Player " + asked + " not found");
+            frames.begin(Protocol.OK);
+            break;
+
+        case Protocol.INIT:
+            int size = in.get();
+            player.init(size, PlayerColor.values()[in.get()]);
+            frames.begin(Protocol.OK);
+            break;
+
+        case Protocol.BUDGET:
+            long millis = in.getLong();
+            if (player instanceof TimedPlayer) ((TimedPlayer) player).setMoveBudget(millis);
+            frames.begin(Protocol.OK);
+            break;
+
+        case Protocol.REQUEST:
+            Move move = player.request();
+            MoveCodec.put(frames.begin(Protocol.MOVE), move);
+            break;
+
+        case Protocol.CONFIRM:
+            player.confirm(Status.values()[in.get()]);
+            frames.begin(Protocol.OK);
+            break;
+
+        case Protocol.UPDATE:
+            Move opponentMove = MoveCodec.get(in);
+            player.update(opponentMove, Status.values()[in.get()]);
+            frames.begin(Protocol.OK);
+            break;
+
+        default:
+            throw new IllegalArgumentException("Unknown op code " + op);
+        }
+    }
+
+    /**
+     * Returns the name of the called method for the flight recorder
+     * @param  op op code of the frame
+     * @return    method name
+     */
+    private static String methodName(final byte op) {
+        switch (op) {
+        case Protocol.HELLO:   return "hello";
+        case Protocol.INIT:    return "init";
+        case Protocol.BUDGET:  return "setMoveBudget";
+        case Protocol.REQUEST: return "request";
+        case Protocol.CONFIRM: return "confirm";
+        case Protocol.UPDATE:  return "update";
+        default:               return "unknown";
+        }
+    }
+
+    /**
+     * Stops accepting hosts
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+}
@@ -0,0 +1,189 @@
+package nowhere2gopp.gamelogic.net;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constants of the binary player protocol. Every message is one frame: a 4 byte length, one byte op code and the payload.
+ * The length counts the op code and the payload. The host sends the calls of the {@link nowhere2gopp.preset.Player Player}
+ * interface, the player answers every call with exactly one reply frame, in the order of the calls. So the host can send
+ * several calls without waiting for their replies and read the replies later.
+ * <pre>
+ * HELLO   name                 -&gt; OK | ERROR
+ * INIT    size(1) color(1)     -&gt; OK | ERROR
+ * BUDGET  millis(8)            -&gt; OK | ERROR
+ * REQUEST                      -&gt; MOVE move | ERROR
+ * CONFIRM status(1)            -&gt; OK | ERROR
+ * UPDATE  move status(1)       -&gt; OK | ERROR
+ * </pre>
+ * A player that joins a {@link nowhere2gopp.gamelogic.server.GameServer GameServer} opens the connection itself and sends
+ * JOIN size(1) name first, without reply. From then on the server is the host and sends the calls above.
+ * Instead of a call the host may send REDIRECT host port(4) token(8) color(1), without reply, and close the connection:
+ * the player connects to the given address and joins again, or with a token sends RESUME token(8) color(1) name
+ * to continue a game that was migrated there.
+ * <p>
+ * The game servers of a shard keep a connection to the {@link nowhere2gopp.gamelogic.server.Coordinator Coordinator}:
+ * <pre>
+ * REGISTER port(4)                          server -&gt; coordinator, first frame
+ * LOAD     running(4) queued(4) cpu(2)      server -&gt; coordinator, no reply
+ * MIGRATE  snapshot                         server -&gt; coordinator, -&gt; REDIRECT | ERROR
+ * DRAIN                                     server -&gt; coordinator, no reply
+ * ADOPT    snapshot                         coordinator -&gt; server, -&gt; OK | ERROR
+ * SHED     count(4)                         coordinator -&gt; server, no reply
+ * </pre>
+ * A snapshot is a {@link nowhere2gopp.gamelogic.net.GameSnapshot GameSnapshot}.
+ * <p>
+ * A spectator opens the connection to a game server with WATCH match(4) policy(1), without reply. The server then sends
+ * BOARD frames with a snapshot of the board and DELTA frames with the moves, packed by the
+ * {@link nowhere2gopp.gamelogic.net.SpectatorCodec SpectatorCodec}, and closes the connection when the match is over.
+ * Moves are packed by the {@link nowhere2gopp.gamelogic.net.MoveCodec MoveCodec}, Strings as 2 byte length and UTF-8 bytes.
+ */
+public final class Protocol {
+    /**
+     * Opens a session with the player of the given name
+     */
+    public static final byte HELLO = 1;
+
+    /**
+     * {@link nowhere2gopp.preset.Player#init(int, nowhere2gopp.preset.PlayerColor) init}
+     */
+    public static final byte INIT = 2;
+
+    /**
+     * {@link nowhere2gopp.gamelogic.player.TimedPlayer#setMoveBudget(long) setMoveBudget}
+     */
+    public static final byte BUDGET = 3;
+
+    /**
+     * {@link nowhere2gopp.preset.Player#request() request}
+     */
+    public static final byte REQUEST = 4;
+
+    /**
+     * {@link nowhere2gopp.preset.Player#confirm(nowhere2gopp.preset.Status) confirm}
+     */
+    public static final byte CONFIRM = 5;
+
+    /**
+     * {@link nowhere2gopp.preset.Player#update(nowhere2gopp.preset.Move, nowhere2gopp.preset.Status) update}
+     */
+    public static final byte UPDATE = 6;
+
+    /**
+     * Asks a game server for a game, sent by the player
+     */
+    public static final byte JOIN = 7;
+
+    /**
+     * Sends a player to another server, without reply
+     */
+    public static final byte REDIRECT = 8;
+
+    /**
+     * Continues a migrated game, sent by the player instead of {@link #JOIN JOIN}
+     */
+    public static final byte RESUME = 9;
+
+    /**
+     * Asks a game server for the moves of a match, sent by a spectator
+     */
+    public static final byte WATCH = 10;
+
+    /**
+     * Adds a game server to the shards of a coordinator
+     */
+    public static final byte REGISTER = 20;
+
+    /**
+     * Load report of a game server
+     */
+    public static final byte LOAD = 21;
+
+    /**
+     * Asks the coordinator for another server that takes over a game
+     */
+    public static final byte MIGRATE = 22;
+
+    /**
+     * Hands a migrated game to a game server
+     */
+    public static final byte ADOPT = 23;
+
+    /**
+     * Asks a game server to migrate some of its games
+     */
+    public static final byte SHED = 24;
+
+    /**
+     * A game server takes no new games and migrates its running ones
+     */
+    public static final byte DRAIN = 25;
+
+    /**
+     * Snapshot of the board of a watched match
+     */
+    public static final byte BOARD = 30;
+
+    /**
+     * Move of a watched match
+     */
+    public static final byte DELTA = 31;
+
+    /**
+     * Reply to a call without result
+     */
+    public static final byte OK = 16;
+
+    /**
+     * Reply to {@link #REQUEST REQUEST}
+     */
+    public static final byte MOVE = 17;
+
+    /**
+     * Reply to a call that threw an exception, with its message
+     */
+    public static final byte ERROR = 18;
+
+    /**
+     * Largest frame, including length and op code
+     */
+    public static final int MAX_FRAME = 256 * 1024;
+
+    /**
+     * Initial size of the frame buffers, enough for every frame but snapshots
+     */
+    static final int BUFFER_SIZE = 1024;
+
+    /**
+     * Largest number of characters of a String in a frame, longer Strings are cut
+     */
+    static final int MAX_STRING = 300;
+
+    /**
+     * Utility class, no instances
+     */
+    private Protocol() {}
+
+    /**
+     * Writes a String as 2 byte length and UTF-8 bytes
+     * @param buffer buffer to write to
+     * @param string String to write, cut to {@link #MAX_STRING MAX_STRING} characters
+     */
+    public static void putString(final ByteBuffer buffer, final String string) {
+        String cut   = string.length() > MAX_STRING ? string.substring(0, MAX_STRING) : string;
+        byte[] bytes = cut.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Reads a String written by {@link #putString(ByteBuffer, String) putString}
+     * @param  buffer buffer to read from
+     * @return        the String
+     */
+    public static String getString(final ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
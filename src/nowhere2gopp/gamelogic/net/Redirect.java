@@ -0,0 +1,81 @@
+package nowhere2gopp.gamelogic.net;
+
+import java.nio.ByteBuffer;
+
+import nowhere2gopp.preset.PlayerColor;
+
+/**
+ * Payload of a {@link nowhere2gopp.gamelogic.net.Protocol#REDIRECT REDIRECT} frame: the server a player has to connect to,
+ * and the game it continues there.
+ */
+public final class Redirect {
+    /**
+     * Host of the server
+     */
+    public final String host;
+
+    /**
+     * Port of the server
+     */
+    public final int port;
+
+    /**
+     * Token of the migrated game, 0 if the player joins the lobby of the server
+     */
+    public final long token;
+
+    /**
+     * Color of the player in the migrated game, null if the player joins the lobby
+     */
+    public final PlayerColor color;
+
+    /**
+     * Constructor of a redirect
+     * @param host  host of the server
+     * @param port  port of the server
+     * @param token token of the migrated game, 0 to join the lobby
+     * @param color color of the player in the migrated game, null to join the lobby
+     */
+    public Redirect(final String host, final int port, final long token, final PlayerColor color) {
+        this.host  = host;
+        this.port  = port;
+        this.token = token;
+        this.color = color;
+    }
+
+    /**
+     * Returns the same redirect for the player of the given color
+     * @param  color color of the player
+     * @return       redirect to the same server and game
+     */
+    public Redirect of(final PlayerColor color) {
+        return new Redirect(host, port, token, color);
+    }
+
+    /**
+     * Writes the redirect into a frame
+     * @param buffer buffer of the frame
+     */
+    public void put(final ByteBuffer buffer) {
+        Protocol.putString(buffer, host);
+        buffer.putInt(port).putLong(token).put((byte) (color == null ? -1 : color.ordinal()));
+    }
+
+    /**
+     * Reads a redirect written by {@link #put(ByteBuffer) put}
+     * @param  buffer payload of the frame
+     * @return        the redirect
+     */
+    public static Redirect get(final ByteBuffer buffer) {
+        String host  = Protocol.getString(buffer);
+        int    port  = buffer.getInt();
+        long   token = buffer.getLong();
+        byte   color = buffer.get();
+        return new Redirect(host, port, token, color < 0 ? null : PlayerColor.values()[color]);
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
@@ -0,0 +1,300 @@
+package nowhere2gopp.gamelogic.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+
+import nowhere2gopp.gamelogic.player.TimedPlayer;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Status;
+
+/**
+ * A remote player that is reached over a persistent socket connection with the binary {@link nowhere2gopp.gamelogic.net.Protocol Protocol},
+ * the counterpart of a {@link nowhere2gopp.gamelogic.net.PlayerServer PlayerServer}. It can be used instead of the RMI stub of a
+ * {@link nowhere2gopp.gamelogic.player.NetworkPlayer NetworkPlayer}.
+ * The calls without result are pipelined: {@link #confirm(Status) confirm}, {@link #update(Move, Status) update},
+ * {@link #init(int, PlayerColor) init} and {@link #setMoveBudget(long) setMoveBudget} only send their frame and return.
+ * Their replies are read before the reply of the next {@link #request() request}, so an update and the following request
+ * cost a single round trip. An exception of a pipelined call is thrown by the next call that waits for replies.
+ */
+public class SocketPlayer implements TimedPlayer, Closeable {
+    /**
+     * Connection to the player
+     */
+    private final FrameChannel channel;
+
+    /**
+     * Calls whose reply was not read yet
+     */
+    private int pendingReplies;
+
+    /**
+     * Name the player joined a game server with, null if the host connected to the player
+     */
+    private String name;
+
+    /**
+     * Board size the player asked for when it joined a game server
+     */
+    private int joinedSize;
+
+    /**
+     * Token of the migrated game the player continues, 0 if it joined the lobby
+     */
+    private long resumeToken;
+
+    /**
+     * Color of the player in the migrated game it continues, null if it joined the lobby
+     */
+    private PlayerColor resumeColor;
+
+    /**
+     * Wraps the connection of a player that joined a game server, see {@link #accept(FrameChannel, byte) accept}
+     * @param channel connection of the player
+     */
+    private SocketPlayer(final FrameChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a session on a connected channel
+     * @param  channel     connected channel
+     * @param  name        name the player was offered with
+     * @throws IOException if the connection fails or the player does not know the name
+     */
+    public SocketPlayer(final SocketChannel channel, final String name) throws IOException {
+        this.channel = new FrameChannel(channel);
+        Protocol.putString(this.channel.begin(Protocol.HELLO), name);
+        send();
+        sync();
+    }
+
+    /**
+     * Connects to a player offered by a {@link nowhere2gopp.gamelogic.net.PlayerServer PlayerServer}
+     * @param  host        host of the player
+     * @param  port        port of the player
+     * @param  name        name the player was offered with
+     * @return             connected player
+     * @throws IOException if the connection fails or the player does not know the name
+     */
+    public static SocketPlayer connect(final String host, final int port, final String name) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        try {
+            return new SocketPlayer(channel, name);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the JOIN or RESUME frame of a player that connected to a game server, see {@link nowhere2gopp.gamelogic.net.GameClient GameClient}
+     * @param  channel     accepted connection
+     * @return             player that can be asked for moves, with the name and board size it asked for or the game it continues
+     * @throws IOException if the first frame is neither a JOIN nor a RESUME frame
+     */
+    public static SocketPlayer accept(final SocketChannel channel) throws IOException {
+        FrameChannel frames = new FrameChannel(channel);
+        return accept(frames, frames.receive());
+    }
+
+    /**
+     * Reads the payload of the JOIN or RESUME frame a game server received as first frame of a connection
+     * @param  frames      accepted connection
+     * @param  op          op code of the first frame
+     * @return             player that can be asked for moves, with the name and board size it asked for or the game it continues
+     * @throws IOException if the first frame is neither a JOIN nor a RESUME frame
+     */
+    public static SocketPlayer accept(final FrameChannel frames, final byte op) throws IOException {
+        SocketPlayer player = new SocketPlayer(frames);
+        ByteBuffer in = frames.payload();
+        if (op == Protocol.JOIN) {
+            player.joinedSize = in.get();
+        } else if (op == Protocol.RESUME) {
+            player.resumeToken = in.getLong();
+            player.resumeColor = PlayerColor.values()[in.get()];
+        } else {
+            throw new IOException("Expected a JOIN or RESUME frame");
+        }
+        player.name = Protocol.getString(in);
+        return player;
+    }
+
+    /**
+     * Returns the name the player joined a game server with
+     * @return name, null if the host connected to the player
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the board size the player asked for when it joined a game server
+     * @return board size, 0 if the host connected to the player
+     */
+    public int getJoinedSize() {
+        return joinedSize;
+    }
+
+    /**
+     * Returns the token of the migrated game the player continues
+     * @return token, 0 if the player joined the lobby
+     */
+    public long getResumeToken() {
+        return resumeToken;
+    }
+
+    /**
+     * Returns the color of the player in the migrated game it continues
+     * @return color, null if the player joined the lobby
+     */
+    public PlayerColor getResumeColor() {
+        return resumeColor;
+    }
+
+    /**
+     * Sends the player to another server and closes the connection. The replies of the pipelined calls are read first,
+     * so the player has processed every move before it leaves.
+     * @param  target      server the player connects to
+     * @throws IOException if the connection is broken or a pipelined call failed
+     */
+    public synchronized void redirect(final Redirect target) throws IOException {
+        try {
+            sync();
+            target.put(channel.begin(Protocol.REDIRECT));
+            channel.send(); // no reply
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Requests a move, reads the replies of the pipelined calls first
+     */
+    @Override
+    public synchronized Move request() throws Exception, RemoteException {
+        channel.begin(Protocol.REQUEST);
+        send();
+        // the reply of the request is read last, its payload is still in the buffer
+        if (sync() != Protocol.MOVE) throw new IOException("Request was not answered with a move");
+        return MoveCodec.get(channel.payload());
+    }
+
+    /**
+     * Sends the confirm without waiting for the reply
+     */
+    @Override
+    public synchronized void confirm(final Status status) throws Exception, RemoteException {
+        channel.begin(Protocol.CONFIRM).put((byte) status.ordinal());
+        send();
+    }
+
+    /**
+     * Sends the update without waiting for the reply
+     */
+    @Override
+    public synchronized void update(final Move opponentMove, final Status status) throws Exception, RemoteException {
+        ByteBuffer frame = channel.begin(Protocol.UPDATE);
+        MoveCodec.put(frame, opponentMove);
+        frame.put((byte) status.ordinal());
+        send();
+    }
+
+    /**
+     * Sends the initialization without waiting for the reply
+     */
+    @Override
+    public synchronized void init(final int boardSize, final PlayerColor color) throws Exception, RemoteException {
+        channel.begin(Protocol.INIT).put((byte) boardSize).put((byte) color.ordinal());
+        send();
+    }
+
+    /**
+     * Sends the budget of the next move without waiting for the reply
+     */
+    @Override
+    public synchronized void setMoveBudget(final long millis) throws Exception, RemoteException {
+        channel.begin(Protocol.BUDGET).putLong(millis);
+        send();
+    }
+
+    /**
+     * Waits for the replies of all pipelined calls
+     * @return                 op code of the last reply, 0 if no reply was outstanding
+     * @throws RemoteException if one of them failed
+     * @throws IOException     if the connection is broken
+     */
+    public synchronized byte sync() throws IOException {
+        RemoteException failure = null;
+        byte op = 0;
+        while (pendingReplies > 0) {
+            op = channel.receive();
+            pendingReplies--;
+            if (op == Protocol.ERROR && failure == null) {
+                failure = new RemoteException(Protocol.getString(channel.payload()));
+            } else if (op != Protocol.OK && op != Protocol.MOVE && op != Protocol.ERROR) {
+                throw new IOException("Unexpected reply " + op);
+            }
+        }
+        if (failure != null) throw failure;
+        return op;
+    }
+
+    /**
+     * Returns the bytes sent to the player
+     * @return bytes including the frame headers
+     */
+    public long getBytesSent() {
+        return channel.getBytesSent();
+    }
+
+    /**
+     * Returns the bytes received from the player
+     * @return bytes including the frame headers
+     */
+    public long getBytesReceived() {
+        return channel.getBytesReceived();
+    }
+
+    /**
+     * Sends the frame and counts the reply that is expected
+     * @throws IOException if the connection is broken
+     */
+    private void send() throws IOException {
+        channel.send();
+        pendingReplies++;
+    }
+
+    /**
+     * Checks without waiting if the player closed its connection, for a player that waits for a match and gets no calls
+     * @return true if the connection is closed or broken
+     */
+    public synchronized boolean isClosed() {
+        return channel.isClosed();
+    }
+
+    /**
+     * Closes the connection at once, without waiting for outstanding replies. Not synchronized, so it also ends
+     * a {@link #request() request} that is blocked in another thread, e.g. of a player that ran out of time.
+     * @throws IOException if closing fails
+     */
+    public void abort() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the outstanding replies and closes the connection
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package nowhere2gopp.gamelogic.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import nowhere2gopp.gamelogic.spectator.OverflowPolicy;
+import nowhere2gopp.gamelogic.spectator.SpectatorEvent;
+import nowhere2gopp.preset.ArgumentParser;
+import nowhere2gopp.preset.ArgumentParserException;
+
+/**
+ * Watches a match of a {@link nowhere2gopp.gamelogic.server.GameServer GameServer}. The spectator sends a WATCH frame and
+ * receives a snapshot of the board and then a delta per move, see {@link nowhere2gopp.gamelogic.spectator.SpectatorFeed SpectatorFeed}.
+ */
+public final class Spectator {
+    /**
+     * Utility class, no instances
+     */
+    private Spectator() {}
+
+    /**
+     * Watches a match until it is over
+     * @param  host        host of the server
+     * @param  port        port of the server
+     * @param  match       number of the match, 0 for any running match
+     * @param  policy      what the server does when the spectator reads too slowly
+     * @param  listener    called with every snapshot and delta
+     * @return             bytes received
+     * @throws IOException if the connection fails
+     */
+    public static long watch(final String host, final int port, final int match, final OverflowPolicy policy,
+                             final Consumer<SpectatorEvent> listener) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port))) {
+            FrameChannel frames = new FrameChannel(channel);
+            frames.begin(Protocol.WATCH).putInt(match).put((byte) policy.ordinal());
+            frames.send();
+            while (true) {
+                byte op;
+                try {
+                    op = frames.receive();
+                } catch (EOFException e) {
+                    return frames.getBytesReceived(); // match is over
+                }
+                if (op == Protocol.BOARD) listener.accept(SpectatorCodec.getSnapshot(frames.payload()));
+                else if (op == Protocol.DELTA) listener.accept(SpectatorCodec.getDelta(frames.payload()));
+                else throw new IOException("Unexpected op code " + op);
+            }
+        }
+    }
+
+    /**
+     * Watches a match from the commandline and prints its events. "-server" and "-port" give the address of the server
+     * (default 127.0.0.1:7777), "-match" the number of the match (default: any running match), "--drop" skips missed moves
+     * instead of sending a fresh snapshot. "-viewers n" opens n connections and only prints what they received, as a load test.
+     * @param args commandline arguments
+     */
+    public static void main(final String[] args) {
+        try {
+            ArgumentParser parser  = new ArgumentParser(args);
+            String         host    = parser.isSet("server") ? parser.getServer() : "127.0.0.1";
+            int            port    = parser.isSet("port") ? parser.getPort() : 7777;
+            int            match   = parser.isSet("match") ? parser.getMatch() : 0;
+            int            viewers = parser.isSet("viewers") ? parser.getViewers() : 1;
+            OverflowPolicy policy  = parser.isDrop() ? OverflowPolicy.DROP : OverflowPolicy.SNAPSHOT;
+
+            if (viewers == 1) {
+                long bytes = watch(host, port, match, policy, System.out::println);
+                System.out.println("Match over, " + bytes + " bytes received");
+                return;
+            }
+
+            AtomicLong events = new AtomicLong();
+            AtomicLong bytes  = new AtomicLong();
+            AtomicLong failed = new AtomicLong();
+            List<Thread> threads = new ArrayList<>(viewers);
+            long start = System.nanoTime();
+            for (int i = 0; i < viewers; i++) {
+                Thread viewer = new Thread(null, () -> {
+                    try {
+                        bytes.addAndGet(watch(host, port, match, policy, event -> events.incrementAndGet()));
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                    }
+                }, "viewer-" + i, 256 * 1024);
+                viewer.start();
+                threads.add(viewer);
+            }
+            for (Thread viewer : threads) {
+                viewer.join();
+            }
+            long millis = (System.nanoTime() - start) / 1000000L;
+            System.out.println(viewers + " viewers received " + events.get() + " events, " + bytes.get() / Math.max(1, viewers)
+                               + " bytes per viewer in " + millis + "ms, " + failed.get() + " failed");
+        } catch (ArgumentParserException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package nowhere2gopp.gamelogic.net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import nowhere2gopp.gamelogic.GamePhase;
+import nowhere2gopp.gamelogic.spectator.BoardDelta;
+import nowhere2gopp.gamelogic.spectator.BoardSnapshot;
+import nowhere2gopp.preset.MoveType;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Site;
+import nowhere2gopp.preset.SiteSet;
+import nowhere2gopp.preset.Status;
+
+/**
+ * This class packs the events of a {@link nowhere2gopp.gamelogic.spectator.SpectatorFeed SpectatorFeed} for the BOARD and DELTA
+ * frames of the {@link nowhere2gopp.gamelogic.net.Protocol Protocol}. Sites are packed like in the
+ * {@link nowhere2gopp.gamelogic.net.MoveCodec MoveCodec}, a missing agent as 0xFF 0xFF, so a delta takes at most 24 bytes.
+ * <pre>
+ * delta    sequence(4) mover(1) type(1) count(1) links(4 each) from(2) to(2) status(1) phase(1) turn(1) rounds(2)
+ * snapshot sequence(4) size(1) red(2) blue(2) status(1) phase(1) turn(1) rounds(2) count(2) links(4 each)
+ * </pre>
+ */
+public final class SpectatorCodec {
+    /**
+     * Largest number of bytes of a packed delta
+     */
+    public static final int MAX_DELTA_SIZE = 24;
+
+    /**
+     * Utility class, no instances
+     */
+    private SpectatorCodec() {}
+
+    /**
+     * Packs a delta into the buffer
+     * @param buffer buffer to write to
+     * @param delta  delta to pack
+     */
+    public static void put(final ByteBuffer buffer, final BoardDelta delta) {
+        SiteSet[] removed = delta.getRemovedLinks();
+        buffer.putInt((int) delta.getSequence());
+        buffer.put((byte) delta.getMover().ordinal()).put((byte) delta.getType().ordinal()).put((byte) removed.length);
+        for (SiteSet link : removed) {
+            MoveCodec.putPair(buffer, link);
+        }
+        putAgent(buffer, delta.getAgentFrom());
+        putAgent(buffer, delta.getAgentTo());
+        buffer.put((byte) delta.getStatus().ordinal()).put((byte) delta.getPhase().ordinal()).put((byte) delta.getTurn().ordinal());
+        buffer.putShort((short) delta.getRounds());
+    }
+
+    /**
+     * Unpacks a delta
+     * @param  buffer buffer to read from
+     * @return        unpacked delta
+     */
+    public static BoardDelta getDelta(final ByteBuffer buffer) {
+        long        sequence = buffer.getInt() & 0xFFFFFFFFL;
+        PlayerColor mover    = PlayerColor.values()[buffer.get()];
+        MoveType    type     = MoveType.values()[buffer.get()];
+        SiteSet[]   removed  = new SiteSet[buffer.get()];
+        for (int i = 0; i < removed.length; i++) {
+            removed[i] = new SiteSet(MoveCodec.getSite(buffer), MoveCodec.getSite(buffer));
+        }
+        Site from = getAgent(buffer);
+        Site to   = getAgent(buffer);
+        return new BoardDelta(sequence, mover, type, removed, from, to, Status.values()[buffer.get()], GamePhase.values()[buffer.get()],
+                              PlayerColor.values()[buffer.get()], buffer.getShort());
+    }
+
+    /**
+     * Returns the number of bytes of a packed snapshot
+     * @param  snapshot snapshot to pack
+     * @return          bytes {@link #put(ByteBuffer, BoardSnapshot) put} writes
+     */
+    public static int size(final BoardSnapshot snapshot) {
+        return 16 + 4 * snapshot.getLinks().size();
+    }
+
+    /**
+     * Packs a snapshot into the buffer
+     * @param buffer   buffer to write to, with room for {@link #size(BoardSnapshot) size} bytes
+     * @param snapshot snapshot to pack
+     */
+    public static void put(final ByteBuffer buffer, final BoardSnapshot snapshot) {
+        buffer.putInt((int) snapshot.getSequence()).put((byte) snapshot.getSize());
+        putAgent(buffer, snapshot.getAgent(PlayerColor.Red));
+        putAgent(buffer, snapshot.getAgent(PlayerColor.Blue));
+        buffer.put((byte) snapshot.getStatus().ordinal()).put((byte) snapshot.getPhase().ordinal()).put((byte) snapshot.getTurn().ordinal());
+        buffer.putShort((short) snapshot.getRounds()).putShort((short) snapshot.getLinks().size());
+        for (SiteSet link : snapshot.getLinks()) {
+            MoveCodec.putPair(buffer, link);
+        }
+    }
+
+    /**
+     * Unpacks a snapshot
+     * @param  buffer buffer to read from
+     * @return        unpacked snapshot
+     */
+    public static BoardSnapshot getSnapshot(final ByteBuffer buffer) {
+        long        sequence = buffer.getInt() & 0xFFFFFFFFL;
+        int         size     = buffer.get();
+        Site        red      = getAgent(buffer);
+        Site        blue     = getAgent(buffer);
+        Status      status   = Status.values()[buffer.get()];
+        GamePhase   phase    = GamePhase.values()[buffer.get()];
+        PlayerColor turn     = PlayerColor.values()[buffer.get()];
+        int         rounds   = buffer.getShort();
+        int         count    = buffer.getShort() & 0xFFFF;
+        List<SiteSet> links  = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            links.add(new SiteSet(MoveCodec.getSite(buffer), MoveCodec.getSite(buffer)));
+        }
+        return new BoardSnapshot(sequence, size, links, red, blue, status, phase, turn, rounds);
+    }
+
+    /**
+     * Packs the site of an agent
+     * @param buffer buffer to write to
+     * @param site   site of the agent, null if it is not placed
+     */
+    private static void putAgent(final ByteBuffer buffer, final Site site) {
+        if (site == null) buffer.put((byte) 0xFF).put((byte) 0xFF);
+        else MoveCodec.putSite(buffer, site);
+    }
+
+    /**
+     * Unpacks the site of an agent
+     * @param  buffer buffer to read from
+     * @return        site of the agent, null if it is not placed
+     */
+    private static Site getAgent(final ByteBuffer buffer) {
+        if (buffer.get(buffer.position()) == (byte) 0xFF) {
+            buffer.position(buffer.position() + 2);
+            return null;
+        }
+        return MoveCodec.getSite(buffer);
+    }
+}
@@ -8,15 +8,17 @@ package nowhere2gopp.gamelogic.player;
 import java.rmi.RemoteException;
 
 import nowhere2gopp.gamelogic.GameBoard;
-import nowhere2gopp.gamelogic.gameIO.GameIO;
+import nowhere2gopp.gamelogic.Playout;
+import nowhere2gopp.gamelogic.gameIO.GameOutput;
 import nowhere2gopp.gamelogic.gameIO.BoardViewer;
+import nowhere2gopp.gamelogic.metrics.Histogram;
+import nowhere2gopp.gamelogic.metrics.Metrics;
 import nowhere2gopp.preset.Move;
 import nowhere2gopp.preset.MoveType;
-import nowhere2gopp.preset.Player;
 import nowhere2gopp.preset.PlayerColor;
 import nowhere2gopp.preset.Status;
 
-public abstract class AbstractPlayer implements Player {
+public abstract class AbstractPlayer implements TimedPlayer {
     /**
      * Color of this Player
      */
@@ -32,6 +34,16 @@ public abstract class AbstractPlayer implements Player {
      */
     private GameBoard board;
 
+    /**
+     * True if the {@link #board} is the board of the referee, see {@link #initShared(GameBoard, PlayerColor) initShared}
+     */
+    private boolean shared;
+
+    /**
+     * Draws the random moves of this player from the {@link #board}, created on the first {@link #randomMove() randomMove}
+     */
+    private Playout playout;
+
     /**
      * Viewer representing the {@link #board} of this player
      */
@@ -43,9 +55,49 @@ public abstract class AbstractPlayer implements Player {
     private NextPlayerMethod next;
 
     /**
-     * Contains our GUI representation of our game
+     * Contains our GUI representation of our game, null for headless players
+     */
+    protected GameOutput gui;
+
+    /**
+     * True if the {@link #gui} shows the {@link #board} of this Player, see {@link #showOwnBoard() showOwnBoard}
+     */
+    private boolean ownBoardGUI;
+
+    /**
+     * Budget in milliseconds for the next {@link #request} call
+     */
+    private volatile long moveBudget = TimeControl.UNLIMITED;
+
+    /**
+     * Point in time ({@link java.lang.System#nanoTime()}) at which the current {@link #request} has to return
+     */
+    private volatile long deadline = Long.MAX_VALUE;
+
+    /**
+     * Best move found so far by {@link #requestMove}, returned if the deadline is reached
+     */
+    private volatile Move bestSoFar;
+
+    /**
+     * Duration of {@link #request()} of this player type
+     */
+    private final Histogram requestTime = Metrics.histogram("player_request_seconds", "Duration of Player.request", "player", getClass().getSimpleName());
+
+    /**
+     * Duration of {@link #confirm(Status)} of this player type
+     */
+    private final Histogram confirmTime = Metrics.histogram("player_confirm_seconds", "Duration of Player.confirm", "player", getClass().getSimpleName());
+
+    /**
+     * Duration of {@link #update(Move, Status)} of this player type
      */
-    protected GameIO gui;
+    private final Histogram updateTime = Metrics.histogram("player_update_seconds", "Duration of Player.update", "player", getClass().getSimpleName());
+
+    /**
+     * Publishes the search telemetry of this player to its {@link nowhere2gopp.gamelogic.player.SearchListener SearchListeners}
+     */
+    private final SearchPublisher searchPublisher = new SearchPublisher();
 
     /**
      * Default constructor
@@ -63,36 +115,55 @@ public abstract class AbstractPlayer implements Player {
      */
     @Override
     public Move request() throws Exception, RemoteException {
-        if (next != NextPlayerMethod.Request) {
-            throw new WrongCallOrderException("Not your turn");
-        }
-        Move move = requestMove(); // passes to request method of player
-        next = NextPlayerMethod.Confirm;
-        board.make(move);
-        gui.update(move, playerColor);
+        long start = Metrics.start();
+        try {
+            if (next != NextPlayerMethod.Request) {
+                throw new WrongCallOrderException("Not your turn");
+            }
+            bestSoFar = null;
+            searchPublisher.reset();
+            deadline  = moveBudget == TimeControl.UNLIMITED ? Long.MAX_VALUE : System.nanoTime() + (moveBudget - reserve(moveBudget)) * 1000000L;
+            Move move = requestMove(); // passes to request method of player
+            if (move == null) move = bestSoFar; // search was cut off before it could decide
+            deadline  = Long.MAX_VALUE;
+            next = NextPlayerMethod.Confirm;
+            if (!shared) board.make(move);
+
+            if (gui == null) return move; // headless player, nothing to show
 
-        if (move.getType() != MoveType.Surrender) // Move doesnt have a toString for Surrender type moves and would throw a nullpointer exception
-                                                  // otherwise
-            System.out.println("Your turn: " + move);
-        else System.out.println("You gave up");
-        return move;
+            gui.update(move, playerColor);
+
+            if (move.getType() != MoveType.Surrender) // Move doesnt have a toString for Surrender type moves and would throw a nullpointer exception
+                                                      // otherwise
+                System.out.println("Your turn: " + move);
+            else System.out.println("You gave up");
+            return move;
+        } finally {
+            requestTime.recordSince(start);
+        }
     }
 
     /**
      * Confirms that the passed {@link nowhere2gopp.preset.Status}  corresponds with the current {@link nowhere2gopp.preset.Status}  of our {@link
-     **#board}
+     **#board}. A shared board is the board of the referee, it may already hold the reply of the opponent when the confirm
+     * arrives, so there is nothing to compare and the board is not read.
      * @param  status         {@link nowhere2gopp.preset.Status} to compare
      */
     @Override
     public void confirm(Status status) throws Exception, RemoteException {
-        if (next != NextPlayerMethod.Confirm) {
-            throw new WrongCallOrderException("confirm was called in the wrong order");
-        }
+        long start = Metrics.start();
+        try {
+            if (next != NextPlayerMethod.Confirm) {
+                throw new WrongCallOrderException("confirm was called in the wrong order");
+            }
 
-        if (status != board.getStatus()) {
-            throw new StatusMismatchException("Status of Playerboard and Mainboard don't match");
-        } else {
-            next = NextPlayerMethod.Update;
+            if (!shared && status != board.getStatus()) {
+                throw new StatusMismatchException("Status of Playerboard and Mainboard don't match");
+            } else {
+                next = NextPlayerMethod.Update;
+            }
+        } finally {
+            confirmTime.recordSince(start);
         }
     }
 
@@ -104,16 +175,21 @@ public abstract class AbstractPlayer implements Player {
      */
     @Override
     public void update(Move opponentMove, Status status) throws Exception, RemoteException {
-        if (next != NextPlayerMethod.Update) {
-            throw new WrongCallOrderException("update was called in the wrong order");
-        }
-        board.make(opponentMove);
-        gui.update(opponentMove, enemyColor);
+        long start = Metrics.start();
+        try {
+            if (next != NextPlayerMethod.Update) {
+                throw new WrongCallOrderException("update was called in the wrong order");
+            }
+            if (!shared) board.make(opponentMove);
+            if (gui != null) gui.update(opponentMove, enemyColor);
 
-        if (status != board.getStatus()) {
-            throw new StatusMismatchException("Status of Playerboard and Mainboard don't match");
-        } else {
-            next = NextPlayerMethod.Request;
+            if (status != board.getStatus()) {
+                throw new StatusMismatchException("Status of Playerboard and Mainboard don't match");
+            } else {
+                next = NextPlayerMethod.Request;
+            }
+        } finally {
+            updateTime.recordSince(start);
         }
     }
 
@@ -123,10 +199,33 @@ public abstract class AbstractPlayer implements Player {
      * @param  color           {@link nowhere2gopp.preset.PlayerColor} of this Player
      */
     public void init(int size, PlayerColor color) throws Exception, RemoteException {
+        init(new GameBoard(size), color, false);
+    }
+
+    /**
+     * Initialize our Player with the board of the referee instead of an own copy, for players in the same JVM as the referee.
+     * The player only reads the board, the referee makes all moves on it, so {@link #request() request} and
+     * {@link #update(Move, Status) update} do not make them again. A player that simulates moves has to copy the board first.
+     * @param  board           board of the referee, it must not change while the player is asked for a move
+     * @param  color           {@link nowhere2gopp.preset.PlayerColor} of this Player
+     */
+    public void initShared(GameBoard board, PlayerColor color) throws Exception {
+        init(board, color, true);
+    }
+
+    /**
+     * Sets up the {@link #board}, the {@link #viewer} and the colors of this Player
+     * @param  board           board of this Player
+     * @param  color           {@link nowhere2gopp.preset.PlayerColor} of this Player
+     * @param  shared          true if the board belongs to the referee
+     */
+    protected void init(GameBoard board, PlayerColor color, boolean shared) throws Exception {
         playerColor = color;
         enemyColor  = PlayerColor.Red == playerColor ? PlayerColor.Blue : PlayerColor.Red; // fuer update nuetzlich
-        this.board  = new GameBoard(size);
+        this.board  = board;
+        this.shared = shared;
         viewer      = (BoardViewer)board.viewer();
+        if (ownBoardGUI && gui != null) gui.setViewer(viewer);
 
         if (color == PlayerColor.Red) {
             next = NextPlayerMethod.Request;
@@ -135,22 +234,129 @@ public abstract class AbstractPlayer implements Player {
         }
     }
 
+    /**
+     * Sets the budget for the next {@link #request} call. Implementations of {@link #requestMove} should
+     * check {@link #isTimeUp()} and return their best move so far once it is reached.
+     * @param millis budget in milliseconds
+     */
+    @Override
+    public void setMoveBudget(long millis) throws Exception, RemoteException {
+        moveBudget = millis;
+    }
+
+    /**
+     * Returns the part of a budget the player keeps back to return its move and for the referee to take it, the referee counts
+     * a move that comes in after the budget as lost on time
+     * @param  millis budget in milliseconds
+     * @return        a fifth of the budget plus 5ms, at most the budget
+     */
+    private static long reserve(final long millis) {
+        return Math.min(millis, millis / 5 + 5);
+    }
+
+    /**
+     * Returns true if the budget of the current {@link #request} call is used up or the referee cancelled the request
+     * @return true if the deadline has passed or the thread was interrupted
+     */
+    protected boolean isTimeUp() {
+        return (System.nanoTime() - deadline >= 0) || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Returns the milliseconds that are left for the current {@link #request} call
+     * @return remaining milliseconds, {@link nowhere2gopp.gamelogic.player.TimeControl#UNLIMITED UNLIMITED} if there is no limit
+     */
+    protected long timeLeft() {
+        if (deadline == Long.MAX_VALUE) return TimeControl.UNLIMITED;
+        return Math.max(0, (deadline - System.nanoTime()) / 1000000L);
+    }
+
+    /**
+     * Stores the best move found so far. If {@link #requestMove} is cut off and returns null, this move is used instead.
+     * @param move best move found so far
+     */
+    protected void offerMove(Move move) {
+        bestSoFar = move;
+    }
+
+    /**
+     * Subscribes a listener to the search telemetry of this player. Players without a search never publish anything.
+     * @param listener listener to add
+     */
+    public void addSearchListener(SearchListener listener) {
+        searchPublisher.addListener(listener);
+    }
+
+    /**
+     * Unsubscribes a listener from the search telemetry of this player
+     * @param listener listener to remove
+     */
+    public void removeSearchListener(SearchListener listener) {
+        searchPublisher.removeListener(listener);
+    }
+
+    /**
+     * Returns true if {@link #requestMove} should publish a {@link nowhere2gopp.gamelogic.player.SearchInfo SearchInfo} now.
+     * This is cheap enough to be asked for every simulated move, the info should only be built if it returns true.
+     * @return true if somebody listens and the rate limit allows the next info
+     */
+    protected boolean isSearchInfoDue() {
+        return searchPublisher.isDue();
+    }
+
+    /**
+     * Publishes the state of the running search without waiting for the listeners
+     * @param info snapshot of the search
+     */
+    protected void publishSearchInfo(SearchInfo info) {
+        searchPublisher.publish(info);
+    }
+
+    /**
+     * Returns the milliseconds since the current {@link #request} call started
+     * @return elapsed milliseconds of the search
+     */
+    protected long searchMillis() {
+        return searchPublisher.elapsedMillis();
+    }
+
     /**
      * Sets the GUI to represent this Players game
      * @param gui GUI to represent the game
      */
-    public void setGUI(GameIO gui) {
+    public void setGUI(GameOutput gui) {
         this.gui = gui;
     }
 
     /**
-     * Returns our {@link #board}
+     * Lets the {@link #gui} show the {@link #board} of this Player, it gets the viewer of every new board of
+     * {@link #init(int, PlayerColor) init}. Used online, where no one else moves the board the GUI was built with,
+     * so the GUI would never get the events of the moves.
+     */
+    public void showOwnBoard() {
+        ownBoardGUI = true;
+        if (gui != null && viewer != null) gui.setViewer(viewer);
+    }
+
+    /**
+     * Returns our {@link #board}, which is the board of the referee if the player was {@link #initShared(GameBoard, PlayerColor) shared}
+     * and must then only be read
      * @return {@link #board}
      */
     protected GameBoard getGameBoard() {
         return board;
     }
 
+    /**
+     * Returns a uniformly random legal {@link nowhere2gopp.preset.Move} on our {@link #board}, drawn by a {@link nowhere2gopp.gamelogic.Playout Playout}
+     * without listing the possible moves. The surrender is only returned if there is no other move.
+     * @return random {@link nowhere2gopp.preset.Move}
+     */
+    protected Move randomMove() {
+        if (playout == null) playout = new Playout(board.getTopology());
+        return playout.randomMove(board, Playout.random());
+    }
+
     /**
      * Returns our {@link #playerColor}
      * @return {@link #playerColor}
@@ -0,0 +1,698 @@
+package nowhere2gopp.gamelogic.player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nowhere2gopp.gamelogic.GamePhase;
+import nowhere2gopp.gamelogic.gameIO.BoardViewer;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Site;
+import nowhere2gopp.preset.SiteSet;
+import nowhere2gopp.preset.SiteTuple;
+import nowhere2gopp.preset.Status;
+
+/**
+ * Rates the moves of the player whose turn it is on a background thread, for the analysis overlay of the GUI.
+ * {@link #analyse(BoardViewer) analyse} copies the position into a few arrays and returns at once; the search rates every move by
+ * the number of sites each agent can still reach, first alone and then against the best reply of the opponent, and publishes the
+ * best {@link #getLines() lines} as {@link nowhere2gopp.gamelogic.player.SearchInfo SearchInfos} through a
+ * {@link nowhere2gopp.gamelogic.player.SearchPublisher SearchPublisher}. {@link #cancel() cancel} stops it within one rated move.
+ * The search pauses regularly so that it uses at most the given share of one CPU. Like the {@link SimplePlayer SimplePlayer} it
+ * only rates GamePhase TWO and THREE.
+ */
+public final class AnalysisEngine implements AutoCloseable {
+    /**
+     * Default number of moves that are shown
+     */
+    public static final int DEFAULT_LINES = 3;
+
+    /**
+     * Rating of a won position, a lost one is rated -WIN
+     */
+    public static final int WIN = 10000;
+
+    /**
+     * Time the search works before it pauses to keep its CPU share
+     */
+    private static final long SLICE_NANOS = 10000000L;
+
+    /**
+     * Thread of the search, a daemon with low priority
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "analysis");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    /**
+     * Publishes the results to the listeners
+     */
+    private final SearchPublisher publisher = new SearchPublisher();
+
+    /**
+     * Number of the current analysis, incremented by every {@link #cancel() cancel}; a search stops as soon as it changes
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Share of one CPU the search may use, in percent
+     */
+    private final int cpuPercent;
+
+    /**
+     * Number of moves that are published
+     */
+    private final int lines;
+
+    /**
+     * The running search, null before the first one
+     */
+    private volatile Future<?> running;
+
+    /**
+     * Constructor of an engine that shows the {@link #DEFAULT_LINES default number} of moves
+     * @param cpuPercent share of one CPU the search may use, 1 to 100
+     */
+    public AnalysisEngine(final int cpuPercent) {
+        this(cpuPercent, DEFAULT_LINES);
+    }
+
+    /**
+     * Constructor of an engine
+     * @param cpuPercent share of one CPU the search may use, 1 to 100
+     * @param lines      number of moves that are published
+     */
+    public AnalysisEngine(final int cpuPercent, final int lines) {
+        if (cpuPercent < 1 || cpuPercent > 100) throw new IllegalArgumentException("CPU share must be 1 <= p <= 100 but it was " + cpuPercent);
+        if (lines < 1) throw new IllegalArgumentException("At least one line must be shown but it was " + lines);
+        this.cpuPercent = cpuPercent;
+        this.lines      = lines;
+    }
+
+    /**
+     * Starts the analysis of the current position and cancels the one before. The position is copied on the calling thread,
+     * so the board must not change during this call; afterwards it may.
+     * @param viewer viewer of the board to analyse
+     */
+    public void analyse(final BoardViewer viewer) {
+        cancel();
+        if (viewer.getPhase() == GamePhase.ONE || viewer.getStatus() != Status.Ok) return;
+        Position position = new Position(viewer);
+        long     id       = generation.get();
+        running = executor.submit(() -> new Search(position, id).run());
+    }
+
+    /**
+     * Stops the running analysis, it publishes nothing more. Does not wait for the search thread.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+        Future<?> task = running;
+        if (task != null) task.cancel(true); // wakes it up if it pauses
+    }
+
+    /**
+     * Subscribes a listener to the results
+     * @param listener listener to add
+     */
+    public void addSearchListener(final SearchListener listener) {
+        publisher.addListener(listener);
+    }
+
+    /**
+     * Unsubscribes a listener
+     * @param listener listener to remove
+     */
+    public void removeSearchListener(final SearchListener listener) {
+        publisher.removeListener(listener);
+    }
+
+    /**
+     * Returns the share of one CPU the search may use
+     * @return percent of one CPU
+     */
+    public int getCpuPercent() {
+        return cpuPercent;
+    }
+
+    /**
+     * Returns the number of moves that are published
+     * @return number of lines
+     */
+    public int getLines() {
+        return lines;
+    }
+
+    /**
+     * Stops the analysis and its thread
+     */
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Copy of a position in arrays, sites are numbered column * size + row. Only used by one search.
+     */
+    private static final class Position {
+        /**
+         * Size of the board
+         */
+        final int size;
+
+        /**
+         * Player whose turn it is, 0 for red and 1 for blue
+         */
+        final int turn;
+
+        /**
+         * Numbers of all sites of the board
+         */
+        final int[] sites;
+
+        /**
+         * The links, with their ends
+         */
+        final SiteSet[] links;
+
+        /**
+         * First end of every link
+         */
+        final int[] first;
+
+        /**
+         * Second end of every link
+         */
+        final int[] second;
+
+        /**
+         * False for the links the search removed
+         */
+        final boolean[] live;
+
+        /**
+         * Links of every site
+         */
+        final int[][] incident;
+
+        /**
+         * Site of the red and the blue agent, -1 if it is not placed
+         */
+        final int[] agent = new int[2];
+
+        /**
+         * Marks of the breadth first search, a site is visited if its mark is the current {@link #stamp stamp}
+         */
+        final int[] mark;
+
+        /**
+         * Current mark of the breadth first search
+         */
+        int stamp;
+
+        /**
+         * Queue of the breadth first search, holds the reached sites afterwards
+         */
+        final int[] queue;
+
+        /**
+         * Copies the position of the viewer
+         * @param viewer viewer of the board
+         */
+        Position(final BoardViewer viewer) {
+            size = viewer.getSize();
+            turn = viewer.getTurn() == PlayerColor.Red ? 0 : 1;
+            int k = size / 2;
+            int[] all   = new int[size * size];
+            int   count = 0;
+            for (int column = 0; column < size; column++) {
+                for (int row = 0; row < size; row++) {
+                    if (Math.abs(column - row) <= k) all[count++] = column * size + row;
+                }
+            }
+            sites = Arrays.copyOf(all, count);
+
+            Collection<SiteSet> intact = viewer.getLinks();
+            links  = intact.toArray(new SiteSet[intact.size()]);
+            first  = new int[links.length];
+            second = new int[links.length];
+            live   = new boolean[links.length];
+            int[] degree = new int[size * size];
+            for (int i = 0; i < links.length; i++) {
+                first[i]  = index(links[i].getFirst());
+                second[i] = index(links[i].getSecond());
+                live[i]   = true;
+                degree[first[i]]++;
+                degree[second[i]]++;
+            }
+            incident = new int[size * size][];
+            for (int site : sites) {
+                incident[site] = new int[degree[site]];
+                degree[site]   = 0;
+            }
+            for (int i = 0; i < links.length; i++) {
+                incident[first[i]][degree[first[i]]++]    = i;
+                incident[second[i]][degree[second[i]]++]  = i;
+            }
+            Site red  = viewer.getAgent(PlayerColor.Red);
+            Site blue = viewer.getAgent(PlayerColor.Blue);
+            agent[0] = red == null ? -1 : index(red);
+            agent[1] = blue == null ? -1 : index(blue);
+            mark  = new int[size * size];
+            queue = new int[size * size];
+        }
+
+        /**
+         * Returns the number of a site
+         * @param  site site of the board
+         * @return      column * size + row
+         */
+        int index(final Site site) {
+            return site.getColumn() * size + site.getRow();
+        }
+
+        /**
+         * Returns the site with the given number
+         * @param  index number of the site
+         * @return       site of the board
+         */
+        Site site(final int index) {
+            return new Site(index / size, index % size);
+        }
+
+        /**
+         * Returns true if no agent stands on the site
+         * @param  site number of the site
+         * @return      true if the site is white
+         */
+        boolean isWhite(final int site) {
+            return site != agent[0] && site != agent[1];
+        }
+
+        /**
+         * Returns the other end of a link
+         * @param  link number of the link
+         * @param  site one end
+         * @return      the other end
+         */
+        int other(final int link, final int site) {
+            return first[link] == site ? second[link] : first[link];
+        }
+
+        /**
+         * Finds the white sites that can be reached from the site, they are in {@link #queue queue} afterwards
+         * @param  from site to start from
+         * @return      number of reached sites, without the start
+         */
+        int reach(final int from) {
+            stamp++;
+            mark[from] = stamp;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = from;
+            while (head < tail) {
+                int current = queue[head++];
+                for (int link : incident[current]) {
+                    if (!live[link]) continue;
+                    int next = other(link, current);
+                    if (mark[next] != stamp && isWhite(next)) {
+                        mark[next] = stamp;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            // drop the start from the reached sites
+            System.arraycopy(queue, 1, queue, 0, tail - 1);
+            return tail - 1;
+        }
+
+        /**
+         * Returns a white neighbour of the site
+         * @param  site number of the site
+         * @return      number of the neighbour, -1 if there is none
+         */
+        int whiteNeighbour(final int site) {
+            for (int link : incident[site]) {
+                if (live[link] && isWhite(other(link, site))) return other(link, site);
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the number of links from the agent of the player to white sites
+         * @param  player 0 for red, 1 for blue
+         * @return        free links of the agent, 0 if it is not placed
+         */
+        int freeLinks(final int player) {
+            int count = 0;
+            if (agent[player] < 0) return 0;
+            for (int link : incident[agent[player]]) {
+                if (live[link] && isWhite(other(link, agent[player]))) count++;
+            }
+            return count;
+        }
+
+        /**
+         * Returns the live links, those of the site first
+         * @param  site number of the site, -1 for none
+         * @return      numbers of the live links
+         */
+        int[] linksNear(final int site) {
+            int[] order = new int[links.length];
+            int   count = 0;
+            if (site >= 0) {
+                for (int link : incident[site]) {
+                    if (live[link]) order[count++] = link;
+                }
+            }
+            for (int link = 0; link < links.length; link++) {
+                if (live[link] && (site < 0 || (first[link] != site && second[link] != site))) order[count++] = link;
+            }
+            return Arrays.copyOf(order, count);
+        }
+
+        /**
+         * Rates the position like {@link nowhere2gopp.gamelogic.GameBoard GameBoard} ends the game: an agent without a white
+         * neighbour loses, and if both have none, red wins
+         * @param  player 0 for red, 1 for blue
+         * @return        {@link AnalysisEngine#WIN WIN} or -WIN if the game is over, else the sites the agent of the player can
+         *                reach minus the sites the other agent can reach
+         */
+        int rate(final int player) {
+            boolean redStuck  = agent[0] >= 0 && whiteNeighbour(agent[0]) < 0;
+            boolean blueStuck = agent[1] >= 0 && whiteNeighbour(agent[1]) < 0;
+            if (blueStuck) return player == 0 ? WIN : -WIN;
+            if (redStuck) return player == 1 ? WIN : -WIN;
+            int own   = agent[player] < 0 ? 0 : reach(agent[player]);
+            int enemy = agent[1 - player] < 0 ? 0 : reach(agent[1 - player]);
+            return own - enemy;
+        }
+
+        /**
+         * Returns the sites the agent of the player can start from and move to. An agent that is not placed yet can be placed on
+         * every white site with a white neighbour, which is then used as origin.
+         * @param  player 0 for red, 1 for blue
+         * @return        origins and destinations
+         */
+        int[][] destinations(final int player) {
+            if (agent[player] >= 0) {
+                int count = reach(agent[player]);
+                int[] origins = new int[count];
+                Arrays.fill(origins, agent[player]);
+                return new int[][] { origins, Arrays.copyOf(queue, count) };
+            }
+            int[] origins = new int[sites.length];
+            int[] dests   = new int[sites.length];
+            int   count   = 0;
+            for (int site : sites) {
+                int origin = isWhite(site) ? whiteNeighbour(site) : -1;
+                if (origin >= 0) {
+                    origins[count] = origin;
+                    dests[count++] = site;
+                }
+            }
+            return new int[][] { Arrays.copyOf(origins, count), Arrays.copyOf(dests, count) };
+        }
+    }
+
+    /**
+     * One analysis of a position, runs on the search thread
+     */
+    private final class Search {
+        /**
+         * Position to analyse, changed and restored while moves are tried
+         */
+        private final Position position;
+
+        /**
+         * {@link AnalysisEngine#generation generation} of this analysis
+         */
+        private final long id;
+
+        /**
+         * Rated positions so far
+         */
+        private long nodes;
+
+        /**
+         * Start of the current work slice
+         */
+        private long sliceStart = System.nanoTime();
+
+        /**
+         * Constructor of a search
+         * @param position position to analyse
+         * @param id       generation of the analysis
+         */
+        Search(final Position position, final long id) {
+            this.position = position;
+            this.id       = id;
+        }
+
+        /**
+         * Rates all moves alone, then against the best reply in the order of the first rating, and publishes the best moves
+         * after every step that is due
+         */
+        void run() {
+            publisher.reset();
+            try {
+                int   me     = position.turn;
+                int[][] dest = position.destinations(me);
+                int   links  = position.links.length;
+                int   count  = dest[1].length * links;
+                int[] score  = new int[count];
+                // an agent with less than two links left loses if the opponent removes the last one, such moves are tried last
+                boolean[] safe    = new boolean[count];
+                boolean   anySafe = false;
+
+                // depth 1, every move alone
+                for (int i = 0; i < count; i++) {
+                    if (stopped()) return;
+                    int d = i / links;
+                    score[i] = play(me, dest[1][d], i % links, () -> position.rate(me));
+                    safe[i]  = score[i] == WIN || play(me, dest[1][d], i % links, () -> position.freeLinks(me) >= 2);
+                    anySafe |= safe[i];
+                    if (publisher.isDue()) publish(1, dest, score, anySafe ? safe : null, count, false);
+                }
+                int[] order = sort(score, safe);
+                publish(1, dest, score, anySafe ? safe : null, count, false);
+
+                // depth 2, the moves in the order of the first rating against every reply
+                boolean[] refined = new boolean[count];
+                int[]     value   = new int[count];
+                int       done    = 0;
+                for (int i : order) {
+                    if (stopped()) return;
+                    int threshold = threshold(value, refined, done);
+                    int d = i / links;
+                    value[i] = play(me, dest[1][d], i % links, () -> reply(me, threshold));
+                    if (value[i] >= threshold) refined[i] = true; // below the threshold it is only a bound
+                    done++;
+                    if (publisher.isDue()) publish(2, dest, value, refined, count, false);
+                }
+                publish(2, dest, value, refined, count, true);
+            } catch (InterruptedException e) {
+                // cancelled while it paused
+            }
+        }
+
+        /**
+         * Makes a move on the position, rates it and takes it back
+         * @param  player 0 for red, 1 for blue
+         * @param  dest   destination of the agent
+         * @param  link   link to remove
+         * @param  rating rates the position after the move
+         * @return        the rating
+         * @throws InterruptedException if the search is cancelled while it pauses
+         */
+        private int play(final int player, final int dest, final int link, final Rating rating) throws InterruptedException {
+            int from = position.agent[player];
+            position.agent[player] = dest;
+            position.live[link]    = false;
+            try {
+                return rating.rate();
+            } finally {
+                position.live[link]    = true;
+                position.agent[player] = from;
+            }
+        }
+
+        /**
+         * Makes a move on the position, checks it and takes it back
+         * @param  player 0 for red, 1 for blue
+         * @param  dest   destination of the agent
+         * @param  link   link to remove
+         * @param  check  checks the position after the move
+         * @return        the result of the check
+         */
+        private boolean play(final int player, final int dest, final int link, final Check check) {
+            int from = position.agent[player];
+            position.agent[player] = dest;
+            position.live[link]    = false;
+            try {
+                return check.test();
+            } finally {
+                position.live[link]    = true;
+                position.agent[player] = from;
+            }
+        }
+
+        /**
+         * Rates the position after a move of the player by the best reply of the opponent
+         * @param  me        0 for red, 1 for blue
+         * @param  threshold the reply search stops as soon as the rating falls below it
+         * @return           lowest rating of the player after a reply
+         * @throws InterruptedException if the search is cancelled while it pauses
+         */
+        private int reply(final int me, final int threshold) throws InterruptedException {
+            int base = position.rate(me);
+            if (base == WIN || base == -WIN) return base;
+            int     enemy = 1 - me;
+            int[][] dest  = position.destinations(enemy);
+            int     best  = dest[1].length == 0 ? base : Integer.MAX_VALUE;
+            // the links of the own agent first, removing one of them is the most likely refutation
+            int[] links = position.linksNear(position.agent[me]);
+            for (int d = 0; d < dest[1].length && best >= threshold; d++) {
+                for (int i = 0; i < links.length && best >= threshold; i++) {
+                    if (stopped()) return best;
+                    best = Math.min(best, play(enemy, dest[1][d], links[i], () -> position.rate(me)));
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Returns the rating a move needs to get into the published lines
+         * @param  value   ratings so far
+         * @param  refined true for the moves with an exact rating
+         * @param  done    number of rated moves
+         * @return         the lowest rating of the current lines, or the lowest rating at all while there are fewer
+         */
+        private int threshold(final int[] value, final boolean[] refined, final int done) {
+            if (done < lines) return Integer.MIN_VALUE;
+            int[] best = best(value, refined, lines);
+            return value[best[best.length - 1]];
+        }
+
+        /**
+         * Returns true if the analysis was cancelled, and pauses if the work slice is used up
+         * @return true if the search has to stop
+         * @throws InterruptedException if the search is cancelled while it pauses
+         */
+        private boolean stopped() throws InterruptedException {
+            nodes++;
+            if (generation.get() != id || Thread.currentThread().isInterrupted()) return true;
+            if (cpuPercent < 100) {
+                long worked = System.nanoTime() - sliceStart;
+                if (worked >= SLICE_NANOS) {
+                    long pause = worked * (100 - cpuPercent) / cpuPercent;
+                    Thread.sleep(pause / 1000000L, (int) (pause % 1000000L));
+                    sliceStart = System.nanoTime();
+                }
+            }
+            return generation.get() != id;
+        }
+
+        /**
+         * Publishes the best moves, unless the analysis was cancelled
+         * @param depth   1 for moves alone, 2 for moves against the best reply
+         * @param dest    origins and destinations of the moves
+         * @param score   ratings of the moves
+         * @param refined true for the moves with an exact rating, null if all are exact
+         * @param count   number of moves
+         * @param done    true if the analysis is finished
+         */
+        private void publish(final int depth, final int[][] dest, final int[] score, final boolean[] refined, final int count, final boolean done) {
+            if (generation.get() != id) return;
+            List<SearchInfo.Line> best = new ArrayList<>(lines);
+            for (int i : best(score, refined, lines)) {
+                int  d    = i / position.links.length;
+                Move move = new Move(new SiteTuple(position.site(dest[0][d]), position.site(dest[1][d])), position.links[i % position.links.length]);
+                best.add(new SearchInfo.Line(move, score[i]));
+            }
+            List<Move> pv = new ArrayList<>(1);
+            if (!best.isEmpty()) pv.add(best.get(0).getMove());
+            PlayerColor color = position.turn == 0 ? PlayerColor.Red : PlayerColor.Blue;
+            publisher.publish(new SearchInfo(color, depth, nodes, publisher.elapsedMillis(), 0,
+                                             best.isEmpty() ? 0 : best.get(0).getScore(), pv, done, best));
+        }
+    }
+
+    /**
+     * Returns the numbers of the best rated moves
+     * @param  score   ratings of the moves
+     * @param  refined true for the moves with an exact rating, null if all are exact
+     * @param  limit   largest number of moves
+     * @return         numbers of the best moves, best first
+     */
+    private static int[] best(final int[] score, final boolean[] refined, final int limit) {
+        int[] best  = new int[limit];
+        int   count = 0;
+        for (int i = 0; i < score.length; i++) {
+            if (refined != null && !refined[i]) continue;
+            // insertion into the short sorted list
+            int at = count < limit ? count++ : limit;
+            while (at > 0 && score[best[at - 1]] < score[i]) {
+                if (at < limit) best[at] = best[at - 1];
+                at--;
+            }
+            if (at < limit) best[at] = i;
+        }
+        return Arrays.copyOf(best, count);
+    }
+
+    /**
+     * Returns the numbers of the moves, the safe ones first and then the best rated first. Moves with the same rating are
+     * mixed, so that the first moves do not all go to the same site.
+     * @param  score ratings of the moves
+     * @param  safe  true for the moves that do not lose to the next link removal
+     * @return       numbers of all moves
+     */
+    private static int[] sort(final int[] score, final boolean[] safe) {
+        long[] keys = new long[score.length];
+        for (int i = 0; i < score.length; i++) {
+            long rank = (long) (safe[i] ? 0 : 2 * WIN + 1) + WIN - score[i];
+            long mix  = (i * 0x9E3779B1L >>> 17) & 0x7FFF;
+            keys[i] = rank << 47 | mix << 32 | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[score.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    /**
+     * Checks a position
+     */
+    private interface Check {
+        /**
+         * Checks the position
+         * @return result of the check
+         */
+        boolean test();
+    }
+
+    /**
+     * Rates a position, may pause the search
+     */
+    private interface Rating {
+        /**
+         * Rates the position
+         * @return the rating
+         * @throws InterruptedException if the search is cancelled while it pauses
+         */
+        int rate() throws InterruptedException;
+    }
+}
@@ -6,10 +6,9 @@ package nowhere2gopp.gamelogic.player;
  * @author Marvin Sommer
  */
 import java.rmi.RemoteException;
-import java.util.HashMap;
 
 import nowhere2gopp.gamelogic.gameIO.BoardViewer;
-import nowhere2gopp.gamelogic.gameIO.GameIO;
+import nowhere2gopp.gamelogic.gameIO.GameOutput;
 import nowhere2gopp.gamelogic.gameIO.MoveTextInput;
 import nowhere2gopp.preset.Move;
 import nowhere2gopp.preset.Requestable;
@@ -48,7 +47,7 @@ public class HumanPlayer extends AbstractPlayer {
     public HumanPlayer(Requestable request, Requestable gui) {
         super();
         setRequestable(request);
-        setGUI((GameIO)gui);
+        setGUI((GameOutput)gui);
     }
 
     /**
@@ -71,12 +70,11 @@ public class HumanPlayer extends AbstractPlayer {
      * requests text based input until a valid move is passed.
      */
     private void getMoveFromText() {
-        HashMap<Move, Move> possMoves = viewer.getPossibleMoves();
         MoveTextInput text = new MoveTextInput();
         while (move == null) {
             try {
                 move = request.request();
-                if (!(possMoves.containsKey(move))) {
+                if (!viewer.isPossibleMove(move)) {
                     move = null;
                     System.out.println("Invalid move, try again...");
                 }
@@ -112,9 +110,9 @@ public class HumanPlayer extends AbstractPlayer {
     private void setRequestable(Requestable input) {
         request = input;
 
-        if (request instanceof GameIO) {
+        if (request instanceof GameOutput) {
             text = false;
-            gui  = (GameIO)request;
+            gui  = (GameOutput)request;
         } else {
             text = true;
             //gui  = new GameIO((BoardViewer)getGameBoard().viewer());
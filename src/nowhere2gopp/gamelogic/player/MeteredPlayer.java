@@ -0,0 +1,92 @@
+package nowhere2gopp.gamelogic.player;
+
+import java.rmi.RemoteException;
+
+import nowhere2gopp.gamelogic.metrics.Histogram;
+import nowhere2gopp.gamelogic.metrics.Metrics;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.Player;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Status;
+
+/**
+ * Wrapper that measures the calls to a player that is not an {@link nowhere2gopp.gamelogic.player.AbstractPlayer AbstractPlayer},
+ * mainly the RMI stubs of {@link nowhere2gopp.gamelogic.player.NetworkPlayer NetworkPlayers} found in the registry.
+ * The recorded durations are full round trips including the network. They are recorded into the same
+ * metrics as the local players, with the given name as player label.
+ */
+public class MeteredPlayer implements TimedPlayer {
+    /**
+     * Wrapped player
+     */
+    private final Player player;
+
+    /**
+     * Duration of {@link #request()}
+     */
+    private final Histogram requestTime;
+
+    /**
+     * Duration of {@link #confirm(Status)}
+     */
+    private final Histogram confirmTime;
+
+    /**
+     * Duration of {@link #update(Move, Status)}
+     */
+    private final Histogram updateTime;
+
+    /**
+     * Constructor of the wrapper
+     * @param player player to measure
+     * @param name   value of the player label, e.g. "remote"
+     */
+    public MeteredPlayer(final Player player, final String name) {
+        this.player = player;
+        requestTime = Metrics.histogram("player_request_seconds", "Duration of Player.request", "player", name);
+        confirmTime = Metrics.histogram("player_confirm_seconds", "Duration of Player.confirm", "player", name);
+        updateTime  = Metrics.histogram("player_update_seconds", "Duration of Player.update", "player", name);
+    }
+
+    @Override
+    public Move request() throws Exception, RemoteException {
+        long start = Metrics.start();
+        try {
+            return player.request();
+        } finally {
+            requestTime.recordSince(start);
+        }
+    }
+
+    @Override
+    public void confirm(final Status status) throws Exception, RemoteException {
+        long start = Metrics.start();
+        try {
+            player.confirm(status);
+        } finally {
+            confirmTime.recordSince(start);
+        }
+    }
+
+    @Override
+    public void update(final Move opponentMove, final Status status) throws Exception, RemoteException {
+        long start = Metrics.start();
+        try {
+            player.update(opponentMove, status);
+        } finally {
+            updateTime.recordSince(start);
+        }
+    }
+
+    @Override
+    public void init(final int size, final PlayerColor color) throws Exception, RemoteException {
+        player.init(size, color);
+    }
+
+    @Override
+    public void setMoveBudget(final long millis) throws Exception, RemoteException {
+        if (player instanceof TimedPlayer) {
+            ((TimedPlayer)player).setMoveBudget(millis);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package nowhere2gopp.gamelogic.player;
 
 import nowhere2gopp.preset.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.rmi.*;
 import java.rmi.server.UnicastRemoteObject;
 import java.rmi.registry.Registry;
 
 import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.gamelogic.jfr.RemoteCallEvent;
 import nowhere2gopp.preset.Move;
 import nowhere2gopp.preset.Player;
 import nowhere2gopp.preset.PlayerColor;
@@ -14,7 +18,7 @@ import nowhere2gopp.preset.Status;
 /**
  * This class can be used to create online player.
  */
-public class NetworkPlayer extends UnicastRemoteObject implements Player {
+public class NetworkPlayer extends UnicastRemoteObject implements TimedPlayer {
     // --------------------------Attributes-----------
 
     /**
@@ -33,7 +37,10 @@ public class NetworkPlayer extends UnicastRemoteObject implements Player {
      * Request move.
      */
     public Move request() throws Exception, RemoteException {
+        RemoteCallEvent event = new RemoteCallEvent();
+        event.begin();
         Move move = remotePlayer.request();
+        commit(event, "request", move);
 
         return move;
     }
@@ -42,14 +49,54 @@ public class NetworkPlayer extends UnicastRemoteObject implements Player {
      * Confirm status.
      */
     public void confirm(final Status status) throws Exception, RemoteException {
+        RemoteCallEvent event = new RemoteCallEvent();
+        event.begin();
         remotePlayer.confirm(status);
+        commit(event, "confirm", status);
     }
 
     /**
      * Update opponents game board and GUI.
      */
     public void update(final Move opponentMove, final Status status) throws Exception, RemoteException {
+        RemoteCallEvent event = new RemoteCallEvent();
+        event.begin();
         remotePlayer.update(opponentMove, status);
+        commit(event, "update", opponentMove);
+    }
+
+    /**
+     * Commits a flight recorder event of a served call, if it is enabled in the recording.
+     * The payload is only serialized to measure its size when the event is recorded.
+     */
+    private static void commit(final RemoteCallEvent event, final String method, final Object payload) {
+        if (event.shouldCommit()) {
+            event.method      = method;
+            event.payloadSize = payloadSize(payload);
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the serialized size of the payload of a call.
+     */
+    private static long payloadSize(final Object payload) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(payload);
+        } catch (IOException e) {
+            return -1;
+        }
+        return bytes.size();
+    }
+
+    /**
+     * Pass the time budget of the next move, if the local player supports it.
+     */
+    public void setMoveBudget(final long millis) throws Exception, RemoteException {
+        if (remotePlayer instanceof TimedPlayer) {
+            ((TimedPlayer)remotePlayer).setMoveBudget(millis);
+        }
     }
 
     /**
@@ -0,0 +1,27 @@
+package nowhere2gopp.gamelogic.player;
+
+import java.io.PrintStream;
+
+/**
+ * Writes the {@link nowhere2gopp.gamelogic.player.SearchInfo SearchInfos} as lines to a stream, e.g. the console or a log file.
+ */
+public class PrintStreamSearchListener implements SearchListener {
+    /**
+     * Stream the infos are written to
+     */
+    private final PrintStream out;
+
+    /**
+     * Constructor of the listener
+     * @param out stream the infos are written to
+     */
+    public PrintStreamSearchListener(final PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void searchInfo(final SearchInfo info) {
+        out.println(info);
+        out.flush();
+    }
+}
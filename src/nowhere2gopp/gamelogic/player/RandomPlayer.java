@@ -7,12 +7,9 @@ package nowhere2gopp.gamelogic.player;
  */
 
 import java.rmi.RemoteException;
-import java.util.LinkedList;
-import java.util.Random;
 
-import nowhere2gopp.gamelogic.gameIO.GameIO;
+import nowhere2gopp.gamelogic.gameIO.GameOutput;
 import nowhere2gopp.preset.Move;
-import nowhere2gopp.preset.MoveType;
 
 
 public class RandomPlayer extends AbstractPlayer {
@@ -27,28 +24,16 @@ public class RandomPlayer extends AbstractPlayer {
      * Constructor that sets the {@link #gui} to represent the gamestate
      * @param gui new {@link #gui}
      */
-    public RandomPlayer(GameIO gui) {
+    public RandomPlayer(GameOutput gui) {
         super();
         setGUI(gui);
     }
 
     /**
-     * Returns a random {@link nowhere2gopp.preset.Move}
+     * Returns a random {@link nowhere2gopp.preset.Move}, see {@link AbstractPlayer#randomMove() randomMove}
      * @return random {@link nowhere2gopp.preset.Move}
      */
     protected Move requestMove() throws Exception, RemoteException {
-        LinkedList<Move> moves =  new LinkedList<Move>(viewer.getPossibleMoves().values());
-        int  size = moves.size();
-        Move move = null;
-
-        Random rand = new Random();
-        int randInt = rand.nextInt(size);
-        move = moves.get(randInt);
-
-        while ((size != 2 && move.getType() == MoveType.End) ||  move.getType() == MoveType.Surrender) {
-            randInt = rand.nextInt(size);
-            move = moves.get(randInt);
-        }
-        return move;
+        return randomMove();
     }
 }
@@ -1,17 +1,61 @@
 package nowhere2gopp.gamelogic.player;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.gamelogic.metrics.Counter;
+import nowhere2gopp.gamelogic.metrics.Histogram;
+import nowhere2gopp.gamelogic.metrics.Metrics;
 import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.MoveType;
 import nowhere2gopp.preset.Player;
 import nowhere2gopp.preset.PlayerColor;
 import nowhere2gopp.preset.Requestable;
+import nowhere2gopp.preset.Status;
 
 /**
  * This class realizes a referee for the game, whose main function is to request moves from both players in turn.
+ * If a {@link nowhere2gopp.gamelogic.player.TimeControl TimeControl} is set, every request runs on a watchdog
+ * thread and a player that exceeds its time loses the game by surrender.
+ * The asynchronous methods {@link #requestAsync() requestAsync} and {@link #notifyAsync(PlayerColor, Move, Status) notifyAsync} queue the calls
+ * of every player in order on a future chain of its own, so the confirm of the mover and the update of the opponent run in
+ * parallel and the game loop only waits for the calls the next move depends on.
  */
 public class Referee implements Requestable {
     // -----------------Attributes--------------
 
+    /**
+     * Milliseconds a player may exceed its budget before the watchdog cancels the request,
+     * covers network latency and the reaction time of the player
+     */
+    public static final long GRACE_MILLIS = 250;
+
+    /**
+     * Watchdog threads that run the requests when a time control is set. Daemon threads, so a player that never
+     * answers can not keep the program alive.
+     */
+    private static final ExecutorService WATCHDOG = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "referee-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Threads that make the calls of the asynchronous methods. Daemon threads, like the {@link #WATCHDOG watchdog}.
+     */
+    private static final ExecutorService CALLS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "referee-call");
+        t.setDaemon(true);
+        return t;
+    });
+
     /**
        *Main game board.
      */
@@ -27,11 +71,46 @@ public class Referee implements Requestable {
      */
     private Player playerBlue;
 
+    /**
+       *time control of the game
+     */
+    private TimeControl timeControl;
+
+    /**
+       *player that lost the game on time, null if nobody did
+     */
+    private PlayerColor timedOut;
+
+    /**
+       *last queued call of the red player
+     */
+    private CompletableFuture<?> redCalls = CompletableFuture.completedFuture(null);
+
+    /**
+       *last queued call of the blue player
+     */
+    private CompletableFuture<?> blueCalls = CompletableFuture.completedFuture(null);
+
+    /**
+       *duration of {@link #request()}, the whole round trip to the player
+     */
+    private static final Histogram REQUEST_TIME = Metrics.histogram("referee_request_seconds", "Duration of Referee.request");
+
+    /**
+       *players that lost on time
+     */
+    private static final Counter TIMEOUTS = Metrics.counter("referee_timeouts_total", "Players that lost on time");
+
     // -----------------Constructors------------
     public Referee(final GameBoard gameBoard, final Player redPlayer,final Player bluePlayer) {
+        this(gameBoard, redPlayer, bluePlayer, TimeControl.none());
+    }
+
+    public Referee(final GameBoard gameBoard, final Player redPlayer, final Player bluePlayer, final TimeControl timeControl) {
         gbd = gameBoard;
         playerRed = redPlayer;
         playerBlue = bluePlayer;
+        this.timeControl = timeControl;
     }
 
     // -----------------Methods-----------------
@@ -41,16 +120,187 @@ public class Referee implements Requestable {
        *@return next move to be performed on the game board.
      */
     public Move request() throws Exception {
+        long start                = Metrics.start();
         Move nextMove             = null;
         PlayerColor currentPlayer = gbd.getTurn();
+        Player player             = (currentPlayer == PlayerColor.Red) ? playerRed : playerBlue;
 
-        if (currentPlayer == PlayerColor.Red) {
+        if (timeControl.isUnlimited()) {
             // request move and make the move on its own game board
-            nextMove = playerRed.request();
+            nextMove = player.request();
         } else {
-            // request move and make the move on its own game board
-            nextMove = playerBlue.request();
+            nextMove = timedRequest(player, currentPlayer);
         }
+        REQUEST_TIME.recordSince(start);
         return nextMove;
     }
+
+    /**
+       *This method requests a move on a watchdog thread and cancels the request when the budget is exceeded.
+       *@param player
+       *       player whose turn it is
+       *
+       *@param color
+       *       color of the player
+       *
+       *@return requested move or a surrender move if the player ran out of time
+     */
+    private Move timedRequest(final Player player, final PlayerColor color) throws Exception {
+        long budget = timeControl.budget(color);
+        if (player instanceof TimedPlayer) {
+            ((TimedPlayer)player).setMoveBudget(budget);
+        }
+
+        long start = System.nanoTime();
+        Future<Move> pending = WATCHDOG.submit(player::request);
+        Move nextMove = null;
+        try {
+            nextMove = pending.get(budget + GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // interrupts local players, remote calls are abandoned
+            pending.cancel(true);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof Exception) ? (Exception)cause : e;
+        }
+        long elapsed = (System.nanoTime() - start) / 1000000L;
+        timeControl.charge(color, elapsed);
+
+        // the grace only keeps the watchdog from cancelling a move in flight, a late move still loses
+        if ((nextMove == null) || timeControl.isExceeded(color, elapsed)) {
+            System.err.println(color + " player exceeded its time (" + elapsed + "ms, " + timeControl + ")");
+            timedOut = color;
+            TIMEOUTS.inc();
+            nextMove = new Move(MoveType.Surrender);
+        }
+        return nextMove;
+    }
+
+    /**
+       *This method requests the next move as soon as the player whose turn it is has processed all its earlier calls.
+       *@return move of the player, completes exceptionally if the request failed
+     */
+    public CompletableFuture<Move> requestAsync() {
+        PlayerColor currentPlayer = gbd.getTurn();
+        CompletableFuture<Move> move = calls(currentPlayer).handle((v, e) -> null).thenApplyAsync(v -> {
+            try {
+                return request();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, CALLS);
+        setCalls(currentPlayer, move);
+        return move;
+    }
+
+    /**
+       *This method queues the confirm of the player that made the move and the update of its opponent. Both run in parallel,
+       *each after the earlier calls of its player. A failed call is reported and does not stop the later calls.
+       *@param mover
+       *       color of the player that made the move
+       *
+       *@param move
+       *       move that was made on the main game board
+       *
+       *@param status
+       *       status of the main game board after the move
+       *
+       *@return completes when both players are notified
+     */
+    public CompletableFuture<Void> notifyAsync(final PlayerColor mover, final Move move, final Status status) {
+        PlayerColor opponent = mover == PlayerColor.Red ? PlayerColor.Blue : PlayerColor.Red;
+        CompletableFuture<Void> confirm = queue(mover, () -> player(mover).confirm(status));
+        CompletableFuture<Void> update  = queue(opponent, () -> player(opponent).update(move, status));
+        return CompletableFuture.allOf(confirm, update);
+    }
+
+    /**
+       *This method waits until all queued calls are made, except the calls of a player that lost on time.
+     */
+    public void awaitCalls() {
+        for (PlayerColor color : PlayerColor.values()) {
+            if (color != timedOut) calls(color).handle((v, e) -> null).join();
+        }
+    }
+
+    /**
+       *Call of a player that may fail.
+     */
+    @FunctionalInterface
+    private interface PlayerCall {
+        void run() throws Exception;
+    }
+
+    /**
+       *This method appends a call to the chain of a player.
+       *@param color
+       *       color of the player
+       *
+       *@param call
+       *       call to make
+       *
+       *@return completes when the call is made, never exceptionally
+     */
+    private CompletableFuture<Void> queue(final PlayerColor color, final PlayerCall call) {
+        CompletableFuture<Void> next = calls(color).handle((v, e) -> null).thenRunAsync(() -> {
+            try {
+                call.run();
+            } catch (Exception e) {
+                System.err.println("Could not notify " + color + " player: " + e);
+            }
+        }, CALLS);
+        setCalls(color, next);
+        return next;
+    }
+
+    /**
+       *Returns the player of the given color.
+       *@param color
+       *       color of the player
+       *
+       *@return red or blue player
+     */
+    private Player player(final PlayerColor color) {
+        return color == PlayerColor.Red ? playerRed : playerBlue;
+    }
+
+    /**
+       *Returns the last queued call of a player.
+       *@param color
+       *       color of the player
+       *
+       *@return future of the last call
+     */
+    private synchronized CompletableFuture<?> calls(final PlayerColor color) {
+        return color == PlayerColor.Red ? redCalls : blueCalls;
+    }
+
+    /**
+       *Sets the last queued call of a player.
+       *@param color
+       *       color of the player
+       *
+       *@param calls
+       *       future of the new last call
+     */
+    private synchronized void setCalls(final PlayerColor color, final CompletableFuture<?> calls) {
+        if (color == PlayerColor.Red) redCalls = calls;
+        else blueCalls = calls;
+    }
+
+    /**
+       *Returns the time control of this game.
+       *@return time control
+     */
+    public TimeControl getTimeControl() {
+        return timeControl;
+    }
+
+    /**
+       *Returns the player that lost on time.
+       *@return color of the player that ran out of time, null if nobody did
+     */
+    public PlayerColor getTimedOut() {
+        return timedOut;
+    }
 }
@@ -0,0 +1,218 @@
+package nowhere2gopp.gamelogic.player;
+
+import java.util.Collections;
+import java.util.List;
+
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.MoveType;
+import nowhere2gopp.preset.PlayerColor;
+
+/**
+ * Snapshot of a running move search of an AI player, published to the {@link nowhere2gopp.gamelogic.player.SearchListener SearchListeners}
+ * of the player. Instances are immutable, so they can be handed to other threads.
+ */
+public final class SearchInfo {
+    /**
+     * Color of the searching player
+     */
+    private final PlayerColor color;
+
+    /**
+     * Deepest ply reached so far
+     */
+    private final int depth;
+
+    /**
+     * Simulated moves so far
+     */
+    private final long nodes;
+
+    /**
+     * Milliseconds since the search started
+     */
+    private final long millis;
+
+    /**
+     * Fill level of the transposition table in per mille, 0 for players without one
+     */
+    private final int hashFill;
+
+    /**
+     * Rating of the best move, from the point of view of the searching player
+     */
+    private final int score;
+
+    /**
+     * Principal variation, the best move followed by the expected replies. Empty if no move was rated yet.
+     */
+    private final List<Move> pv;
+
+    /**
+     * True if this is the last info of the search
+     */
+    private final boolean done;
+
+    /**
+     * Best moves of a search that rates several moves, each with its rating, best first. Empty for a search that only looks for one move
+     */
+    private final List<Line> lines;
+
+    /**
+     * Constructor of a search info
+     * @param color    color of the searching player
+     * @param depth    deepest ply reached
+     * @param nodes    simulated moves
+     * @param millis   milliseconds since the search started
+     * @param hashFill fill level of the transposition table in per mille
+     * @param score    rating of the best move
+     * @param pv       principal variation, the best move first
+     * @param done     true if the search is finished
+     */
+    public SearchInfo(final PlayerColor color, final int depth, final long nodes, final long millis, final int hashFill,
+                      final int score, final List<Move> pv, final boolean done) {
+        this(color, depth, nodes, millis, hashFill, score, pv, done, Collections.<Line>emptyList());
+    }
+
+    /**
+     * Constructor of a search info with several rated moves, like the "multipv" output of UCI engines
+     * @param color    color of the searching player
+     * @param depth    deepest ply reached
+     * @param nodes    simulated moves
+     * @param millis   milliseconds since the search started
+     * @param hashFill fill level of the transposition table in per mille
+     * @param score    rating of the best move
+     * @param pv       principal variation, the best move first
+     * @param done     true if the search is finished
+     * @param lines    best moves with their ratings, best first
+     */
+    public SearchInfo(final PlayerColor color, final int depth, final long nodes, final long millis, final int hashFill,
+                      final int score, final List<Move> pv, final boolean done, final List<Line> lines) {
+        this.color    = color;
+        this.depth    = depth;
+        this.nodes    = nodes;
+        this.millis   = millis;
+        this.hashFill = hashFill;
+        this.score    = score;
+        this.pv       = Collections.unmodifiableList(pv);
+        this.done     = done;
+        this.lines    = Collections.unmodifiableList(lines);
+    }
+
+    public PlayerColor getColor() {
+        return color;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Returns the simulated moves per second
+     * @return nodes per second, 0 right after the start
+     */
+    public long getNps() {
+        return millis == 0 ? 0 : nodes * 1000 / millis;
+    }
+
+    public int getHashFill() {
+        return hashFill;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public List<Move> getPv() {
+        return pv;
+    }
+
+    /**
+     * Returns the best move found so far
+     * @return first move of the principal variation, null if no move was rated yet
+     */
+    public Move getBestMove() {
+        return pv.isEmpty() ? null : pv.get(0);
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the info in one line, in the style of the UCI "info" output
+     * @return String like "Red depth 2 nodes 1200 nps 4000 hashfull 0 score 7 time 300 pv ..."
+     */
+    public String toString() {
+        StringBuilder line = new StringBuilder();
+        line.append(color).append(done ? " bestmove" : " info")
+            .append(" depth ").append(depth)
+            .append(" nodes ").append(nodes)
+            .append(" nps ").append(getNps())
+            .append(" hashfull ").append(hashFill)
+            .append(" score ").append(score)
+            .append(" time ").append(millis);
+        if (!pv.isEmpty()) {
+            line.append(" pv");
+            for (Move move : pv) {
+                line.append(' ').append(move.getType() == MoveType.Surrender ? "Surrender" : move.toString());
+            }
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            line.append(" multipv ").append(i + 1).append(' ').append(lines.get(i));
+        }
+        return line.toString();
+    }
+
+    /**
+     * One of the rated moves of a search, see {@link SearchInfo#getLines() getLines}
+     */
+    public static final class Line {
+        /**
+         * The rated move
+         */
+        private final Move move;
+
+        /**
+         * Rating of the move, from the point of view of the searching player
+         */
+        private final int score;
+
+        /**
+         * Constructor of a line
+         * @param move  rated move
+         * @param score rating of the move
+         */
+        public Line(final Move move, final int score) {
+            this.move  = move;
+            this.score = score;
+        }
+
+        public Move getMove() {
+            return move;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * Returns the line like the info line of a search
+         * @return String like "score 7 pv ..."
+         */
+        public String toString() {
+            return "score " + score + " pv " + (move.getType() == MoveType.Surrender ? "Surrender" : move.toString());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package nowhere2gopp.gamelogic.player;
+
+/**
+ * Listener for the search telemetry of AI players, see {@link nowhere2gopp.gamelogic.player.AbstractPlayer#addSearchListener(SearchListener)
+ * addSearchListener}. The infos are delivered on a dispatcher thread, not on the thread of the search, and never more often than the
+ * rate limit of the {@link nowhere2gopp.gamelogic.player.SearchPublisher SearchPublisher}. A listener that is slow only delays
+ * other listeners, never the search; infos that arrive while it is busy are coalesced to the newest one.
+ */
+public interface SearchListener {
+    /**
+     * Called with the newest state of a search
+     * @param info snapshot of the search
+     */
+    void searchInfo(SearchInfo info);
+}
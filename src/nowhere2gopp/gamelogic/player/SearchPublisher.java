@@ -0,0 +1,138 @@
+package nowhere2gopp.gamelogic.player;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes the {@link nowhere2gopp.gamelogic.player.SearchInfo SearchInfos} of a player to its listeners without blocking the search.
+ * The search asks {@link #isDue() isDue} before it builds an info, which is a single clock read once the interval has not passed yet.
+ * A published info is put into a single slot and delivered by a shared daemon thread. If the listeners are slower than the search,
+ * the slot is overwritten and only the newest info is delivered.
+ */
+public class SearchPublisher {
+    /**
+     * Default minimum time between two infos
+     */
+    public static final long DEFAULT_INTERVAL_MILLIS = 200;
+
+    /**
+     * Thread that delivers the infos of all players
+     */
+    private static final ExecutorService DISPATCHER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "search-info");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Subscribed listeners
+     */
+    private final List<SearchListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Newest info that was not delivered yet
+     */
+    private final AtomicReference<SearchInfo> pending = new AtomicReference<>();
+
+    /**
+     * Minimum time between two infos in nanoseconds
+     */
+    private final long intervalNanos;
+
+    /**
+     * Time of the last published info, only used by the searching thread
+     */
+    private long lastPublish;
+
+    /**
+     * Start of the current search
+     */
+    private long searchStart;
+
+    /**
+     * Creates a publisher with the {@link #DEFAULT_INTERVAL_MILLIS default interval}
+     */
+    public SearchPublisher() {
+        this(DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a publisher with the given rate limit
+     * @param intervalMillis minimum milliseconds between two infos
+     */
+    public SearchPublisher(final long intervalMillis) {
+        intervalNanos = intervalMillis * 1000000L;
+        reset();
+    }
+
+    /**
+     * Subscribes a listener
+     * @param listener listener to add
+     */
+    public void addListener(final SearchListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unsubscribes a listener
+     * @param listener listener to remove
+     */
+    public void removeListener(final SearchListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Restarts the rate limit, called when a new search starts
+     */
+    public void reset() {
+        searchStart = System.nanoTime();
+        lastPublish = searchStart;
+    }
+
+    /**
+     * Returns the milliseconds since the last {@link #reset() reset}
+     * @return elapsed milliseconds of the current search
+     */
+    public long elapsedMillis() {
+        return (System.nanoTime() - searchStart) / 1000000L;
+    }
+
+    /**
+     * Returns true if somebody listens and the interval since the last info has passed
+     * @return true if the search should publish an info now
+     */
+    public boolean isDue() {
+        return !listeners.isEmpty() && (System.nanoTime() - lastPublish >= intervalNanos);
+    }
+
+    /**
+     * Publishes an info without waiting for the listeners. Final infos should be published even if they are not due.
+     * @param info snapshot of the search
+     */
+    public void publish(final SearchInfo info) {
+        if (listeners.isEmpty()) return;
+        lastPublish = System.nanoTime();
+        if (pending.getAndSet(info) == null) {
+            DISPATCHER.execute(this::deliver);
+        }
+    }
+
+    /**
+     * Delivers the newest info to all listeners, runs on the dispatcher thread
+     */
+    private void deliver() {
+        SearchInfo info = pending.getAndSet(null);
+        if (info == null) return;
+        for (SearchListener listener : listeners) {
+            try {
+                listener.searchInfo(info);
+            } catch (RuntimeException e) {
+                // a broken listener must not stop the others
+                System.err.println("Search listener failed: " + e);
+            }
+        }
+    }
+}
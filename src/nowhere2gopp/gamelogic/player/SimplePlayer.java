@@ -3,16 +3,18 @@ package nowhere2gopp.gamelogic.player;
 import java.rmi.RemoteException;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
-import java.util.Random;
+import java.util.List;
 
 import nowhere2gopp.gamelogic.GameBoard;
 import nowhere2gopp.gamelogic.GamePhase;
 import nowhere2gopp.gamelogic.Node;
 import nowhere2gopp.gamelogic.Serialize;
 import nowhere2gopp.gamelogic.SiteColor;
-import nowhere2gopp.gamelogic.gameIO.GameIO;
+import nowhere2gopp.gamelogic.gameIO.GameOutput;
+import nowhere2gopp.gamelogic.jfr.SearchEvent;
 import nowhere2gopp.preset.Move;
 import nowhere2gopp.preset.MoveType;
 import nowhere2gopp.preset.PlayerColor;
@@ -57,21 +59,21 @@ public class SimplePlayer extends AbstractPlayer {
      * Constructor that calls {@link #SimplePlayer} sets the {@link #gui gui} to represent the gamestate
      * @param gui new {@link #gui gui}
      */
-    public SimplePlayer(GameIO gui) {
+    public SimplePlayer(GameOutput gui) {
         this();
         setGUI(gui);
     }
 
     /**
-     * Initialize the SimplePlayer with a fresh {@link #board} and the corresponding {@link nowhere2gopp.preset.PlayerColor}
-     * @param  size            Size of the {@link nowhere2gopp.gamelogic.GameBoard}
+     * Initialize the SimplePlayer with its {@link #board} and the corresponding {@link nowhere2gopp.preset.PlayerColor}
+     * @param  board           board of this player, its own or the shared one of the referee
      * @param  color           {@link nowhere2gopp.preset.PlayerColor} of this Player
+     * @param  shared          true if the board belongs to the referee
      * @throws Exception       of anykind
-     * @throws RemoteException when the network play is interrupted
      */
     @Override
-    public void init(int size, PlayerColor color) throws Exception, RemoteException {
-        super.init(size, color);
+    protected void init(GameBoard board, PlayerColor color, boolean shared) throws Exception {
+        super.init(board, color, shared);
         playerWin = getPlayerColor() == PlayerColor.Red ? Status.RedWin : Status.BlueWin;
         enemyWin  = getEnemyColor() == PlayerColor.Red ? Status.RedWin : Status.BlueWin;
     }
@@ -79,38 +81,36 @@ public class SimplePlayer extends AbstractPlayer {
     /**
      * This method returns the next {@link nowhere2gopp.preset.Move move} that this
      * player makes next. The moves of the {@link nowhere2gopp.gamelogic.GamePhase Gamephase One} are
-     * randomly chosen with {@link #randLinkLinkMove(LinkedList, int) randLinkLinkMove(possMoves, size of possMoves)}.
+     * randomly chosen with {@link AbstractPlayer#randomMove() randomMove}.
      * The moves for the other phases are carefully chosen by predicting enemy reactions with {@link #moveMinMax() moveMinMax}.
+     * The state of the search is published to the {@link nowhere2gopp.gamelogic.player.SearchListener SearchListeners} while it runs
+     * and once more with the chosen move at the end.
      * @return next move the AI wants to make
      * @throws Exception       of anykind
      * @throws RemoteException when the network play is interrupted
      */
     protected Move requestMove() throws Exception, RemoteException {
-        LinkedList<Move> moves = new LinkedList<Move>(getGameBoard().getPossibleMoves(getGameBoard().getTurn()).values());
-        int  size = moves.size();
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        nodes       = 0;
+        searchDepth = 0;
+        outterMax   = null;
+        bestReply   = null;
         Move move = null;
         if (getGameBoard().getGamePhase() == GamePhase.ONE)
-          move = randLinkLinkMove(moves, size);
+          move = randomMove();
         else
           move = moveMinMax();
-        return move;
-    }
-
-    /**
-     * This method choses a random move to be made for the AI
-     * @param  moves List of available moves
-     * @param  size                  size of the List
-     * @return                      random move to be made
-     */
-    private Move randLinkLinkMove(LinkedList<Move>moves, int size) {
-        Move   move = null;
-        Random rand = new Random();
-        int randInt = rand.nextInt(size);
-        move = moves.get(randInt);
-        while ((size != 2 && move.getType() == MoveType.Surrender)) {
-            randInt = rand.nextInt(size);
-            move    = moves.get(randInt);
+        if (event.shouldCommit()) {
+            event.player    = getClass().getSimpleName();
+            event.phase     = getGameBoard().getGamePhase().toString();
+            event.depth     = searchDepth;
+            event.nodes     = nodes;
+            event.bestScore = (outterMax == null || outterMax.getMove() == null) ? 0 : outterMax.getSituation();
+            event.bestMove  = move == null ? "none" : (move.getType() == MoveType.Surrender ? "Surrender" : move.toString());
+            event.commit();
         }
+        publishSearchInfo(searchInfo(move, true));
         return move;
     }
 
@@ -209,11 +209,21 @@ public class SimplePlayer extends AbstractPlayer {
      */
     private GameSituation outterMax;
 
+    /**
+     * Enemy reply of the {@link #outterMax outterMax} move, second move of the principal variation
+     */
+    private Move bestReply;
+
     /**
      * GameSituation with the minimum rating
      */
     private GameSituation innerMin;
 
+    /**
+     * Enemy reply that leads to {@link #innerMin innerMin}
+     */
+    private Move innerMinReply;
+
     /**
      * Status that indicates that the AI has won
      */
@@ -224,24 +234,58 @@ public class SimplePlayer extends AbstractPlayer {
      */
     private Status enemyWin;
 
+    /**
+     * Moves simulated by the current search
+     */
+    private long nodes;
+
+    /**
+     * Deepest ply the current search reached, 1 for own moves and 2 for the enemy reactions
+     */
+    private int searchDepth;
+
     /**
      * checks if the given {@link nowhere2gopp.gamelogic.player.GameSituation GameSituation} has a better rating compared to {@link #outterMax
      * outterMax}.
      * @param newSit given GameSituation that is compared to the {@link #outterMax outterMax}.
+     * @param reply  expected enemy reply of the move, null if there is none
      */
-    private void checkMax(GameSituation newSit) {
-        if (newSit.getSituation() >= outterMax.getSituation())
-         outterMax = new GameSituation(newSit.getSituation(), newSit.getMove());
+    private void checkMax(GameSituation newSit, Move reply) {
+        if (newSit.getSituation() >= outterMax.getSituation()) {
+            outterMax = new GameSituation(newSit.getSituation(), newSit.getMove());
+            bestReply = reply;
+        }
     }
 
     /**
      * checks if the given {@link nowhere2gopp.gamelogic.player.GameSituation GameSituation} has a worse rating compared to {@link #innerMin
      * innerMin}.
      * @param newSit given GameSituation that is compared to the {@link #innerMin innerMin}.
+     * @param reply  enemy move that leads to the situation
      */
-    private void checkMin(GameSituation newSit) {
-        if (newSit.getSituation() <= innerMin.getSituation())
-          innerMin = new GameSituation(newSit.getSituation(), newSit.getMove());
+    private void checkMin(GameSituation newSit, Move reply) {
+        if (newSit.getSituation() <= innerMin.getSituation()) {
+            innerMin      = new GameSituation(newSit.getSituation(), newSit.getMove());
+            innerMinReply = reply;
+        }
+    }
+
+    /**
+     * This method builds a {@link nowhere2gopp.gamelogic.player.SearchInfo SearchInfo} of the running search. The principal
+     * variation is the best move and, if it was rated by the inner loop, the enemy reply the rating is based on.
+     * @param  best best move so far, null if none was rated yet
+     * @param  done true if the search is finished
+     * @return      snapshot of the search
+     */
+    private SearchInfo searchInfo(Move best, boolean done) {
+        List<Move> pv   = new ArrayList<>(2);
+        boolean   rated = outterMax != null && outterMax.getMove() != null;
+        if (best != null) {
+            pv.add(best);
+            if (rated && best == outterMax.getMove() && bestReply != null) pv.add(bestReply);
+        }
+        return new SearchInfo(getPlayerColor(), searchDepth, nodes, searchMillis(), 0,
+                              rated ? outterMax.getSituation() : 0, pv, done);
     }
 
     /**
@@ -286,13 +330,19 @@ public class SimplePlayer extends AbstractPlayer {
     /**
      * This method returns the next move the AI wants to make. To pinpoint which move the AI wants to do
      * by utilizing {@link #outterLoop(GameBoard) outterLoop} and {@link #innerLoop(Move, GameBoard) innerLoop}.
+     * If the time budget runs out before any move was rated, a random move is chosen instead.
      * @return move to be made
      */
     private Move moveMinMax() {
         outterMax = new GameSituation(Integer.MIN_VALUE, null);
         Serialize copycat = new Serialize();
         GameBoard copy    = (GameBoard)copycat.deepCopyObject(getGameBoard());
-        return outterLoop(copy);
+        Move move         = outterLoop(copy);
+        if (move == null) {
+            // the time budget ran out before a single move was rated
+            move = randomMove();
+        }
+        return move;
     }
 
     /**
@@ -302,7 +352,8 @@ public class SimplePlayer extends AbstractPlayer {
      * reations of a simulated move. A move is returned early if the tested move leads to a win
      * for the AI. The innerLoop is skipped if the simulated move leads to a lose for the AI.
      * The method {@link nowhere2gopp.gamelogic.GameBoard#rollBackMove(Move, HashMap) rollBackMove} is used to reverte
-     * a made move.
+     * a made move. The best move so far is offered to the {@link nowhere2gopp.gamelogic.player.AbstractPlayer AbstractPlayer}
+     * after every tested move and the search stops as soon as the time budget is used up.
      * @param  copy deep copy of the gameboard on which to simulate the moves
      * @return      move the AI wants to make
      */
@@ -310,25 +361,31 @@ public class SimplePlayer extends AbstractPlayer {
         HashMap<Move, Move> origMoves = copy.copyMoveMap(copy.getPossibleMoves(getPlayerColor()));
         Collection<Move>    selfMoves = getMoves(getPlayerColor(), copy);
         for (Move selfMove : selfMoves) {
-            innerMin = new GameSituation(Integer.MAX_VALUE, null);
+            if (isTimeUp()) break; // out of time, return the best move found so far
+            innerMin      = new GameSituation(Integer.MAX_VALUE, null);
+            innerMinReply = null;
             if (selfMove.getType() != MoveType.Surrender) {
                 copy.make(selfMove);
+                nodes++;
+                searchDepth = Math.max(searchDepth, 1);
                 Status status = copy.getStatus();
                 if (status == playerWin) {
                     return selfMove;
                 }
                 else if (status == Status.Ok) {
                     if (isLosingMove(copy)) {
-                        checkMax(new GameSituation(Integer.MIN_VALUE, selfMove));
+                        checkMax(new GameSituation(Integer.MIN_VALUE, selfMove), null);
                         copy.rollBackMove(selfMove, origMoves);
                         continue;
                     }
-                    innerLoop(selfMove, copy);
-                    checkMax(innerMin);
+                    if (innerLoop(selfMove, copy))
+                        checkMax(innerMin, innerMinReply);
                 } else {
-                    checkMax(new GameSituation(Integer.MIN_VALUE, selfMove));
+                    checkMax(new GameSituation(Integer.MIN_VALUE, selfMove), null);
                 }
                 copy.rollBackMove(selfMove, origMoves);
+                if (outterMax.getMove() != null) offerMove(outterMax.getMove());
+                if (isSearchInfoDue()) publishSearchInfo(searchInfo(outterMax.getMove(), false));
             }
         }
         return outterMax.getMove();
@@ -337,34 +394,43 @@ public class SimplePlayer extends AbstractPlayer {
     /**
      * This method is called from {@link #outterLoop(GameBoard) outterLoop} to simulate enemy reaction moves
      * of the passed selfMove. If the enemy move leads to the enemy winning, than this selfMove is given a bad rating packed
-     * into a {@link nowhere2gopp.gamelogic.player.GameSituation GameSituation} and passed to {@link #checkMin(GameSituation) checkMin(GameSituation)}
+     * into a {@link nowhere2gopp.gamelogic.player.GameSituation GameSituation} and passed to {@link #checkMin(GameSituation, Move) checkMin}
      ******and
      * returned to outterLoop.
      * Otherwise the {@link #gameSituation(GameBoard) gameSituation} is used to get a rating for the selfMove,
      * packed into a {@link nowhere2gopp.gamelogic.player.GameSituation GameSituation}  and given
-     * to {@link #checkMin(GameSituation) checkMin(GameSituation)}.
+     * to {@link #checkMin(GameSituation, Move) checkMin}.
      * {@link nowhere2gopp.gamelogic.GameBoard#rollBackMove(Move, HashMap) rollBackMove} is used to revert the simulated enemy moves.
+     * If the time budget runs out before all enemy moves were tested, the rating of the selfMove
+     * is incomplete and false is returned.
      * @param selfMove move that the AI made
      * @param copy     deep copy of gameboard on which the moves are simulated
+     * @return         true if all enemy moves were tested
      */
-    private void innerLoop(Move selfMove, GameBoard copy) {
+    private boolean innerLoop(Move selfMove, GameBoard copy) {
         Collection<Move>    opponentMoves   = getMoves(getEnemyColor(), copy);
         HashMap<Move, Move> opponentMoveMap = copy.getPossibleMoves(getEnemyColor());
         for (Move opponentMove : opponentMoves) {
+            if (isTimeUp()) return false;
             if (opponentMove.getType() != MoveType.Surrender) {
                 copy.make(opponentMove);
+                nodes++;
+                searchDepth = 2;
                 Status innerStatus = copy.getStatus();
                 if (innerStatus == enemyWin) {
-                    checkMin(new GameSituation(Integer.MIN_VALUE, selfMove));
+                    checkMin(new GameSituation(Integer.MIN_VALUE, selfMove), opponentMove);
                     copy.rollBackMove(opponentMove, opponentMoveMap);
-                    return;
+                    return true;
                 }
                 int situation    = gameSituation(copy);
                 GameSituation gS = new GameSituation(situation, selfMove);
-                    checkMin(gS);
+                    checkMin(gS, opponentMove);
                 copy.rollBackMove(opponentMove, opponentMoveMap);
+                // the enemy replies of a single move can take long on big boards
+                if (isSearchInfoDue()) publishSearchInfo(searchInfo(outterMax.getMove(), false));
             }
         }
+        return true;
     }
 
     /**
@@ -0,0 +1,200 @@
+package nowhere2gopp.gamelogic.player;
+
+import java.io.Serializable;
+
+import nowhere2gopp.preset.PlayerColor;
+
+/**
+ * This class stores the time control of a game and keeps the clocks of both players.
+ * The {@link nowhere2gopp.gamelogic.player.Referee Referee} asks it for the budget of the
+ * player whose turn it is and charges the time the player needed afterwards.
+ */
+public class TimeControl implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Enum for the different kinds of time controls
+     */
+    public enum Mode {
+        /** no time limit at all */
+        NONE,
+        /** every move has the same budget */
+        MOVE,
+        /** each player has a total clock that gains an increment after every move */
+        INCREMENT,
+        /** each player has a total clock for the whole game */
+        TOTAL
+    }
+
+    /**
+     * Budget of a single move, used when no time limit is set
+     */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    /**
+     * Kind of this time control
+     */
+    private final Mode mode;
+
+    /**
+     * Budget per move in {@link Mode#MOVE MOVE} mode, else the starting clock in milliseconds
+     */
+    private final long budget;
+
+    /**
+     * Milliseconds that are added to the clock after every move in {@link Mode#INCREMENT INCREMENT} mode
+     */
+    private final long increment;
+
+    /**
+     * Remaining milliseconds on the clock of the red player
+     */
+    private long redClock;
+
+    /**
+     * Remaining milliseconds on the clock of the blue player
+     */
+    private long blueClock;
+
+    /**
+     * Constructor that is used by the static factory methods
+     * @param mode      kind of time control
+     * @param budget    budget per move or starting clock in milliseconds
+     * @param increment increment per move in milliseconds
+     */
+    private TimeControl(final Mode mode, final long budget, final long increment) {
+        if ((budget <= 0) || (increment < 0)) {
+            throw new IllegalArgumentException("Time budget must be > 0 and increment >= 0 but they were " + budget + " and " + increment);
+        }
+        this.mode      = mode;
+        this.budget    = budget;
+        this.increment = increment;
+        redClock       = budget;
+        blueClock      = budget;
+    }
+
+    /**
+     * Returns a time control without any limit
+     * @return unlimited time control
+     */
+    public static TimeControl none() {
+        return new TimeControl(Mode.NONE, UNLIMITED, 0);
+    }
+
+    /**
+     * Returns a time control with a fixed budget for every move
+     * @param  millis budget per move in milliseconds
+     * @return        per move time control
+     */
+    public static TimeControl perMove(final long millis) {
+        return new TimeControl(Mode.MOVE, millis, 0);
+    }
+
+    /**
+     * Returns a time control with a total clock per player. If the increment is greater than zero
+     * it is added to the clock after every move.
+     * @param  millis    starting clock of both players in milliseconds
+     * @param  increment milliseconds that are added after every move
+     * @return           clock based time control
+     */
+    public static TimeControl clock(final long millis, final long increment) {
+        return new TimeControl(increment > 0 ? Mode.INCREMENT : Mode.TOTAL, millis, increment);
+    }
+
+    /**
+     * Returns a time control with the same mode, budget and increment whose clocks are full again
+     * @return fresh time control for another game
+     */
+    public TimeControl copy() {
+        return new TimeControl(mode, budget, increment);
+    }
+
+    /**
+     * Returns true if there is no time limit
+     * @return true if {@link #mode mode} is {@link Mode#NONE NONE}
+     */
+    public boolean isUnlimited() {
+        return mode == Mode.NONE;
+    }
+
+    /**
+     * Returns the {@link #mode mode} of this time control
+     * @return kind of this time control
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the milliseconds the given player may use for its next move
+     * @param  color player whose budget is needed
+     * @return       budget in milliseconds, {@link #UNLIMITED UNLIMITED} if there is no limit
+     */
+    public synchronized long budget(final PlayerColor color) {
+        switch (mode) {
+        case NONE:
+            return UNLIMITED;
+        case MOVE:
+            return budget;
+        default:
+            return Math.max(0, remaining(color));
+        }
+    }
+
+    /**
+     * Charges the time the given player needed for its move. In {@link Mode#INCREMENT INCREMENT} mode
+     * the increment is added afterwards.
+     * @param color   player who made the move
+     * @param elapsed milliseconds the player needed
+     */
+    public synchronized void charge(final PlayerColor color, final long elapsed) {
+        if ((mode == Mode.NONE) || (mode == Mode.MOVE)) return;
+
+        long left = remaining(color) - elapsed;
+        if (left >= 0) left += increment;
+
+        if (color == PlayerColor.Red) redClock = left;
+        else blueClock = left;
+    }
+
+    /**
+     * Returns true if the given player used more time than allowed
+     * @param  color   player to check
+     * @param  elapsed milliseconds the player needed for its last move
+     * @return         true if the budget or the clock was exceeded
+     */
+    public synchronized boolean isExceeded(final PlayerColor color, final long elapsed) {
+        switch (mode) {
+        case NONE:
+            return false;
+        case MOVE:
+            return elapsed > budget;
+        default:
+            return remaining(color) < 0;
+        }
+    }
+
+    /**
+     * Returns the remaining clock of the given player
+     * @param  color player whose clock is needed
+     * @return       remaining milliseconds, may be negative if the clock ran out
+     */
+    public synchronized long remaining(final PlayerColor color) {
+        return color == PlayerColor.Red ? redClock : blueClock;
+    }
+
+    /**
+     * Returns a short description of this time control
+     * @return String like "MOVE 500ms" or "INCREMENT 60000ms+1000ms"
+     */
+    public String toString() {
+        switch (mode) {
+        case NONE:
+            return "NONE";
+        case INCREMENT:
+            return mode + " " + budget + "ms+" + increment + "ms";
+        default:
+            return mode + " " + budget + "ms";
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package nowhere2gopp.gamelogic.player;
+
+import java.rmi.RemoteException;
+
+import nowhere2gopp.preset.Player;
+
+/**
+ * Extension of the {@link nowhere2gopp.preset.Player Player} interface for players that respect a time budget.
+ * The {@link nowhere2gopp.gamelogic.player.Referee Referee} passes the budget of the next move before it calls
+ * {@link nowhere2gopp.preset.Player#request() request}. The player should then return the best move it found so far
+ * once the budget is used up.
+ */
+public interface TimedPlayer extends Player {
+    /**
+     * Sets the budget for the next call of {@link nowhere2gopp.preset.Player#request() request}
+     * @param millis budget in milliseconds, {@link nowhere2gopp.gamelogic.player.TimeControl#UNLIMITED UNLIMITED} for no limit
+     */
+    void setMoveBudget(long millis) throws Exception, RemoteException;
+}
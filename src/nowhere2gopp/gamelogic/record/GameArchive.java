@@ -0,0 +1,380 @@
+package nowhere2gopp.gamelogic.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.gamelogic.InvalidMoveException;
+import nowhere2gopp.gamelogic.net.MoveCodec;
+import nowhere2gopp.preset.ArgumentParser;
+import nowhere2gopp.preset.ArgumentParserException;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.PlayerType;
+import nowhere2gopp.preset.Status;
+
+/**
+ * A directory of finished games for statistics over many tournaments. It only grows: {@link #add(int, PlayerType, PlayerType, List,
+ * Status) add} appends the moves of a game, packed by the {@link nowhere2gopp.gamelogic.net.MoveCodec MoveCodec}, to the current
+ * segment file and a fixed entry to the games file:
+ * <pre>
+ * segment-00000.dat ...  the moves of the games back to back, a new segment starts after {@link #SEGMENT_BYTES SEGMENT_BYTES}
+ * games.dat              {@link #ENTRY ENTRY} bytes per game: segment(4) offset(4) plies(2) bytes(2) size red blue status
+ * positions.idx          the {@link PositionIndex PositionIndex} of the games
+ * </pre>
+ * Game n is the entry at n * ENTRY, so a game is found without a search. The entry is written after its moves; when an archive is
+ * opened, entries whose moves are not complete, left by a crash, are cut off.
+ * <p>
+ * Writing never throws, like the {@link GameJournal GameJournal}: the first error is kept, later games are dropped, and
+ * {@link #getError() getError} returns it. The files are synced when the archive is closed.
+ */
+public final class GameArchive implements Closeable {
+    /**
+     * Bytes of a game entry
+     */
+    public static final int ENTRY = 16;
+
+    /**
+     * Size at which a new segment is started
+     */
+    public static final int SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * Name of the games file
+     */
+    static final String GAMES = "games.dat";
+
+    /**
+     * Most moves of a game, the plies of an entry have two bytes
+     */
+    private static final int MAX_PLIES = 0xFFFF / MoveCodec.MAX_SIZE;
+
+    /**
+     * Directory of the archive
+     */
+    private final Path dir;
+
+    /**
+     * Open channel of the games file
+     */
+    private final FileChannel games;
+
+    /**
+     * Buffer of one game, guarded by this archive
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(ENTRY + MAX_PLIES * MoveCodec.MAX_SIZE);
+
+    /**
+     * Open channel of the current segment, guarded by this archive
+     */
+    private FileChannel segment;
+
+    /**
+     * Number of the current segment, guarded by this archive
+     */
+    private int segmentNumber;
+
+    /**
+     * Number of games, guarded by this archive
+     */
+    private int count;
+
+    /**
+     * First error, null if there was none
+     */
+    private volatile IOException error;
+
+    /**
+     * Opens an archive, the directory is created if it does not exist
+     * @param  dir         directory of the archive
+     * @throws IOException if the files can not be opened
+     */
+    public GameArchive(final Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        games = FileChannel.open(dir.resolve(GAMES), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            count = (int) (games.size() / ENTRY);
+            long end = 0;
+            while (count > 0) {
+                ByteBuffer last = entry(count - 1);
+                segmentNumber = last.getInt(0);
+                end = last.getInt(4) + (long) (last.getShort(10) & 0xFFFF);
+                Path file = segmentFile(segmentNumber);
+                if (Files.exists(file) && Files.size(file) >= end) break;
+                count--;
+            }
+            if (count == 0) {
+                segmentNumber = 0;
+                end           = 0;
+            }
+            games.truncate((long) count * ENTRY);
+            games.position((long) count * ENTRY);
+            segment = FileChannel.open(segmentFile(segmentNumber), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            segment.truncate(end);
+            segment.position(end);
+        } catch (IOException e) {
+            games.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the file of a segment
+     * @param  number number of the segment
+     * @return        path of the segment
+     */
+    private Path segmentFile(final int number) {
+        return dir.resolve(String.format("segment-%05d.dat", number));
+    }
+
+    /**
+     * Appends a game
+     * @param  size   size of the board
+     * @param  red    type of the red player
+     * @param  blue   type of the blue player
+     * @param  moves  moves in the order they were made
+     * @param  status status at the end of the game
+     * @return        number of the game, -1 if it was dropped after an error
+     */
+    public synchronized int add(final int size, final PlayerType red, final PlayerType blue, final List<Move> moves, final Status status) {
+        if (moves.size() > MAX_PLIES) throw new IllegalArgumentException("A game of the archive has at most " + MAX_PLIES + " moves but got " + moves.size());
+        if (error != null) return -1;
+        try {
+            if (segment.position() > SEGMENT_BYTES) {
+                segment.close();
+                segmentNumber++;
+                segment = FileChannel.open(segmentFile(segmentNumber), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                           StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            int offset = (int) segment.position();
+            buffer.clear();
+            for (Move move : moves) {
+                MoveCodec.put(buffer, move);
+            }
+            int bytes = buffer.position();
+            buffer.flip();
+            while (buffer.hasRemaining()) segment.write(buffer);
+
+            buffer.clear();
+            buffer.putInt(segmentNumber).putInt(offset).putShort((short) moves.size()).putShort((short) bytes);
+            buffer.put((byte) size).put((byte) red.ordinal()).put((byte) blue.ordinal()).put((byte) status.ordinal());
+            buffer.flip();
+            while (buffer.hasRemaining()) games.write(buffer);
+            return count++;
+        } catch (IOException e) {
+            error = e;
+            return -1;
+        }
+    }
+
+    /**
+     * Reads the entry of a game
+     * @param  game        number of the game
+     * @return             new buffer with the entry
+     * @throws IOException if the games file can not be read
+     */
+    private ByteBuffer entry(final int game) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY);
+        while (entry.hasRemaining()) {
+            if (games.read(entry, (long) game * ENTRY + entry.position()) < 0) throw new IOException(dir + " has no game " + game);
+        }
+        return entry;
+    }
+
+    /**
+     * Reads a game
+     * @param  game        number of the game, from 0 to {@link #getGames() getGames} - 1
+     * @return             game with its moves, its number and the status at the end
+     * @throws IOException if the files can not be read
+     */
+    public RecoveredGame getGame(final int game) throws IOException {
+        if (game < 0 || game >= getGames()) throw new IndexOutOfBoundsException("Game " + game + " of " + getGames());
+        ByteBuffer    entry  = entry(game);
+        RecoveredGame result = new RecoveredGame(game, entry.get(12), PlayerType.values()[entry.get(13)], PlayerType.values()[entry.get(14)], 0L, 0L);
+        int        plies = entry.getShort(8) & 0xFFFF;
+        ByteBuffer moves = ByteBuffer.allocate(entry.getShort(10) & 0xFFFF);
+        try (FileChannel channel = FileChannel.open(segmentFile(entry.getInt(0)), StandardOpenOption.READ)) {
+            while (moves.hasRemaining()) {
+                if (channel.read(moves, entry.getInt(4) + moves.position()) < 0) throw new IOException(segmentFile(entry.getInt(0)) + " is cut off");
+            }
+        }
+        moves.flip();
+        for (int i = 0; i < plies; i++) {
+            result.add(MoveCodec.get(moves));
+        }
+        result.end(Status.values()[entry.get(15)]);
+        return result;
+    }
+
+    /**
+     * Reads the games from a number on, in the order they were added, without keeping them.
+     * The games file and the segments are each read once from front to back.
+     * @param  first       number of the first game
+     * @param  visitor     called for every game
+     * @throws IOException if the files can not be read or the visitor throws it
+     */
+    void forEach(final int first, final GameVisitor visitor) throws IOException {
+        int last = getGames();
+        if (first >= last) return;
+        ByteBuffer entries = ByteBuffer.allocate(ENTRY * 4096);
+        entries.flip();
+        ByteBuffer moves   = ByteBuffer.allocateDirect(MAX_PLIES * MoveCodec.MAX_SIZE);
+        List<Move> list    = new ArrayList<>();
+        FileChannel channel = null;
+        int opened = -1;
+        try {
+            for (int game = first; game < last; game++) {
+                if (!entries.hasRemaining()) {
+                    entries.clear();
+                    entries.limit(Math.min(entries.capacity(), (last - game) * ENTRY));
+                    while (entries.hasRemaining()) {
+                        if (games.read(entries, (long) game * ENTRY + entries.position()) < 0) throw new IOException(dir.resolve(GAMES) + " is cut off");
+                    }
+                    entries.flip();
+                }
+                int number = entries.getInt();
+                int offset = entries.getInt();
+                int plies  = entries.getShort() & 0xFFFF;
+                int bytes  = entries.getShort() & 0xFFFF;
+                int size   = entries.get();
+                entries.position(entries.position() + 2);
+                Status status = Status.values()[entries.get()];
+                if (number != opened) {
+                    if (channel != null) channel.close();
+                    channel = FileChannel.open(segmentFile(number), StandardOpenOption.READ);
+                    opened  = number;
+                }
+                moves.clear().limit(bytes);
+                while (moves.hasRemaining()) {
+                    if (channel.read(moves, offset + moves.position()) < 0) throw new IOException(segmentFile(number) + " is cut off");
+                }
+                moves.flip();
+                list.clear();
+                for (int i = 0; i < plies; i++) {
+                    list.add(MoveCodec.get(moves));
+                }
+                visitor.visit(game, size, list, status);
+            }
+        } finally {
+            if (channel != null) channel.close();
+        }
+    }
+
+    /**
+     * Receives the games of {@link #forEach(int, GameVisitor) forEach}
+     */
+    interface GameVisitor {
+        /**
+         * Receives a game
+         * @param game   number of the game
+         * @param size   size of the board
+         * @param moves  moves of the game, the list is reused for the next game
+         * @param status status at the end of the game
+         * @throws IOException if the visitor can not write what it made of the game
+         */
+        void visit(int game, int size, List<Move> moves, Status status) throws IOException;
+    }
+
+    /**
+     * Returns the number of games
+     * @return games in the archive
+     */
+    public synchronized int getGames() {
+        return count;
+    }
+
+    /**
+     * Returns the directory of this archive
+     * @return path of the directory
+     */
+    public Path getDir() {
+        return dir;
+    }
+
+    /**
+     * Returns the first error of a write
+     * @return error, null if there was none
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    /**
+     * Syncs and closes the files
+     * @throws IOException if the files could not be written or closed, also the first error of the writes before
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            segment.force(false);
+            games.force(false);
+        } finally {
+            segment.close();
+            games.close();
+        }
+        if (error != null) throw error;
+    }
+
+    /**
+     * Imports the finished games of a journal, updates the position index and looks up a position.
+     * "-archive" is the directory of the archive, "-journal" a journal to import, "--index" updates the index without importing;
+     * "-hash" looks up a position hash, "-game" and "-ply" the position of an archived game after that many moves.
+     * @param args commandline arguments without the leading "archive"
+     */
+    public static void main(final String[] args) {
+        try {
+            ArgumentParser parser = new ArgumentParser(args);
+            Path dir = Paths.get(parser.getArchive());
+            long hash = 0;
+            if (!parser.isSet("journal") && !Files.isDirectory(dir)) throw new IOException(dir + " is no archive");
+            try (GameArchive archive = new GameArchive(dir)) {
+                if (parser.isSet("journal")) {
+                    int imported = 0;
+                    for (RecoveredGame game : JournalReader.read(Paths.get(parser.getJournal())).getGames()) {
+                        if (!game.isFinished()) continue;
+                        archive.add(game.getSize(), game.getRed(), game.getBlue(), game.getMoves(), game.getStatus());
+                        imported++;
+                    }
+                    System.out.println("Imported " + imported + " games");
+                }
+                if (parser.isSet("journal") || parser.isIndex()) {
+                    System.out.println("Indexed " + PositionIndex.build(archive) + " games");
+                }
+                if (parser.isSet("game")) {
+                    RecoveredGame game = archive.getGame(parser.getGame());
+                    GameBoard board = new GameBoard(game.getSize());
+                    int plies = parser.isSet("ply") ? parser.getPly() : 0;
+                    if (plies < 0 || plies > game.getMoves().size()) throw new IOException("Game " + game.getGame() + " has " + game.getMoves().size() + " moves");
+                    for (Move move : game.getMoves().subList(0, plies)) {
+                        board.make(move);
+                    }
+                    hash = board.positionHash();
+                    System.out.println(game + ", after " + plies + " moves: phase " + board.getGamePhase() + ", round " + board.getRounds());
+                } else if (parser.isSet("hash")) {
+                    hash = parser.getHash();
+                }
+                System.out.println(archive.getGames() + " games in " + dir);
+            }
+            if (!Files.exists(dir.resolve(PositionIndex.FILE))) throw new IOException(dir + " has no position index, build it with --index");
+            try (PositionIndex index = new PositionIndex(dir)) {
+                System.out.println(index.getGames() + " games indexed, " + index.getPositions() + " positions, " + index.getOccurrences() + " occurrences");
+                if (!parser.isSet("game") && !parser.isSet("hash")) return;
+                System.out.println(index.lookup(hash));
+                for (long occurrence : index.occurrences(hash, 10)) {
+                    System.out.println("  game " + PositionIndex.gameOf(occurrence) + ", ply " + PositionIndex.plyOf(occurrence));
+                }
+            }
+        } catch (ArgumentParserException | IOException | InvalidMoveException | IndexOutOfBoundsException | NumberFormatException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
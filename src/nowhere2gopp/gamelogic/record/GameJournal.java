@@ -0,0 +1,424 @@
+package nowhere2gopp.gamelogic.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+import nowhere2gopp.gamelogic.metrics.Counter;
+import nowhere2gopp.gamelogic.metrics.Histogram;
+import nowhere2gopp.gamelogic.metrics.Metrics;
+import nowhere2gopp.gamelogic.net.MoveCodec;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.PlayerType;
+import nowhere2gopp.preset.Status;
+
+/**
+ * An append-only file of the games played by a referee, so a game survives the crash of the process that hosts it and can be
+ * analysed later. Any number of games can be written at the same time, every game gets its own number through
+ * {@link #begin(int, PlayerType, PlayerType, long) begin}.
+ * <p>
+ * The file starts with {@link #MAGIC MAGIC} and {@link #VERSION VERSION}, followed by records of the form
+ * {@code short length, int crc, byte type, int game, payload}, where the CRC32C covers everything after the crc and length counts
+ * the same bytes:
+ * <ul>
+ * <li>{@link #BEGIN BEGIN}: byte size, byte red {@link nowhere2gopp.preset.PlayerType PlayerType}, byte blue PlayerType,
+ * long seed, long start in milliseconds since 1970</li>
+ * <li>{@link #MOVE MOVE}: the move packed by {@link nowhere2gopp.gamelogic.net.MoveCodec MoveCodec}, 1 or 9 bytes</li>
+ * <li>{@link #END END}: byte {@link nowhere2gopp.preset.Status Status}</li>
+ * </ul>
+ * A move takes 20 bytes. The records are packed into one reused direct buffer and written when it is full or at the next sync.
+ * A background thread syncs the file every {@link #getSyncMillis() syncMillis} milliseconds with one fsync for all games
+ * (group commit), so a crash loses at most the moves of that interval and a move costs no system call.
+ * {@link JournalReader JournalReader} reads the file back; a record torn by a crash fails its checksum and ends the file.
+ * <p>
+ * Writing never throws, like a {@link java.io.PrintWriter PrintWriter}: the first error is kept, later records are dropped, and
+ * {@link #getError() getError} returns it.
+ */
+public final class GameJournal implements Closeable {
+    /**
+     * First four bytes of a journal, "N2GJ"
+     */
+    public static final int MAGIC = 0x4E32474A;
+
+    /**
+     * Version of the format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Bytes of magic and version at the start of the file
+     */
+    public static final int FILE_HEADER = 8;
+
+    /**
+     * Bytes in front of the payload of a record: length and crc
+     */
+    public static final int RECORD_HEADER = 6;
+
+    /**
+     * Type of the record that starts a game
+     */
+    public static final byte BEGIN = 1;
+
+    /**
+     * Type of the record of a move
+     */
+    public static final byte MOVE = 2;
+
+    /**
+     * Type of the record that ends a game
+     */
+    public static final byte END = 3;
+
+    /**
+     * Largest record, the begin record
+     */
+    static final int MAX_RECORD = RECORD_HEADER + 5 + 3 + 16;
+
+    /**
+     * Default interval between two syncs in milliseconds
+     */
+    public static final long DEFAULT_SYNC_MILLIS = 10;
+
+    /**
+     * Size of the write buffer
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Written records
+     */
+    private static final Counter RECORDS = Metrics.counter("journal_records_total", "Records written to the game journal");
+
+    /**
+     * Duration of one group commit
+     */
+    private static final Histogram SYNC_TIME = Metrics.histogram("journal_sync_seconds", "Duration of a group commit of the game journal");
+
+    /**
+     * File of the journal
+     */
+    private final Path file;
+
+    /**
+     * Open channel of the file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Records not written yet, guarded by this journal
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Checksum of the records, guarded by this journal
+     */
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * Number of the next game
+     */
+    private final AtomicInteger nextGame;
+
+    /**
+     * Interval between two syncs in milliseconds
+     */
+    private final long syncMillis;
+
+    /**
+     * Thread that syncs the file
+     */
+    private final Thread syncer;
+
+    /**
+     * Monitor the {@link #syncer syncer} waits on between two syncs, {@link #close() close} wakes it up with it
+     */
+    private final Object wakeup = new Object();
+
+    /**
+     * Bytes written to the channel, guarded by this journal
+     */
+    private long written;
+
+    /**
+     * Value of {@link #written written} at the last sync, guarded by the {@link #syncer syncer}
+     */
+    private long synced;
+
+    /**
+     * Number of syncs that wrote something
+     */
+    private volatile long syncs;
+
+    /**
+     * First error, null if there was none
+     */
+    private volatile IOException error;
+
+    /**
+     * True once {@link #close() close} was called, set under the lock of this journal so no record is started after it
+     */
+    private volatile boolean closed;
+
+    /**
+     * Opens a journal with the {@link #DEFAULT_SYNC_MILLIS default} sync interval, see {@link #open(Path, long) open}
+     * @param  file        file of the journal
+     * @return             open journal
+     * @throws IOException if the file can not be opened or is no journal
+     */
+    public static GameJournal open(final Path file) throws IOException {
+        return open(file, DEFAULT_SYNC_MILLIS);
+    }
+
+    /**
+     * Opens a journal. A new file is created; an existing journal is continued after its last complete record, a torn record at
+     * its end is cut off and the new games get numbers after the games already in it.
+     * @param  file        file of the journal
+     * @param  syncMillis  interval between two syncs in milliseconds, at least 1
+     * @return             open journal
+     * @throws IOException if the file can not be opened or is no journal
+     */
+    public static GameJournal open(final Path file, final long syncMillis) throws IOException {
+        if (syncMillis < 1) throw new IllegalArgumentException("The sync interval must be at least 1ms but was " + syncMillis);
+        long end      = FILE_HEADER;
+        int  nextGame = 0;
+        if (Files.exists(file) && Files.size(file) > 0) {
+            JournalReader reader = JournalReader.scan(file);
+            end      = reader.getEnd();
+            nextGame = reader.getNextGame();
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                while (header.hasRemaining()) channel.write(header);
+                channel.force(true);
+            } else {
+                channel.truncate(end);
+            }
+            channel.position(end);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new GameJournal(file, channel, nextGame, syncMillis);
+    }
+
+    /**
+     * Creates a journal on an open channel, use {@link #open(Path, long) open}
+     * @param file       file of the journal
+     * @param channel    channel positioned at the end of the journal
+     * @param nextGame   number of the next game
+     * @param syncMillis interval between two syncs
+     */
+    private GameJournal(final Path file, final FileChannel channel, final int nextGame, final long syncMillis) {
+        this.file       = file;
+        this.channel    = channel;
+        this.nextGame   = new AtomicInteger(nextGame);
+        this.syncMillis = syncMillis;
+        syncer = new Thread(this::syncLoop, "journal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+    }
+
+    /**
+     * Starts a new game
+     * @param  size  size of the board
+     * @param  red   type of the red player
+     * @param  blue  type of the blue player
+     * @param  seed  seed of the random players, 0 if the game is not seeded
+     * @return       game to write the moves to
+     */
+    public JournalGame begin(final int size, final PlayerType red, final PlayerType blue, final long seed) {
+        int game = nextGame.getAndIncrement();
+        synchronized (this) {
+            ByteBuffer out = start(BEGIN, game);
+            if (out != null) {
+                out.put((byte) size).put((byte) red.ordinal()).put((byte) blue.ordinal());
+                out.putLong(seed).putLong(System.currentTimeMillis());
+                finish();
+            }
+        }
+        return new JournalGame(this, game);
+    }
+
+    /**
+     * Writes a move of a game, package visible for {@link JournalGame#move(Move) JournalGame.move}
+     * @param game number of the game
+     * @param move move that was made
+     */
+    synchronized void move(final int game, final Move move) {
+        ByteBuffer out = start(MOVE, game);
+        if (out == null) return;
+        MoveCodec.put(out, move);
+        finish();
+    }
+
+    /**
+     * Writes the end of a game, package visible for {@link JournalGame#end(Status) JournalGame.end}
+     * @param game   number of the game
+     * @param status status at the end of the game
+     */
+    synchronized void end(final int game, final Status status) {
+        ByteBuffer out = start(END, game);
+        if (out == null) return;
+        out.put((byte) status.ordinal());
+        finish();
+    }
+
+    /**
+     * Starts a record in the buffer, the buffer is written to the file first if it could be too full for the record.
+     * The caller holds the lock of this journal.
+     * @param  type type of the record
+     * @param  game number of the game
+     * @return      buffer positioned at the payload, null after an error or when closed
+     */
+    private ByteBuffer start(final byte type, final int game) {
+        if (error != null || closed) return null;
+        if (buffer.remaining() < MAX_RECORD && !drain()) return null;
+        buffer.mark();
+        buffer.putShort((short) 0).putInt(0);
+        buffer.put(type).putInt(game);
+        return buffer;
+    }
+
+    /**
+     * Fills in length and crc of the record started by {@link #start(byte, int) start}. The caller holds the lock of this journal.
+     */
+    private void finish() {
+        int end = buffer.position();
+        buffer.reset();
+        int begin = buffer.position();
+        buffer.limit(end).position(begin + RECORD_HEADER);
+        crc.reset();
+        crc.update(buffer);
+        buffer.limit(buffer.capacity());
+        buffer.putShort(begin, (short) (end - begin - RECORD_HEADER));
+        buffer.putInt(begin + 2, (int) crc.getValue());
+        buffer.position(end);
+        RECORDS.inc();
+    }
+
+    /**
+     * Writes the buffer to the file without syncing it. The caller holds the lock of this journal.
+     * @return false if the write failed, the error is kept
+     */
+    private boolean drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) written += channel.write(buffer);
+            return true;
+        } catch (IOException e) {
+            if (error == null) error = e;
+            return false;
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Writes all records and syncs the file, the moves written before are durable when it returns.
+     * The syncing thread calls it every {@link #getSyncMillis() syncMillis} milliseconds, so all games that wrote records in
+     * that time share one fsync.
+     */
+    public void sync() {
+        long start = Metrics.start();
+        long target;
+        synchronized (this) {
+            if (buffer.position() > 0) drain();
+            target = written;
+        }
+        synchronized (syncer) {
+            if (target <= synced || error != null) return;
+            try {
+                channel.force(false);
+                synced = target;
+                syncs++;
+                SYNC_TIME.recordSince(start);
+            } catch (IOException e) {
+                if (error == null) error = e;
+            }
+        }
+    }
+
+    /**
+     * Body of the {@link #syncer syncer}: syncs until the journal is closed
+     */
+    private void syncLoop() {
+        while (true) {
+            synchronized (wakeup) {
+                try {
+                    if (!closed) wakeup.wait(syncMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            if (closed) return;
+            sync();
+        }
+    }
+
+    /**
+     * Writes and syncs all records and closes the file. Records are refused from the moment it is called, then the
+     * {@link #syncer syncer} is woken up and waited for, so it is never interrupted inside a write or force of the channel,
+     * and the last records are written and synced.
+     * @throws IOException if the file could not be written or closed, also the first error of the writes before
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        synchronized (wakeup) {
+            wakeup.notifyAll();
+        }
+        try {
+            syncer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sync();
+        channel.close();
+        if (error != null) throw error;
+    }
+
+    /**
+     * Returns the first error of a write or sync
+     * @return error, null if there was none
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    /**
+     * Returns the file of this journal
+     * @return path of the file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the interval between two syncs
+     * @return milliseconds
+     */
+    public long getSyncMillis() {
+        return syncMillis;
+    }
+
+    /**
+     * Returns the number of syncs that wrote something, every sync covers the records of all games since the one before
+     * @return number of fsyncs
+     */
+    public long getSyncs() {
+        return syncs;
+    }
+}
@@ -0,0 +1,68 @@
+package nowhere2gopp.gamelogic.record;
+
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.Status;
+
+/**
+ * One game of a {@link GameJournal GameJournal}, created by {@link GameJournal#begin(int, nowhere2gopp.preset.PlayerType,
+ * nowhere2gopp.preset.PlayerType, long) begin}. The referee of the game writes every move it made and the status at the end.
+ */
+public final class JournalGame {
+    /**
+     * Journal the game is written to
+     */
+    private final GameJournal journal;
+
+    /**
+     * Number of the game in the journal
+     */
+    private final int game;
+
+    /**
+     * Moves written so far
+     */
+    private int plies;
+
+    /**
+     * Creates the game, only used by the journal
+     * @param journal journal the game is written to
+     * @param game    number of the game
+     */
+    JournalGame(final GameJournal journal, final int game) {
+        this.journal = journal;
+        this.game    = game;
+    }
+
+    /**
+     * Writes a move that was made on the board of the referee
+     * @param move legal move
+     */
+    public void move(final Move move) {
+        journal.move(game, move);
+        plies++;
+    }
+
+    /**
+     * Writes the end of the game
+     * @param status status of the board of the referee, {@link nowhere2gopp.preset.Status#Ok Ok} if the game was aborted
+     */
+    public void end(final Status status) {
+        journal.end(game, status);
+    }
+
+    /**
+     * Returns the number of the game in the journal
+     * @return number of the game
+     */
+    public int getGame() {
+        return game;
+    }
+
+    /**
+     * Returns the number of moves written
+     * @return moves
+     */
+    public int getPlies() {
+        return plies;
+    }
+}
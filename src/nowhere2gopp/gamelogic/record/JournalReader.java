@@ -0,0 +1,243 @@
+package nowhere2gopp.gamelogic.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.gamelogic.InvalidMoveException;
+import nowhere2gopp.gamelogic.net.MoveCodec;
+import nowhere2gopp.preset.ArgumentParser;
+import nowhere2gopp.preset.ArgumentParserException;
+import nowhere2gopp.preset.PlayerType;
+import nowhere2gopp.preset.Status;
+
+/**
+ * Reads a {@link GameJournal GameJournal} back, for the recovery after a crash and for later analysis. The file is read in
+ * blocks through one buffer, so a journal of any length needs little memory besides the games. Reading stops at the first record
+ * that is cut off or fails its checksum, everything before it is the journal as it was synced; {@link #getEnd() getEnd} is the
+ * offset where the journal continues.
+ */
+public final class JournalReader {
+    /**
+     * Size of the read buffer
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * True if the moves are unpacked and kept, false if only the end of the journal and the game numbers are wanted
+     */
+    private final boolean keepMoves;
+
+    /**
+     * Games by number, in the order they were begun
+     */
+    private final Map<Integer, RecoveredGame> games = new LinkedHashMap<>();
+
+    /**
+     * Offset after the last complete record
+     */
+    private long end = GameJournal.FILE_HEADER;
+
+    /**
+     * Bytes after {@link #end end} that could not be read
+     */
+    private long torn;
+
+    /**
+     * Number after the highest game number
+     */
+    private int nextGame;
+
+    /**
+     * Creates an empty reader, use {@link #read(Path) read}
+     * @param keepMoves true to unpack and keep the moves
+     */
+    private JournalReader(final boolean keepMoves) {
+        this.keepMoves = keepMoves;
+    }
+
+    /**
+     * Reads a journal
+     * @param  file        file of the journal
+     * @return             reader with the games of the journal
+     * @throws IOException if the file can not be read or is no journal
+     */
+    public static JournalReader read(final Path file) throws IOException {
+        return read(file, true);
+    }
+
+    /**
+     * Checks a journal without keeping the moves, for {@link GameJournal#open(Path, long) GameJournal.open} that only needs
+     * {@link #getEnd() getEnd} and {@link #getNextGame() getNextGame}
+     * @param  file        file of the journal
+     * @return             reader whose games have no moves
+     * @throws IOException if the file can not be read or is no journal
+     */
+    static JournalReader scan(final Path file) throws IOException {
+        return read(file, false);
+    }
+
+    /**
+     * Reads a journal
+     * @param  file        file of the journal
+     * @param  keepMoves   true to unpack and keep the moves
+     * @return             reader with the games of the journal
+     * @throws IOException if the file can not be read or is no journal
+     */
+    private static JournalReader read(final Path file, final boolean keepMoves) throws IOException {
+        JournalReader reader = new JournalReader(keepMoves);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (buffer.position() < GameJournal.FILE_HEADER && channel.read(buffer) >= 0) {}
+            buffer.flip();
+            if (buffer.remaining() < GameJournal.FILE_HEADER || buffer.getInt() != GameJournal.MAGIC) {
+                throw new IOException(file + " is no game journal");
+            }
+            int version = buffer.getInt();
+            if (version != GameJournal.VERSION) throw new IOException(file + " has version " + version + " but " + GameJournal.VERSION + " is supported");
+            reader.records(channel, buffer);
+            reader.torn = channel.size() - reader.end;
+        }
+        return reader;
+    }
+
+    /**
+     * Reads the records until the file ends or a record is broken
+     * @param  channel     channel of the file
+     * @param  buffer      buffer positioned after the file header
+     * @throws IOException if the file can not be read
+     */
+    private void records(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        CRC32C crc = new CRC32C();
+        while (true) {
+            if (buffer.remaining() < GameJournal.MAX_RECORD) {
+                buffer.compact();
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {}
+                buffer.flip();
+            }
+            if (buffer.remaining() < GameJournal.RECORD_HEADER) return;
+            int start  = buffer.position();
+            int length = buffer.getShort();
+            int check  = buffer.getInt();
+            if (length < 5 || length > GameJournal.MAX_RECORD - GameJournal.RECORD_HEADER || buffer.remaining() < length) return;
+            int limit = buffer.limit();
+            buffer.limit(buffer.position() + length);
+            crc.reset();
+            crc.update(buffer);
+            buffer.limit(limit).position(start + GameJournal.RECORD_HEADER);
+            if ((int) crc.getValue() != check || !apply(buffer)) return;
+            buffer.position(start + GameJournal.RECORD_HEADER + length);
+            end += GameJournal.RECORD_HEADER + length;
+        }
+    }
+
+    /**
+     * Adds a record with a valid checksum to its game
+     * @param  buffer buffer positioned at the type of the record
+     * @return        false if the record makes no sense, then reading stops
+     */
+    private boolean apply(final ByteBuffer buffer) {
+        byte type = buffer.get();
+        int  game = buffer.getInt();
+        try {
+            if (type == GameJournal.BEGIN) {
+                int        size  = buffer.get();
+                PlayerType red   = PlayerType.values()[buffer.get()];
+                PlayerType blue  = PlayerType.values()[buffer.get()];
+                long       seed  = buffer.getLong();
+                long       start = buffer.getLong();
+                games.put(game, new RecoveredGame(game, size, red, blue, seed, start));
+                nextGame = Math.max(nextGame, game + 1);
+                return true;
+            }
+            RecoveredGame recovered = games.get(game);
+            if (recovered == null) return false;
+            if (type == GameJournal.MOVE) {
+                if (keepMoves) recovered.add(MoveCodec.get(buffer));
+                return true;
+            }
+            if (type == GameJournal.END) {
+                recovered.end(Status.values()[buffer.get()]);
+                return true;
+            }
+            return false;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the games of the journal
+     * @return games in the order they were begun
+     */
+    public List<RecoveredGame> getGames() {
+        return new ArrayList<>(games.values());
+    }
+
+    /**
+     * Returns a game of the journal
+     * @param  game number of the game
+     * @return      game, null if the journal does not contain it
+     */
+    public RecoveredGame getGame(final int game) {
+        return games.get(game);
+    }
+
+    /**
+     * Returns the offset after the last complete record, where the journal continues
+     * @return length of the readable part of the file
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the number of bytes after the last complete record, left by a crash in the middle of a write
+     * @return bytes that can not be read, 0 for a clean journal
+     */
+    public long getTorn() {
+        return torn;
+    }
+
+    /**
+     * Returns the number after the highest game number of the journal
+     * @return number of the next game
+     */
+    public int getNextGame() {
+        return nextGame;
+    }
+
+    /**
+     * Prints the games of a journal and rebuilds the boards of the unfinished ones.
+     * "-file" is the journal.
+     * @param args commandline arguments without the leading "journal"
+     */
+    public static void main(final String[] args) {
+        try {
+            ArgumentParser parser = new ArgumentParser(args);
+            JournalReader  reader = read(Paths.get(parser.getFile()));
+            int unfinished = 0;
+            for (RecoveredGame game : reader.getGames()) {
+                System.out.println(game);
+                if (game.isFinished()) continue;
+                unfinished++;
+                GameBoard board = game.replay();
+                System.out.println("  recovered: phase " + board.getGamePhase() + ", round " + board.getRounds() + ", " + board.getTurn() + " to move");
+            }
+            System.out.println(reader.games.size() + " games, " + unfinished + " unfinished, " + reader.getEnd() + " bytes"
+                               + (reader.getTorn() > 0 ? ", " + reader.getTorn() + " torn bytes at the end" : ""));
+        } catch (ArgumentParserException | IOException | InvalidMoveException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,786 @@
+package nowhere2gopp.gamelogic.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.gamelogic.Zobrist;
+import nowhere2gopp.preset.Status;
+
+/**
+ * Finds the games of a {@link GameArchive GameArchive} that reached a position, by its {@link GameBoard#positionHash() positionHash},
+ * without reading a game. The index is the file positions.idx of the archive and is mapped into memory:
+ * <pre>
+ * header(32):    magic version games scheme positions(8) occurrences(8)
+ * fanout:        65537 longs, the first position whose hash starts with each 16 bits, and the number of positions
+ * occurrences:   8 bytes each, game(4) ply(3) status(1), grouped by position
+ * positions:     {@link #POSITION POSITION} bytes each, sorted by hash as unsigned number:
+ *                hash(8) first occurrence(8) count(4) red wins(4) blue wins(4) 0(4)
+ * </pre>
+ * {@link #lookup(long) lookup} reads two fanout entries and binary searches the few positions between them, so it touches a
+ * handful of pages whatever the size of the archive; the counts of a position are stored with it, so a position reached in a
+ * million games costs as much as a rare one. The files are mapped in chunks of a gigabyte and may be larger than 2GB.
+ * scheme is the {@link Zobrist#SCHEME Zobrist.SCHEME} the hashes were computed with; an index of another scheme can not be opened,
+ * its hashes would silently not match, and the next build indexes all games again.
+ * <p>
+ * {@link #build(GameArchive) build} indexes the games added since the last build in one pass over the archive: the positions of
+ * the games are collected in runs of {@link #RUN_ENTRIES RUN_ENTRIES}, every run is sorted and written to a temporary file, and the
+ * runs and the old index are merged into a new file that replaces the old one. So the memory of a build is bounded and a build
+ * after a tournament costs the new games and one sequential copy of the old index.
+ * <p>
+ * An open index does not change; its methods may be called by any number of threads.
+ */
+public final class PositionIndex implements Closeable {
+    /**
+     * First four bytes of an index, "N2GI"
+     */
+    public static final int MAGIC = 0x4E324749;
+
+    /**
+     * Version of the format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Name of the index in the directory of the archive
+     */
+    public static final String FILE = "positions.idx";
+
+    /**
+     * Bytes of the header
+     */
+    private static final int HEADER = 32;
+
+    /**
+     * Number of fanout buckets, one for each value of the first 16 bits of a hash
+     */
+    private static final int BUCKETS = 1 << 16;
+
+    /**
+     * Offset of the occurrences
+     */
+    private static final long OCCURRENCES = HEADER + 8L * (BUCKETS + 1);
+
+    /**
+     * Bytes of a position
+     */
+    public static final int POSITION = 32;
+
+    /**
+     * Bytes of an occurrence
+     */
+    public static final int OCCURRENCE = 8;
+
+    /**
+     * Entries of a run that is sorted in memory, 32MB
+     */
+    public static final int RUN_ENTRIES = 1 << 21;
+
+    /**
+     * Bits of the bytes of a mapped chunk
+     */
+    private static final int CHUNK_BITS = 30;
+
+    /**
+     * Size of the buffers of a build
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Open channel of the file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Mapped header and fanout
+     */
+    private final MappedByteBuffer fanout;
+
+    /**
+     * Mapped chunks of the occurrences
+     */
+    private final MappedByteBuffer[] occurrenceChunks;
+
+    /**
+     * Mapped chunks of the positions
+     */
+    private final MappedByteBuffer[] positionChunks;
+
+    /**
+     * Number of games that are indexed, the first ones of the archive
+     */
+    private final int games;
+
+    /**
+     * Number of different positions
+     */
+    private final long positions;
+
+    /**
+     * Number of occurrences of all positions
+     */
+    private final long occurrences;
+
+    /**
+     * Opens the index of an archive
+     * @param  dir         directory of the archive
+     * @throws IOException if the index can not be read or is damaged
+     */
+    public PositionIndex(final Path dir) throws IOException {
+        Path file = dir.resolve(FILE);
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() < OCCURRENCES) throw new IOException(file + " is no position index");
+            fanout = channel.map(FileChannel.MapMode.READ_ONLY, 0, OCCURRENCES);
+            if (fanout.getInt(0) != MAGIC) throw new IOException(file + " is no position index");
+            if (fanout.getInt(4) != VERSION) throw new IOException(file + " has version " + fanout.getInt(4) + " but " + VERSION + " is supported");
+            if (fanout.getInt(12) != Zobrist.SCHEME) {
+                throw new IOException(file + " has hash scheme " + fanout.getInt(12) + " but " + Zobrist.SCHEME + " is used, build it again with --index");
+            }
+            games       = fanout.getInt(8);
+            positions   = fanout.getLong(16);
+            occurrences = fanout.getLong(24);
+            long positionStart = OCCURRENCES + occurrences * OCCURRENCE;
+            if (channel.size() != positionStart + positions * POSITION || fanout.getLong(HEADER + 8 * BUCKETS) != positions) {
+                throw new IOException(file + " is damaged");
+            }
+            occurrenceChunks = map(channel, OCCURRENCES, occurrences * OCCURRENCE);
+            positionChunks   = map(channel, positionStart, positions * POSITION);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps a part of a file in chunks of 1 << {@link #CHUNK_BITS CHUNK_BITS} bytes
+     * @param  channel     channel of the file
+     * @param  start       offset of the part
+     * @param  bytes       length of the part
+     * @return             mapped chunks
+     * @throws IOException if the file can not be mapped
+     */
+    private static MappedByteBuffer[] map(final FileChannel channel, final long start, final long bytes) throws IOException {
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((bytes + (1L << CHUNK_BITS) - 1) >>> CHUNK_BITS)];
+        for (int i = 0; i < chunks.length; i++) {
+            long offset = (long) i << CHUNK_BITS;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + offset, Math.min(1L << CHUNK_BITS, bytes - offset));
+        }
+        return chunks;
+    }
+
+    /**
+     * Reads a long of mapped chunks, entries never cross two chunks
+     * @param  chunks chunks of a part of the file
+     * @param  offset offset in the part
+     * @return        long at the offset
+     */
+    private static long getLong(final MappedByteBuffer[] chunks, final long offset) {
+        return chunks[(int) (offset >>> CHUNK_BITS)].getLong((int) (offset & ((1L << CHUNK_BITS) - 1)));
+    }
+
+    /**
+     * Reads an int of mapped chunks
+     * @param  chunks chunks of a part of the file
+     * @param  offset offset in the part
+     * @return        int at the offset
+     */
+    private static int getInt(final MappedByteBuffer[] chunks, final long offset) {
+        return chunks[(int) (offset >>> CHUNK_BITS)].getInt((int) (offset & ((1L << CHUNK_BITS) - 1)));
+    }
+
+    /**
+     * Finds a position
+     * @param  hash position hash
+     * @return      number of the position, -1 if it is not in the index
+     */
+    private long find(final long hash) {
+        int  bucket = (int) (hash >>> 48);
+        long low    = fanout.getLong(HEADER + 8 * bucket);
+        long high   = fanout.getLong(HEADER + 8 * (bucket + 1)) - 1;
+        while (low <= high) {
+            long middle  = (low + high) >>> 1;
+            int  compare = Long.compareUnsigned(getLong(positionChunks, middle * POSITION), hash);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns how often a position was reached and how these games ended
+     * @param  hash {@link GameBoard#positionHash() positionHash} of the position
+     * @return      statistics of the position, a count of 0 if no indexed game reached it
+     */
+    public PositionStats lookup(final long hash) {
+        long position = find(hash);
+        if (position < 0) return new PositionStats(hash, 0, 0, 0);
+        long at = position * POSITION;
+        return new PositionStats(hash, getInt(positionChunks, at + 16), getInt(positionChunks, at + 20), getInt(positionChunks, at + 24));
+    }
+
+    /**
+     * Returns the games that reached a position
+     * @param  hash {@link GameBoard#positionHash() positionHash} of the position
+     * @param  max  most occurrences to return
+     * @return      occurrences ordered by game, read them with {@link #gameOf(long) gameOf} and {@link #plyOf(long) plyOf}
+     */
+    public long[] occurrences(final long hash, final int max) {
+        long position = find(hash);
+        if (position < 0) return new long[0];
+        long   first  = getLong(positionChunks, position * POSITION + 8);
+        long[] result = new long[Math.min(max, getInt(positionChunks, position * POSITION + 16))];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getLong(occurrenceChunks, (first + i) * OCCURRENCE);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the game of an occurrence
+     * @param  occurrence occurrence of {@link #occurrences(long, int) occurrences}
+     * @return            number of the game in the archive
+     */
+    public static int gameOf(final long occurrence) {
+        return (int) (occurrence >>> 32);
+    }
+
+    /**
+     * Returns the ply of an occurrence
+     * @param  occurrence occurrence of {@link #occurrences(long, int) occurrences}
+     * @return            number of moves made in the game before the position
+     */
+    public static int plyOf(final long occurrence) {
+        return (int) (occurrence >>> 8) & 0xFFFFFF;
+    }
+
+    /**
+     * Packs an occurrence
+     * @param  game   number of the game
+     * @param  ply    number of moves made before the position
+     * @param  status status at the end of the game
+     * @return        occurrence
+     */
+    private static long occurrence(final int game, final int ply, final Status status) {
+        return (long) game << 32 | (long) ply << 8 | status.ordinal();
+    }
+
+    /**
+     * Returns the number of indexed games, games added to the archive later are not found until the next {@link #build(GameArchive) build}
+     * @return games
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the number of different positions
+     * @return positions
+     */
+    public long getPositions() {
+        return positions;
+    }
+
+    /**
+     * Returns the number of occurrences, the positions of all games counted as often as they were reached
+     * @return occurrences
+     */
+    public long getOccurrences() {
+        return occurrences;
+    }
+
+    /**
+     * Closes the file
+     * @throws IOException if the file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Indexes the games added to an archive since the last build. The new index replaces the old one when it is complete, an
+     * index opened before keeps reading the old file.
+     * @param  archive     open archive
+     * @return             number of games indexed by this build
+     * @throws IOException if the archive can not be read or the index can not be written
+     */
+    public static int build(final GameArchive archive) throws IOException {
+        Path          dir   = archive.getDir();
+        Path          file  = dir.resolve(FILE);
+        PositionIndex old   = null;
+        List<Path>    runs  = new ArrayList<>();
+        if (Files.exists(file) && scheme(file) == Zobrist.SCHEME) {
+            old = new PositionIndex(dir);
+            if (old.getGames() > archive.getGames()) {
+                // the archive was replaced, index it again
+                old.close();
+                old = null;
+            }
+        }
+        try {
+            int       first = (old == null) ? 0 : old.getGames();
+            if (old != null && first == archive.getGames()) return 0;
+            RunBuffer run   = new RunBuffer(dir, runs);
+            archive.forEach(first, (game, size, moves, status) -> {
+                GameBoard board = new GameBoard(size);
+                run.add(board.positionHash(), occurrence(game, 0, status));
+                for (int ply = 0; ply < moves.size(); ply++) {
+                    board.make(moves.get(ply));
+                    run.add(board.positionHash(), occurrence(game, ply + 1, status));
+                }
+            });
+
+            List<Cursor> sources = new ArrayList<>();
+            if (old != null) sources.add(new IndexCursor(old));
+            for (Path path : runs) {
+                sources.add(new FileCursor(path));
+            }
+            run.sort();
+            sources.add(new ArrayCursor(run));
+            merge(sources, dir, archive.getGames());
+            return archive.getGames() - first;
+        } finally {
+            if (old != null) old.close();
+            for (Path path : runs) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Reads the hash scheme of an index without opening it
+     * @param  file        file of the index
+     * @return             {@link Zobrist#SCHEME scheme} of the hashes, -1 if the file is too short
+     * @throws IOException if the file can not be read
+     */
+    private static int scheme(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while (header.hasRemaining() && channel.read(header) >= 0) {}
+            return header.hasRemaining() ? -1 : header.getInt(12);
+        }
+    }
+
+    /**
+     * Merges sorted sources into a new index that replaces the old one
+     * @param  sources     sources sorted by hash and occurrence
+     * @param  dir         directory of the archive
+     * @param  games       number of indexed games
+     * @throws IOException if the index can not be written
+     */
+    private static void merge(final List<Cursor> sources, final Path dir, final int games) throws IOException {
+        Path   temp      = dir.resolve(FILE + ".tmp");
+        Path   tempTable = dir.resolve("positions.tmp");
+        long[] buckets   = new long[BUCKETS + 1];
+        long   positions = 0;
+        long   count     = 0;
+        PriorityQueue<Cursor> queue = new PriorityQueue<>((a, b) -> compare(a.hash, a.value, b.hash, b.value));
+        for (Cursor source : sources) {
+            if (source.next()) queue.add(source);
+        }
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel table = FileChannel.open(tempTable, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                                  StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.DELETE_ON_CLOSE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            ByteBuffer rows   = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            out.position(OCCURRENCES);
+            long hash  = 0;
+            long first = 0;
+            int  red   = 0;
+            int  blue  = 0;
+            while (!queue.isEmpty()) {
+                Cursor source = queue.poll();
+                if (count > first && source.hash != hash) {
+                    putPosition(table, rows, hash, first, (int) (count - first), red, blue);
+                    buckets[(int) (hash >>> 48) + 1]++;
+                    positions++;
+                    first = count;
+                    red   = 0;
+                    blue  = 0;
+                }
+                hash = source.hash;
+                int status = (int) source.value & 0xFF;
+                if (status == Status.RedWin.ordinal()) red++;
+                if (status == Status.BlueWin.ordinal()) blue++;
+                if (buffer.remaining() < OCCURRENCE) drain(out, buffer);
+                buffer.putLong(source.value);
+                count++;
+                if (source.next()) queue.add(source);
+            }
+            if (count > first) {
+                putPosition(table, rows, hash, first, (int) (count - first), red, blue);
+                buckets[(int) (hash >>> 48) + 1]++;
+                positions++;
+            }
+            drain(out, buffer);
+            drain(table, rows);
+
+            long copied = 0;
+            while (copied < table.size()) {
+                copied += table.transferTo(copied, table.size() - copied, out);
+            }
+            ByteBuffer header = ByteBuffer.allocate((int) OCCURRENCES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(games).putInt(Zobrist.SCHEME).putLong(positions).putLong(count);
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                buckets[bucket + 1] += buckets[bucket];
+            }
+            for (long start : buckets) {
+                header.putLong(start);
+            }
+            header.flip();
+            while (header.hasRemaining()) out.write(header, header.position());
+            out.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, dir.resolve(FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Appends a position to the position table
+     * @param  table       channel of the table
+     * @param  rows        buffer of the table
+     * @param  hash        position hash
+     * @param  first       number of its first occurrence
+     * @param  count       number of its occurrences
+     * @param  red         games of them red won
+     * @param  blue        games of them blue won
+     * @throws IOException if the table can not be written
+     */
+    private static void putPosition(final FileChannel table, final ByteBuffer rows, final long hash, final long first, final int count,
+                                    final int red, final int blue) throws IOException {
+        if (rows.remaining() < POSITION) drain(table, rows);
+        rows.putLong(hash).putLong(first).putInt(count).putInt(red).putInt(blue).putInt(0);
+    }
+
+    /**
+     * Writes a buffer to a channel and clears it
+     * @param  channel     channel to write
+     * @param  buffer      buffer to write
+     * @throws IOException if the channel can not be written
+     */
+    private static void drain(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Sorts the entries of a run by hash as unsigned number and then by occurrence, a quicksort on two parallel arrays
+     * @param hashes hashes of the entries
+     * @param values occurrences of the entries
+     * @param from   first entry
+     * @param to     entry after the last
+     */
+    static void sort(final long[] hashes, final long[] values, int from, int to) {
+        while (to - from > 16) {
+            int middle = (from + to) >>> 1;
+            if (compare(hashes, values, from, middle) > 0) swap(hashes, values, from, middle);
+            if (compare(hashes, values, middle, to - 1) > 0) swap(hashes, values, middle, to - 1);
+            if (compare(hashes, values, from, middle) > 0) swap(hashes, values, from, middle);
+            long pivotHash  = hashes[middle];
+            long pivotValue = values[middle];
+            int  i          = from;
+            int  j          = to - 1;
+            while (i <= j) {
+                while (compare(hashes[i], values[i], pivotHash, pivotValue) < 0) i++;
+                while (compare(hashes[j], values[j], pivotHash, pivotValue) > 0) j--;
+                if (i <= j) {
+                    swap(hashes, values, i++, j--);
+                }
+            }
+            // recurse into the smaller part, loop on the larger one
+            if (j - from < to - i) {
+                sort(hashes, values, from, j + 1);
+                from = i;
+            } else {
+                sort(hashes, values, i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && compare(hashes, values, j - 1, j) > 0; j--) {
+                swap(hashes, values, j - 1, j);
+            }
+        }
+    }
+
+    /**
+     * Compares two entries of a run
+     * @param  hashes hashes of the entries
+     * @param  values occurrences of the entries
+     * @param  i      first entry
+     * @param  j      second entry
+     * @return        negative, zero or positive like a {@link java.util.Comparator Comparator}
+     */
+    private static int compare(final long[] hashes, final long[] values, final int i, final int j) {
+        return compare(hashes[i], values[i], hashes[j], values[j]);
+    }
+
+    /**
+     * Compares two entries by hash as unsigned number and then by occurrence, that is by game and ply
+     * @param  hash1  hash of the first entry
+     * @param  value1 occurrence of the first entry
+     * @param  hash2  hash of the second entry
+     * @param  value2 occurrence of the second entry
+     * @return        negative, zero or positive like a {@link java.util.Comparator Comparator}
+     */
+    private static int compare(final long hash1, final long value1, final long hash2, final long value2) {
+        int compare = Long.compareUnsigned(hash1, hash2);
+        return compare != 0 ? compare : Long.compare(value1, value2);
+    }
+
+    /**
+     * Swaps two entries of a run
+     * @param hashes hashes of the entries
+     * @param values occurrences of the entries
+     * @param i      first entry
+     * @param j      second entry
+     */
+    private static void swap(final long[] hashes, final long[] values, final int i, final int j) {
+        long hash  = hashes[i];
+        long value = values[i];
+        hashes[i] = hashes[j];
+        values[i] = values[j];
+        hashes[j] = hash;
+        values[j] = value;
+    }
+
+    /**
+     * Collects the positions of a build in memory and writes them as sorted run when it is full
+     */
+    private static final class RunBuffer {
+        /**
+         * Hashes of the positions
+         */
+        final long[] hashes = new long[RUN_ENTRIES];
+
+        /**
+         * Occurrences of the positions
+         */
+        final long[] values = new long[RUN_ENTRIES];
+
+        /**
+         * Number of entries
+         */
+        int size;
+
+        /**
+         * Directory of the run files
+         */
+        private final Path dir;
+
+        /**
+         * Run files written so far
+         */
+        private final List<Path> runs;
+
+        /**
+         * Creates an empty buffer
+         * @param dir  directory of the run files
+         * @param runs list the written run files are added to
+         */
+        RunBuffer(final Path dir, final List<Path> runs) {
+            this.dir  = dir;
+            this.runs = runs;
+        }
+
+        /**
+         * Adds a position
+         * @param  hash        position hash
+         * @param  value       occurrence
+         * @throws IOException if a full run can not be written
+         */
+        void add(final long hash, final long value) throws IOException {
+            if (size == RUN_ENTRIES) spill();
+            hashes[size] = hash;
+            values[size] = value;
+            size++;
+        }
+
+        /**
+         * Sorts the entries
+         */
+        void sort() {
+            PositionIndex.sort(hashes, values, 0, size);
+        }
+
+        /**
+         * Sorts the entries, writes them to a new run file and empties the buffer
+         * @throws IOException if the run can not be written
+         */
+        private void spill() throws IOException {
+            sort();
+            Path run = dir.resolve("run-" + runs.size() + ".tmp");
+            runs.add(run);
+            try (FileChannel channel = FileChannel.open(run, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                for (int i = 0; i < size; i++) {
+                    if (buffer.remaining() < 16) drain(channel, buffer);
+                    buffer.putLong(hashes[i]).putLong(values[i]);
+                }
+                drain(channel, buffer);
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Source of the merge, entries sorted by hash
+     */
+    private abstract static class Cursor {
+        /**
+         * Hash of the current entry
+         */
+        long hash;
+
+        /**
+         * Occurrence of the current entry
+         */
+        long value;
+
+        /**
+         * Moves to the next entry
+         * @return             false if there is none
+         * @throws IOException if the source can not be read
+         */
+        abstract boolean next() throws IOException;
+    }
+
+    /**
+     * Cursor over the sorted last run, still in memory
+     */
+    private static final class ArrayCursor extends Cursor {
+        /**
+         * Sorted run
+         */
+        private final RunBuffer run;
+
+        /**
+         * Next entry
+         */
+        private int index;
+
+        /**
+         * Creates a cursor before the first entry
+         * @param run sorted run
+         */
+        ArrayCursor(final RunBuffer run) {
+            this.run = run;
+        }
+
+        @Override
+        boolean next() {
+            if (index == run.size) return false;
+            hash  = run.hashes[index];
+            value = run.values[index];
+            index++;
+            return true;
+        }
+    }
+
+    /**
+     * Cursor over a run file
+     */
+    private static final class FileCursor extends Cursor {
+        /**
+         * Open channel of the run
+         */
+        private final FileChannel channel;
+
+        /**
+         * Read buffer
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        /**
+         * Opens a run file
+         * @param  run         file of the run
+         * @throws IOException if the file can not be opened
+         */
+        FileCursor(final Path run) throws IOException {
+            channel = FileChannel.open(run, StandardOpenOption.READ);
+            buffer.flip();
+        }
+
+        @Override
+        boolean next() throws IOException {
+            if (buffer.remaining() < 16) {
+                buffer.compact();
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {}
+                buffer.flip();
+                if (buffer.remaining() < 16) {
+                    channel.close();
+                    return false;
+                }
+            }
+            hash  = buffer.getLong();
+            value = buffer.getLong();
+            return true;
+        }
+    }
+
+    /**
+     * Cursor over the occurrences of an existing index
+     */
+    private static final class IndexCursor extends Cursor {
+        /**
+         * Index to read
+         */
+        private final PositionIndex index;
+
+        /**
+         * Current position
+         */
+        private long position = -1;
+
+        /**
+         * Next occurrence
+         */
+        private long occurrence;
+
+        /**
+         * Occurrence after the last one of the current position
+         */
+        private long end;
+
+        /**
+         * Creates a cursor before the first occurrence
+         * @param index index to read
+         */
+        IndexCursor(final PositionIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        boolean next() {
+            if (occurrence == end) {
+                if (++position == index.positions) return false;
+                long at = position * POSITION;
+                hash       = getLong(index.positionChunks, at);
+                occurrence = getLong(index.positionChunks, at + 8);
+                end        = occurrence + getInt(index.positionChunks, at + 16);
+            }
+            value = getLong(index.occurrenceChunks, occurrence * OCCURRENCE);
+            occurrence++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package nowhere2gopp.gamelogic.record;
+
+/**
+ * How often a position was reached in the games of a {@link GameArchive GameArchive} and how these games ended, answered by
+ * {@link PositionIndex#lookup(long) PositionIndex.lookup}. A position is reached at most once per game, because every move
+ * removes a link, so the count is also the number of games.
+ */
+public final class PositionStats {
+    /**
+     * Position hash of the position
+     */
+    private final long hash;
+
+    /**
+     * Number of games that reached the position
+     */
+    private final int count;
+
+    /**
+     * Games of them red won
+     */
+    private final int redWins;
+
+    /**
+     * Games of them blue won
+     */
+    private final int blueWins;
+
+    /**
+     * Creates the statistics of a position, only used by the index
+     * @param hash     position hash
+     * @param count    games that reached the position
+     * @param redWins  games of them red won
+     * @param blueWins games of them blue won
+     */
+    PositionStats(final long hash, final int count, final int redWins, final int blueWins) {
+        this.hash     = hash;
+        this.count    = count;
+        this.redWins  = redWins;
+        this.blueWins = blueWins;
+    }
+
+    /**
+     * Returns the position hash
+     * @return {@link nowhere2gopp.gamelogic.GameBoard#positionHash() positionHash} of the position
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the number of games that reached the position
+     * @return games, 0 if the position is not in the index
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of these games red won
+     * @return games won by red
+     */
+    public int getRedWins() {
+        return redWins;
+    }
+
+    /**
+     * Returns the number of these games blue won
+     * @return games won by blue
+     */
+    public int getBlueWins() {
+        return blueWins;
+    }
+
+    /**
+     * Returns the number of these games that were aborted or ended with an illegal move
+     * @return games without a winner
+     */
+    public int getOthers() {
+        return count - redWins - blueWins;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x: %d games, red wins %d, blue wins %d, others %d", hash, count, redWins, blueWins, getOthers());
+    }
+}
@@ -0,0 +1,181 @@
+package nowhere2gopp.gamelogic.record;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.PlayerType;
+import nowhere2gopp.preset.Status;
+
+/**
+ * A game read back from a {@link GameJournal GameJournal} by the {@link JournalReader JournalReader}: the header, the moves in
+ * the order they were made and the status at the end, if the game got that far before the journal ended.
+ */
+public final class RecoveredGame {
+    /**
+     * Number of the game in the journal
+     */
+    private final int game;
+
+    /**
+     * Size of the board
+     */
+    private final int size;
+
+    /**
+     * Type of the red player
+     */
+    private final PlayerType red;
+
+    /**
+     * Type of the blue player
+     */
+    private final PlayerType blue;
+
+    /**
+     * Seed of the random players, 0 if the game was not seeded
+     */
+    private final long seed;
+
+    /**
+     * Start of the game in milliseconds since 1970
+     */
+    private final long startMillis;
+
+    /**
+     * Moves in the order they were made
+     */
+    private final List<Move> moves = new ArrayList<>();
+
+    /**
+     * Status of the end record, null if the game has none
+     */
+    private Status status;
+
+    /**
+     * Creates a game from its begin record, only used by the reader
+     * @param game        number of the game
+     * @param size        size of the board
+     * @param red         type of the red player
+     * @param blue        type of the blue player
+     * @param seed        seed of the random players
+     * @param startMillis start of the game
+     */
+    RecoveredGame(final int game, final int size, final PlayerType red, final PlayerType blue, final long seed, final long startMillis) {
+        this.game        = game;
+        this.size        = size;
+        this.red         = red;
+        this.blue        = blue;
+        this.seed        = seed;
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Adds a move record, only used by the reader
+     * @param move move of the record
+     */
+    void add(final Move move) {
+        moves.add(move);
+    }
+
+    /**
+     * Sets the status of the end record, only used by the reader
+     * @param status status of the record
+     */
+    void end(final Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Rebuilds the board of the referee by making all moves on a new board
+     * @return board after the last move of the journal
+     * @throws nowhere2gopp.gamelogic.InvalidMoveException if a move is not legal, the journal does not belong to this version of the rules
+     */
+    public GameBoard replay() {
+        GameBoard board = new GameBoard(size);
+        for (Move move : moves) {
+            board.make(move);
+        }
+        return board;
+    }
+
+    /**
+     * Returns true if the journal contains the end of the game
+     * @return false if the game was still running when the journal ended
+     */
+    public boolean isFinished() {
+        return status != null;
+    }
+
+    /**
+     * Returns the number of the game in the journal
+     * @return number of the game
+     */
+    public int getGame() {
+        return game;
+    }
+
+    /**
+     * Returns the size of the board
+     * @return size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the type of the red player
+     * @return PlayerType of red
+     */
+    public PlayerType getRed() {
+        return red;
+    }
+
+    /**
+     * Returns the type of the blue player
+     * @return PlayerType of blue
+     */
+    public PlayerType getBlue() {
+        return blue;
+    }
+
+    /**
+     * Returns the seed of the random players
+     * @return seed, 0 if the game was not seeded
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the start of the game
+     * @return milliseconds since 1970
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Returns the moves of the game
+     * @return unmodifiable list of the moves in the order they were made
+     */
+    public List<Move> getMoves() {
+        return Collections.unmodifiableList(moves);
+    }
+
+    /**
+     * Returns the status of the end record
+     * @return status at the end, {@link nowhere2gopp.preset.Status#Ok Ok} if the game was aborted, null if it is not {@link #isFinished() finished}
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return "game " + game + ": size " + size + ", " + red + " vs " + blue + ", " + moves.size() + " moves, "
+               + (status == null ? "unfinished" : status.toString());
+    }
+}
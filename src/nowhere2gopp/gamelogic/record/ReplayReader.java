@@ -0,0 +1,322 @@
+package nowhere2gopp.gamelogic.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.gamelogic.GamePhase;
+import nowhere2gopp.gamelogic.InvalidMoveException;
+import nowhere2gopp.gamelogic.Topology;
+import nowhere2gopp.gamelogic.net.MoveCodec;
+import nowhere2gopp.preset.ArgumentParser;
+import nowhere2gopp.preset.ArgumentParserException;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.PlayerType;
+import nowhere2gopp.preset.Site;
+import nowhere2gopp.preset.Status;
+
+/**
+ * Opens a replay file written by the {@link ReplayWriter ReplayWriter} at any ply. The file is mapped into memory, so opening it
+ * reads nothing but the header and the operating system loads only the pages that are used.
+ * {@link #seek(int) seek} moves a board of the reader to a ply: forward it makes the moves in between, backward it
+ * {@link GameBoard#undo() undoes} them, and for a jump further than the keyframe interval it starts from the
+ * {@link GameBoard#fromPosition(int, long[], Site, Site, GamePhase, int, PlayerColor, Status) keyframe} before the ply.
+ * So any ply costs at most one keyframe and interval moves, and scrubbing ply by ply costs one move.
+ * A reader belongs to one thread, for example the event dispatch thread of a GUI.
+ */
+public final class ReplayReader implements Closeable {
+    /**
+     * Open channel of the file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Mapped content of the file
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Topology of the board size
+     */
+    private final Topology topology;
+
+    /**
+     * Size of the board
+     */
+    private final int size;
+
+    /**
+     * Type of the red player
+     */
+    private final PlayerType red;
+
+    /**
+     * Type of the blue player
+     */
+    private final PlayerType blue;
+
+    /**
+     * Moves between two keyframes
+     */
+    private final int interval;
+
+    /**
+     * Moves of the game
+     */
+    private final int plies;
+
+    /**
+     * Bytes of a keyframe
+     */
+    private final int keyframeBytes;
+
+    /**
+     * Start of the game in milliseconds since 1970
+     */
+    private final long startMillis;
+
+    /**
+     * Position hash after the last move
+     */
+    private final long finalHash;
+
+    /**
+     * Offset of the first keyframe
+     */
+    private final int keyframes;
+
+    /**
+     * Board moved by {@link #seek(int) seek}, null before the first seek
+     */
+    private GameBoard board;
+
+    /**
+     * Ply of the {@link #board board}
+     */
+    private int ply;
+
+    /**
+     * Moves of the {@link #board board} that can be undone, the ones made since its keyframe
+     */
+    private int undoable;
+
+    /**
+     * Opens a replay file
+     * @param  file        file written by the {@link ReplayWriter ReplayWriter}
+     * @throws IOException if the file can not be read or is no replay
+     */
+    public ReplayReader(final Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() < ReplayWriter.HEADER || channel.size() > Integer.MAX_VALUE) throw new IOException(file + " is no replay");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != ReplayWriter.MAGIC) throw new IOException(file + " is no replay");
+            if (buffer.getInt(4) != ReplayWriter.VERSION) throw new IOException(file + " has version " + buffer.getInt(4) + " but " + ReplayWriter.VERSION + " is supported");
+            size          = buffer.get(8);
+            red           = PlayerType.values()[buffer.get(9)];
+            blue          = PlayerType.values()[buffer.get(10)];
+            interval      = buffer.getInt(12);
+            plies         = buffer.getInt(16);
+            keyframeBytes = buffer.getInt(20);
+            startMillis   = buffer.getLong(24);
+            finalHash     = buffer.getLong(32);
+            topology      = Topology.of(size);
+            keyframes     = ReplayWriter.HEADER + plies * ReplayWriter.MOVE_SLOT;
+            if (interval < 1 || keyframeBytes != ReplayWriter.keyframeBytes(topology)
+                || channel.size() != keyframes + (long) (plies / interval + 1) * keyframeBytes) {
+                throw new IOException(file + " is damaged");
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a move of the game
+     * @param  ply number of the move, from 0
+     * @return     move made at this ply
+     */
+    public Move getMove(final int ply) {
+        if (ply < 0 || ply >= plies) throw new IndexOutOfBoundsException("Ply " + ply + " of " + plies);
+        buffer.position(ReplayWriter.HEADER + ply * ReplayWriter.MOVE_SLOT);
+        return MoveCodec.get(buffer);
+    }
+
+    /**
+     * Creates a new board in the position of a keyframe
+     * @param  index number of the keyframe, it is the position after index * interval moves
+     * @return       new board that can undo the moves made on it
+     */
+    public GameBoard keyframe(final int index) {
+        int  at     = keyframes + index * keyframeBytes;
+        long[] mask = new long[(keyframeBytes - 16) / 8];
+        for (int i = 0; i < mask.length; i++) {
+            mask[i] = buffer.getLong(at + 16 + 8 * i);
+        }
+        GameBoard start = GameBoard.fromPosition(size, mask, site(buffer.getInt(at + 8)), site(buffer.getInt(at + 12)),
+                                                 GamePhase.values()[buffer.get(at)], buffer.getInt(at + 4),
+                                                 PlayerColor.values()[buffer.get(at + 1)], Status.values()[buffer.get(at + 2)]);
+        start.enableUndo();
+        return start;
+    }
+
+    /**
+     * Returns the site of an agent of a keyframe
+     * @param  index number of the site in the topology
+     * @return       site, null for -1
+     */
+    private Site site(final int index) {
+        return index == -1 ? null : topology.getSite(index);
+    }
+
+    /**
+     * Moves the board of this reader to a ply
+     * @param  ply number of moves made, from 0 to {@link #getPlies() getPlies}
+     * @return     board of this reader in the position after ply moves, it changes with the next seek and must only be read
+     */
+    public GameBoard seek(final int ply) {
+        if (ply < 0 || ply > plies) throw new IndexOutOfBoundsException("Ply " + ply + " of " + plies);
+        boolean forward  = board != null && ply >= this.ply && ply - this.ply <= interval;
+        boolean backward = board != null && ply < this.ply && this.ply - ply <= undoable;
+        if (backward) {
+            for (; this.ply > ply; this.ply--, undoable--) {
+                board.undo();
+            }
+            return board;
+        }
+        if (!forward) {
+            board    = keyframe(ply / interval);
+            this.ply = ply / interval * interval;
+            undoable = 0;
+        }
+        for (; this.ply < ply; this.ply++, undoable++) {
+            board.make(getMove(this.ply));
+        }
+        return board;
+    }
+
+    /**
+     * Returns a new board in the position after a ply, independent of {@link #seek(int) seek}
+     * @param  ply number of moves made, from 0 to {@link #getPlies() getPlies}
+     * @return     new board
+     */
+    public GameBoard boardAt(final int ply) {
+        if (ply < 0 || ply > plies) throw new IndexOutOfBoundsException("Ply " + ply + " of " + plies);
+        GameBoard at = keyframe(ply / interval);
+        for (int i = ply / interval * interval; i < ply; i++) {
+            at.make(getMove(i));
+        }
+        return at;
+    }
+
+    /**
+     * Returns the current ply of {@link #seek(int) seek}
+     * @return ply of the board of this reader
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Returns the number of moves of the game
+     * @return moves
+     */
+    public int getPlies() {
+        return plies;
+    }
+
+    /**
+     * Returns the size of the board
+     * @return size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the type of the red player
+     * @return PlayerType of red
+     */
+    public PlayerType getRed() {
+        return red;
+    }
+
+    /**
+     * Returns the type of the blue player
+     * @return PlayerType of blue
+     */
+    public PlayerType getBlue() {
+        return blue;
+    }
+
+    /**
+     * Returns the number of moves between two keyframes
+     * @return interval
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the start of the game
+     * @return milliseconds since 1970
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Returns the position hash after the last move, to check the file against the game
+     * @return {@link GameBoard#positionHash() positionHash} at {@link #getPlies() getPlies}
+     */
+    public long getFinalHash() {
+        return finalHash;
+    }
+
+    /**
+     * Closes the file
+     * @throws IOException if the file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes a game of a journal as replay, or prints a position of a replay.
+     * "-journal" and "-game" choose the game, "-file" is the replay and "-keyframes" the interval of the keyframes;
+     * without "-journal" the replay is opened at "-ply", by default at its end.
+     * @param args commandline arguments without the leading "replay"
+     */
+    public static void main(final String[] args) {
+        try {
+            ArgumentParser parser = new ArgumentParser(args);
+            Path file = Paths.get(parser.getFile());
+            if (parser.isSet("journal")) {
+                RecoveredGame game = JournalReader.read(Paths.get(parser.getJournal())).getGame(parser.isSet("game") ? parser.getGame() : 0);
+                if (game == null) throw new IOException("The journal has no such game");
+                ReplayWriter.write(file, game, parser.isSet("keyframes") ? parser.getKeyframes() : ReplayWriter.DEFAULT_INTERVAL);
+                System.out.println("Wrote " + game);
+                return;
+            }
+            try (ReplayReader reader = new ReplayReader(file)) {
+                int       at   = parser.isSet("ply") ? parser.getPly() : reader.getPlies();
+                GameBoard seen = reader.seek(at);
+                System.out.println(reader.getRed() + " vs " + reader.getBlue() + ", size " + reader.getSize() + ", " + reader.getPlies() + " moves");
+                System.out.println("ply " + at + ": phase " + seen.getGamePhase() + ", round " + seen.getRounds() + ", " + seen.getTurn()
+                                   + " to move, " + seen.getStatus() + ", " + seen.getLinks().size() + " links");
+                if (at < reader.getPlies()) System.out.println("next move: " + reader.getMove(at));
+            }
+        } catch (ArgumentParserException | IOException | InvalidMoveException | IndexOutOfBoundsException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
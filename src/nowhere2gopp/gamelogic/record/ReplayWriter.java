@@ -0,0 +1,155 @@
+package nowhere2gopp.gamelogic.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.gamelogic.Topology;
+import nowhere2gopp.gamelogic.net.MoveCodec;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.PlayerType;
+import nowhere2gopp.preset.Site;
+
+/**
+ * Writes a finished or running game as a replay file that {@link ReplayReader ReplayReader} can open at any ply without replaying
+ * the game from the start. The file has three parts:
+ * <pre>
+ * header(40):   magic version size red blue 0 interval plies keyframeBytes startMillis hash
+ * moves:        plies slots of {@link #MOVE_SLOT MOVE_SLOT} bytes, packed by the MoveCodec
+ * keyframes:    plies / interval + 1 snapshots of keyframeBytes:
+ *               phase turn status 0 rounds(4) redAgent(4) blueAgent(4) linkMask(8 per 64 links)
+ * </pre>
+ * Keyframe i is the position after i * interval moves; the agents are site numbers of the {@link nowhere2gopp.gamelogic.Topology
+ * Topology}, -1 if not placed, and the link mask is {@link GameBoard#linkMask() linkMask}. The moves have a fixed size, so a move and a
+ * keyframe are found by a multiplication. hash is the {@link GameBoard#positionHash() positionHash} after the last move.
+ */
+public final class ReplayWriter {
+    /**
+     * First four bytes of a replay, "N2GR"
+     */
+    public static final int MAGIC = 0x4E324752;
+
+    /**
+     * Version of the format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Bytes of the header
+     */
+    public static final int HEADER = 40;
+
+    /**
+     * Bytes of a move, a surrender is padded
+     */
+    public static final int MOVE_SLOT = MoveCodec.MAX_SIZE;
+
+    /**
+     * Default number of moves between two keyframes
+     */
+    public static final int DEFAULT_INTERVAL = 16;
+
+    /**
+     * Utility class, no instances
+     */
+    private ReplayWriter() {}
+
+    /**
+     * Returns the bytes of a keyframe of a board size
+     * @param  topology topology of the size
+     * @return          bytes of one keyframe
+     */
+    static int keyframeBytes(final Topology topology) {
+        return 16 + 8 * ((topology.getLinkCount() + 63) >>> 6);
+    }
+
+    /**
+     * Writes a game read from a journal
+     * @param  file        file to write, it is replaced
+     * @param  game        game of a {@link JournalReader JournalReader}
+     * @param  interval    moves between two keyframes
+     * @throws IOException if the file can not be written
+     */
+    public static void write(final Path file, final RecoveredGame game, final int interval) throws IOException {
+        write(file, game.getSize(), game.getRed(), game.getBlue(), game.getStartMillis(), game.getMoves(), interval);
+    }
+
+    /**
+     * Writes a game. The moves are made on a new board to take the keyframes, so they have to be legal.
+     * @param  file        file to write, it is replaced
+     * @param  size        size of the board
+     * @param  red         type of the red player
+     * @param  blue        type of the blue player
+     * @param  startMillis start of the game in milliseconds since 1970
+     * @param  moves       moves of the game in the order they were made
+     * @param  interval    moves between two keyframes, at least 1
+     * @throws IOException if the file can not be written
+     */
+    public static void write(final Path file, final int size, final PlayerType red, final PlayerType blue, final long startMillis,
+                             final List<Move> moves, final int interval) throws IOException {
+        if (interval < 1) throw new IllegalArgumentException("The keyframe interval must be at least 1 but was " + interval);
+        GameBoard  board     = new GameBoard(size);
+        Topology   topology  = board.getTopology();
+        int        plies     = moves.size();
+        int        frameSize = keyframeBytes(topology);
+        ByteBuffer keyframes = ByteBuffer.allocate((plies / interval + 1) * frameSize);
+        ByteBuffer stream    = ByteBuffer.allocate(plies * MOVE_SLOT);
+        for (int ply = 0; ply < plies; ply++) {
+            if (ply % interval == 0) putKeyframe(keyframes, board, topology);
+            Move move = moves.get(ply);
+            board.make(move);
+            int slot = stream.position();
+            MoveCodec.put(stream, move);
+            stream.position(slot + MOVE_SLOT);
+        }
+        if (plies % interval == 0) putKeyframe(keyframes, board, topology);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putInt(VERSION);
+        header.put((byte) size).put((byte) red.ordinal()).put((byte) blue.ordinal()).put((byte) 0);
+        header.putInt(interval).putInt(plies).putInt(frameSize);
+        header.putLong(startMillis).putLong(board.positionHash());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            header.flip();
+            stream.flip();
+            keyframes.flip();
+            ByteBuffer[] parts = { header, stream, keyframes };
+            while (keyframes.hasRemaining()) channel.write(parts);
+        }
+    }
+
+    /**
+     * Appends the snapshot of a board
+     * @param buffer   buffer of the keyframes
+     * @param board    board to take
+     * @param topology topology of the board
+     */
+    private static void putKeyframe(final ByteBuffer buffer, final GameBoard board, final Topology topology) {
+        buffer.put((byte) board.getGamePhase().ordinal());
+        buffer.put((byte) board.getTurn().ordinal());
+        buffer.put((byte) board.getStatus().ordinal());
+        buffer.put((byte) 0);
+        buffer.putInt(board.getRounds());
+        buffer.putInt(siteIndex(topology, board.getAgent(PlayerColor.Red)));
+        buffer.putInt(siteIndex(topology, board.getAgent(PlayerColor.Blue)));
+        for (long word : board.linkMask()) {
+            buffer.putLong(word);
+        }
+    }
+
+    /**
+     * Returns the number of the site of an agent
+     * @param  topology topology of the board
+     * @param  agent    site of the agent, null if not placed
+     * @return          number of the site, -1 if not placed
+     */
+    private static int siteIndex(final Topology topology, final Site agent) {
+        return agent == null ? -1 : topology.index(agent);
+    }
+}
@@ -0,0 +1,439 @@
+package nowhere2gopp.gamelogic.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import nowhere2gopp.gamelogic.net.FrameChannel;
+import nowhere2gopp.gamelogic.net.GameSnapshot;
+import nowhere2gopp.gamelogic.net.Protocol;
+import nowhere2gopp.gamelogic.net.Redirect;
+import nowhere2gopp.preset.ArgumentParser;
+import nowhere2gopp.preset.ArgumentParserException;
+
+/**
+ * Spreads the matches over several {@link nowhere2gopp.gamelogic.server.GameServer GameServers}, the shards, that usually run in
+ * JVMs of their own. Every shard keeps a connection to the coordinator with a {@link nowhere2gopp.gamelogic.server.ShardAgent ShardAgent}
+ * and reports its running and queued matches and its CPU load.
+ * <p>
+ * Players connect to the coordinator like to a game server. The coordinator sends the first player of a board size to the
+ * shard with the least load and the next player of that size to the same shard, so the two are paired there; it never
+ * plays itself. When a shard starts, the shards that run clearly more matches than the average are asked to shed the
+ * difference, when a shard is drained it moves all its matches away. A match moves as a
+ * {@link nowhere2gopp.gamelogic.net.GameSnapshot GameSnapshot}: the coordinator hands it to the shard with the least load and
+ * tells the old shard where to send the players. A shard that goes away without draining is dropped, its matches are lost.
+ */
+public class Coordinator implements Closeable {
+    /**
+     * Milliseconds a shard may take to adopt a match
+     */
+    private static final long ADOPT_TIMEOUT = 5000;
+
+    /**
+     * Registered shards
+     */
+    private final List<Shard> shards = new ArrayList<>();
+
+    /**
+     * Shard of the player that waits for an opponent, by board size
+     */
+    private final Map<Integer, Shard> open = new HashMap<>();
+
+    /**
+     * Threads of the connections and of the migrations
+     */
+    private final ExecutorService threads = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "coordinator");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Listening channel
+     */
+    private ServerSocketChannel server;
+
+    /**
+     * Accepts shards and players on the given address, on a thread of its own
+     * @param  address     address to listen on, port 0 picks a free port
+     * @return             bound port
+     * @throws IOException if the address can not be bound
+     */
+    public int listen(final InetSocketAddress address) throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+        Thread acceptor = new Thread(this::accept, "coordinator-accept");
+        acceptor.start();
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Accepts connections until the coordinator is closed
+     */
+    private void accept() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                threads.execute(() -> connection(channel));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the first frame of a connection, JOIN from a player or REGISTER from a shard
+     * @param channel accepted connection
+     */
+    private void connection(final SocketChannel channel) {
+        try {
+            FrameChannel frames = new FrameChannel(channel);
+            byte op = frames.receive();
+            if (op == Protocol.JOIN) {
+                route(frames, frames.payload().get());
+                channel.close();
+            } else if (op == Protocol.REGISTER) {
+                InetSocketAddress remote = (InetSocketAddress) channel.getRemoteAddress();
+                serve(new Shard(remote.getAddress().getHostAddress(), frames.payload().getInt(), frames));
+            } else {
+                throw new IOException("Unexpected op code " + op);
+            }
+        } catch (IOException e) {
+            System.err.println("Connection rejected: " + e.getMessage());
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing left to clean up
+            }
+        }
+    }
+
+    /**
+     * Sends a player to the shard it plays on
+     * @param  frames      connection of the player
+     * @param  size        board size the player wants to play on
+     * @throws IOException if the connection is broken
+     */
+    private void route(final FrameChannel frames, final int size) throws IOException {
+        Shard shard;
+        synchronized (this) {
+            shard = open.remove(size);
+            if (shard == null || !shards.contains(shard) || shard.draining) {
+                shard = leastLoaded(null);
+                if (shard != null) {
+                    open.put(size, shard);
+                    shard.assigned++;
+                }
+            }
+        }
+        if (shard == null) {
+            Protocol.putString(frames.begin(Protocol.ERROR), "No game server available");
+        } else {
+            new Redirect(shard.host, shard.port, 0, null).put(frames.begin(Protocol.REDIRECT));
+        }
+        frames.send();
+    }
+
+    /**
+     * Returns the shard with the least matches, the CPU load decides between shards with as many matches
+     * @param  exclude shard that must not be chosen, may be null
+     * @return         the shard, null if there is none
+     */
+    private synchronized Shard leastLoaded(final Shard exclude) {
+        Shard best = null;
+        for (Shard shard : shards) {
+            if (shard == exclude || shard.draining) continue;
+            if (best == null || shard.games() < best.games() || (shard.games() == best.games() && shard.cpu < best.cpu)) {
+                best = shard;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds a shard, asks the busy shards to shed load and reads the frames of the shard until it leaves
+     * @param shard the new shard
+     */
+    private void serve(final Shard shard) {
+        List<Shard> busy = new ArrayList<>();
+        List<Integer> excess = new ArrayList<>();
+        synchronized (this) {
+            shards.add(shard);
+            int total = 0;
+            for (Shard other : shards) {
+                total += other.games();
+            }
+            int average = total / shards.size();
+            for (Shard other : shards) {
+                if (other.games() - average >= 2) {
+                    busy.add(other);
+                    excess.add(other.games() - average);
+                }
+            }
+        }
+        System.out.println("Shard " + shard + " joined, " + status());
+        for (int i = 0; i < busy.size(); i++) {
+            busy.get(i).send(Protocol.SHED, excess.get(i));
+        }
+
+        try {
+            while (true) {
+                byte op = shard.frames.receive();
+                ByteBuffer in = shard.frames.payload();
+                switch (op) {
+                case Protocol.LOAD:
+                    synchronized (this) {
+                        shard.running  = in.getInt();
+                        shard.queued   = in.getInt();
+                        shard.cpu      = in.getShort();
+                        shard.assigned = 0;
+                    }
+                    break;
+
+                case Protocol.MIGRATE:
+                    GameSnapshot snapshot = GameSnapshot.get(in);
+                    threads.execute(() -> migrate(shard, snapshot));
+                    break;
+
+                case Protocol.DRAIN:
+                    synchronized (this) {
+                        shard.draining = true;
+                        open.values().removeIf(s -> s == shard);
+                    }
+                    System.out.println("Shard " + shard + " is drained");
+                    break;
+
+                case Protocol.OK:
+                    shard.adopted(null);
+                    break;
+
+                case Protocol.ERROR:
+                    shard.adopted(Protocol.getString(in));
+                    break;
+
+                default:
+                    throw new IOException("Unexpected op code " + op);
+                }
+            }
+        } catch (IOException e) {
+            // the shard stopped
+        }
+        synchronized (this) {
+            shards.remove(shard);
+            open.values().removeIf(s -> s == shard);
+        }
+        shard.adopted("Shard left");
+        try {
+            shard.frames.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+        System.out.println("Shard " + shard + " left, " + status());
+    }
+
+    /**
+     * Hands a match of a shard to the shard with the least load and tells the old shard where the players go
+     * @param from     shard that gives the match away
+     * @param snapshot the match
+     */
+    private void migrate(final Shard from, final GameSnapshot snapshot) {
+        Shard  to    = leastLoaded(from);
+        String error = to == null ? "No other game server available" : to.adopt(snapshot);
+        synchronized (from.frames) {
+            try {
+                if (error == null) new Redirect(to.host, to.port, snapshot.getToken(), null).put(from.frames.begin(Protocol.REDIRECT));
+                else Protocol.putString(from.frames.begin(Protocol.ERROR), error);
+                from.frames.send();
+            } catch (IOException e) {
+                System.err.println("Could not answer shard " + from + ": " + e.getMessage());
+            }
+        }
+        if (error == null) System.out.println("Match of " + snapshot.getRed() + " and " + snapshot.getBlue() + " moved from " + from + " to " + to);
+        else System.err.println("Match of shard " + from + " could not move: " + error);
+    }
+
+    /**
+     * Returns the load of all shards
+     * @return one entry per shard
+     */
+    public synchronized String status() {
+        StringBuilder sb = new StringBuilder(shards.size() + " shards");
+        for (Shard shard : shards) {
+            sb.append(' ').append(shard).append('[').append(shard.running).append(" running, ").append(shard.queued)
+              .append(" queued, cpu ").append(shard.cpu / 10).append("%]");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Stops accepting shards and players
+     */
+    @Override
+    public void close() throws IOException {
+        if (server != null) server.close();
+        threads.shutdown();
+    }
+
+    /**
+     * A game server known to the coordinator
+     */
+    private final class Shard {
+        /**
+         * Host the players connect to
+         */
+        final String host;
+
+        /**
+         * Port the players connect to
+         */
+        final int port;
+
+        /**
+         * Connection to the shard
+         */
+        final FrameChannel frames;
+
+        /**
+         * Running matches at the last report
+         */
+        int running;
+
+        /**
+         * Queued matches at the last report
+         */
+        int queued;
+
+        /**
+         * CPU load of the process at the last report, in tenths of a percent
+         */
+        int cpu;
+
+        /**
+         * Matches sent to the shard since the last report
+         */
+        int assigned;
+
+        /**
+         * Set when the shard takes no new matches
+         */
+        boolean draining;
+
+        /**
+         * Reply to the outstanding ADOPT frame, null if none is outstanding
+         */
+        private CompletableFuture<String> adoption;
+
+        Shard(final String host, final int port, final FrameChannel frames) {
+            this.host   = host;
+            this.port   = port;
+            this.frames = frames;
+        }
+
+        /**
+         * Returns the matches of the shard, including the ones it was sent since its last report
+         * @return running, queued and assigned matches
+         */
+        int games() {
+            return running + queued + assigned;
+        }
+
+        /**
+         * Sends a frame with one int
+         * @param op    op code
+         * @param value payload
+         */
+        void send(final byte op, final int value) {
+            synchronized (frames) {
+                try {
+                    frames.begin(op).putInt(value);
+                    frames.send();
+                } catch (IOException e) {
+                    System.err.println("Could not reach shard " + this + ": " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Hands a match to the shard and waits for its reply. One adoption at a time per shard.
+         * @param  snapshot the match
+         * @return          null if the shard adopted the match, else the reason why not
+         */
+        synchronized String adopt(final GameSnapshot snapshot) {
+            CompletableFuture<String> reply = new CompletableFuture<>();
+            synchronized (frames) {
+                adoption = reply;
+                try {
+                    snapshot.put(frames.begin(Protocol.ADOPT, snapshot.byteSize()));
+                    frames.send();
+                } catch (IOException e) {
+                    return e.toString();
+                }
+            }
+            String error;
+            try {
+                error = reply.get(ADOPT_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException | InterruptedException e) {
+                error = "Shard " + this + " did not answer";
+            }
+            synchronized (frames) {
+                adoption = null;
+            }
+            if (error == null) {
+                synchronized (Coordinator.this) {
+                    assigned++;
+                }
+            }
+            return error;
+        }
+
+        /**
+         * Completes the outstanding ADOPT frame
+         * @param error null if the shard adopted the match, else the reason why not
+         */
+        void adopted(final String error) {
+            CompletableFuture<String> reply;
+            synchronized (frames) {
+                reply = adoption;
+            }
+            if (reply != null) reply.complete(error);
+        }
+
+        @Override
+        public String toString() {
+            return host + ":" + port;
+        }
+    }
+
+    /**
+     * Starts the coordinator from the commandline, "-port" sets the port for shards and players (default 7700).
+     * Shards are game servers started with "-coordinator host:port".
+     * @param args commandline arguments
+     */
+    public static void main(final String[] args) {
+        try {
+            ArgumentParser parser = new ArgumentParser(args);
+            Coordinator coordinator = new Coordinator();
+            int port = coordinator.listen(new InetSocketAddress(parser.isSet("port") ? parser.getPort() : 7700));
+            System.out.println("Coordinator listening on port " + port);
+        } catch (ArgumentParserException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,746 @@
+package nowhere2gopp.gamelogic.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.gamelogic.metrics.Counter;
+import nowhere2gopp.gamelogic.metrics.Metrics;
+import nowhere2gopp.gamelogic.metrics.MetricsServer;
+import nowhere2gopp.gamelogic.net.FrameChannel;
+import nowhere2gopp.gamelogic.net.GameSnapshot;
+import nowhere2gopp.gamelogic.net.Protocol;
+import nowhere2gopp.gamelogic.net.Redirect;
+import nowhere2gopp.gamelogic.net.SocketPlayer;
+import nowhere2gopp.gamelogic.net.SpectatorCodec;
+import nowhere2gopp.gamelogic.player.RandomPlayer;
+import nowhere2gopp.gamelogic.player.Referee;
+import nowhere2gopp.gamelogic.player.SimplePlayer;
+import nowhere2gopp.gamelogic.player.TimeControl;
+import nowhere2gopp.gamelogic.spectator.BoardDelta;
+import nowhere2gopp.gamelogic.spectator.BoardSnapshot;
+import nowhere2gopp.gamelogic.spectator.OverflowPolicy;
+import nowhere2gopp.gamelogic.spectator.SpectatorEvent;
+import nowhere2gopp.gamelogic.spectator.SpectatorFeed;
+import nowhere2gopp.gamelogic.spectator.Subscription;
+import nowhere2gopp.preset.ArgumentParser;
+import nowhere2gopp.preset.ArgumentParserException;
+import nowhere2gopp.preset.Player;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.PlayerType;
+import nowhere2gopp.preset.Status;
+
+/**
+ * A server that hosts many independent {@link nowhere2gopp.gamelogic.server.Match Matches} at once. Players join the lobby,
+ * remote players over a socket with a {@link nowhere2gopp.gamelogic.net.GameClient GameClient}, local players in process with
+ * {@link #join(String, int, Player) join}. Two players that wait for the same board size are paired, the first one plays red.
+ * At most {@link #getMaxGames() maxGames} matches run at the same time, paired players wait for a free slot in order.
+ * Every running match has a thread of its own with a small stack, which blocks while the players think.
+ * As a shard of a {@link nowhere2gopp.gamelogic.server.Coordinator Coordinator} the server also hands matches to other servers
+ * and adopts theirs, see {@link nowhere2gopp.gamelogic.server.ShardAgent ShardAgent}.
+ * Spectators connect like players and follow a running match, see {@link nowhere2gopp.gamelogic.net.Spectator Spectator}.
+ */
+public class GameServer implements Closeable {
+    /**
+     * Stack size of the match threads. The game loop is flat, so a small stack is enough and keeps thousands of matches cheap.
+     */
+    private static final long STACK_SIZE = 256 * 1024;
+
+    /**
+     * Largest number of matches that run at the same time
+     */
+    private final int maxGames;
+
+    /**
+     * Budget per move of every match in milliseconds, {@link nowhere2gopp.gamelogic.player.TimeControl#UNLIMITED UNLIMITED} for none
+     */
+    private final long moveTime;
+
+    /**
+     * Player waiting for an opponent, by board size
+     */
+    private final Map<Integer, Match.Seat> lobby = new HashMap<>();
+
+    /**
+     * Paired matches waiting for a free slot
+     */
+    private final ArrayDeque<Match> queued = new ArrayDeque<>();
+
+    /**
+     * Matches that are played right now
+     */
+    private final Set<Match> live = new HashSet<>();
+
+    /**
+     * Matches adopted from other servers whose players did not reconnect yet, by token
+     */
+    private final Map<Long, Adoption> adoptions = new HashMap<>();
+
+    /**
+     * Set when the server takes no new matches and moves its running ones away
+     */
+    private boolean draining;
+
+    /**
+     * Hands matches to other servers, null if the server is not part of a shard
+     */
+    private volatile Match.Migrator migrator;
+
+    /**
+     * Number of running matches
+     */
+    private int running;
+
+    /**
+     * Largest number of matches that ran at the same time
+     */
+    private int peak;
+
+    /**
+     * Number of the next match
+     */
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * Threads of the matches
+     */
+    private final ExecutorService matches;
+
+    /**
+     * Threads that read the first frames of connecting players and serve the spectators
+     */
+    private final ExecutorService handshakes;
+
+    /**
+     * Listening channel, null if the server only hosts local players
+     */
+    private ServerSocketChannel server;
+
+    /**
+     * Called with the result of every finished match, may be null
+     */
+    private volatile Consumer<Match.Result> finished;
+
+    /**
+     * Finished matches
+     */
+    private static final Counter MATCHES = Metrics.counter("server_matches_total", "Matches finished by the game server");
+
+    /**
+     * Matches handed to other servers
+     */
+    private static final Counter MIGRATED = Metrics.counter("server_matches_migrated_total", "Matches moved to another game server");
+
+    /**
+     * Milliseconds an adopted match waits for its players to reconnect
+     */
+    private static final long ADOPTION_TIMEOUT = 30000;
+
+    /**
+     * Milliseconds a spectator waits for the match to create its feed, the match does it before its next move
+     */
+    private static final long SPECTATE_TIMEOUT = 60000;
+
+    /**
+     * Milliseconds a stopped shard waits for its matches to move away
+     */
+    private static final long DRAIN_TIMEOUT = 20000;
+
+    /**
+     * Constructor of a server
+     * @param maxGames largest number of matches that run at the same time
+     * @param moveTime budget per move in milliseconds, {@link nowhere2gopp.gamelogic.player.TimeControl#UNLIMITED UNLIMITED} for none
+     */
+    public GameServer(final int maxGames, final long moveTime) {
+        if (maxGames < 1) throw new IllegalArgumentException("maxGames must be >= 1 but it was " + maxGames);
+        this.maxGames = maxGames;
+        this.moveTime = moveTime;
+        matches       = Executors.newCachedThreadPool(threads("match"));
+        handshakes    = Executors.newCachedThreadPool(threads("handshake"));
+        Metrics.gauge("server_matches_running", "Matches running on the game server", this::getRunning);
+    }
+
+    /**
+     * Returns a factory of daemon threads with a small stack
+     * @param  name prefix of the thread names
+     * @return      thread factory
+     */
+    private static ThreadFactory threads(final String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(null, r, name + "-" + count.incrementAndGet(), STACK_SIZE);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Accepts remote players on the given address, on a thread of its own
+     * @param  address     address to listen on, port 0 picks a free port
+     * @return             bound port
+     * @throws IOException if the address can not be bound
+     */
+    public int listen(final InetSocketAddress address) throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+        Thread acceptor = new Thread(this::accept, "server-accept");
+        acceptor.start();
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed
+     */
+    private void accept() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                handshakes.execute(() -> handshake(channel));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the first frame of a connection and puts the player into the lobby or its adopted match, or serves a spectator
+     * @param channel accepted connection
+     */
+    private void handshake(final SocketChannel channel) {
+        try {
+            FrameChannel frames = new FrameChannel(channel);
+            byte op = frames.receive();
+            if (op == Protocol.WATCH) {
+                watch(frames);
+                return;
+            }
+            SocketPlayer player = SocketPlayer.accept(frames, op);
+            if (player.getResumeToken() != 0) resume(player);
+            else join(player.getName(), player.getJoinedSize(), player);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Player rejected: " + e.getMessage());
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing left to clean up
+            }
+        }
+    }
+
+    /**
+     * Sends the snapshot and the moves of a running match to a spectator until the match is over. Runs on a handshake thread,
+     * a spectator that reads slowly only delays itself, the match keeps playing.
+     * @param  frames      connection of the spectator, the WATCH frame was read
+     * @throws IOException if the connection breaks or the match is unknown
+     */
+    private void watch(final FrameChannel frames) throws IOException {
+        ByteBuffer in = frames.payload();
+        int id = in.getInt();
+        OverflowPolicy policy = OverflowPolicy.values()[in.get()];
+        Match match = null;
+        synchronized (this) {
+            for (Match candidate : live) {
+                if (id == 0 || candidate.getId() == id) {
+                    match = candidate;
+                    break;
+                }
+            }
+        }
+        if (match == null) throw new IllegalArgumentException("Match " + id + " is not running");
+
+        SpectatorFeed feed;
+        try {
+            feed = match.spectate().get(SPECTATE_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException | InterruptedException e) {
+            throw new IOException("Match " + id + " can not be watched: " + e);
+        }
+        try (Subscription subscription = feed.subscribe(policy)) {
+            while (!subscription.isDone()) {
+                SpectatorEvent event = subscription.poll(1000);
+                if (event instanceof BoardDelta) {
+                    SpectatorCodec.put(frames.begin(Protocol.DELTA), (BoardDelta) event);
+                    frames.send();
+                } else if (event instanceof BoardSnapshot) {
+                    BoardSnapshot snapshot = (BoardSnapshot) event;
+                    SpectatorCodec.put(frames.begin(Protocol.BOARD, SpectatorCodec.size(snapshot)), snapshot);
+                    frames.send();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            frames.close();
+        }
+    }
+
+    /**
+     * Puts a player into the lobby. The player is initialized with its color when its match starts.
+     * @param  name   name of the player
+     * @param  size   board size the player wants to play on
+     * @param  player local player or the connection to a remote player
+     * @return        completed with the result of the match of the player
+     */
+    public CompletableFuture<Match.Result> join(final String name, final int size, final Player player) {
+        if (size < 1) throw new IllegalArgumentException("Board size must be >= 1 but it was " + size);
+        Match.Seat seat = new Match.Seat(name, player);
+        Match.Seat red;
+        Match.Seat gone = null;
+        synchronized (this) {
+            red = lobby.remove(size);
+            if (red != null && hasLeft(red)) {
+                gone = red;
+                red  = null;
+            }
+            if (red == null) lobby.put(size, seat);
+        }
+        if (gone != null) drop(gone);
+        if (red == null) return seat.result;
+        submit(new Match(nextId.incrementAndGet(), size, red, seat, timeControl(), this::handOver));
+        return seat.result;
+    }
+
+    /**
+     * Returns true if a remote player closed its connection while it waited in the lobby
+     * @param  seat waiting player
+     * @return      true if the player can not play any more
+     */
+    private static boolean hasLeft(final Match.Seat seat) {
+        return seat.player instanceof SocketPlayer && ((SocketPlayer) seat.player).isClosed();
+    }
+
+    /**
+     * Closes the connection of a player that left the lobby and completes its result with the error
+     * @param seat player that left
+     */
+    private static void drop(final Match.Seat seat) {
+        try {
+            ((SocketPlayer) seat.player).abort();
+        } catch (IOException e) {
+            // the connection is gone anyway
+        }
+        seat.result.completeExceptionally(new IOException(seat.name + " left the lobby"));
+    }
+
+    /**
+     * Returns a fresh time control for a match
+     * @return time control with the budget per move of the server
+     */
+    private TimeControl timeControl() {
+        return moveTime == TimeControl.UNLIMITED ? TimeControl.none() : TimeControl.perMove(moveTime);
+    }
+
+    /**
+     * Takes over a match of another server. The match starts when both players reconnected with the token of the snapshot,
+     * if they are not both back after {@link #ADOPTION_TIMEOUT ADOPTION_TIMEOUT} the match is dropped.
+     * @param  snapshot              the match
+     * @throws IllegalStateException if the moves of the snapshot do not lead to its position
+     */
+    public void adopt(final GameSnapshot snapshot) {
+        snapshot.replay();
+        long     token    = snapshot.getToken();
+        Adoption adoption = new Adoption(snapshot);
+        synchronized (this) {
+            adoptions.put(token, adoption);
+        }
+        CompletableFuture.runAsync(() -> expire(token, adoption),
+                                   CompletableFuture.delayedExecutor(ADOPTION_TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Drops an adopted match whose players did not both reconnect in time and closes the connection of the one that did
+     * @param token    token of the match
+     * @param adoption the match, nothing happens if it started in the meantime
+     */
+    private void expire(final long token, final Adoption adoption) {
+        synchronized (this) {
+            if (adoptions.get(token) != adoption) return;
+            adoptions.remove(token);
+        }
+        for (Match.Seat seat : new Match.Seat[] { adoption.red, adoption.blue }) {
+            if (seat == null) continue;
+            try {
+                ((SocketPlayer) seat.player).abort();
+            } catch (IOException e) {
+                // the opponent never came, the player is dropped anyway
+            }
+        }
+    }
+
+    /**
+     * Seats a player that continues an adopted match and starts the match when both players are back
+     * @param  player                   reconnected player
+     * @throws IllegalArgumentException if the server did not adopt the match of the player
+     */
+    private void resume(final SocketPlayer player) {
+        Match.Seat seat = new Match.Seat(player.getName(), player);
+        Adoption adoption;
+        synchronized (this) {
+            adoption = adoptions.get(player.getResumeToken());
+            if (adoption == null) throw new IllegalArgumentException("Unknown game " + player.getResumeToken());
+            if (player.getResumeColor() == PlayerColor.Red) adoption.red = seat;
+            else adoption.blue = seat;
+            if (adoption.red == null || adoption.blue == null) return;
+            adoptions.remove(player.getResumeToken());
+        }
+        submit(new Match(nextId.incrementAndGet(), adoption.snapshot, adoption.red, adoption.blue, timeControl(), this::handOver));
+    }
+
+    /**
+     * Hands a match to another server with the {@link #setMigrator(Match.Migrator) migrator}
+     * @param  snapshot    the match
+     * @return             server that continues the match
+     * @throws IOException if the server is not part of a shard or no server took the match
+     */
+    private Redirect handOver(final GameSnapshot snapshot) throws IOException {
+        Match.Migrator target = migrator;
+        if (target == null) throw new IOException("No other server to move to");
+        return target.migrate(snapshot);
+    }
+
+    /**
+     * Sets the migrator that hands matches to other servers
+     * @param migrator migrator, null if the server is not part of a shard
+     */
+    void setMigrator(final Match.Migrator migrator) {
+        this.migrator = migrator;
+    }
+
+    /**
+     * Asks running matches between remote players to move to other servers before their next move
+     * @param  count number of matches to move
+     * @return       number of matches that were asked
+     */
+    public synchronized int migrate(final int count) {
+        int asked = 0;
+        for (Match match : live) {
+            if (asked == count) break;
+            if (match.isMigratable()) {
+                match.requestMigration();
+                asked++;
+            }
+        }
+        return asked;
+    }
+
+    /**
+     * Takes no new players and moves all running and queued matches to other servers. Players waiting in the lobby are
+     * sent to the given address to join again. Matches with local players are played to the end.
+     * @param  rejoin               address the waiting players are sent to, null to keep them
+     * @param  timeoutMillis        longest time to wait for the matches
+     * @return                      number of matches still running after the timeout
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public int drain(final Redirect rejoin, final long timeoutMillis) throws InterruptedException {
+        try {
+            if (server != null) server.close();
+        } catch (IOException e) {
+            // new players can not connect either way
+        }
+        List<Match.Seat> waiting = new ArrayList<>();
+        synchronized (this) {
+            draining = true;
+            for (Match match : live) {
+                match.requestMigration();
+            }
+            if (rejoin != null) {
+                waiting.addAll(lobby.values());
+                lobby.clear();
+            }
+        }
+        for (Match.Seat seat : waiting) {
+            try {
+                if (seat.player instanceof SocketPlayer) ((SocketPlayer) seat.player).redirect(rejoin);
+            } catch (IOException e) {
+                System.err.println("Could not send " + seat.name + " away: " + e.getMessage());
+            }
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (this) {
+            long left = timeoutMillis;
+            while (running > 0 && left > 0) {
+                wait(left);
+                left = deadline - System.currentTimeMillis();
+            }
+            return running;
+        }
+    }
+
+    /**
+     * Creates a local AI player and puts it into the lobby, it stands in for a remote player
+     * @param  type type of the player, random or simple
+     * @param  size board size
+     * @return      completed with the result of the match of the player
+     */
+    public CompletableFuture<Match.Result> connectLocal(final PlayerType type, final int size) {
+        Player player;
+        switch (type) {
+        case RandomAI:
+            player = new RandomPlayer();
+            break;
+
+        case SimpleAI:
+            player = new SimplePlayer();
+            break;
+
+        default:
+            throw new IllegalArgumentException("Player type " + type + " cannot play on the server");
+        }
+        return join("local-" + type, size, player);
+    }
+
+    /**
+     * Starts a match if a slot is free, else queues it
+     * @param match paired match
+     */
+    private void submit(final Match match) {
+        synchronized (this) {
+            if (running >= maxGames) {
+                queued.add(match);
+                return;
+            }
+            running++;
+            peak = Math.max(peak, running);
+        }
+        matches.execute(() -> play(match));
+    }
+
+    /**
+     * Plays a match and then the queued matches, as long as there are any
+     * @param first match to play first
+     */
+    private void play(final Match first) {
+        Match match = first;
+        while (match != null) {
+            synchronized (this) {
+                live.add(match);
+                if (draining) match.requestMigration();
+            }
+            Match.Result result = match.run();
+            if (result.movedTo == null) MATCHES.inc();
+            else MIGRATED.inc();
+            Consumer<Match.Result> listener = finished;
+            if (listener != null) listener.accept(result);
+            synchronized (this) {
+                live.remove(match);
+                match = queued.poll();
+                if (match == null) {
+                    running--;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the listener that is called with the result of every finished match, on the thread of the match
+     * @param listener listener, null for none
+     */
+    public void setFinishedListener(final Consumer<Match.Result> listener) {
+        finished = listener;
+    }
+
+    /**
+     * Returns the number of running matches
+     * @return running matches
+     */
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the number of paired matches waiting for a free slot
+     * @return queued matches
+     */
+    public synchronized int getQueued() {
+        return queued.size();
+    }
+
+    /**
+     * Returns the largest number of matches that ran at the same time
+     * @return peak of running matches
+     */
+    public synchronized int getPeak() {
+        return peak;
+    }
+
+    /**
+     * Returns the largest number of matches that may run at the same time
+     * @return cap of running matches
+     */
+    public int getMaxGames() {
+        return maxGames;
+    }
+
+    /**
+     * Stops accepting players. Running matches are played to the end.
+     */
+    @Override
+    public void close() throws IOException {
+        if (server != null) server.close();
+        handshakes.shutdown();
+        matches.shutdown();
+    }
+
+    /**
+     * A match adopted from another server, waiting for its players
+     */
+    private static final class Adoption {
+        /**
+         * The match
+         */
+        final GameSnapshot snapshot;
+
+        /**
+         * Reconnected red player, null until it is back
+         */
+        Match.Seat red;
+
+        /**
+         * Reconnected blue player, null until it is back
+         */
+        Match.Seat blue;
+
+        Adoption(final GameSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * Measures the heap a match between two remote players holds on the server: the match with its seats and result futures,
+     * the board, the referee, the thread object of the match and both connections with their frame buffers. The players are
+     * connected over the loopback interface, the client ends are created before the measurement. The stack of the match
+     * thread is not on the heap and not counted.
+     * @param  size        board size
+     * @return             bytes per match, roughly
+     * @throws IOException if the loopback connections can not be made
+     */
+    static long footprint(final int size) throws IOException {
+        final int n = 100;
+        List<Object>        held    = new ArrayList<>(4 * n);
+        List<SocketPlayer>  players = new ArrayList<>(2 * n);
+        List<SocketChannel> clients = new ArrayList<>(2 * n);
+        try (ServerSocketChannel listener = ServerSocketChannel.open()) {
+            listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2 * n);
+            for (int i = 0; i < 2 * n; i++) {
+                SocketChannel client = SocketChannel.open(listener.getLocalAddress());
+                FrameChannel  frames = new FrameChannel(client);
+                Protocol.putString(frames.begin(Protocol.JOIN).put((byte) size), "player" + i);
+                frames.send();
+                clients.add(client);
+            }
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long before = runtime.totalMemory() - runtime.freeMemory();
+            for (int i = 0; i < n; i++) {
+                SocketPlayer redPlayer  = SocketPlayer.accept(listener.accept());
+                SocketPlayer bluePlayer = SocketPlayer.accept(listener.accept());
+                players.add(redPlayer);
+                players.add(bluePlayer);
+                Match.Seat  red         = new Match.Seat(redPlayer.getName(), redPlayer);
+                Match.Seat  blue        = new Match.Seat(bluePlayer.getName(), bluePlayer);
+                TimeControl timeControl = TimeControl.perMove(1000);
+                Match       match       = new Match(i, size, red, blue, timeControl, null);
+                GameBoard   board       = new GameBoard(size);
+                held.add(match);
+                held.add(board);
+                held.add(new Referee(board, redPlayer, bluePlayer, timeControl));
+                held.add(new Thread(null, match::run, "match-" + i, STACK_SIZE));
+            }
+            System.gc();
+            long after = runtime.totalMemory() - runtime.freeMemory();
+            return held.isEmpty() ? 0 : Math.max(0, after - before) / n;
+        } finally {
+            for (SocketPlayer player : players) {
+                player.abort();
+            }
+            for (SocketChannel client : clients) {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * Starts the server from the commandline. "-port" sets the port for remote players (default 7777), "-maxgames" the cap
+     * of running matches (default 1000) and "-movetime" the budget per move. "-coordinator host:port" makes the server a shard
+     * of a {@link nowhere2gopp.gamelogic.server.Coordinator Coordinator}; when it is stopped, it moves its matches to the other shards. With "-local n" no port is opened, instead n
+     * matches between local random players are played and the throughput and the heap per match between remote players are printed.
+     * @param args commandline arguments
+     */
+    public static void main(final String[] args) {
+        try {
+            ArgumentParser parser = new ArgumentParser(args);
+            int  maxGames = parser.isSet("maxgames") ? parser.getMaxGames() : 1000;
+            long moveTime = parser.isSet("movetime") ? parser.getMoveTime() : TimeControl.UNLIMITED;
+            MetricsServer.configure(parser);
+            GameServer gameServer = new GameServer(maxGames, moveTime);
+
+            if (parser.isSet("local")) {
+                int size  = parser.isSet("size") ? parser.getSize() : 1;
+                int games = parser.getLocal();
+                long start = System.nanoTime();
+                List<CompletableFuture<Match.Result>> results = new ArrayList<>(2 * games);
+                for (int i = 0; i < 2 * games; i++) {
+                    results.add(gameServer.connectLocal(PlayerType.RandomAI, size));
+                }
+                int failed = 0;
+                for (int i = 1; i < results.size(); i += 2) {
+                    Match.Result result = results.get(i).join();
+                    if (result.status == Status.Illegal) {
+                        failed++;
+                        System.err.println(result);
+                    }
+                }
+                long millis = (System.nanoTime() - start) / 1000000L;
+                gameServer.close();
+                System.out.println(games + " matches in " + millis + "ms, " + (millis == 0 ? games : games * 1000L / millis)
+                                   + " matches/s, peak " + gameServer.getPeak() + " running, " + failed + " failed");
+                System.out.println("Heap per match between two remote players: ~" + footprint(size) / 1024 + "KB (size " + size
+                                   + "), plus " + STACK_SIZE / 1024 + "KB of stack reserved for its thread");
+                System.exit(failed > 0 ? 1 : 0);
+            }
+
+            gameServer.setFinishedListener(System.out::println);
+            int port = gameServer.listen(new InetSocketAddress(parser.isSet("port") ? parser.getPort() : 7777));
+            System.out.println("Game server listening on port " + port + ", at most " + maxGames + " matches at once");
+
+            if (parser.isSet("coordinator")) {
+                String     address = parser.getCoordinator();
+                int        colon   = address.lastIndexOf(':');
+                ShardAgent agent   = new ShardAgent(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)), gameServer, port);
+                // a stopped shard moves its matches to the other shards before it exits
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    int left = agent.drain(DRAIN_TIMEOUT);
+                    System.out.println("Shard drained, " + left + " matches left");
+                }, "shard-drain"));
+                System.out.println("Shard of the coordinator " + address);
+            }
+        } catch (ArgumentParserException | IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package nowhere2gopp.gamelogic.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.gamelogic.net.GameSnapshot;
+import nowhere2gopp.gamelogic.net.Redirect;
+import nowhere2gopp.gamelogic.net.SocketPlayer;
+import nowhere2gopp.gamelogic.player.Referee;
+import nowhere2gopp.gamelogic.player.TimeControl;
+import nowhere2gopp.gamelogic.spectator.SpectatorFeed;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.Player;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Status;
+
+/**
+ * One game of a {@link nowhere2gopp.gamelogic.server.GameServer GameServer}. A match owns its board, its referee and the
+ * connections of its two players and shares nothing with other matches, so a failing player only ends its own match.
+ * The game loop is the one of the {@link nowhere2gopp.gamelogic.mainprogram.HeadlessGame HeadlessGame}; with
+ * {@link nowhere2gopp.gamelogic.net.SocketPlayer SocketPlayers} confirm and update are pipelined, so every move costs one round trip.
+ * A match between two remote players can move to another server between two moves: it ships a
+ * {@link nowhere2gopp.gamelogic.net.GameSnapshot GameSnapshot} and redirects both players, the other server resumes it from the snapshot.
+ */
+public class Match {
+    /**
+     * Number of the match
+     */
+    private final int id;
+
+    /**
+     * Board size of the match
+     */
+    private final int size;
+
+    /**
+     * Red player
+     */
+    private final Seat red;
+
+    /**
+     * Blue player
+     */
+    private final Seat blue;
+
+    /**
+     * Time control of the match
+     */
+    private final TimeControl timeControl;
+
+    /**
+     * Game the match continues, null for a new game
+     */
+    private final GameSnapshot resumed;
+
+    /**
+     * Finds the server the match moves to, null if it can not move
+     */
+    private final Migrator migrator;
+
+    /**
+     * Set if the match should move to another server before the next move
+     */
+    private volatile boolean migrate;
+
+    /**
+     * Set when the first spectator asks for the match
+     */
+    private volatile boolean spectated;
+
+    /**
+     * Completed with the feed of the board once the match created it for the first spectator
+     */
+    private final CompletableFuture<SpectatorFeed> feed = new CompletableFuture<>();
+
+    /**
+     * Constructor of a match, the players are initialized when it runs
+     * @param id          number of the match
+     * @param size        board size
+     * @param red         red player
+     * @param blue        blue player
+     * @param timeControl time control of this match only
+     * @param migrator    finds the server the match moves to, null if it can not move
+     */
+    Match(final int id, final int size, final Seat red, final Seat blue, final TimeControl timeControl, final Migrator migrator) {
+        this(id, size, red, blue, timeControl, migrator, null);
+    }
+
+    /**
+     * Constructor of a match that continues a game of another server. The players are initialized already.
+     * @param id          number of the match
+     * @param snapshot    game to continue
+     * @param red         red player, reconnected
+     * @param blue        blue player, reconnected
+     * @param timeControl time control of this match only
+     * @param migrator    finds the server the match moves to, null if it can not move
+     */
+    Match(final int id, final GameSnapshot snapshot, final Seat red, final Seat blue, final TimeControl timeControl, final Migrator migrator) {
+        this(id, snapshot.getSize(), red, blue, timeControl, migrator, snapshot);
+    }
+
+    private Match(final int id, final int size, final Seat red, final Seat blue, final TimeControl timeControl, final Migrator migrator,
+                  final GameSnapshot resumed) {
+        this.id          = id;
+        this.size        = size;
+        this.red         = red;
+        this.blue        = blue;
+        this.timeControl = timeControl;
+        this.migrator    = migrator;
+        this.resumed     = resumed;
+    }
+
+    /**
+     * Asks the match to move to another server before its next move. Ignored if the match can not move.
+     */
+    void requestMigration() {
+        migrate = true;
+    }
+
+    /**
+     * Asks the match for the {@link nowhere2gopp.gamelogic.spectator.SpectatorFeed SpectatorFeed} of its board. The board belongs
+     * to the thread of the match, so the feed is created there, before the next move; matches nobody watches have none.
+     * @return completed with the feed, exceptionally if the match ends before
+     */
+    CompletableFuture<SpectatorFeed> spectate() {
+        spectated = true;
+        return feed;
+    }
+
+    /**
+     * Returns the number of the match
+     * @return number of the match on this server
+     */
+    int getId() {
+        return id;
+    }
+
+    /**
+     * Returns true if the match can move to another server, i.e. both players are remote
+     * @return true if both players are connected over sockets
+     */
+    boolean isMigratable() {
+        return migrator != null && red.player instanceof SocketPlayer && blue.player instanceof SocketPlayer;
+    }
+
+    /**
+     * Plays the match and completes the results of both seats. Never throws, a failure ends the match as
+     * {@link nowhere2gopp.preset.Status#Illegal Illegal}.
+     * @return result of the match
+     */
+    public Result run() {
+        long   start  = System.nanoTime();
+        int    plies  = 0;
+        Status status = Status.Illegal;
+        String error  = null;
+        Redirect movedTo = null;
+        boolean aborted = true;
+        try {
+            GameBoard  board;
+            List<Move> log;
+            if (resumed == null) {
+                red.player.init(size, PlayerColor.Red);
+                blue.player.init(size, PlayerColor.Blue);
+                board = new GameBoard(size);
+                log   = new ArrayList<>();
+            } else {
+                board = resumed.replay();
+                log   = new ArrayList<>(resumed.getMoves());
+                plies = log.size();
+            }
+            Referee referee = new Referee(board, red.player, blue.player, timeControl);
+
+            status = board.getStatus();
+            while (status == Status.Ok) {
+                if (spectated && !feed.isDone()) feed.complete(board.spectate());
+                if (migrate) {
+                    movedTo = handOver(board, log);
+                    if (movedTo != null) break;
+                }
+                boolean isRedTurn = board.getTurn() == PlayerColor.Red;
+                Move move = referee.request();
+                board.make(move);
+                log.add(move);
+                plies++;
+                status = board.getStatus();
+
+                // a player that lost on time is still busy, it must not be called again
+                if (referee.getTimedOut() != null) break;
+
+                Player mover    = isRedTurn ? red.player : blue.player;
+                Player opponent = isRedTurn ? blue.player : red.player;
+                mover.confirm(status);
+                opponent.update(move, status);
+            }
+            aborted = referee.getTimedOut() != null || movedTo != null;
+        } catch (Exception e) {
+            status = Status.Illegal;
+            error  = e.toString();
+        } finally {
+            close(red.player, aborted);
+            close(blue.player, aborted);
+            if (!feed.completeExceptionally(new IllegalStateException("Match " + id + " is over"))) feed.join().close();
+        }
+        Result result = new Result(id, size, red.name, blue.name, status, plies, (System.nanoTime() - start) / 1000000L, error,
+                                   movedTo == null ? null : movedTo.toString());
+        red.result.complete(result);
+        blue.result.complete(result);
+        return result;
+    }
+
+    /**
+     * Moves the match to another server. Both players have processed the last move, so the game continues there with the
+     * request of the player whose turn it is.
+     * @param  board board of the match
+     * @param  log   moves made so far
+     * @return       server the players were sent to, null if the match stays here
+     */
+    private Redirect handOver(final GameBoard board, final List<Move> log) {
+        migrate = false;
+        if (!isMigratable()) return null;
+        long token;
+        do {
+            token = ThreadLocalRandom.current().nextLong();
+        } while (token == 0);
+        GameSnapshot snapshot = new GameSnapshot(token, size, red.name, blue.name, board.positionHash(), log);
+        try {
+            Redirect target = migrator.migrate(snapshot);
+            ((SocketPlayer) red.player).redirect(target.of(PlayerColor.Red));
+            ((SocketPlayer) blue.player).redirect(target.of(PlayerColor.Blue));
+            return target;
+        } catch (IOException e) {
+            System.err.println("Match " + id + " could not move: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Closes the connection of a remote player. After a regular end this reads the replies of the last pipelined calls,
+     * after a failure or a timeout the connection is dropped at once, because a call may still be running.
+     * @param player  player of the match
+     * @param aborted true if the match did not end regularly
+     */
+    private static void close(final Player player, final boolean aborted) {
+        try {
+            if (aborted && player instanceof SocketPlayer) ((SocketPlayer) player).abort();
+            else if (player instanceof Closeable) ((Closeable) player).close();
+        } catch (IOException e) {
+            // the match is over, a player that went away early does not change the result
+        }
+    }
+
+    /**
+     * Finds a server that takes over a match, see {@link nowhere2gopp.gamelogic.server.ShardAgent ShardAgent}
+     */
+    @FunctionalInterface
+    interface Migrator {
+        /**
+         * Hands the snapshot of a match to another server
+         * @param  snapshot    the match
+         * @return             server that continues the match, the players have to be sent there
+         * @throws IOException if no server took the match
+         */
+        Redirect migrate(GameSnapshot snapshot) throws IOException;
+    }
+
+    /**
+     * A player waiting in the lobby or playing a match
+     */
+    static final class Seat {
+        /**
+         * Name of the player
+         */
+        final String name;
+
+        /**
+         * The player
+         */
+        final Player player;
+
+        /**
+         * Completed with the result of the match of the player
+         */
+        final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        Seat(final String name, final Player player) {
+            this.name   = name;
+            this.player = player;
+        }
+    }
+
+    /**
+     * Result of a match
+     */
+    public static final class Result {
+        /**
+         * Number of the match
+         */
+        public final int id;
+
+        /**
+         * Board size
+         */
+        public final int size;
+
+        /**
+         * Name of the red player
+         */
+        public final String red;
+
+        /**
+         * Name of the blue player
+         */
+        public final String blue;
+
+        /**
+         * Final status, {@link nowhere2gopp.preset.Status#Illegal Illegal} if the match failed
+         */
+        public final Status status;
+
+        /**
+         * Number of moves made
+         */
+        public final int plies;
+
+        /**
+         * Duration in milliseconds
+         */
+        public final long millis;
+
+        /**
+         * Exception that ended the match, null if it ended regularly
+         */
+        public final String error;
+
+        /**
+         * Server the match moved to before it ended, null if it was played here to the end
+         */
+        public final String movedTo;
+
+        Result(final int id, final int size, final String red, final String blue, final Status status, final int plies,
+               final long millis, final String error, final String movedTo) {
+            this.id      = id;
+            this.size    = size;
+            this.red     = red;
+            this.blue    = blue;
+            this.status  = status;
+            this.plies   = plies;
+            this.millis  = millis;
+            this.error   = error;
+            this.movedTo = movedTo;
+        }
+
+        @Override
+        public String toString() {
+            if (movedTo != null) {
+                return "Match " + id + " (size " + size + ") " + red + " vs " + blue + ": moved to " + movedTo + " after " + plies + " plies";
+            }
+            return "Match " + id + " (size " + size + ") " + red + " vs " + blue + ": " + status + " after " + plies + " plies, "
+                   + millis + "ms" + (error == null ? "" : ", " + error);
+        }
+    }
+}
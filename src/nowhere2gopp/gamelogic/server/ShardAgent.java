@@ -0,0 +1,239 @@
+package nowhere2gopp.gamelogic.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import nowhere2gopp.gamelogic.net.FrameChannel;
+import nowhere2gopp.gamelogic.net.GameSnapshot;
+import nowhere2gopp.gamelogic.net.Protocol;
+import nowhere2gopp.gamelogic.net.Redirect;
+
+/**
+ * Connects a {@link nowhere2gopp.gamelogic.server.GameServer GameServer} to a {@link nowhere2gopp.gamelogic.server.Coordinator Coordinator}
+ * and makes it a shard. The agent registers the port of the server, reports its load twice a second, adopts the matches the
+ * coordinator hands over and moves matches of its server to other shards when the coordinator asks it to shed load or the
+ * server is drained. One reader thread reads all frames of the coordinator, the frames are written by the thread that sends them.
+ */
+public class ShardAgent implements Closeable, Match.Migrator {
+    /**
+     * Milliseconds between two load reports
+     */
+    private static final long LOAD_INTERVAL = 500;
+
+    /**
+     * Milliseconds the coordinator may take to find a server for a match
+     */
+    private static final long MIGRATE_TIMEOUT = 10000;
+
+    /**
+     * Connection to the coordinator
+     */
+    private final FrameChannel channel;
+
+    /**
+     * Address of the coordinator, players waiting in the lobby are sent there when the server is drained
+     */
+    private final Redirect coordinator;
+
+    /**
+     * The game server of this shard
+     */
+    private final GameServer server;
+
+    /**
+     * Sends the load reports
+     */
+    private final ScheduledExecutorService reports;
+
+    /**
+     * Reply to the outstanding MIGRATE frame
+     */
+    private volatile CompletableFuture<Redirect> pending;
+
+    /**
+     * Allows one outstanding MIGRATE frame at a time
+     */
+    private final Object migrateLock = new Object();
+
+    /**
+     * Connects the server to the coordinator
+     * @param  host        host of the coordinator
+     * @param  port        port of the coordinator
+     * @param  server      game server of the shard
+     * @param  serverPort  port the server accepts players on
+     * @throws IOException if the coordinator can not be reached
+     */
+    public ShardAgent(final String host, final int port, final GameServer server, final int serverPort) throws IOException {
+        this.server      = server;
+        this.coordinator = new Redirect(host, port, 0, null);
+        channel          = new FrameChannel(SocketChannel.open(new InetSocketAddress(host, port)));
+        synchronized (channel) {
+            channel.begin(Protocol.REGISTER).putInt(serverPort);
+            channel.send();
+        }
+        server.setMigrator(this);
+
+        reports = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "shard-load");
+            t.setDaemon(true);
+            return t;
+        });
+        Thread reader = new Thread(this::read, "shard-agent");
+        reader.setDaemon(true);
+        reader.start();
+        reports.scheduleAtFixedRate(this::reportLoad, 0, LOAD_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads the frames of the coordinator until the connection is closed
+     */
+    private void read() {
+        try {
+            while (true) {
+                byte op = channel.receive();
+                ByteBuffer in = channel.payload();
+                switch (op) {
+                case Protocol.ADOPT:
+                    adopt(GameSnapshot.get(in));
+                    break;
+
+                case Protocol.SHED:
+                    int count = in.getInt();
+                    System.out.println("Moving " + server.migrate(count) + " of " + count + " matches to other shards");
+                    break;
+
+                case Protocol.REDIRECT:
+                    complete(Redirect.get(in), null);
+                    break;
+
+                case Protocol.ERROR:
+                    complete(null, new IOException(Protocol.getString(in)));
+                    break;
+
+                default:
+                    throw new IOException("Unexpected op code " + op);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Lost the coordinator: " + e.getMessage());
+            server.setMigrator(null);
+            reports.shutdown();
+            complete(null, e);
+        }
+    }
+
+    /**
+     * Adopts a match and answers the coordinator
+     * @param  snapshot    the match
+     * @throws IOException if the connection is broken
+     */
+    private void adopt(final GameSnapshot snapshot) throws IOException {
+        String error = null;
+        try {
+            server.adopt(snapshot);
+        } catch (RuntimeException e) {
+            error = e.toString();
+        }
+        synchronized (channel) {
+            if (error == null) channel.begin(Protocol.OK);
+            else Protocol.putString(channel.begin(Protocol.ERROR), error);
+            channel.send();
+        }
+    }
+
+    /**
+     * Completes the outstanding MIGRATE frame
+     * @param target server that took the match, null if it failed
+     * @param error  reason of the failure
+     */
+    private void complete(final Redirect target, final IOException error) {
+        CompletableFuture<Redirect> reply = pending;
+        if (reply == null) return;
+        if (error == null) reply.complete(target);
+        else reply.completeExceptionally(error);
+    }
+
+    /**
+     * Reports the running and queued matches and the CPU load of the process
+     */
+    private void reportLoad() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        double cpu = os instanceof com.sun.management.OperatingSystemMXBean
+                     ? ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuLoad() : -1;
+        try {
+            synchronized (channel) {
+                channel.begin(Protocol.LOAD).putInt(server.getRunning()).putInt(server.getQueued()).putShort((short) (cpu < 0 ? 0 : cpu * 1000));
+                channel.send();
+            }
+        } catch (IOException e) {
+            reports.shutdown(); // the reader reports the lost connection
+        }
+    }
+
+    /**
+     * Asks the coordinator for another shard and hands the match to it
+     */
+    @Override
+    public Redirect migrate(final GameSnapshot snapshot) throws IOException {
+        synchronized (migrateLock) {
+            CompletableFuture<Redirect> reply = new CompletableFuture<>();
+            pending = reply;
+            synchronized (channel) {
+                snapshot.put(channel.begin(Protocol.MIGRATE, snapshot.byteSize()));
+                channel.send();
+            }
+            try {
+                return reply.get(MIGRATE_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+            } catch (TimeoutException | InterruptedException e) {
+                throw new IOException("Coordinator did not answer");
+            } finally {
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * Tells the coordinator that the shard leaves and moves all matches of the server to other shards
+     * @param  timeoutMillis longest time to wait for the matches
+     * @return               number of matches still running after the timeout
+     */
+    public int drain(final long timeoutMillis) {
+        try {
+            synchronized (channel) {
+                channel.begin(Protocol.DRAIN);
+                channel.send();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not tell the coordinator: " + e.getMessage());
+        }
+        try {
+            return server.drain(coordinator, timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    /**
+     * Leaves the coordinator
+     */
+    @Override
+    public void close() throws IOException {
+        reports.shutdown();
+        server.setMigrator(null);
+        channel.close();
+    }
+}
@@ -0,0 +1,161 @@
+package nowhere2gopp.gamelogic.spectator;
+
+import java.util.Arrays;
+
+import nowhere2gopp.gamelogic.GamePhase;
+import nowhere2gopp.preset.MoveType;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Site;
+import nowhere2gopp.preset.SiteSet;
+import nowhere2gopp.preset.Status;
+
+/**
+ * The change of the board by one move: the removed links, the jump of the agent and the state after the move.
+ * Immutable, so one delta is shared by all spectators of a feed.
+ */
+public final class BoardDelta implements SpectatorEvent {
+    /**
+     * Moves published up to and including this one
+     */
+    private final long sequence;
+
+    /**
+     * Player that made the move
+     */
+    private final PlayerColor mover;
+
+    /**
+     * Type of the move
+     */
+    private final MoveType type;
+
+    /**
+     * Links removed by the move, two in phase one, one afterwards, none for a surrender
+     */
+    private final SiteSet[] removedLinks;
+
+    /**
+     * Site the agent of the mover left, null if it was not placed yet or did not move
+     */
+    private final Site agentFrom;
+
+    /**
+     * Site the agent of the mover jumped to, null if it did not move
+     */
+    private final Site agentTo;
+
+    /**
+     * Status after the move
+     */
+    private final Status status;
+
+    /**
+     * Phase after the move
+     */
+    private final GamePhase phase;
+
+    /**
+     * Player whose turn it is after the move
+     */
+    private final PlayerColor turn;
+
+    /**
+     * Rounds after the move
+     */
+    private final int rounds;
+
+    /**
+     * Constructor of a delta
+     * @param sequence     moves published up to and including this one
+     * @param mover        player that made the move
+     * @param type         type of the move
+     * @param removedLinks links removed by the move, not copied
+     * @param agentFrom    site the agent left, may be null
+     * @param agentTo      site the agent jumped to, null if it did not move
+     * @param status       status after the move
+     * @param phase        phase after the move
+     * @param turn         turn after the move
+     * @param rounds       rounds after the move
+     */
+    public BoardDelta(final long sequence, final PlayerColor mover, final MoveType type, final SiteSet[] removedLinks, final Site agentFrom,
+                      final Site agentTo, final Status status, final GamePhase phase, final PlayerColor turn, final int rounds) {
+        this.sequence     = sequence;
+        this.mover        = mover;
+        this.type         = type;
+        this.removedLinks = removedLinks;
+        this.agentFrom    = agentFrom;
+        this.agentTo      = agentTo;
+        this.status       = status;
+        this.phase        = phase;
+        this.turn         = turn;
+        this.rounds       = rounds;
+    }
+
+    @Override
+    public long getSequence() {
+        return sequence;
+    }
+
+    public PlayerColor getMover() {
+        return mover;
+    }
+
+    public MoveType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the links removed by the move
+     * @return copy of the removed links
+     */
+    public SiteSet[] getRemovedLinks() {
+        return removedLinks.clone();
+    }
+
+    public Site getAgentFrom() {
+        return agentFrom;
+    }
+
+    public Site getAgentTo() {
+        return agentTo;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public GamePhase getPhase() {
+        return phase;
+    }
+
+    public PlayerColor getTurn() {
+        return turn;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * Returns the number of links removed by the move, without copying them
+     * @return 0, 1 or 2
+     */
+    int removedCount() {
+        return removedLinks.length;
+    }
+
+    /**
+     * Returns a removed link without copying the array
+     * @param  i index of the link
+     * @return   the link
+     */
+    SiteSet removedLink(final int i) {
+        return removedLinks[i];
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + mover + " " + type + (agentTo == null ? "" : " agent " + agentFrom + " -> " + agentTo)
+               + " removed " + Arrays.toString(removedLinks) + ", " + status + ", phase " + phase + ", " + turn + " to move";
+    }
+}
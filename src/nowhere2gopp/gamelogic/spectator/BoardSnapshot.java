@@ -0,0 +1,137 @@
+package nowhere2gopp.gamelogic.spectator;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import nowhere2gopp.gamelogic.GamePhase;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Site;
+import nowhere2gopp.preset.SiteSet;
+import nowhere2gopp.preset.Status;
+
+/**
+ * The whole board at one point of the game: the remaining links, the agents and the state. A spectator gets one when it
+ * subscribes and, with {@link nowhere2gopp.gamelogic.spectator.OverflowPolicy#SNAPSHOT SNAPSHOT}, when it fell too far behind.
+ * Immutable.
+ */
+public final class BoardSnapshot implements SpectatorEvent {
+    /**
+     * Moves published so far
+     */
+    private final long sequence;
+
+    /**
+     * Board size
+     */
+    private final int size;
+
+    /**
+     * Remaining links
+     */
+    private final List<SiteSet> links;
+
+    /**
+     * Site of the red agent, null if it is not placed yet
+     */
+    private final Site redAgent;
+
+    /**
+     * Site of the blue agent, null if it is not placed yet
+     */
+    private final Site blueAgent;
+
+    /**
+     * Status of the board
+     */
+    private final Status status;
+
+    /**
+     * Phase of the game
+     */
+    private final GamePhase phase;
+
+    /**
+     * Player whose turn it is
+     */
+    private final PlayerColor turn;
+
+    /**
+     * Rounds played
+     */
+    private final int rounds;
+
+    /**
+     * Constructor of a snapshot
+     * @param sequence  moves published so far
+     * @param size      board size
+     * @param links     remaining links, copied
+     * @param redAgent  site of the red agent, may be null
+     * @param blueAgent site of the blue agent, may be null
+     * @param status    status of the board
+     * @param phase     phase of the game
+     * @param turn      player whose turn it is
+     * @param rounds    rounds played
+     */
+    public BoardSnapshot(final long sequence, final int size, final Collection<SiteSet> links, final Site redAgent, final Site blueAgent,
+                         final Status status, final GamePhase phase, final PlayerColor turn, final int rounds) {
+        this.sequence  = sequence;
+        this.size      = size;
+        this.links     = Collections.unmodifiableList(Arrays.asList(links.toArray(new SiteSet[0])));
+        this.redAgent  = redAgent;
+        this.blueAgent = blueAgent;
+        this.status    = status;
+        this.phase     = phase;
+        this.turn      = turn;
+        this.rounds    = rounds;
+    }
+
+    @Override
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the remaining links
+     * @return unmodifiable list of the links
+     */
+    public List<SiteSet> getLinks() {
+        return links;
+    }
+
+    /**
+     * Returns the site of an agent
+     * @param  color color of the agent
+     * @return       its site, null if it is not placed yet
+     */
+    public Site getAgent(final PlayerColor color) {
+        return color == PlayerColor.Red ? redAgent : blueAgent;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public GamePhase getPhase() {
+        return phase;
+    }
+
+    public PlayerColor getTurn() {
+        return turn;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " snapshot size " + size + ", " + links.size() + " links, red " + redAgent + ", blue " + blueAgent
+               + ", " + status + ", phase " + phase + ", " + turn + " to move";
+    }
+}
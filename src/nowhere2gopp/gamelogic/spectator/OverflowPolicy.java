@@ -0,0 +1,19 @@
+package nowhere2gopp.gamelogic.spectator;
+
+/**
+ * What a {@link nowhere2gopp.gamelogic.spectator.Subscription Subscription} does when its spectator falls so far behind that
+ * the deltas it did not read yet were overwritten in the ring buffer of the feed.
+ */
+public enum OverflowPolicy {
+    /**
+     * Skips the lost deltas and continues with the oldest delta that is still buffered,
+     * for spectators that only show the latest moves, e.g. a ticker
+     */
+    DROP,
+
+    /**
+     * Delivers a fresh snapshot of the board and continues with the deltas after it,
+     * for spectators that keep a copy of the board
+     */
+    SNAPSHOT
+}
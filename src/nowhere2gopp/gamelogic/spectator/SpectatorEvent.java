@@ -0,0 +1,15 @@
+package nowhere2gopp.gamelogic.spectator;
+
+/**
+ * An event of a {@link nowhere2gopp.gamelogic.spectator.SpectatorFeed SpectatorFeed}, either a
+ * {@link nowhere2gopp.gamelogic.spectator.BoardSnapshot BoardSnapshot} of the whole board or the
+ * {@link nowhere2gopp.gamelogic.spectator.BoardDelta BoardDelta} of one move.
+ */
+public interface SpectatorEvent {
+    /**
+     * Returns the number of moves the feed published up to this event. A delta with sequence n applies to
+     * the snapshot or delta with sequence n - 1.
+     * @return moves published so far
+     */
+    long getSequence();
+}
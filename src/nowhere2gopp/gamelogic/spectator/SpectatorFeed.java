@@ -0,0 +1,243 @@
+package nowhere2gopp.gamelogic.spectator;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import nowhere2gopp.gamelogic.GameBoard;
+import nowhere2gopp.gamelogic.GamePhase;
+import nowhere2gopp.preset.Move;
+import nowhere2gopp.preset.PlayerColor;
+import nowhere2gopp.preset.Site;
+import nowhere2gopp.preset.SiteSet;
+import nowhere2gopp.preset.Status;
+
+/**
+ * Broadcasts the moves of one {@link nowhere2gopp.gamelogic.GameBoard GameBoard} to any number of spectators, see
+ * {@link nowhere2gopp.gamelogic.GameBoard#spectate() GameBoard.spectate}. Every move becomes one immutable
+ * {@link nowhere2gopp.gamelogic.spectator.BoardDelta BoardDelta} in a bounded ring buffer that all
+ * {@link nowhere2gopp.gamelogic.spectator.Subscription Subscriptions} share, each reads it with a cursor of its own.
+ * So publishing a move costs the same for one spectator and for hundreds and never waits for them: a spectator that
+ * falls more than the capacity behind loses deltas and is handled by its {@link nowhere2gopp.gamelogic.spectator.OverflowPolicy OverflowPolicy}.
+ * <p>
+ * The feed keeps its own copy of the links, agents and state, updated from the deltas, so snapshots for joining or lagging
+ * spectators are made from any thread without touching the board, which belongs to the thread of the game.
+ */
+public final class SpectatorFeed {
+    /**
+     * Default capacity of the ring buffer, more than the moves of a game on the largest board
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * Deltas, the delta with sequence n is in slot n &amp; {@link #mask mask}
+     */
+    private final AtomicReferenceArray<BoardDelta> ring;
+
+    /**
+     * Capacity of the ring minus one, the capacity is a power of two
+     */
+    private final int mask;
+
+    /**
+     * Sequence of the last published delta
+     */
+    private volatile long head;
+
+    /**
+     * Set when the game is over, spectators read the remaining deltas and stop
+     */
+    private volatile boolean closed;
+
+    /**
+     * Spectators waiting in {@link Subscription#poll(long) poll}
+     */
+    private int waiting;
+
+    /**
+     * Board size
+     */
+    private final int size;
+
+    /**
+     * Remaining links, as far as the published deltas go
+     */
+    private final Set<SiteSet> links;
+
+    /**
+     * Site of the red agent
+     */
+    private Site redAgent;
+
+    /**
+     * Site of the blue agent
+     */
+    private Site blueAgent;
+
+    /**
+     * Status of the board
+     */
+    private Status status;
+
+    /**
+     * Phase of the game
+     */
+    private GamePhase phase;
+
+    /**
+     * Player whose turn it is
+     */
+    private PlayerColor turn;
+
+    /**
+     * Rounds played
+     */
+    private int rounds;
+
+    /**
+     * Creates a feed that starts at the current position of the board. Must be called by the thread that makes the moves.
+     * @param board    board to broadcast
+     * @param capacity deltas a spectator may fall behind, rounded up to a power of two
+     */
+    public SpectatorFeed(final GameBoard board, final int capacity) {
+        int slots = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        ring      = new AtomicReferenceArray<>(slots);
+        mask      = slots - 1;
+        size      = board.getSize();
+        links     = new HashSet<>(board.getLinks());
+        redAgent  = board.getAgent(PlayerColor.Red);
+        blueAgent = board.getAgent(PlayerColor.Blue);
+        status    = board.getStatus();
+        phase     = board.getGamePhase();
+        turn      = board.getTurn();
+        rounds    = board.getRounds();
+    }
+
+    /**
+     * Publishes a move. Called by {@link nowhere2gopp.gamelogic.GameBoard#make(Move) GameBoard.make} after the move was made.
+     * @param board board after the move
+     * @param move  the move
+     * @param mover player that made the move
+     * @param from  site of the agent of the mover before the move
+     */
+    public void moveMade(final GameBoard board, final Move move, final PlayerColor mover, final Site from) {
+        SiteSet[] removed;
+        Site      to = null;
+        switch (move.getType()) {
+        case LinkLink:
+            removed = new SiteSet[] { move.getOneLink(), move.getOtherLink() };
+            break;
+
+        case AgentLink:
+            removed = new SiteSet[] { move.getLink() };
+            to      = move.getAgent().getSecond();
+            break;
+
+        default:
+            removed = new SiteSet[0];
+            break;
+        }
+        publish(new BoardDelta(head + 1, mover, move.getType(), removed, from, to, board.getStatus(), board.getGamePhase(),
+                               board.getTurn(), board.getRounds()));
+    }
+
+    /**
+     * Applies a delta to the copy of the board and puts it into the ring
+     * @param delta delta of the next move
+     */
+    private synchronized void publish(final BoardDelta delta) {
+        for (int i = 0; i < delta.removedCount(); i++) {
+            links.remove(delta.removedLink(i));
+        }
+        if (delta.getAgentTo() != null) {
+            if (delta.getMover() == PlayerColor.Red) redAgent = delta.getAgentTo();
+            else blueAgent = delta.getAgentTo();
+        }
+        status = delta.getStatus();
+        phase  = delta.getPhase();
+        turn   = delta.getTurn();
+        rounds = delta.getRounds();
+
+        ring.set((int) (delta.getSequence() & mask), delta);
+        head = delta.getSequence();
+        if (waiting > 0) notifyAll();
+    }
+
+    /**
+     * Subscribes a spectator. Its first event is a snapshot of the current position.
+     * @param  policy what happens when the spectator falls too far behind
+     * @return        the subscription
+     */
+    public Subscription subscribe(final OverflowPolicy policy) {
+        return new Subscription(this, policy);
+    }
+
+    /**
+     * Ends the feed, spectators read the remaining deltas and then stop
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Returns a snapshot of the position after the last published delta
+     * @return the snapshot
+     */
+    synchronized BoardSnapshot snapshot() {
+        return new BoardSnapshot(head, size, links, redAgent, blueAgent, status, phase, turn, rounds);
+    }
+
+    /**
+     * Returns the delta with the given sequence
+     * @param  sequence sequence of the delta
+     * @return          the delta, or a newer one or null if the slot was overwritten or not written yet
+     */
+    BoardDelta slot(final long sequence) {
+        return ring.get((int) (sequence & mask));
+    }
+
+    /**
+     * Waits until a delta after the given sequence is published, the feed is closed or the time is up
+     * @param  sequence             sequence the spectator has read
+     * @param  millis               longest time to wait
+     * @throws InterruptedException if the thread is interrupted
+     */
+    synchronized void await(final long sequence, final long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        waiting++;
+        try {
+            long left = millis;
+            while (head <= sequence && !closed && left > 0) {
+                wait(left);
+                left = deadline - System.currentTimeMillis();
+            }
+        } finally {
+            waiting--;
+        }
+    }
+
+    /**
+     * Returns the sequence of the last published delta
+     * @return moves published so far
+     */
+    public long getHead() {
+        return head;
+    }
+
+    /**
+     * Returns the number of deltas a spectator may fall behind
+     * @return capacity of the ring buffer
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns true if the game is over
+     * @return true if the feed is closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+}
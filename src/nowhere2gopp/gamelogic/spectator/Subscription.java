@@ -0,0 +1,126 @@
+package nowhere2gopp.gamelogic.spectator;
+
+/**
+ * A spectator of a {@link nowhere2gopp.gamelogic.spectator.SpectatorFeed SpectatorFeed}. The first event is a snapshot of the
+ * board, then one delta per move. A subscription is read by one thread; it never blocks the thread that makes the moves.
+ */
+public final class Subscription implements AutoCloseable {
+    /**
+     * Feed of the game
+     */
+    private final SpectatorFeed feed;
+
+    /**
+     * What happens when the spectator falls too far behind
+     */
+    private final OverflowPolicy policy;
+
+    /**
+     * Sequence of the last event that was delivered
+     */
+    private long cursor;
+
+    /**
+     * Set if the next event has to be a snapshot, at first and after an overflow with {@link OverflowPolicy#SNAPSHOT SNAPSHOT}
+     */
+    private boolean resync = true;
+
+    /**
+     * Deltas the spectator missed
+     */
+    private long dropped;
+
+    /**
+     * Set when the spectator is gone
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructor of a subscription, see {@link SpectatorFeed#subscribe(OverflowPolicy) subscribe}
+     * @param feed   feed of the game
+     * @param policy what happens when the spectator falls too far behind
+     */
+    Subscription(final SpectatorFeed feed, final OverflowPolicy policy) {
+        this.feed   = feed;
+        this.policy = policy;
+    }
+
+    /**
+     * Returns the next event without waiting
+     * @return snapshot or delta, null if there is no new event
+     */
+    public SpectatorEvent next() {
+        if (closed) return null;
+        if (resync) {
+            resync = false;
+            BoardSnapshot snapshot = feed.snapshot();
+            cursor = snapshot.getSequence();
+            return snapshot;
+        }
+        while (feed.getHead() > cursor) {
+            BoardDelta delta = feed.slot(cursor + 1);
+            if (delta != null && delta.getSequence() == cursor + 1) {
+                cursor++;
+                return delta;
+            }
+            // overwritten by the producer, the spectator is more than the capacity behind
+            if (policy == OverflowPolicy.SNAPSHOT) {
+                BoardSnapshot snapshot = feed.snapshot();
+                dropped += snapshot.getSequence() - cursor;
+                cursor = snapshot.getSequence();
+                return snapshot;
+            }
+            long oldest = feed.getHead() - feed.getCapacity() + 1;
+            dropped += oldest - 1 - cursor;
+            cursor = oldest - 1;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the next event, waits for it if necessary
+     * @param  millis               longest time to wait
+     * @return                      snapshot or delta, null if there was none in time or the game is over
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public SpectatorEvent poll(final long millis) throws InterruptedException {
+        SpectatorEvent event = next();
+        if (event == null && !closed) {
+            feed.await(cursor, millis);
+            event = next();
+        }
+        return event;
+    }
+
+    /**
+     * Returns true if the game is over and every delta was read, or the subscription is closed
+     * @return true if no event will follow
+     */
+    public boolean isDone() {
+        return closed || (feed.isClosed() && !resync && cursor >= feed.getHead());
+    }
+
+    /**
+     * Returns the number of deltas the spectator missed because it fell too far behind
+     * @return missed deltas
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Returns the policy of this subscription
+     * @return what happens when the spectator falls too far behind
+     */
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Unsubscribes the spectator
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
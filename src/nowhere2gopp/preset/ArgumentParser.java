@@ -274,4 +274,278 @@ public class ArgumentParser {
     public boolean isBlueTextEnabled() throws ArgumentParserException {
         return getFlag("blueTextEnabled");
     }
+
+    /**
+     * Die "players" Einstellung gibt die Spielertypen eines Turniers als Komma separierte Liste an.
+     */
+    public List<PlayerType> getPlayers() throws ArgumentParserException {
+        List<PlayerType> players = new ArrayList<>();
+        for (String type : ((String)getSetting("players")).split(",")) {
+            players.add(parsePlayerType(type.trim()));
+        }
+        return players;
+    }
+
+    /**
+     * Die "sizes" Einstellung gibt die Spielfeldgroessen eines Turniers als Komma separierte Liste an.
+     */
+    public int[] getSizes() throws ArgumentParserException {
+        String[] parts = ((String)getSetting("sizes")).split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim());
+        }
+        return sizes;
+    }
+
+    public int getGames() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("games"));
+    }
+
+    public int getThreads() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("threads"));
+    }
+
+    public String getPairing() throws ArgumentParserException {
+        return (String)getSetting("pairing");
+    }
+
+    public String getCsv() throws ArgumentParserException {
+        return (String)getSetting("csv");
+    }
+
+    public String getJson() throws ArgumentParserException {
+        return (String)getSetting("json");
+    }
+
+    /**
+     * Die "movetime" Einstellung gibt die Bedenkzeit pro Zug in Millisekunden an.
+     */
+    public long getMoveTime() throws ArgumentParserException {
+        return Long.parseLong((String)getSetting("movetime"));
+    }
+
+    /**
+     * Die "clock" Einstellung gibt die gesamte Bedenkzeit pro Spieler in Millisekunden an.
+     */
+    public long getClock() throws ArgumentParserException {
+        return Long.parseLong((String)getSetting("clock"));
+    }
+
+    /**
+     * Die "increment" Einstellung gibt an, wie viele Millisekunden nach jedem Zug auf die Uhr addiert werden.
+     */
+    public long getIncrement() throws ArgumentParserException {
+        return Long.parseLong((String)getSetting("increment"));
+    }
+
+    /**
+     * Die "depth" Einstellung gibt die Tiefe von Perft an.
+     */
+    public int getDepth() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("depth"));
+    }
+
+    /**
+     * Die "moves" Einstellung gibt die Zuege zur Startstellung von Perft als Leerzeichen separierte Liste an.
+     */
+    public String getMoves() throws ArgumentParserException {
+        return (String)getSetting("moves");
+    }
+
+    public boolean isCache() throws ArgumentParserException {
+        return getFlag("cache");
+    }
+
+    public boolean isDivide() throws ArgumentParserException {
+        return getFlag("divide");
+    }
+
+    public boolean isVerify() throws ArgumentParserException {
+        return getFlag("verify");
+    }
+
+    public boolean isMetrics() throws ArgumentParserException {
+        return getFlag("metrics");
+    }
+
+    /**
+     * Die "metricsport" Einstellung gibt den Port des lokalen Metrik Endpunkts an.
+     */
+    public int getMetricsPort() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("metricsport"));
+    }
+
+    public boolean isSearchInfo() throws ArgumentParserException {
+        return getFlag("searchinfo");
+    }
+
+    /**
+     * Die "searchlog" Einstellung gibt die Datei an, an die die Suchinformationen der KI angehaengt werden.
+     */
+    public String getSearchLog() throws ArgumentParserException {
+        return (String)getSetting("searchlog");
+    }
+
+    /**
+     * Die "delayms" Einstellung gibt die Verzoegerung zwischen zwei KI Zuegen in Millisekunden an und ersetzt "delay".
+     */
+    public long getDelayMillis() throws ArgumentParserException {
+        return Long.parseLong((String)getSetting("delayms"));
+    }
+
+    public boolean isSocket() throws ArgumentParserException {
+        return getFlag("socket");
+    }
+
+    /**
+     * Die "port" Einstellung gibt den Port des Spielservers an.
+     */
+    public int getPort() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("port"));
+    }
+
+    /**
+     * Die "maxgames" Einstellung gibt an, wie viele Spiele der Spielserver hoechstens gleichzeitig ausfuehrt.
+     */
+    public int getMaxGames() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("maxgames"));
+    }
+
+    /**
+     * Die "local" Einstellung gibt an, wie viele Spiele lokaler Spieler der Spielserver als Lasttest ausfuehrt.
+     */
+    public int getLocal() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("local"));
+    }
+
+    /**
+     * Die "server" Einstellung gibt den Host des Spielservers an.
+     */
+    public String getServer() throws ArgumentParserException {
+        return (String)getSetting("server");
+    }
+
+    /**
+     * Die "name" Einstellung gibt den Namen des Spielers an.
+     */
+    public String getName() throws ArgumentParserException {
+        return (String)getSetting("name");
+    }
+
+    public PlayerType getPlayer() throws ArgumentParserException {
+        return parsePlayerType((String)getSetting("player"));
+    }
+
+    /**
+     * Die "coordinator" Einstellung gibt Host und Port des Koordinators an, bei dem sich ein Spielserver als Shard anmeldet.
+     */
+    public String getCoordinator() throws ArgumentParserException {
+        return (String)getSetting("coordinator");
+    }
+
+    /**
+     * Die "match" Einstellung gibt die Nummer des Spiels an, das ein Zuschauer verfolgt.
+     */
+    public int getMatch() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("match"));
+    }
+
+    /**
+     * Die "viewers" Einstellung gibt an, wie viele Zuschauer sich als Lasttest verbinden.
+     */
+    public int getViewers() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("viewers"));
+    }
+
+    /**
+     * Der "drop" Schalter laesst einen langsamen Zuschauer verpasste Zuege ueberspringen, statt ihm ein neues Abbild zu schicken.
+     */
+    public boolean isDrop() throws ArgumentParserException {
+        return getFlag("drop");
+    }
+
+    /**
+     * Die "animation" Einstellung gibt die Zeit zwischen zwei Schritten einer Zuganimation in Millisekunden an, 0 zeigt Zuege sofort.
+     */
+    public int getAnimation() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("animation"));
+    }
+
+    /**
+     * Der "canvas" Schalter zeichnet das Spielbrett auf einer einzigen Flaeche statt mit einem Knopf pro Feld und Verbindung.
+     */
+    public boolean isCanvas() throws ArgumentParserException {
+        return getFlag("canvas");
+    }
+
+    /**
+     * Die "analysis" Einstellung gibt an, wie viel Prozent eines Prozessors die Analyse fuer menschliche Spieler nutzen darf, 0 schaltet sie aus.
+     */
+    public int getAnalysis() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("analysis"));
+    }
+
+    /**
+     * Der "shared" Schalter laesst lokale Spieler das Spielbrett des Schiedsrichters lesen, statt eine eigene Kopie mitzufuehren.
+     */
+    public boolean isShared() throws ArgumentParserException {
+        return getFlag("shared");
+    }
+
+    /**
+     * Die "journal" Einstellung gibt die Datei an, in die der Schiedsrichter alle Zuege schreibt.
+     */
+    public String getJournal() throws ArgumentParserException {
+        return (String)getSetting("journal");
+    }
+
+    /**
+     * Die "file" Einstellung gibt die Datei an, die gelesen oder geschrieben wird.
+     */
+    public String getFile() throws ArgumentParserException {
+        return (String)getSetting("file");
+    }
+
+    /**
+     * Die "game" Einstellung gibt die Nummer eines Spiels im Journal an.
+     */
+    public int getGame() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("game"));
+    }
+
+    /**
+     * Die "ply" Einstellung gibt an, nach wie vielen Zuegen eine Aufzeichnung gezeigt wird.
+     */
+    public int getPly() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("ply"));
+    }
+
+    /**
+     * Die "keyframes" Einstellung gibt an, nach wie vielen Zuegen eine Aufzeichnung die ganze Stellung speichert.
+     */
+    public int getKeyframes() throws ArgumentParserException {
+        return Integer.parseInt((String)getSetting("keyframes"));
+    }
+
+    /**
+     * Die "archive" Einstellung gibt das Verzeichnis an, in dem alle Spiele eines Turniers archiviert werden.
+     */
+    public String getArchive() throws ArgumentParserException {
+        return (String)getSetting("archive");
+    }
+
+    /**
+     * Die "hash" Einstellung gibt den Hash einer Stellung hexadezimal an.
+     */
+    public long getHash() throws ArgumentParserException {
+        return Long.parseUnsignedLong((String)getSetting("hash"), 16);
+    }
+
+    /**
+     * Der "index" Schalter baut den Stellungsindex eines Archivs neu auf.
+     */
+    public boolean isIndex() throws ArgumentParserException {
+        return getFlag("index");
+    }
 }
@@ -3,8 +3,14 @@ package nowhere2gopp.preset;
 import java.io.Serializable;
 
 public class Site implements Serializable, Comparable<Site>{
-    /** max number of columns/rows, base for hash code */
-    public static final int BASE = 11;
+    /** largest base whose site pair hash codes still fit into an int, see {@link SitePair#NEXT_HASH} */
+    public static final int MAX_BASE = 215;
+
+    /**
+     * max number of columns/rows, base for hash code. 11 unless the system property
+     * nowhere2gopp.base is set, a board of size k needs a base of at least 2k+1
+     */
+    public static final int BASE = base();
 
     /** max hash code plus 1 */
     public static final int NEXT_HASH = BASE * BASE;
@@ -66,6 +72,15 @@ public class Site implements Serializable, Comparable<Site>{
 
     // static ==============================================
 
+    // ------------------------------------------------------
+    private static int base() {
+        int base = Integer.getInteger("nowhere2gopp.base", 11);
+
+        if ((base < 1) || (base > MAX_BASE)) throw new IllegalArgumentException("nowhere2gopp.base must be between 1 and " + MAX_BASE + " but was " + base);
+
+        return base;
+    }
+
     // -----------------------------------------------------
     public static Site parse(final String string) {
         if (string == null) throw new SiteFormatException("cannot parse empty string!");